@@ -7,8 +7,12 @@ import dev.milan.jpasolopractice.service.YogaSessionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.retry.annotation.EnableRetry;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableRetry
+@EnableScheduling
 public class JpaSoloPracticeApplication {
 	@Autowired
 	private PersonRepository personRepository;
@@ -0,0 +1,15 @@
+package dev.milan.jpasolopractice.controllers;
+
+/**
+ * Weak ETags built from version tags. They are weak because the JSON of an unchanged resource can still list members in
+ * a different order.
+ */
+final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    static String weak(String versionTag){
+        return versionTag == null ? null : "W/\"" + versionTag + "\"";
+    }
+}
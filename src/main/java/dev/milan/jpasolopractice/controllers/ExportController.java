@@ -0,0 +1,29 @@
+package dev.milan.jpasolopractice.controllers;
+
+import dev.milan.jpasolopractice.customException.ApiRequestException;
+import dev.milan.jpasolopractice.service.DataExport;
+import dev.milan.jpasolopractice.service.ExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Optional;
+
+@RestController
+public class ExportController {
+    @Autowired
+    private ExportService exportService;
+
+    @RequestMapping(value = "/export/{entity}", method = RequestMethod.GET)
+    public void export(@PathVariable(value = "entity") String entity, @RequestParam(value = "format") Optional<String> format
+            , @RequestParam(value = "from") Optional<String> from, @RequestParam(value = "to") Optional<String> to
+            , HttpServletResponse response) throws ApiRequestException, IOException {
+        DataExport export = exportService.prepare(entity, format, from, to);
+        response.setContentType(export.contentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(export.fileName()).build().toString());
+        export.body().writeTo(response.getOutputStream());
+    }
+}
@@ -0,0 +1,21 @@
+package dev.milan.jpasolopractice.controllers;
+
+import dev.milan.jpasolopractice.dto.KeysetPage;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+final class KeysetPageResponses {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private KeysetPageResponses() {
+    }
+
+    static <T> ResponseEntity<List<T>> of(KeysetPage<T> page){
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null){
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.content());
+    }
+}
@@ -3,14 +3,22 @@ package dev.milan.jpasolopractice.controllers;
 import com.github.fge.jsonpatch.JsonPatch;
 import dev.milan.jpasolopractice.customException.ApiRequestException;
 import dev.milan.jpasolopractice.customException.differentExceptions.NotFoundApiRequestException;
+import dev.milan.jpasolopractice.dto.ImportReport;
+import dev.milan.jpasolopractice.dto.PersonSummary;
 import dev.milan.jpasolopractice.model.Person;
 import dev.milan.jpasolopractice.model.YogaSession;
+import dev.milan.jpasolopractice.service.PersonImport;
 import dev.milan.jpasolopractice.service.PersonService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.util.List;
 import java.util.Optional;
@@ -19,10 +27,12 @@ import java.util.Optional;
 @RestController
 public class PersonController {
     private final PersonService personService;
+    private final PersonImport personImport;
 
     @Autowired
-    public PersonController(PersonService personService) {
+    public PersonController(PersonService personService, PersonImport personImport) {
         this.personService = personService;
+        this.personImport = personImport;
     }
 
     @RequestMapping(value = "/users",method = RequestMethod.POST)
@@ -35,20 +45,39 @@ public class PersonController {
 
         return ResponseEntity.created(location).body(created);
     }
+    @RequestMapping(value = "/users/import", method = RequestMethod.POST, consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ImportReport> importPeople(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType, InputStream body)
+            throws ApiRequestException, IOException {
+        return ResponseEntity.ok(personImport.importPeople(body, contentType));
+    }
+
     @RequestMapping(value = "/users/{id}",method = RequestMethod.GET)
-    public Person findPersonById(@PathVariable("id") int id) throws ApiRequestException{
+    public Person findPersonById(@PathVariable("id") int id, WebRequest request) throws ApiRequestException{
+        if (request.checkNotModified(EntityTags.weak(personService.findPersonVersionTag(id)))){
+            return null;
+        }
         return personService.findPersonById(id);
     }
 
     @RequestMapping(value = "/users", method = RequestMethod.GET)
-    public List<Person> findPeopleByParams(@RequestParam(value = "sessionId") Optional<String> sessionId, @RequestParam(value = "startAge")Optional<String> startAge
-            , @RequestParam(value = "endAge")Optional<String> endAge) throws ApiRequestException{
-        return personService.findPeopleByParams(sessionId, startAge, endAge);
+    public ResponseEntity<List<PersonSummary>> findPeopleByParams(@RequestParam(value = "sessionId") Optional<String> sessionId, @RequestParam(value = "startAge")Optional<String> startAge
+            , @RequestParam(value = "endAge")Optional<String> endAge, @RequestParam(value = "cursor") Optional<String> cursor
+            , @RequestParam(value = "size") Optional<String> size, WebRequest request) throws ApiRequestException{
+        if (request.checkNotModified(EntityTags.weak(personService.findPeopleVersionTag(sessionId)))){
+            return null;
+        }
+        if (cursor.isEmpty() && size.isEmpty()){
+            return ResponseEntity.ok(personService.findPeopleByParams(sessionId, startAge, endAge));
+        }
+        return KeysetPageResponses.of(personService.findPeoplePageByParams(sessionId, startAge, endAge, cursor, size));
     }
 
 
     @RequestMapping(value = "/users/{personId}/sessions",method = RequestMethod.GET)
-    public List<YogaSession> getAllSessionsFromPerson(@PathVariable(value = "personId") int personId) throws ApiRequestException{
+    public List<YogaSession> getAllSessionsFromPerson(@PathVariable(value = "personId") int personId, WebRequest request) throws ApiRequestException{
+        if (request.checkNotModified(EntityTags.weak(personService.findPersonSessionsVersionTag(personId)))){
+            return null;
+        }
         return personService.getAllSessionsFromPerson(personId);
     }
 
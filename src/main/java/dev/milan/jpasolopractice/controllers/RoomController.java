@@ -5,12 +5,19 @@ import com.github.fge.jsonpatch.JsonPatch;
 import dev.milan.jpasolopractice.customException.ApiRequestException;
 import dev.milan.jpasolopractice.customException.differentExceptions.BadRequestApiRequestException;
 import dev.milan.jpasolopractice.customException.differentExceptions.NotFoundApiRequestException;
+import dev.milan.jpasolopractice.dto.FreeSlot;
+import dev.milan.jpasolopractice.dto.PlacementReport;
+import dev.milan.jpasolopractice.dto.RoomSummary;
 import dev.milan.jpasolopractice.model.Room;
+import dev.milan.jpasolopractice.model.RoomTemplate;
 import dev.milan.jpasolopractice.model.YogaSession;
 import dev.milan.jpasolopractice.service.RoomService;
+import dev.milan.jpasolopractice.service.RoomTemplates;
+import dev.milan.jpasolopractice.service.SessionPlacements;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
@@ -21,9 +28,13 @@ import java.util.Optional;
 public class RoomController {
     @Autowired
     private RoomService roomService;
+    @Autowired
+    private RoomTemplates roomTemplates;
+    @Autowired
+    private SessionPlacements sessionPlacements;
 
     @RequestMapping(value = "/rooms", method = RequestMethod.POST)
-    public ResponseEntity<?> createARoom(@RequestBody ObjectNode objectNode) throws ApiRequestException {
+    public ResponseEntity<?> createARoom(@RequestBody ObjectNode objectNode, @RequestHeader(value = "Idempotency-Key") Optional<String> idempotencyKey) throws ApiRequestException {
         String date = null, type = null, openingHours = null, closingHours = null;
         try{
             date =  objectNode.get("date").textValue();
@@ -33,22 +44,37 @@ public class RoomController {
         }catch (NullPointerException e){
             BadRequestApiRequestException.throwBadRequestException("Bad request data. Properties for room creation are: date, type, openingHours, closingHours.");
         }
-        Room room = roomService.createARoom(date, openingHours, closingHours, type);
+        Room room = roomService.createARoom(date, openingHours, closingHours, type, idempotencyKey);
         URI location = ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}")
                 .buildAndExpand(room.getId()).toUri();
         return ResponseEntity.created(location).body(room);
     }
     @RequestMapping(value = "/rooms", method = RequestMethod.GET)
-    public List<Room> findAllRoomsBasedOnParams(@RequestParam(value = "date") Optional<String> date
-            , @RequestParam(value = "type") Optional<String> type){
-        return roomService.findAllRoomsBasedOnParams(date, type);
+    public ResponseEntity<List<RoomSummary>> findAllRoomsBasedOnParams(@RequestParam(value = "date") Optional<String> date
+            , @RequestParam(value = "type") Optional<String> type, @RequestParam(value = "cursor") Optional<String> cursor
+            , @RequestParam(value = "size") Optional<String> size, WebRequest request){
+        if (request.checkNotModified(EntityTags.weak(roomService.findRoomsVersionTag(date)))){
+            return null;
+        }
+        if (cursor.isEmpty() && size.isEmpty()){
+            return ResponseEntity.ok(roomService.findAllRoomsBasedOnParams(date, type));
+        }
+        return KeysetPageResponses.of(roomService.findRoomsPageBasedOnParams(date, type, cursor, size));
     }
 
     @RequestMapping(value = "/rooms/{id}", method = RequestMethod.GET)
-    public Room findRoomById(@PathVariable(value = "id") int roomId){
+    public Room findRoomById(@PathVariable(value = "id") int roomId, WebRequest request){
+        if (request.checkNotModified(EntityTags.weak(roomService.findRoomVersionTag(roomId)))){
+            return null;
+        }
         return roomService.findRoomById(roomId);
     }
 
+    @RequestMapping(value = "/rooms/{id}/free-slots", method = RequestMethod.GET)
+    public List<FreeSlot> findFreeSlots(@PathVariable(value = "id") int roomId, @RequestParam(value = "duration") String duration) throws ApiRequestException{
+        return roomService.findFreeSlots(roomId, duration);
+    }
+
     @RequestMapping(value = "/rooms/{id}",method = RequestMethod.DELETE)
     public ResponseEntity<?> removeRoom(@PathVariable(value = "id") int roomId) throws ApiRequestException{
         roomService.removeRoom(roomId);
@@ -63,12 +89,49 @@ public class RoomController {
         return ResponseEntity.created(location).body(session);
     }
 
+    @RequestMapping(value = "/sessions/{sessionId}/room", method = RequestMethod.PUT)
+    public ResponseEntity<?> addSessionToDayRoom(@PathVariable("sessionId") int sessionId) throws ApiRequestException{
+        YogaSession session = roomService.addSessionToDayRoom(sessionId);
+        URI location = ServletUriComponentsBuilder.fromCurrentContextPath().path("/rooms/{roomId}/sessions/{sessionId}")
+                .buildAndExpand(session.getRoom().getId(), session.getId()).toUri();
+        return ResponseEntity.created(location).body(session);
+    }
+
+    @RequestMapping(value = "/sessions/room-placements", method = RequestMethod.POST)
+    public ResponseEntity<PlacementReport> placeSessionsWithoutRoom(@RequestParam(value = "from") Optional<String> from
+            , @RequestParam(value = "to") Optional<String> to) throws ApiRequestException{
+        return ResponseEntity.ok(sessionPlacements.placeUnassigned(from.orElse(null), to.orElse(null)));
+    }
+
     @RequestMapping(value = "/rooms/{roomId}/sessions/{sessionId}", method = RequestMethod.DELETE)
     public ResponseEntity<?> removeSessionFromRoom(@PathVariable(value = "roomId") int roomId, @PathVariable(value = "sessionId") int sessionId) throws ApiRequestException{
         Room room = roomService.removeSessionFromRoom(roomId,sessionId);
         return ResponseEntity.ok(room);
     }
 
+    @RequestMapping(value = "/room-templates/{type}", method = RequestMethod.PUT)
+    public ResponseEntity<RoomTemplate> putRoomTemplate(@PathVariable(value = "type") String type, @RequestBody ObjectNode objectNode) throws ApiRequestException{
+        String openingHours = null, closingHours = null;
+        try{
+            openingHours = objectNode.get("openingHours").asText();
+            closingHours = objectNode.get("closingHours").asText();
+        }catch (NullPointerException e){
+            BadRequestApiRequestException.throwBadRequestException("Bad request data. Properties for a room template are: openingHours, closingHours.");
+        }
+        return ResponseEntity.ok(roomTemplates.putTemplate(type, openingHours, closingHours));
+    }
+
+    @RequestMapping(value = "/room-templates", method = RequestMethod.GET)
+    public List<RoomTemplate> findRoomTemplates(){
+        return roomTemplates.findTemplates();
+    }
+
+    @RequestMapping(value = "/room-templates/{type}", method = RequestMethod.DELETE)
+    public ResponseEntity<?> removeRoomTemplate(@PathVariable(value = "type") String type) throws ApiRequestException{
+        roomTemplates.removeTemplate(type);
+        return ResponseEntity.noContent().build();
+    }
+
     @RequestMapping(value = "/rooms/{id}",method = RequestMethod.PATCH,  consumes = "application/json")
     public ResponseEntity<Room> updateRoom(@PathVariable(value="id") String roomId,@RequestBody JsonPatch patch) throws ApiRequestException {
         Room room = roomService.patchRoom(roomId, patch);
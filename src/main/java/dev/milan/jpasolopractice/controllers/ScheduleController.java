@@ -0,0 +1,31 @@
+package dev.milan.jpasolopractice.controllers;
+
+import dev.milan.jpasolopractice.customException.ApiRequestException;
+import dev.milan.jpasolopractice.dto.DaySchedule;
+import dev.milan.jpasolopractice.service.SessionAvailabilityStreams;
+import dev.milan.jpasolopractice.service.YogaSessionService;
+import org.springframework.http.MediaType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+public class ScheduleController {
+    @Autowired
+    private YogaSessionService yogaSessionService;
+    @Autowired
+    private SessionAvailabilityStreams availabilityStreams;
+
+    @RequestMapping(value = "/schedule/{date}", method = RequestMethod.GET)
+    public DaySchedule findDaySchedule(@PathVariable(value = "date") String date) throws ApiRequestException{
+        return yogaSessionService.getDaySchedule(date);
+    }
+
+    @RequestMapping(value = "/schedule/{date}/stream", method = RequestMethod.GET, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamDayAvailability(@PathVariable(value = "date") String date) throws ApiRequestException{
+        return availabilityStreams.subscribeToDay(date);
+    }
+}
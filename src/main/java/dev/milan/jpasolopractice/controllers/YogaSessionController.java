@@ -5,11 +5,21 @@ import com.github.fge.jsonpatch.JsonPatch;
 import dev.milan.jpasolopractice.customException.ApiRequestException;
 import dev.milan.jpasolopractice.customException.differentExceptions.BadRequestApiRequestException;
 import dev.milan.jpasolopractice.customException.differentExceptions.NotFoundApiRequestException;
+import dev.milan.jpasolopractice.dto.MembershipOutcome;
+import dev.milan.jpasolopractice.dto.RecurrenceReport;
+import dev.milan.jpasolopractice.dto.SessionRecurrence;
+import dev.milan.jpasolopractice.dto.SessionSummary;
+import dev.milan.jpasolopractice.model.SeatHold;
 import dev.milan.jpasolopractice.model.YogaSession;
+import dev.milan.jpasolopractice.service.SessionAvailabilityStreams;
+import dev.milan.jpasolopractice.service.SessionRecurrences;
 import dev.milan.jpasolopractice.service.YogaSessionService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import javax.websocket.server.PathParam;
@@ -21,8 +31,12 @@ import java.util.Optional;
 public class YogaSessionController {
     @Autowired
     private YogaSessionService yogaSessionService;
+    @Autowired
+    private SessionAvailabilityStreams availabilityStreams;
+    @Autowired
+    private SessionRecurrences sessionRecurrences;
     @RequestMapping(value="/sessions",method = RequestMethod.POST)
-    public ResponseEntity<?> createAYogaSession(@RequestBody ObjectNode node){
+    public ResponseEntity<?> createAYogaSession(@RequestBody ObjectNode node, @RequestHeader(value = "Idempotency-Key") Optional<String> idempotencyKey){
         String date = null, roomType = null, startTime = null, duration =  null;
         try{
              date = node.get("date").textValue();
@@ -32,7 +46,7 @@ public class YogaSessionController {
         }catch (NullPointerException e){
             BadRequestApiRequestException.throwBadRequestException("Bad request data. Properties for session creation are: date, type, startTime, duration.");
         }
-        YogaSession session = yogaSessionService.createAYogaSession(date,roomType,startTime,duration);
+        YogaSession session = yogaSessionService.createAYogaSession(date,roomType,startTime,duration,idempotencyKey);
         URI location = ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}")
                 .buildAndExpand(session.getId()).toUri();
         return ResponseEntity.created(location).body(session);
@@ -40,14 +54,34 @@ public class YogaSessionController {
 
 
 
+    @RequestMapping(value = "/sessions/recurrences", method = RequestMethod.POST)
+    public ResponseEntity<RecurrenceReport> createRecurringSessions(@RequestBody SessionRecurrence recurrence) throws ApiRequestException{
+        return ResponseEntity.ok(sessionRecurrences.expand(recurrence));
+    }
+
     @RequestMapping(value = "/sessions/{id}",method = RequestMethod.GET)
-    public YogaSession findSessionById(@PathVariable(value = "id")  int sessionId){
+    public YogaSession findSessionById(@PathVariable(value = "id")  int sessionId, WebRequest request){
+        if (request.checkNotModified(EntityTags.weak(yogaSessionService.findSessionVersionTag(sessionId)))){
+            return null;
+        }
         return yogaSessionService.findYogaSessionById(sessionId);
     }
 
+    @RequestMapping(value = "/sessions/{id}/availability/stream", method = RequestMethod.GET, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSessionAvailability(@PathVariable(value = "id") int sessionId) throws NotFoundApiRequestException{
+        return availabilityStreams.subscribeToSession(sessionId);
+    }
+
     @RequestMapping(value = "/sessions", method = RequestMethod.GET)
-    public List<YogaSession> findAllSessions(@PathParam("type")Optional<String> type, @PathParam("date") Optional<String> date){
-        return yogaSessionService.findSessionsByParams(date, type);
+    public ResponseEntity<List<SessionSummary>> findAllSessions(@PathParam("type")Optional<String> type, @PathParam("date") Optional<String> date
+            , @RequestParam(value = "cursor") Optional<String> cursor, @RequestParam(value = "size") Optional<String> size, WebRequest request){
+        if (request.checkNotModified(EntityTags.weak(yogaSessionService.findSessionsVersionTag(date)))){
+            return null;
+        }
+        if (cursor.isEmpty() && size.isEmpty()){
+            return ResponseEntity.ok(yogaSessionService.findSessionsByParams(date, type));
+        }
+        return KeysetPageResponses.of(yogaSessionService.findSessionsPageByParams(date, type, cursor, size));
     }
 
 
@@ -71,6 +105,45 @@ public class YogaSessionController {
         }
     }
 
+    @RequestMapping(value = "/sessions/{sessionId}/users", method = RequestMethod.PUT)
+    public ResponseEntity<List<MembershipOutcome>> addPeopleToSession(@PathVariable(value = "sessionId") int sessionId, @RequestBody List<Integer> personIds) throws ApiRequestException {
+        return ResponseEntity.ok(yogaSessionService.addMembersToYogaSession(sessionId,personIds));
+    }
+
+    @RequestMapping(value = "/sessions/{sessionId}/waitlist/{personId}", method = RequestMethod.PUT)
+    public ResponseEntity<?> addPersonToWaitlist(@PathVariable(value = "sessionId") int sessionId, @PathVariable(value = "personId") int personId) throws ApiRequestException {
+        yogaSessionService.addMemberToWaitlist(sessionId,personId);
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest().build().toUri();
+        return ResponseEntity.created(location).build();
+    }
+
+    @RequestMapping(value = "/sessions/{sessionId}/waitlist/{personId}", method = RequestMethod.DELETE)
+    public ResponseEntity<?> removePersonFromWaitlist(@PathVariable(value = "sessionId") int sessionId, @PathVariable(value = "personId") int personId) throws ApiRequestException {
+        yogaSessionService.removeMemberFromWaitlist(sessionId,personId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @RequestMapping(value = "/sessions/{sessionId}/holds/{personId}", method = RequestMethod.PUT)
+    public ResponseEntity<SeatHold> holdSeatForPerson(@PathVariable(value = "sessionId") int sessionId, @PathVariable(value = "personId") int personId) throws ApiRequestException {
+        SeatHold hold = yogaSessionService.holdSeat(sessionId,personId);
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest().build().toUri();
+        return ResponseEntity.created(location).body(hold);
+    }
+
+    @RequestMapping(value = "/sessions/{sessionId}/holds/{personId}/confirmation", method = RequestMethod.POST)
+    public ResponseEntity<?> confirmSeatHold(@PathVariable(value = "sessionId") int sessionId, @PathVariable(value = "personId") int personId) throws ApiRequestException {
+        yogaSessionService.confirmSeatHold(sessionId,personId);
+        URI location = ServletUriComponentsBuilder.fromCurrentContextPath().path("/sessions/{sessionId}/users/{personId}")
+                .buildAndExpand(sessionId, personId).toUri();
+        return ResponseEntity.created(location).build();
+    }
+
+    @RequestMapping(value = "/sessions/{sessionId}/holds/{personId}", method = RequestMethod.DELETE)
+    public ResponseEntity<?> releaseSeatHold(@PathVariable(value = "sessionId") int sessionId, @PathVariable(value = "personId") int personId) throws ApiRequestException {
+        yogaSessionService.releaseSeatHold(sessionId,personId);
+        return ResponseEntity.noContent().build();
+    }
+
     @RequestMapping(value = "/rooms/{id}/sessions",method = RequestMethod.GET)
     public List<YogaSession> findAllSessionsInRoomByRoomId(@PathVariable(value = "id") int id){
         return yogaSessionService.getSingleRoomSessionsInADay(id);
@@ -1,5 +1,7 @@
 package dev.milan.jpasolopractice.customException;
 
+import dev.milan.jpasolopractice.customException.differentExceptions.ConflictApiRequestException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -21,4 +23,9 @@ public class ApiRequestExceptionHandler {
         );
         return new ResponseEntity<>(apiException, e.getStatus());
     }
+
+    @ExceptionHandler(value = {OptimisticLockingFailureException.class})
+    public ResponseEntity<Object> handleOptimisticLockingFailureException(OptimisticLockingFailureException e){
+        return handleNotFoundRequestException(new ConflictApiRequestException("Resource was changed by another request. Reload it and try again."));
+    }
 }
@@ -0,0 +1,14 @@
+package dev.milan.jpasolopractice.data;
+
+import dev.milan.jpasolopractice.model.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+    @Modifying
+    @Query("delete from IdempotencyKey k where k.createdAt < ?1")
+    int deleteCreatedBefore(LocalDateTime cutoff);
+}
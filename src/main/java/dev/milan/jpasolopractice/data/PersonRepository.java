@@ -1,15 +1,69 @@
 package dev.milan.jpasolopractice.data;
 
+import dev.milan.jpasolopractice.dto.PersonSummary;
 import dev.milan.jpasolopractice.model.Person;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface PersonRepository extends CrudRepository<Person, Integer> {
+    String PERSON_SUMMARY = "select new dev.milan.jpasolopractice.dto.PersonSummary(p.id, p.name, p.age, p.email)";
+    /**
+     * Version tag of the people aliased {@code p}: row count, version sum and id sum. Versions only grow, so adding,
+     * removing or changing one of the people changes the tag.
+     */
+    String PERSON_VERSIONS = "count(p.ID) || '.' || coalesce(sum(p.VERSION), 0) || '.' || coalesce(sum(p.ID), 0)";
 
     @Query("select s from Person s where s.email = ?1")
     Person findPersonByEmail(String email);
 
-    List<Person> findPeopleByAgeBetween(int startAge, int endAge);
+    @Query(PERSON_SUMMARY + " from Person p order by p.id")
+    List<PersonSummary> findAllSummaries();
+
+    @Query(PERSON_SUMMARY + " from Person p where p.age between ?1 and ?2 order by p.id")
+    List<PersonSummary> findSummariesByAgeBetween(int startAge, int endAge);
+
+    @Query(PERSON_SUMMARY + " from YogaSession s join s.membersAttending p where s.id = ?1 order by p.id")
+    List<PersonSummary> findSummariesBySessionId(int sessionId);
+
+    @Query(PERSON_SUMMARY + " from YogaSession s join s.membersAttending p where s.id = ?1 and p.age between ?2 and ?3 order by p.id")
+    List<PersonSummary> findSummariesBySessionIdAndAgeBetween(int sessionId, int startAge, int endAge);
+
+    @Query(PERSON_SUMMARY + " from Person p where p.id > ?1 order by p.id")
+    List<PersonSummary> findPageAfter(int lastId, Pageable pageable);
+
+    @Query(PERSON_SUMMARY + " from Person p where p.age between ?1 and ?2 and p.id > ?3 order by p.id")
+    List<PersonSummary> findPageByAgeBetweenAfter(int startAge, int endAge, int lastId, Pageable pageable);
+
+    @Query("select p.id from Person p where p.id in ?1")
+    List<Integer> findIdsByIdIn(Collection<Integer> ids);
+
+    @Query("select p.email from Person p where p.email in ?1")
+    List<String> findEmailsByEmailIn(Collection<String> emails);
+
+    @EntityGraph(attributePaths = {"yogaSessions", "yogaSessions.room"})
+    Optional<Person> findWithSessionsById(int id);
+
+    @Query("select p.version from Person p where p.id = ?1")
+    Integer findVersionById(int id);
+
+    @Query(value = "select " + PERSON_VERSIONS + " from PERSON_DATA p", nativeQuery = true)
+    String findVersionTag();
+
+    @Query(value = "select s.VERSION || '.' || (select " + PERSON_VERSIONS + " from USERS_SESSIONS us join PERSON_DATA p on p.ID = us.USER_ID"
+            + " where us.SESSION_ID = s.ID) from YOGA_SESSIONS s where s.ID = ?1", nativeQuery = true)
+    String findVersionTagBySessionId(int sessionId);
+
+    @Query(value = "select (select " + YogaSessionRepository.SESSION_VERSIONS + " || '.' || coalesce(sum(r.VERSION), 0)"
+            + " from USERS_SESSIONS us join YOGA_SESSIONS s on s.ID = us.SESSION_ID left join ROOMS r on r.ID = s.ROOM_ID"
+            + " where us.USER_ID = m.ID)"
+            + " || '.' || (select " + PERSON_VERSIONS + " from USERS_SESSIONS us join USERS_SESSIONS other on other.SESSION_ID = us.SESSION_ID"
+            + " join PERSON_DATA p on p.ID = other.USER_ID where us.USER_ID = m.ID)"
+            + " from PERSON_DATA m where m.ID = ?1", nativeQuery = true)
+    String findSessionsVersionTagById(int personId);
 }
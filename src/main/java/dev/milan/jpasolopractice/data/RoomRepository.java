@@ -1,21 +1,83 @@
 package dev.milan.jpasolopractice.data;
 
+import dev.milan.jpasolopractice.dto.DayScheduleRow;
+import dev.milan.jpasolopractice.dto.RoomSummary;
 import dev.milan.jpasolopractice.model.Room;
 import dev.milan.jpasolopractice.model.RoomType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface RoomRepository extends CrudRepository<Room, Integer> {
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
-    @Query("select e from Room e where e.date = ?1")
+public interface RoomRepository extends JpaRepository<Room, Integer> {
+    String ROOM_SUMMARY = "select new dev.milan.jpasolopractice.dto.RoomSummary(e.id, e.date, e.openingHours, e.closingHours"
+            + ", e.roomType, e.totalCapacity) from Room e";
+    /** Version tag of the rooms aliased {@code r}, built like {@link PersonRepository#PERSON_VERSIONS}. */
+    String ROOM_VERSIONS = "count(r.ID) || '.' || coalesce(sum(r.VERSION), 0) || '.' || coalesce(sum(r.ID), 0)";
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("select distinct e from Room e left join fetch e.sessionList where e.date = ?1")
     List<Room> findAllRoomsByDate(LocalDate date);
 
+    @Query("select new dev.milan.jpasolopractice.dto.DayScheduleRow(e.id, e.roomType, e.openingHours, e.closingHours, e.totalCapacity"
+            + ", s.id, s.startOfSession, s.endOfSession, s.bookedSpace, s.freeSpace, count(m))"
+            + " from Room e left join e.sessionList s left join s.membersAttending m where e.date = ?1"
+            + " group by e.id, e.roomType, e.openingHours, e.closingHours, e.totalCapacity"
+            + ", s.id, s.startOfSession, s.endOfSession, s.bookedSpace, s.freeSpace"
+            + " order by e.id, s.startOfSession")
+    List<DayScheduleRow> findDayScheduleRows(LocalDate date);
+
+    @Query("select distinct e from Room e left join fetch e.sessionList where e.roomType = ?1 and e.date between ?2 and ?3")
+    List<Room> findWithSessionsByRoomTypeAndDateBetween(RoomType type, LocalDate from, LocalDate to);
+
+    @Query("select distinct e from Room e left join fetch e.sessionList where e.date between ?1 and ?2")
+    List<Room> findWithSessionsByDateBetween(LocalDate from, LocalDate to);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     @Query("select e from Room e where e.date = ?1 and e.roomType = ?2")
     Room findRoomByDateAndRoomType(LocalDate date, RoomType type);
 
-    List<Room> findRoomsByRoomType(RoomType type);
+    @Query(ROOM_SUMMARY + " order by e.id")
+    List<RoomSummary> findAllSummaries();
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query(ROOM_SUMMARY + " where e.date = ?1 order by e.id")
+    List<RoomSummary> findSummariesByDate(LocalDate date);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = YogaSessionRepository.STREAM_FETCH_SIZE))
+    @Query(ROOM_SUMMARY + " where e.date between ?1 and ?2 order by e.date, e.id")
+    Stream<RoomSummary> streamSummariesByDateBetween(LocalDate from, LocalDate to);
+
+    @Query(ROOM_SUMMARY + " where e.roomType = ?1 order by e.id")
+    List<RoomSummary> findSummariesByRoomType(RoomType type);
+
+    @Query(ROOM_SUMMARY + " where e.date = ?1 and e.roomType = ?2")
+    List<RoomSummary> findSummariesByDateAndRoomType(LocalDate date, RoomType type);
+
+    @Query(ROOM_SUMMARY + " where e.id > ?1 order by e.id")
+    List<RoomSummary> findPageAfter(int lastId, Pageable pageable);
+
+    @Query(ROOM_SUMMARY + " where e.roomType = ?1 and e.id > ?2 order by e.id")
+    List<RoomSummary> findPageByRoomTypeAfter(RoomType type, int lastId, Pageable pageable);
+
+    @Query(value = "select r.VERSION"
+            + " || '.' || (select " + YogaSessionRepository.SESSION_VERSIONS + " from YOGA_SESSIONS s where s.ROOM_ID = r.ID)"
+            + " || '.' || (select " + PersonRepository.PERSON_VERSIONS + " from YOGA_SESSIONS s join USERS_SESSIONS us on us.SESSION_ID = s.ID"
+            + " join PERSON_DATA p on p.ID = us.USER_ID where s.ROOM_ID = r.ID)"
+            + " from ROOMS r where r.ID = ?1", nativeQuery = true)
+    String findVersionTagById(int roomId);
+
+    @Query(value = "select " + ROOM_VERSIONS + " from ROOMS r", nativeQuery = true)
+    String findVersionTag();
 
+    @Query(value = "select " + ROOM_VERSIONS + " from ROOMS r where r.DATE = ?1", nativeQuery = true)
+    String findVersionTagByDate(LocalDate date);
 }
@@ -0,0 +1,23 @@
+package dev.milan.jpasolopractice.data;
+
+import dev.milan.jpasolopractice.model.RoomTemplate;
+import dev.milan.jpasolopractice.model.RoomType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import javax.persistence.QueryHint;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
+public interface RoomTemplateRepository extends JpaRepository<RoomTemplate, Integer> {
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("select t from RoomTemplate t where t.roomType = ?1")
+    Optional<RoomTemplate> findByRoomType(RoomType type);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("select t from RoomTemplate t order by t.roomType")
+    List<RoomTemplate> findAllInTypeOrder();
+}
@@ -0,0 +1,21 @@
+package dev.milan.jpasolopractice.data;
+
+import dev.milan.jpasolopractice.model.SeatHold;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface SeatHoldRepository extends JpaRepository<SeatHold, Integer> {
+    Optional<SeatHold> findBySessionIdAndPersonId(int sessionId, int personId);
+
+    boolean existsBySessionIdAndPersonId(int sessionId, int personId);
+
+    List<SeatHold> findByPersonId(int personId);
+
+    @Modifying
+    @Query("delete from SeatHold h where h.id = ?1")
+    int deleteHoldById(int holdId);
+}
@@ -0,0 +1,22 @@
+package dev.milan.jpasolopractice.data;
+
+import dev.milan.jpasolopractice.model.WaitlistEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Integer> {
+    Optional<WaitlistEntry> findFirstBySessionIdOrderByJoinedAtAscIdAsc(int sessionId);
+
+    @Query("select distinct w.sessionId from WaitlistEntry w, YogaSession s where s.id = w.sessionId and s.freeSpace > 0")
+    List<Integer> findSessionIdsWithFreeSpace();
+
+    boolean existsBySessionIdAndPersonId(int sessionId, int personId);
+
+    @Modifying
+    @Query("delete from WaitlistEntry w where w.sessionId = ?1 and w.personId = ?2")
+    int deleteBySessionIdAndPersonId(int sessionId, int personId);
+}
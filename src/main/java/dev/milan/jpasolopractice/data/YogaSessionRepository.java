@@ -1,32 +1,165 @@
 package dev.milan.jpasolopractice.data;
 
+import dev.milan.jpasolopractice.dto.BookingRow;
+import dev.milan.jpasolopractice.dto.SessionAvailability;
+import dev.milan.jpasolopractice.dto.SessionSummary;
 import dev.milan.jpasolopractice.model.RoomType;
 import dev.milan.jpasolopractice.model.YogaSession;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_NATIVE_SPACES;
+
+public interface YogaSessionRepository extends JpaRepository<YogaSession,Integer> {
+    String SESSION_SUMMARY = "select new dev.milan.jpasolopractice.dto.SessionSummary(e.id, e.date, e.startOfSession, e.endOfSession"
+            + ", e.duration, e.bookedSpace, e.freeSpace, e.roomType, r.id) from YogaSession e left join e.room r";
+    String SESSION_AVAILABILITY = "select new dev.milan.jpasolopractice.dto.SessionAvailability(e.id, e.date, e.bookedSpace, e.freeSpace)"
+            + " from YogaSession e";
+    /**
+     * Query space declared by the native membership and seat hold writes instead of their tables. Hibernate would otherwise drop
+     * the whole session and member list cache regions on every booking; the service evicts the one session instead.
+     */
+    String MEMBERSHIP_SPACE = "yoga_session_membership";
+    /** Version tag of the sessions aliased {@code s}, built like {@link PersonRepository#PERSON_VERSIONS}. */
+    String SESSION_VERSIONS = "count(s.ID) || '.' || coalesce(sum(s.VERSION), 0) || '.' || coalesce(sum(s.ID), 0)";
+    String IN_ORDER = " order by e.date, e.startOfSession, e.id";
+    /** Rows fetched per round trip by the streaming export queries. */
+    String STREAM_FETCH_SIZE = "500";
+    String AFTER_CURSOR = " (e.date > :date or (e.date = :date and (e.startOfSession > :time or (e.startOfSession = :time and e.id > :id))))"
+            + IN_ORDER;
 
-public interface YogaSessionRepository extends CrudRepository<YogaSession,Integer> {
     @Query("select e from YogaSession e where e.date=?1 and e.startOfSession=?2")
     YogaSession findYogaSessionByDateAndStartOfSession(LocalDate date, LocalTime startOfSession);
 
     @Query("select e from YogaSession e where e.date=?1 and e.startOfSession=?2 and e.roomType=?3")
     YogaSession findYogaSessionByDateAndStartOfSessionAndRoomType (LocalDate date, LocalTime startOfSession, RoomType roomType);
 
-    List<YogaSession> findYogaSessionByRoomIsNotNull();
+    @Query(SESSION_SUMMARY + IN_ORDER)
+    List<SessionSummary> findAllSummaries();
+
+    @Query(SESSION_SUMMARY + " where r is not null" + IN_ORDER)
+    List<SessionSummary> findSummariesWithRoom();
+
+    @Query(SESSION_SUMMARY + " where e.date = ?1 and r is not null" + IN_ORDER)
+    List<SessionSummary> findSummariesByDateWithRoom(LocalDate date);
+
+    @Query(SESSION_SUMMARY + " where e.roomType = ?1 and r is not null" + IN_ORDER)
+    List<SessionSummary> findSummariesByRoomTypeWithRoom(RoomType type);
+
+    @Query(SESSION_SUMMARY + " where e.roomType = ?1 and e.date = ?2 and r is not null" + IN_ORDER)
+    List<SessionSummary> findSummariesByRoomTypeAndDateWithRoom(RoomType type, LocalDate date);
+
+    @Query(SESSION_SUMMARY + " where e.date = ?1 and r is null" + IN_ORDER)
+    List<SessionSummary> findSummariesByDateWithoutRoom(LocalDate date);
+
+    @Query(SESSION_SUMMARY + " where r is null" + IN_ORDER)
+    List<SessionSummary> findSummariesWithoutRoom();
+
+    @Query(SESSION_SUMMARY + " where" + AFTER_CURSOR)
+    List<SessionSummary> findPageAfter(@Param("date") LocalDate date, @Param("time") LocalTime time, @Param("id") int id, Pageable pageable);
+
+    @Query(SESSION_SUMMARY + " where r is not null and" + AFTER_CURSOR)
+    List<SessionSummary> findPageWithRoomAfter(@Param("date") LocalDate date, @Param("time") LocalTime time, @Param("id") int id, Pageable pageable);
+
+    @Query(SESSION_SUMMARY + " where r is null and" + AFTER_CURSOR)
+    List<SessionSummary> findPageWithoutRoomAfter(@Param("date") LocalDate date, @Param("time") LocalTime time, @Param("id") int id, Pageable pageable);
+
+    @Query(SESSION_SUMMARY + " where e.roomType = :type and r is not null and" + AFTER_CURSOR)
+    List<SessionSummary> findPageByRoomTypeWithRoomAfter(@Param("type") RoomType type, @Param("date") LocalDate date, @Param("time") LocalTime time
+            , @Param("id") int id, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(SESSION_SUMMARY + " where e.date between ?1 and ?2" + IN_ORDER)
+    Stream<SessionSummary> streamSummariesByDateBetween(LocalDate from, LocalDate to);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query("select new dev.milan.jpasolopractice.dto.BookingRow(e.id, p.id, e.date) from YogaSession e join e.membersAttending p"
+            + " where e.date between ?1 and ?2 order by e.date, e.id, p.id")
+    Stream<BookingRow> streamBookingsByDateBetween(LocalDate from, LocalDate to);
+
+    @Query(SESSION_AVAILABILITY + " where e.id in ?1")
+    List<SessionAvailability> findAvailabilityByIdIn(Collection<Integer> sessionIds);
+
+    @Query(SESSION_AVAILABILITY + " where e.date = ?1 order by e.startOfSession, e.id")
+    List<SessionAvailability> findAvailabilityByDate(LocalDate date);
+
+    @Query("select e.date from YogaSession e where e.roomType = ?1 and e.startOfSession = ?2 and e.date between ?3 and ?4")
+    List<LocalDate> findDatesByRoomTypeAndStartBetween(RoomType type, LocalTime start, LocalDate from, LocalDate to);
+
+    @Query("select e from YogaSession e where e.room is null and e.date between ?1 and ?2"
+            + " order by e.date, e.roomType, e.endOfSession, e.startOfSession, e.id")
+    List<YogaSession> findWithoutRoomByDateBetweenInEndOrder(LocalDate from, LocalDate to);
+
+    @Query("select e.date from YogaSession e where e.id = ?1")
+    LocalDate findDateById(int sessionId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = MEMBERSHIP_SPACE))
+    @Query(value = "update YOGA_SESSIONS set BOOKED = BOOKED + 1, FREE_SPACE = FREE_SPACE - 1, VERSION = VERSION + 1"
+            + " where ID = ?1 and FREE_SPACE > 0", nativeQuery = true)
+    int bookOneSpaceIfAvailable(int sessionId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = MEMBERSHIP_SPACE))
+    @Query(value = "update YOGA_SESSIONS set BOOKED = BOOKED + ?2, FREE_SPACE = FREE_SPACE - ?2, VERSION = VERSION + 1"
+            + " where ID = ?1 and FREE_SPACE >= ?2", nativeQuery = true)
+    int bookSpacesIfAvailable(int sessionId, int spaces);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = MEMBERSHIP_SPACE))
+    @Query(value = "update YOGA_SESSIONS set HELD = HELD + 1, FREE_SPACE = FREE_SPACE - 1, VERSION = VERSION + 1"
+            + " where ID = ?1 and FREE_SPACE > 0", nativeQuery = true)
+    int holdOneSpaceIfAvailable(int sessionId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = MEMBERSHIP_SPACE))
+    @Query(value = "update YOGA_SESSIONS set HELD = HELD - 1, BOOKED = BOOKED + 1, VERSION = VERSION + 1"
+            + " where ID = ?1 and HELD > 0", nativeQuery = true)
+    int bookOneHeldSpace(int sessionId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = MEMBERSHIP_SPACE))
+    @Query(value = "update YOGA_SESSIONS set HELD = HELD - 1, FREE_SPACE = FREE_SPACE + 1, VERSION = VERSION + 1"
+            + " where ID = ?1 and HELD > 0", nativeQuery = true)
+    int releaseOneHeldSpace(int sessionId);
 
-    List<YogaSession> findYogaSessionByDateAndRoomIsNotNull(LocalDate date);
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = MEMBERSHIP_SPACE))
+    @Query(value = "insert into USERS_SESSIONS (SESSION_ID, USER_ID) values (?1, ?2)", nativeQuery = true)
+    int insertMember(int sessionId, int personId);
 
-    List<YogaSession> findYogaSessionByRoomTypeAndRoomIsNotNull(RoomType type);
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = MEMBERSHIP_SPACE))
+    @Query(value = "insert into USERS_SESSIONS (SESSION_ID, USER_ID) select ?1, ID from PERSON_DATA where ID in ?2", nativeQuery = true)
+    int insertMembers(int sessionId, Collection<Integer> personIds);
 
-    List<YogaSession> findYogaSessionByRoomTypeAndDateAndRoomIsNotNull(RoomType type, LocalDate date);
+    @Query(value = "select count(*) from USERS_SESSIONS where SESSION_ID = ?1 and USER_ID = ?2", nativeQuery = true)
+    int countMember(int sessionId, int personId);
 
-    List<YogaSession> findYogaSessionByDateAndRoomIsNull(LocalDate date);
+    @Query(value = "select USER_ID from USERS_SESSIONS where SESSION_ID = ?1 and USER_ID in ?2", nativeQuery = true)
+    List<Integer> findMemberIdsIn(int sessionId, Collection<Integer> personIds);
 
-    List<YogaSession> findYogaSessionByRoomIsNull();
+    @Query(value = "select s.VERSION || '.' || coalesce(r.VERSION, -1)"
+            + " || '.' || (select " + PersonRepository.PERSON_VERSIONS + " from USERS_SESSIONS us join PERSON_DATA p on p.ID = us.USER_ID"
+            + " where us.SESSION_ID = s.ID)"
+            + " from YOGA_SESSIONS s left join ROOMS r on r.ID = s.ROOM_ID where s.ID = ?1", nativeQuery = true)
+    String findVersionTagById(int sessionId);
 
+    @Query(value = "select " + SESSION_VERSIONS + " from YOGA_SESSIONS s", nativeQuery = true)
+    String findVersionTag();
 
+    @Query(value = "select " + SESSION_VERSIONS + " from YOGA_SESSIONS s where s.DATE = ?1", nativeQuery = true)
+    String findVersionTagByDate(LocalDate date);
 }
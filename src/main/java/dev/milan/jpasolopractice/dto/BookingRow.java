@@ -0,0 +1,6 @@
+package dev.milan.jpasolopractice.dto;
+
+import java.time.LocalDate;
+
+public record BookingRow(int sessionId, int personId, LocalDate date) {
+}
@@ -0,0 +1,22 @@
+package dev.milan.jpasolopractice.dto;
+
+import dev.milan.jpasolopractice.model.RoomType;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+public record DaySchedule(LocalDate date, List<RoomSchedule> rooms) {
+
+    /**
+     * A room of the day. The id is null for a room that only exists as a template so far; it is created once a session
+     * is placed in it.
+     */
+    public record RoomSchedule(Integer id, RoomType roomType, LocalTime openingHours, LocalTime closingHours, int totalCapacity
+            , List<SessionSlot> sessions) {
+    }
+
+    public record SessionSlot(int id, LocalTime startOfSession, LocalTime endOfSession, int bookedSpace, int freeSpace
+            , long membersAttending) {
+    }
+}
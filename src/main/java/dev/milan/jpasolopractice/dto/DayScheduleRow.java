@@ -0,0 +1,12 @@
+package dev.milan.jpasolopractice.dto;
+
+import dev.milan.jpasolopractice.model.RoomType;
+
+import java.time.LocalTime;
+
+/**
+ * One room and one of its sessions as returned by the day schedule query. Session columns are null for rooms without sessions.
+ */
+public record DayScheduleRow(int roomId, RoomType roomType, LocalTime openingHours, LocalTime closingHours, int totalCapacity
+        , Integer sessionId, LocalTime startOfSession, LocalTime endOfSession, Integer bookedSpace, Integer freeSpace, long membersAttending) {
+}
@@ -0,0 +1,6 @@
+package dev.milan.jpasolopractice.dto;
+
+import java.time.LocalTime;
+
+public record FreeSlot(LocalTime startTime, LocalTime endTime) {
+}
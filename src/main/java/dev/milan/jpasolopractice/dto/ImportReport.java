@@ -0,0 +1,11 @@
+package dev.milan.jpasolopractice.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk import. Every row that wasn't imported is counted in errorCount; errors lists the first of them.
+ */
+public record ImportReport(int rowsRead, int imported, int errorCount, List<RowError> errors) {
+    public record RowError(int line, String message) {
+    }
+}
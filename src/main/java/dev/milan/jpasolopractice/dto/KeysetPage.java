@@ -0,0 +1,6 @@
+package dev.milan.jpasolopractice.dto;
+
+import java.util.List;
+
+public record KeysetPage<T>(List<T> content, String nextCursor) {
+}
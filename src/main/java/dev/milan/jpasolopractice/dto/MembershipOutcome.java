@@ -0,0 +1,7 @@
+package dev.milan.jpasolopractice.dto;
+
+public record MembershipOutcome(int personId, Result result) {
+    public enum Result {
+        ADDED, ALREADY_PRESENT, NOT_FOUND
+    }
+}
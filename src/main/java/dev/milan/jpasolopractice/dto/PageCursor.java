@@ -0,0 +1,40 @@
+package dev.milan.jpasolopractice.dto;
+
+import dev.milan.jpasolopractice.customException.differentExceptions.BadRequestApiRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Base64;
+import java.util.Comparator;
+
+public record PageCursor(LocalDate date, LocalTime time, int id) implements Comparable<PageCursor> {
+    private static final Comparator<PageCursor> ORDER = Comparator.comparing(PageCursor::date)
+            .thenComparing(PageCursor::time).thenComparingInt(PageCursor::id);
+    private static final LocalDate FIRST_DATE = LocalDate.of(1970, 1, 1);
+    public static final PageCursor START = new PageCursor(FIRST_DATE, LocalTime.MIN, 0);
+
+    public static PageCursor ofId(int id){
+        return new PageCursor(FIRST_DATE, LocalTime.MIN, id);
+    }
+
+    public String encode(){
+        String raw = date + "|" + time + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String cursor) throws BadRequestApiRequestException{
+        try{
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            return new PageCursor(LocalDate.parse(parts[0]), LocalTime.parse(parts[1]), Integer.parseInt(parts[2]));
+        }catch (Exception e){
+            BadRequestApiRequestException.throwBadRequestException("Incorrect cursor. Use the cursor returned with the previous page.");
+        }
+        return null;
+    }
+
+    @Override
+    public int compareTo(PageCursor other) {
+        return ORDER.compare(this, other);
+    }
+}
@@ -0,0 +1,4 @@
+package dev.milan.jpasolopractice.dto;
+
+public record PersonSummary(int id, String name, int age, String email) {
+}
@@ -0,0 +1,10 @@
+package dev.milan.jpasolopractice.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public record PlacementReport(int unassigned, int placed, List<SessionIssue> unplaced) {
+    /** Why a session without a room couldn't be put in its day's room. */
+    public record SessionIssue(int sessionId, LocalDate date, String message) {
+    }
+}
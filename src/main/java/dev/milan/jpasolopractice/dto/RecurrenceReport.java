@@ -0,0 +1,10 @@
+package dev.milan.jpasolopractice.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public record RecurrenceReport(int created, int placed, List<DateIssue> issues) {
+    /** Why a date got no session, or got one without a room. {@code sessionId} is null when no session was created. */
+    public record DateIssue(LocalDate date, Integer sessionId, String message) {
+    }
+}
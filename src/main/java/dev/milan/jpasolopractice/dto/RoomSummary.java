@@ -0,0 +1,9 @@
+package dev.milan.jpasolopractice.dto;
+
+import dev.milan.jpasolopractice.model.RoomType;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+public record RoomSummary(int id, LocalDate date, LocalTime openingHours, LocalTime closingHours, RoomType roomType, int totalCapacity) {
+}
@@ -0,0 +1,6 @@
+package dev.milan.jpasolopractice.dto;
+
+import java.time.LocalDate;
+
+public record SessionAvailability(int id, LocalDate date, int bookedSpace, int freeSpace) {
+}
@@ -0,0 +1,6 @@
+package dev.milan.jpasolopractice.dto;
+
+import java.util.List;
+
+public record SessionRecurrence(String type, String startTime, String duration, String from, String to, List<String> days) {
+}
@@ -0,0 +1,10 @@
+package dev.milan.jpasolopractice.dto;
+
+import dev.milan.jpasolopractice.model.RoomType;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+public record SessionSummary(int id, LocalDate date, LocalTime startOfSession, LocalTime endOfSession, int duration
+        , int bookedSpace, int freeSpace, RoomType roomType, Integer roomId) {
+}
@@ -0,0 +1,63 @@
+package dev.milan.jpasolopractice.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "IDEMPOTENCY_KEYS")
+public class IdempotencyKey {
+    @Id
+    @Column(name = "IDEMPOTENCY_KEY")
+    private String key;
+    @Column(name = "REQUEST", nullable = false)
+    private String request;
+    @Column(name = "RESOURCE_ID", nullable = false)
+    private int resourceId;
+    @Column(name = "CREATED_AT", nullable = false)
+    private LocalDateTime createdAt;
+
+    public IdempotencyKey() {
+    }
+
+    public IdempotencyKey(String key, String request, int resourceId) {
+        this.key = key;
+        this.request = request;
+        this.resourceId = resourceId;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getRequest() {
+        return request;
+    }
+
+    public void setRequest(String request) {
+        this.request = request;
+    }
+
+    public int getResourceId() {
+        return resourceId;
+    }
+
+    public void setResourceId(int resourceId) {
+        this.resourceId = resourceId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -1,17 +1,23 @@
 package dev.milan.jpasolopractice.model;
 
-import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.OptimisticLock;
 
 import javax.persistence.*;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.HashSet;
 import java.util.Objects;
+import java.util.Set;
 
 @Entity
 @Table(name = "PERSON_DATA")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Person implements Cloneable {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "person_seq")
+    @SequenceGenerator(name = "person_seq", sequenceName = "PERSON_SEQ", allocationSize = 50)
     private int id;
     @Column(name = "name", nullable = false)
     private String name;
@@ -19,9 +25,13 @@ public class Person implements Cloneable {
     private int age;
     @Column(name = "EMAIL" ,nullable = false, unique = true)
     private String email;
-    @ManyToMany(mappedBy = "membersAttending", fetch = FetchType.EAGER)
-    @JsonIgnoreProperties(value = "membersAttending")
-    private List<YogaSession> yogaSessions = new ArrayList<>();
+    @ManyToMany(mappedBy = "membersAttending", fetch = FetchType.LAZY)
+    @OptimisticLock(excluded = true)
+    @JsonIgnore
+    private Set<YogaSession> yogaSessions = new HashSet<>();
+    @Version
+    @Column(name = "VERSION")
+    private int version;
 
 
     public int getId() {
@@ -56,13 +66,22 @@ public class Person implements Cloneable {
         this.email = email;
     }
 
-    public List<YogaSession> getYogaSessions() {
+    public Set<YogaSession> getYogaSessions() {
         return yogaSessions;
     }
 
-    public void setYogaSessions(List<YogaSession> yogaSessions) {
+    public void setYogaSessions(Set<YogaSession> yogaSessions) {
         this.yogaSessions = yogaSessions;
     }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     public void addSession(YogaSession session){
         this.yogaSessions.add(session);
     }
@@ -74,7 +93,6 @@ public class Person implements Cloneable {
                 ", name='" + name + '\'' +
                 ", age=" + age +
                 ", email='" + email + '\'' +
-                ", yogaSessions=" + yogaSessions +
                 '}';
     }
 
@@ -87,7 +105,8 @@ public class Person implements Cloneable {
             person.setName(this.name);
             person.setAge(this.age);
             person.setEmail(this.email);
-            List<YogaSession> temp = new ArrayList<>();
+            person.setVersion(this.version);
+            Set<YogaSession> temp = new HashSet<>();
             for (YogaSession s : yogaSessions){
                 temp.add((YogaSession) s.clone());
             }
@@ -96,33 +115,26 @@ public class Person implements Cloneable {
         }
     }
 
+    public boolean hasSameDetails(Person other){
+        return id == other.getId() && age == other.getAge() && Objects.equals(name, other.getName())
+                && Objects.equals(email, other.getEmail());
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o){
             return true;
         }
-        if (o == null || getClass() != o.getClass()){
+        if (!(o instanceof Person)){
             return false;
         }
         Person person = (Person) o;
-        if (!Objects.equals(id , person.getId())){
-            return false;
-        }
-        if (!Objects.equals(age ,person.getAge())){
-            return false;
-        }
-        if (!Objects.equals(name, person.getName())){
-            return false;
-        }if (!Objects.equals(email,person.getEmail())){
-            return false;
-        }if (!Objects.equals(yogaSessions,person.getYogaSessions())){
-            return false;
-        }
-            return true;
+        return id != 0 && id == person.getId();
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id,age,name,email,yogaSessions);
+        // constant, so the hash stays the same when persist assigns the id and when fields are patched
+        return Person.class.hashCode();
     }
 }
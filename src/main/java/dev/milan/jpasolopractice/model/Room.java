@@ -1,6 +1,10 @@
 package dev.milan.jpasolopractice.model;
 
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.OptimisticLock;
+
 import javax.persistence.*;
 import java.time.LocalDate;
 import java.time.LocalTime;
@@ -11,9 +15,12 @@ import java.util.Objects;
 
 @Table(name="ROOMS")
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Room implements Cloneable{
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "room_seq")
+    @SequenceGenerator(name = "room_seq", sequenceName = "ROOM_SEQ", allocationSize = 50)
     private int id;
     @Column(name = "DATE")
     private LocalDate date = LocalDate.now();
@@ -27,13 +34,26 @@ public class Room implements Cloneable{
     @Column(name = "CAPACITY")
     private int totalCapacity;
     @OneToMany(mappedBy = "room", fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    @OptimisticLock(excluded = false)
 //    @JsonIgnoreProperties("room")
     private List<YogaSession> sessionList = new ArrayList<>();
+    @Version
+    @Column(name = "VERSION")
+    private int version;
 
     public void addSession(YogaSession session){
         this.sessionList.add(session);
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     public LocalDate getDate() {
         return date;
     }
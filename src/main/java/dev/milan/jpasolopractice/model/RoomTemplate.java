@@ -0,0 +1,89 @@
+package dev.milan.jpasolopractice.model;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import javax.persistence.*;
+import java.time.LocalTime;
+
+@Entity
+@Table(name = "ROOM_TEMPLATES")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+public class RoomTemplate {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "room_template_seq")
+    @SequenceGenerator(name = "room_template_seq", sequenceName = "ROOM_TEMPLATE_SEQ", allocationSize = 50)
+    private int id;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "ROOM_TYPE", nullable = false, unique = true)
+    private RoomType roomType;
+    @Column(name = "OPEN", nullable = false)
+    private LocalTime openingHours;
+    @Column(name = "CLOSE", nullable = false)
+    private LocalTime closingHours;
+    @Column(name = "CAPACITY", nullable = false)
+    private int totalCapacity;
+    @Version
+    @Column(name = "VERSION")
+    private int version;
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public RoomType getRoomType() {
+        return roomType;
+    }
+
+    public void setRoomType(RoomType roomType) {
+        this.roomType = roomType;
+    }
+
+    public LocalTime getOpeningHours() {
+        return openingHours;
+    }
+
+    public void setOpeningHours(LocalTime openingHours) {
+        this.openingHours = openingHours;
+    }
+
+    public LocalTime getClosingHours() {
+        return closingHours;
+    }
+
+    public void setClosingHours(LocalTime closingHours) {
+        this.closingHours = closingHours;
+    }
+
+    public int getTotalCapacity() {
+        return totalCapacity;
+    }
+
+    public void setTotalCapacity(int totalCapacity) {
+        this.totalCapacity = totalCapacity;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
+    @Override
+    public String toString() {
+        return "RoomTemplate{" +
+                "id=" + id +
+                ", roomType=" + roomType +
+                ", openingHours=" + openingHours +
+                ", closingHours=" + closingHours +
+                ", totalCapacity=" + totalCapacity +
+                '}';
+    }
+}
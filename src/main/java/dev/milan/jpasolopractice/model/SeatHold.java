@@ -0,0 +1,60 @@
+package dev.milan.jpasolopractice.model;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "SEAT_HOLDS")
+public class SeatHold {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seat_hold_seq")
+    @SequenceGenerator(name = "seat_hold_seq", sequenceName = "SEAT_HOLD_SEQ", allocationSize = 50)
+    private int id;
+    @Column(name = "SESSION_ID", nullable = false)
+    private int sessionId;
+    @Column(name = "USER_ID", nullable = false)
+    private int personId;
+    @Column(name = "EXPIRES_AT", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public SeatHold() {
+    }
+
+    public SeatHold(int sessionId, int personId, LocalDateTime expiresAt) {
+        this.sessionId = sessionId;
+        this.personId = personId;
+        this.expiresAt = expiresAt;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public int getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(int sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public int getPersonId() {
+        return personId;
+    }
+
+    public void setPersonId(int personId) {
+        this.personId = personId;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
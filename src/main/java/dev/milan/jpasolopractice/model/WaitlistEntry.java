@@ -0,0 +1,60 @@
+package dev.milan.jpasolopractice.model;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "SESSION_WAITLIST")
+public class WaitlistEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "waitlist_entry_seq")
+    @SequenceGenerator(name = "waitlist_entry_seq", sequenceName = "WAITLIST_ENTRY_SEQ", allocationSize = 50)
+    private int id;
+    @Column(name = "SESSION_ID", nullable = false)
+    private int sessionId;
+    @Column(name = "USER_ID", nullable = false)
+    private int personId;
+    @Column(name = "JOINED_AT", nullable = false)
+    private LocalDateTime joinedAt;
+
+    public WaitlistEntry() {
+    }
+
+    public WaitlistEntry(int sessionId, int personId, LocalDateTime joinedAt) {
+        this.sessionId = sessionId;
+        this.personId = personId;
+        this.joinedAt = joinedAt;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public int getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(int sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public int getPersonId() {
+        return personId;
+    }
+
+    public void setPersonId(int personId) {
+        this.personId = personId;
+    }
+
+    public LocalDateTime getJoinedAt() {
+        return joinedAt;
+    }
+
+    public void setJoinedAt(LocalDateTime joinedAt) {
+        this.joinedAt = joinedAt;
+    }
+}
@@ -1,19 +1,25 @@
 package dev.milan.jpasolopractice.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.OptimisticLock;
 
 import javax.persistence.*;
 import java.time.LocalDate;
 import java.time.LocalTime;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.HashSet;
 import java.util.Objects;
+import java.util.Set;
 
 @Entity
 @Table(name = "YOGA_SESSIONS")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class YogaSession {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "session_seq")
+    @SequenceGenerator(name = "session_seq", sequenceName = "YOGA_SESSION_SEQ", allocationSize = 50)
     private int id;
 
     @ManyToOne(fetch = FetchType.LAZY , cascade = CascadeType.PERSIST)
@@ -31,18 +37,25 @@ public class YogaSession {
     private int bookedSpace = 0;
     @Column(name = "FREE_SPACE")
     private int freeSpace = 0;
+    @Column(name = "HELD")
+    private int heldSpace = 0;
     @Enumerated(EnumType.STRING)
     private RoomType roomType;
     @ManyToMany
+    @OptimisticLock(excluded = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @JoinTable(name = "USERS_SESSIONS", joinColumns = @JoinColumn(name = "SESSION_ID"),
             inverseJoinColumns = @JoinColumn(name="USER_ID"))
-    private List<Person> membersAttending = new ArrayList<>();
+    private Set<Person> membersAttending = new HashSet<>();
+    @Version
+    @Column(name = "VERSION")
+    private int version;
 
-    public List<Person> getMembersAttending() {
+    public Set<Person> getMembersAttending() {
         return membersAttending;
     }
 
-    public void setMembersAttending(List<Person> membersAttending) {
+    public void setMembersAttending(Set<Person> membersAttending) {
         this.membersAttending = membersAttending;
     }
 
@@ -53,6 +66,14 @@ public class YogaSession {
         this.membersAttending.remove(person);
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     public int getId() {
         return id;
     }
@@ -126,6 +147,14 @@ public class YogaSession {
         this.bookedSpace = bookedSpace;
     }
 
+    public int getHeldSpace() {
+        return heldSpace;
+    }
+
+    public void setHeldSpace(int heldSpace) {
+        this.heldSpace = heldSpace;
+    }
+
 
     @Override
     public String toString() {
@@ -138,6 +167,7 @@ public class YogaSession {
                 ", endOfSession=" + endOfSession +
                 ", bookedSpace=" + bookedSpace +
                 ", freeSpace=" + freeSpace +
+                ", heldSpace=" + heldSpace +
                 '}';
     }
 
@@ -163,43 +193,36 @@ public class YogaSession {
             session.setDuration(this.duration);
             session.setFreeSpace(this.freeSpace);
 
-            ArrayList<Person> list = new ArrayList<>();
+            Set<Person> members = new HashSet<>();
             for (Person person : membersAttending){
-                list.add((Person) person.clone());
+                members.add((Person) person.clone());
             }
-            session.setMembersAttending(list);
+            session.setMembersAttending(members);
 
             return session;
         }
     }
 
-@Override
-public boolean equals(Object o) {
-    if (this == o) return true;
-    if (o == null || getClass() != o.getClass()){
-        return false;
-    }
-    YogaSession session = (YogaSession) o;
-    if (!Objects.equals(id , session.getId())){
-        return false;
+    public boolean hasSameDetails(YogaSession other){
+        return id == other.getId() && Objects.equals(date, other.getDate()) && Objects.equals(startOfSession, other.getStartOfSession())
+                && Objects.equals(roomType, other.getRoomType()) && Objects.equals(room, other.getRoom());
     }
 
-    if (!Objects.equals(date, session.getDate())){
-        return false;
-    }if (!Objects.equals(startOfSession, session.getStartOfSession())){
-        return false;
-    }
-    if (!Objects.equals(roomType, session.getRoomType())){
-        return false;
-    }
-    if (!Objects.equals(room, session.getRoom())){
-        return false;
+    @Override
+    public boolean equals(Object o) {
+        if (this == o){
+            return true;
+        }
+        if (!(o instanceof YogaSession)){
+            return false;
+        }
+        YogaSession session = (YogaSession) o;
+        return id != 0 && id == session.getId();
     }
-    return  true;
-}
 
     @Override
     public int hashCode() {
-        return Objects.hash(id,date,startOfSession,roomType,room);
+        // constant, so the hash stays the same when persist assigns the id and when fields are patched
+        return YogaSession.class.hashCode();
     }
 }
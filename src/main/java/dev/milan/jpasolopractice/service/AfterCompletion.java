@@ -0,0 +1,25 @@
+package dev.milan.jpasolopractice.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Runs an invalidation right away and, inside a transaction, again once the transaction completes. A copy loaded by
+ * another request between the two from data the transaction hadn't committed yet is dropped instead of kept.
+ */
+final class AfterCompletion {
+    private AfterCompletion() {
+    }
+
+    static void runNowAndAfterCompletion(Runnable invalidation){
+        invalidation.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()){
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidation.run();
+                }
+            });
+        }
+    }
+}
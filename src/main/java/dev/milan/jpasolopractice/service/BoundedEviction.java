@@ -0,0 +1,20 @@
+package dev.milan.jpasolopractice.service;
+
+import java.util.Comparator;
+import java.util.Map;
+
+/**
+ * Keeps a concurrent map at a maximum size by removing the entry that sorts first until it fits. An entry replaced by
+ * another thread meanwhile is left alone.
+ */
+final class BoundedEviction {
+    private BoundedEviction() {
+    }
+
+    static <K, V> void evictBeyond(Map<K, V> map, int maxEntries, Comparator<? super V> evictFirst){
+        while (map.size() > maxEntries){
+            map.entrySet().stream().min(Map.Entry.comparingByValue(evictFirst))
+                    .ifPresent(first -> map.remove(first.getKey(), first.getValue()));
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package dev.milan.jpasolopractice.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An export whose request was checked and which is ready to be written. Nothing is read from the database until
+ * {@link Body#writeTo(OutputStream)} runs.
+ */
+public record DataExport(String contentType, String fileName, Body body) {
+    @FunctionalInterface
+    public interface Body {
+        void writeTo(OutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,67 @@
+package dev.milan.jpasolopractice.service;
+
+import dev.milan.jpasolopractice.dto.DaySchedule;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Immutable day schedule snapshots keyed by date, dropped whenever a change touches their date. Snapshots are loaded
+ * outside the map's locks; a load that overlapped an invalidation is returned but not kept. Snapshots expire after a
+ * while and the oldest ones are dropped once the cache holds its maximum number of dates.
+ */
+@Service
+public class DayScheduleCache {
+    private final Map<LocalDate, Snapshot> snapshots = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final int maxDates;
+    private final long ttlNanos;
+
+    @Autowired
+    public DayScheduleCache(@Value("${schedule.cache.max-dates:400}") int maxDates, @Value("${schedule.cache.ttl-ms:600000}") long ttlMillis) {
+        this.maxDates = maxDates;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    public DaySchedule get(LocalDate date, Function<LocalDate, DaySchedule> loader){
+        long now = System.nanoTime();
+        Snapshot cached = snapshots.get(date);
+        if (cached != null && !cached.isExpired(now, ttlNanos)){
+            return cached.schedule();
+        }
+        long seen = invalidations.get();
+        Snapshot loaded = new Snapshot(loader.apply(date), now);
+        if (cached == null ? snapshots.putIfAbsent(date, loaded) == null : snapshots.replace(date, cached, loaded)){
+            if (invalidations.get() != seen){
+                snapshots.remove(date, loaded);
+            }else if (snapshots.size() > maxDates){
+                BoundedEviction.evictBeyond(snapshots, maxDates, Comparator.comparingLong(Snapshot::loadedAt));
+            }
+        }
+        return loaded.schedule();
+    }
+
+    public void invalidate(LocalDate date){
+        if (date == null){
+            return;
+        }
+        AfterCompletion.runNowAndAfterCompletion(() -> {
+            invalidations.incrementAndGet();
+            snapshots.remove(date);
+        });
+    }
+
+    private record Snapshot(DaySchedule schedule, long loadedAt) {
+        private boolean isExpired(long now, long ttlNanos){
+            return now - loadedAt >= ttlNanos;
+        }
+    }
+}
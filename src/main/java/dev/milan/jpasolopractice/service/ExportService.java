@@ -0,0 +1,151 @@
+package dev.milan.jpasolopractice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.milan.jpasolopractice.customException.ApiRequestException;
+import dev.milan.jpasolopractice.customException.differentExceptions.BadRequestApiRequestException;
+import dev.milan.jpasolopractice.customException.differentExceptions.NotFoundApiRequestException;
+import dev.milan.jpasolopractice.data.RoomRepository;
+import dev.milan.jpasolopractice.data.YogaSessionRepository;
+import dev.milan.jpasolopractice.dto.BookingRow;
+import dev.milan.jpasolopractice.dto.RoomSummary;
+import dev.milan.jpasolopractice.dto.SessionSummary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.RecordComponent;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Full dumps of sessions, rooms and bookings as NDJSON or CSV. Rows are read as projections from a cursor-backed
+ * stream and written out one at a time inside a read-only transaction, so no entities pile up in the persistence
+ * context and memory doesn't grow with the number of rows.
+ */
+@Service
+public class ExportService {
+    private static final LocalDate EARLIEST = LocalDate.of(1, 1, 1);
+    private static final LocalDate LATEST = LocalDate.of(9999, 12, 31);
+    private final YogaSessionRepository yogaSessionRepository;
+    private final RoomRepository roomRepository;
+    private final FormatCheckService formatCheckService;
+    private final ObjectMapper mapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    @Autowired
+    public ExportService(YogaSessionRepository yogaSessionRepository, RoomRepository roomRepository, FormatCheckService formatCheckService
+            , ObjectMapper mapper, PlatformTransactionManager transactionManager) {
+        this.yogaSessionRepository = yogaSessionRepository;
+        this.roomRepository = roomRepository;
+        this.formatCheckService = formatCheckService;
+        this.mapper = mapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public DataExport prepare(String entity, Optional<String> formatString, Optional<String> fromString, Optional<String> toString)
+            throws ApiRequestException{
+        Format format = checkFormat(formatString);
+        LocalDate from = fromString.map(formatCheckService::checkDateFormat).orElse(EARLIEST);
+        LocalDate to = toString.map(formatCheckService::checkDateFormat).orElse(LATEST);
+        if (from.isAfter(to)){
+            BadRequestApiRequestException.throwBadRequestException("Export start date must not be after its end date.");
+        }
+        return switch (entity.toLowerCase()) {
+            case "sessions" -> export("sessions", format, SessionSummary.class, () -> yogaSessionRepository.streamSummariesByDateBetween(from, to));
+            case "rooms" -> export("rooms", format, RoomSummary.class, () -> roomRepository.streamSummariesByDateBetween(from, to));
+            case "bookings" -> export("bookings", format, BookingRow.class, () -> yogaSessionRepository.streamBookingsByDateBetween(from, to));
+            default -> throw NotFoundApiRequestException.throwNotFoundException("Export of " + entity + " not found. Export sessions, rooms or bookings.");
+        };
+    }
+
+    private Format checkFormat(Optional<String> formatString) throws BadRequestApiRequestException{
+        if (formatString.isEmpty() || formatString.get().equalsIgnoreCase("ndjson")){
+            return Format.NDJSON;
+        }else if (formatString.get().equalsIgnoreCase("csv")){
+            return Format.CSV;
+        }
+        throw BadRequestApiRequestException.throwBadRequestException("Export format must be ndjson or csv.");
+    }
+
+    private <T extends Record> DataExport export(String name, Format format, Class<T> rowType, Supplier<Stream<T>> rows){
+        RecordComponent[] columns = rowType.getRecordComponents();
+        return new DataExport(format.contentType, name + "." + format.extension, out -> {
+            try{
+                readOnlyTransaction.executeWithoutResult(status -> {
+                    try (Stream<T> stream = rows.get()){
+                        if (format == Format.CSV){
+                            writeLine(out, Arrays.stream(columns).map(RecordComponent::getName).collect(Collectors.joining(",")));
+                        }
+                        stream.forEach(row -> writeRow(out, format, columns, row));
+                    }
+                });
+            }catch (UncheckedIOException e){
+                throw e.getCause();
+            }
+        });
+    }
+
+    private void writeRow(OutputStream out, Format format, RecordComponent[] columns, Record row){
+        try{
+            if (format == Format.CSV){
+                writeLine(out, Arrays.stream(columns).map(column -> csvField(valueOf(column, row))).collect(Collectors.joining(",")));
+            }else{
+                out.write(mapper.writeValueAsBytes(row));
+                out.write('\n');
+            }
+        }catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeLine(OutputStream out, String line){
+        try{
+            out.write(line.getBytes(StandardCharsets.UTF_8));
+            out.write('\n');
+        }catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Object valueOf(RecordComponent column, Record row){
+        try{
+            return column.getAccessor().invoke(row);
+        }catch (IllegalAccessException | InvocationTargetException e){
+            throw new IllegalStateException("Couldn't read " + column.getName() + " of " + row, e);
+        }
+    }
+
+    private static String csvField(Object value){
+        if (value == null){
+            return "";
+        }
+        String text = value instanceof Enum<?> constant ? constant.name() : value.toString();
+        if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")){
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+
+    private enum Format {
+        NDJSON("application/x-ndjson", "ndjson"), CSV("text/csv;charset=UTF-8", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+    }
+}
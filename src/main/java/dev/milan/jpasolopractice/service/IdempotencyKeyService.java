@@ -0,0 +1,83 @@
+package dev.milan.jpasolopractice.service;
+
+import dev.milan.jpasolopractice.customException.differentExceptions.BadRequestApiRequestException;
+import dev.milan.jpasolopractice.customException.differentExceptions.ConflictApiRequestException;
+import dev.milan.jpasolopractice.data.IdempotencyKeyRepository;
+import dev.milan.jpasolopractice.model.IdempotencyKey;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Remembers which resource a create request with an Idempotency-Key produced, so a retried request gets the same
+ * resource back. The key is stored with the request it was first used for; reusing it for anything else is a conflict.
+ * The insert and its key commit together in a transaction of their own, so when two retries race past the lookup the
+ * loser's collision can be answered from the key the winner stored. Keys only have to outlive client retries, so they
+ * are purged once they are older than the retention.
+ */
+@Service
+public class IdempotencyKeyService {
+    private static final int MAX_KEY_LENGTH = 255;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final TransactionTemplate newTransaction;
+    private final Duration retention;
+
+    @Autowired
+    public IdempotencyKeyService(IdempotencyKeyRepository idempotencyKeyRepository, PlatformTransactionManager transactionManager
+            , @Value("${idempotency.keys.retention-ms:86400000}") long retentionMillis) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.retention = Duration.ofMillis(retentionMillis);
+    }
+
+    public Optional<Integer> findOriginal(Optional<String> key, String request){
+        if (key.isEmpty()){
+            return Optional.empty();
+        }
+        if (key.get().isBlank() || key.get().length() > MAX_KEY_LENGTH){
+            BadRequestApiRequestException.throwBadRequestException("Idempotency-Key must have between 1 and " + MAX_KEY_LENGTH + " characters.");
+        }
+        Optional<IdempotencyKey> found = idempotencyKeyRepository.findById(key.get());
+        if (found.isPresent() && !found.get().getRequest().equals(request)){
+            ConflictApiRequestException.throwConflictApiRequestException("Idempotency-Key:" + key.get() + " was already used for a different request.");
+        }
+        return found.map(IdempotencyKey::getResourceId);
+    }
+
+    /**
+     * Runs the insert and stores the key with the id it returned. If either collides and the key was meanwhile stored
+     * by a concurrent request, that request's resource id is returned; other collisions are left to the caller.
+     */
+    public int createOnce(Optional<String> key, String request, Supplier<Integer> insert){
+        try{
+            return newTransaction.execute(status -> {
+                int resourceId = insert.get();
+                remember(key, request, resourceId);
+                return resourceId;
+            });
+        }catch (DataIntegrityViolationException e){
+            return findOriginal(key, request).orElseThrow(() -> e);
+        }
+    }
+
+    public void remember(Optional<String> key, String request, int resourceId){
+        key.ifPresent(value -> idempotencyKeyRepository.saveAndFlush(new IdempotencyKey(value, request, resourceId)));
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.keys.purge-ms:3600000}")
+    public void purgeExpired(){
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        newTransaction.executeWithoutResult(status -> idempotencyKeyRepository.deleteCreatedBefore(cutoff));
+    }
+}
@@ -0,0 +1,62 @@
+package dev.milan.jpasolopractice.service;
+
+import dev.milan.jpasolopractice.customException.differentExceptions.BadRequestApiRequestException;
+import dev.milan.jpasolopractice.dto.KeysetPage;
+import dev.milan.jpasolopractice.dto.PageCursor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public final class KeysetPaging {
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+
+    private KeysetPaging() {
+    }
+
+    public static int pageSize(Optional<String> size) throws BadRequestApiRequestException{
+        if (size.isEmpty()){
+            return DEFAULT_PAGE_SIZE;
+        }
+        int pageSize = 0;
+        try{
+            pageSize = Integer.parseInt(size.get());
+        }catch (NumberFormatException e){
+            BadRequestApiRequestException.throwBadRequestException("Page size must be an integer value.");
+        }
+        if (pageSize < 1){
+            BadRequestApiRequestException.throwBadRequestException("Page size must be at least 1.");
+        }
+        return Math.min(pageSize, MAX_PAGE_SIZE);
+    }
+
+    public static PageCursor cursor(Optional<String> cursor) throws BadRequestApiRequestException{
+        return cursor.map(PageCursor::decode).orElse(PageCursor.START);
+    }
+
+    public static Pageable limitOneAfter(int pageSize){
+        return PageRequest.of(0, pageSize + 1);
+    }
+
+    public static <T> KeysetPage<T> toPage(List<T> rows, int pageSize, Function<T, PageCursor> cursorOf){
+        if (rows.size() <= pageSize){
+            return new KeysetPage<>(List.copyOf(rows), null);
+        }
+        List<T> content = List.copyOf(rows.subList(0, pageSize));
+        return new KeysetPage<>(content, cursorOf.apply(content.get(pageSize - 1)).encode());
+    }
+
+    public static <T> KeysetPage<T> pageOf(List<T> all, PageCursor after, int pageSize, Function<T, PageCursor> cursorOf){
+        List<T> rows = all.stream()
+                .filter(row -> cursorOf.apply(row).compareTo(after) > 0)
+                .sorted(Comparator.comparing(cursorOf))
+                .limit(pageSize + 1L)
+                .collect(Collectors.toList());
+        return toPage(rows, pageSize, cursorOf);
+    }
+}
@@ -0,0 +1,229 @@
+package dev.milan.jpasolopractice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.milan.jpasolopractice.customException.ApiRequestException;
+import dev.milan.jpasolopractice.customException.differentExceptions.BadRequestApiRequestException;
+import dev.milan.jpasolopractice.data.PersonRepository;
+import dev.milan.jpasolopractice.dto.ImportReport;
+import dev.milan.jpasolopractice.dto.ImportReport.RowError;
+import dev.milan.jpasolopractice.model.Person;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk import of people from a CSV upload with a name,age,email header or from NDJSON. The body is read line by line
+ * and handled in chunks: a chunk is validated in parallel, checked against existing emails with one IN query and
+ * inserted as JDBC batches in its own transaction, so only one chunk of rows is held in memory at a time. The
+ * persistence context is cleared after each chunk, since with open-in-view it is the request's and would otherwise keep
+ * every imported person until the upload ends. Rows that can't be imported end up in the report instead of failing
+ * the upload; all of them are counted but only the first thousand are listed, so a file of bad rows can't grow the
+ * report with the upload.
+ */
+@Service
+public class PersonImport {
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+    private static final int CHUNK_SIZE = 500;
+    private static final int MAX_REPORTED_ERRORS = 1_000;
+    private final PersonRepository personRepository;
+    private final PersonServiceUtil personServiceUtil;
+    private final ObjectMapper mapper;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transaction;
+
+    @Autowired
+    public PersonImport(PersonRepository personRepository, PersonServiceUtil personServiceUtil, ObjectMapper mapper
+            , EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        this.personRepository = personRepository;
+        this.personServiceUtil = personServiceUtil;
+        this.mapper = mapper;
+        this.entityManager = entityManager;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    public ImportReport importPeople(InputStream body, MediaType contentType) throws ApiRequestException, IOException {
+        int rowsRead = 0;
+        int imported = 0;
+        List<RowError> errors = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))){
+            boolean csv = TEXT_CSV.isCompatibleWith(contentType);
+            int[] columns = csv ? csvColumns(reader.readLine()) : null;
+            int lineNumber = csv ? 1 : 0;
+            List<ImportRow> chunk = new ArrayList<>(CHUNK_SIZE);
+            String line;
+            while ((line = reader.readLine()) != null){
+                lineNumber++;
+                if (line.isBlank()){
+                    continue;
+                }
+                chunk.add(csv ? csvRow(lineNumber, line, columns) : ndjsonRow(lineNumber, line));
+                rowsRead++;
+                if (chunk.size() == CHUNK_SIZE){
+                    imported += importChunk(chunk, errors);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()){
+                imported += importChunk(chunk, errors);
+            }
+        }
+        return new ImportReport(rowsRead, imported, rowsRead - imported, errors);
+    }
+
+    private int importChunk(List<ImportRow> chunk, List<RowError> errors){
+        List<RowError> chunkErrors = new ArrayList<>();
+        Map<String, ImportRow> byEmail = new LinkedHashMap<>();
+        for (ImportRow row : chunk.parallelStream().map(this::check).collect(Collectors.toList())){
+            if (row.error() != null){
+                chunkErrors.add(new RowError(row.line(), row.error()));
+                continue;
+            }
+            ImportRow earlier = byEmail.putIfAbsent(row.email(), row);
+            if (earlier != null){
+                chunkErrors.add(new RowError(row.line(), "Email " + row.email() + " already appears on line " + earlier.line() + "."));
+            }
+        }
+        Set<String> existing;
+        try{
+            existing = insertNew(byEmail);
+        }catch (DataIntegrityViolationException e){
+            existing = insertNew(byEmail);
+        }
+        for (String email : existing){
+            chunkErrors.add(new RowError(byEmail.get(email).line(), "Person already exists."));
+        }
+        chunkErrors.sort(Comparator.comparingInt(RowError::line));
+        errors.addAll(chunkErrors.subList(0, Math.min(chunkErrors.size(), MAX_REPORTED_ERRORS - errors.size())));
+        return byEmail.size() - existing.size();
+    }
+
+    private Set<String> insertNew(Map<String, ImportRow> byEmail){
+        if (byEmail.isEmpty()){
+            return Set.of();
+        }
+        return transaction.execute(status -> {
+            Set<String> existing = new HashSet<>(personRepository.findEmailsByEmailIn(byEmail.keySet()));
+            List<Person> people = new ArrayList<>(byEmail.size() - existing.size());
+            for (ImportRow row : byEmail.values()){
+                if (!existing.contains(row.email())){
+                    Person person = new Person();
+                    person.setName(row.name());
+                    person.setAge(Integer.parseInt(row.age()));
+                    person.setEmail(row.email());
+                    people.add(person);
+                }
+            }
+            personRepository.saveAll(people);
+            entityManager.flush();
+            entityManager.clear();
+            return existing;
+        });
+    }
+
+    private ImportRow check(ImportRow row){
+        if (row.error() != null){
+            return row;
+        }
+        if (row.name() == null || row.age() == null || row.email() == null){
+            return ImportRow.failed(row.line(), "Row must have a name, age and email.");
+        }
+        try{
+            Person checked = personServiceUtil.createPerson(row.name(), Integer.parseInt(row.age().trim()), row.email());
+            return new ImportRow(row.line(), checked.getName(), String.valueOf(checked.getAge()), checked.getEmail(), null);
+        }catch (NumberFormatException e){
+            return ImportRow.failed(row.line(), "Age must be an integer value.");
+        }catch (ApiRequestException e){
+            return ImportRow.failed(row.line(), e.getMessage());
+        }
+    }
+
+    private int[] csvColumns(String header) throws BadRequestApiRequestException{
+        List<String> fields = header == null ? null : csvFields(header);
+        List<String> names = fields == null ? List.of() : fields.stream().map(name -> name.trim().toLowerCase()).collect(Collectors.toList());
+        int[] columns = {names.indexOf("name"), names.indexOf("age"), names.indexOf("email")};
+        if (Arrays.stream(columns).anyMatch(column -> column < 0)){
+            BadRequestApiRequestException.throwBadRequestException("CSV import must start with a header naming the name, age and email columns.");
+        }
+        return columns;
+    }
+
+    private static ImportRow csvRow(int line, String text, int[] columns){
+        List<String> fields = csvFields(text);
+        if (fields == null){
+            return ImportRow.failed(line, "Row has an unterminated quoted field.");
+        }
+        String[] values = new String[columns.length];
+        for (int i = 0; i < columns.length; i++){
+            values[i] = columns[i] < fields.size() && !fields.get(columns[i]).isEmpty() ? fields.get(columns[i]) : null;
+        }
+        return new ImportRow(line, values[0], values[1], values[2], null);
+    }
+
+    private static List<String> csvFields(String text){
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++){
+            char c = text.charAt(i);
+            if (quoted){
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"'){
+                    field.append('"');
+                    i++;
+                }else if (c == '"'){
+                    quoted = false;
+                }else{
+                    field.append(c);
+                }
+            }else if (c == '"'){
+                quoted = true;
+            }else if (c == ','){
+                fields.add(field.toString());
+                field.setLength(0);
+            }else{
+                field.append(c);
+            }
+        }
+        if (quoted){
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private ImportRow ndjsonRow(int line, String text){
+        try{
+            JsonNode node = mapper.readTree(text);
+            if (!node.isObject()){
+                return ImportRow.failed(line, "Row must be a JSON object.");
+            }
+            return new ImportRow(line, textOf(node, "name"), textOf(node, "age"), textOf(node, "email"), null);
+        }catch (JsonProcessingException e){
+            return ImportRow.failed(line, "Row is not valid JSON.");
+        }
+    }
+
+    private static String textOf(JsonNode node, String field){
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private record ImportRow(int line, String name, String age, String email, String error) {
+        private static ImportRow failed(int line, String error){
+            return new ImportRow(line, null, null, null, error);
+        }
+    }
+}
@@ -11,16 +11,18 @@ import dev.milan.jpasolopractice.customException.differentExceptions.ConflictApi
 import dev.milan.jpasolopractice.customException.differentExceptions.NotFoundApiRequestException;
 import dev.milan.jpasolopractice.data.PersonRepository;
 import dev.milan.jpasolopractice.data.YogaSessionRepository;
+import dev.milan.jpasolopractice.dto.KeysetPage;
+import dev.milan.jpasolopractice.dto.PageCursor;
+import dev.milan.jpasolopractice.dto.PersonSummary;
 import dev.milan.jpasolopractice.model.Person;
 import dev.milan.jpasolopractice.model.YogaSession;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import javax.transaction.Transactional;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 public class PersonService {
@@ -29,14 +31,23 @@ public class PersonService {
     private final YogaSessionRepository yogaSessionRepository;
     private final FormatCheckService formatCheckService;
     private final ObjectMapper objectMapper;
+    private final SessionAvailabilityStreams availabilityStreams;
+    private final SessionWaitlist sessionWaitlist;
+    private final SeatHolds seatHolds;
+    private final DayScheduleCache dayScheduleCache;
     @Autowired
     public PersonService(PersonRepository personRepository, PersonServiceUtil personServiceUtil, YogaSessionRepository yogaSessionRepository,
-                         FormatCheckService formatCheckService, ObjectMapper objectMapper) {
+                         FormatCheckService formatCheckService, ObjectMapper objectMapper, SessionAvailabilityStreams availabilityStreams
+                         , SessionWaitlist sessionWaitlist, SeatHolds seatHolds, DayScheduleCache dayScheduleCache) {
         this.personRepository = personRepository;
         this.personServiceUtil = personServiceUtil;
         this.yogaSessionRepository = yogaSessionRepository;
         this.formatCheckService = formatCheckService;
         this.objectMapper = objectMapper;
+        this.availabilityStreams = availabilityStreams;
+        this.sessionWaitlist = sessionWaitlist;
+        this.seatHolds = seatHolds;
+        this.dayScheduleCache = dayScheduleCache;
     }
 
     @Transactional
@@ -55,6 +66,23 @@ public class PersonService {
         Optional<Person> found = personRepository.findById(id);
         return found.orElseThrow(()-> NotFoundApiRequestException.throwNotFoundException("Person id:" + id + " couldn't be found."));
     }
+    public String findPersonVersionTag(int id) throws NotFoundApiRequestException{
+        return Optional.ofNullable(personRepository.findVersionById(id)).map(String::valueOf)
+                .orElseThrow(()-> NotFoundApiRequestException.throwNotFoundException("Person id:" + id + " couldn't be found."));
+    }
+
+    public String findPersonSessionsVersionTag(int personId) throws NotFoundApiRequestException{
+        return Optional.ofNullable(personRepository.findSessionsVersionTagById(personId))
+                .orElseThrow(()-> NotFoundApiRequestException.throwNotFoundException("Person id:" + personId + " couldn't be found."));
+    }
+
+    public String findPeopleVersionTag(Optional<String> sessionId) throws ApiRequestException{
+        if (sessionId.isPresent()){
+            return personRepository.findVersionTagBySessionId(checkSessionExists(formatCheckService.checkNumberFormat(sessionId.get())));
+        }
+        return personRepository.findVersionTag();
+    }
+
     public boolean removeSessionFromPerson(Person person, YogaSession session) throws ApiRequestException{
         if (person.getYogaSessions().contains(session)) {
             person.getYogaSessions().remove(session);
@@ -65,8 +93,8 @@ public class PersonService {
     }
     @Transactional
     public List<YogaSession> getAllSessionsFromPerson(int personId) throws ApiRequestException{
-        Optional<Person> found = personRepository.findById(personId);
-        return found.map(Person::getYogaSessions).orElseThrow(()-> NotFoundApiRequestException.throwNotFoundException("Person id:" + personId + " couldn't be found."));
+        Optional<Person> found = personRepository.findWithSessionsById(personId);
+        return found.map(person -> (List<YogaSession>) new ArrayList<>(person.getYogaSessions())).orElseThrow(()-> NotFoundApiRequestException.throwNotFoundException("Person id:" + personId + " couldn't be found."));
     }
 
     public boolean addSessionToPerson(YogaSession session, Person person) throws ApiRequestException{
@@ -78,36 +106,61 @@ public class PersonService {
         return false;
     }
 
-    public List<Person> findPeopleByParams(Optional<String> sessionId, Optional<String> startAge, Optional<String> endAge) throws ApiRequestException{
+    public List<PersonSummary> findPeopleByParams(Optional<String> sessionId, Optional<String> startAge, Optional<String> endAge) throws ApiRequestException{
         if (startAge.isEmpty() || endAge.isEmpty()){
             if (sessionId.isEmpty()){
-                return (List<Person>) personRepository.findAll();
+                return personRepository.findAllSummaries();
             }else{
-                YogaSession session = findSessionById(formatCheckService.checkNumberFormat(sessionId.get()));
-                return session.getMembersAttending();
+                int session = checkSessionExists(formatCheckService.checkNumberFormat(sessionId.get()));
+                return personRepository.findSummariesBySessionId(session);
             }
         }else{
             int startAgeNum = formatCheckService.checkNumberFormat(startAge.get());
             int endAgeNum = formatCheckService.checkNumberFormat(endAge.get());
-            if (startAgeNum > endAgeNum){
-                BadRequestApiRequestException.throwBadRequestException("startAge cannot be larger than endAge");
-            }
+            checkAgeRange(startAgeNum, endAgeNum);
             if (sessionId.isEmpty()){
-                return findPeopleByAge(startAgeNum, endAgeNum);
+                return personRepository.findSummariesByAgeBetween(startAgeNum, endAgeNum);
             }else{
-                YogaSession session = findSessionById(formatCheckService.checkNumberFormat(sessionId.get()));
-                return session.getMembersAttending().stream().filter(s -> s.getAge() >= startAgeNum && s.getAge() <= endAgeNum).collect(Collectors.toList());
+                int session = checkSessionExists(formatCheckService.checkNumberFormat(sessionId.get()));
+                return personRepository.findSummariesBySessionIdAndAgeBetween(session, startAgeNum, endAgeNum);
             }
         }
     }
 
-    private YogaSession findSessionById(Integer sessionId) throws NotFoundApiRequestException {
-        return yogaSessionRepository.findById(sessionId).orElseThrow(()-> NotFoundApiRequestException.throwNotFoundException("Yoga session id:" + sessionId + " not found."));
+    public KeysetPage<PersonSummary> findPeoplePageByParams(Optional<String> sessionId, Optional<String> startAge, Optional<String> endAge
+            , Optional<String> cursor, Optional<String> size) throws ApiRequestException{
+        int pageSize = KeysetPaging.pageSize(size);
+        PageCursor after = KeysetPaging.cursor(cursor);
+        if (sessionId.isPresent()){
+            return KeysetPaging.pageOf(findPeopleByParams(sessionId, startAge, endAge), after, pageSize, PersonService::cursorOf);
+        }
+        List<PersonSummary> rows;
+        if (startAge.isEmpty() || endAge.isEmpty()){
+            rows = personRepository.findPageAfter(after.id(), KeysetPaging.limitOneAfter(pageSize));
+        }else{
+            int startAgeNum = formatCheckService.checkNumberFormat(startAge.get());
+            int endAgeNum = formatCheckService.checkNumberFormat(endAge.get());
+            checkAgeRange(startAgeNum, endAgeNum);
+            rows = personRepository.findPageByAgeBetweenAfter(startAgeNum, endAgeNum, after.id(), KeysetPaging.limitOneAfter(pageSize));
+        }
+        return KeysetPaging.toPage(rows, pageSize, PersonService::cursorOf);
+    }
 
+    private static PageCursor cursorOf(PersonSummary person){
+        return PageCursor.ofId(person.id());
     }
 
-    private List<Person> findPeopleByAge(Integer startAge, Integer endAge) {
-        return personRepository.findPeopleByAgeBetween(startAge,endAge);
+    private void checkAgeRange(int startAge, int endAge) throws BadRequestApiRequestException{
+        if (startAge > endAge){
+            BadRequestApiRequestException.throwBadRequestException("startAge cannot be larger than endAge");
+        }
+    }
+
+    private int checkSessionExists(int sessionId) throws NotFoundApiRequestException {
+        if (!yogaSessionRepository.existsById(sessionId)){
+            NotFoundApiRequestException.throwNotFoundException("Yoga session id:" + sessionId + " not found.");
+        }
+        return sessionId;
     }
 
 
@@ -126,8 +179,6 @@ public class PersonService {
     private Person updatePerson(Person oldPerson , Person personPatched) throws BadRequestApiRequestException{
         if (oldPerson.getId() != personPatched.getId()){
             BadRequestApiRequestException.throwBadRequestException("Patch request cannot change user id.");
-        }else if(!Arrays.equals(oldPerson.getYogaSessions().toArray(), personPatched.getYogaSessions().toArray())){
-            BadRequestApiRequestException.throwBadRequestException("Patch request cannot change user sessions.");
         }
         return personRepository.save(personPatched);
     }
@@ -147,8 +198,13 @@ public class PersonService {
         Person personToDelete = findPersonById(id);
         for (YogaSession session: personToDelete.getYogaSessions()){
             session.removeMember(personToDelete);
+            session.removeOneBooked();
             yogaSessionRepository.save(session);
+            dayScheduleCache.invalidate(session.getDate());
+            availabilityStreams.sessionChanged(session.getId(), session.getDate());
+            sessionWaitlist.promoteAfterCommit(session.getId());
         }
+        seatHolds.releaseHoldsOf(id);
         personRepository.delete(personToDelete);
     }
 }
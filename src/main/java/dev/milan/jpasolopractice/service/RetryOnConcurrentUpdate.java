@@ -0,0 +1,20 @@
+package dev.milan.jpasolopractice.service;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
+
+import java.lang.annotation.*;
+
+/**
+ * Runs a service method again, after a short randomized pause, when it loses an optimistic locking race. Each attempt
+ * gets a fresh transaction and therefore re-reads the rows it changes. Once the attempts run out the
+ * {@link OptimisticLockingFailureException} propagates and is answered with 409.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Retryable(value = OptimisticLockingFailureException.class, maxAttempts = 4
+        , backoff = @Backoff(delay = 20, maxDelay = 200, multiplier = 2, random = true))
+public @interface RetryOnConcurrentUpdate {
+}
@@ -0,0 +1,204 @@
+package dev.milan.jpasolopractice.service;
+
+import dev.milan.jpasolopractice.model.Room;
+import dev.milan.jpasolopractice.model.YogaSession;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Occupied periods per room, sorted by start time. Built from the session list on first check and stamped with the room
+ * version it was built from; a check against a newer version of the room rebuilds it, so a timeline built from a list
+ * loaded before another placement committed is replaced instead of kept. Changes made inside a transaction go to a
+ * copy only that transaction sees and reach the shared timelines once it commits, so other requests never check against
+ * sessions that may still roll back. Timelines of past days are dropped and the index holds at most a fixed number of
+ * rooms; a dropped timeline is rebuilt on the next check.
+ */
+public class RoomOccupancyIndex {
+    private static final int DEFAULT_MAX_ROOMS = 4096;
+    private final Map<Integer, Timeline> timelines = new ConcurrentHashMap<>();
+    private final int maxRooms;
+
+    public RoomOccupancyIndex() {
+        this(DEFAULT_MAX_ROOMS);
+    }
+
+    public RoomOccupancyIndex(int maxRooms) {
+        this.maxRooms = maxRooms;
+    }
+
+    public boolean overlaps(Room room, LocalTime start, LocalTime end){
+        Overlay overlay = currentOverlay();
+        Timeline timeline = overlay != null && overlay.timelines.containsKey(room.getId())
+                ? overlay.timelines.get(room.getId()) : timelineFor(room);
+        return timeline.overlaps(start.toSecondOfDay(), end.toSecondOfDay());
+    }
+
+    public void register(Room room, YogaSession session){
+        if (room.getId() != 0){
+            change(room, timeline -> timeline.add(session));
+        }
+    }
+
+    public void release(Room room, YogaSession session){
+        if (room.getId() != 0){
+            change(room, timeline -> timeline.remove(session.getId()));
+        }
+    }
+
+    public void rebuild(Room room){
+        if (room.getId() != 0){
+            List<YogaSession> sessions = List.copyOf(room.getSessionList());
+            change(room, timeline -> timeline.replaceWith(sessions));
+        }
+    }
+
+    public void evict(int roomId){
+        timelines.remove(roomId);
+        Overlay overlay = currentOverlay();
+        if (overlay != null){
+            overlay.timelines.remove(roomId);
+        }
+    }
+
+    private void change(Room room, Consumer<Timeline> change){
+        if (!TransactionSynchronizationManager.isSynchronizationActive()){
+            Timeline shared = timelines.get(room.getId());
+            if (shared != null){
+                change.accept(shared);
+            }
+            return;
+        }
+        Overlay overlay = currentOverlay();
+        if (overlay == null){
+            overlay = new Overlay();
+            TransactionSynchronizationManager.bindResource(this, overlay);
+            TransactionSynchronizationManager.registerSynchronization(overlay);
+        }
+        overlay.timelines.computeIfAbsent(room.getId(), id -> {
+            Timeline shared = timelines.get(id);
+            return shared != null && shared.isCurrentFor(room) ? shared.copy() : Timeline.of(room);
+        });
+        change.accept(overlay.timelines.get(room.getId()));
+        overlay.changes.add(new Change(room.getId(), change));
+    }
+
+    private Overlay currentOverlay(){
+        return (Overlay) TransactionSynchronizationManager.getResource(this);
+    }
+
+    private Timeline timelineFor(Room room){
+        if (room.getId() == 0){
+            return Timeline.of(room);
+        }
+        Timeline timeline = timelines.get(room.getId());
+        if (timeline == null || !timeline.isCurrentFor(room)){
+            timeline = timelines.compute(room.getId()
+                    , (id, current) -> current != null && current.isCurrentFor(room) ? current : Timeline.of(room));
+            dropStale();
+        }
+        return timeline;
+    }
+
+    private void dropStale(){
+        LocalDate today = LocalDate.now();
+        timelines.values().removeIf(timeline -> timeline.date != null && timeline.date.isBefore(today));
+        BoundedEviction.evictBeyond(timelines, maxRooms
+                , Comparator.comparing((Timeline timeline) -> timeline.date, Comparator.nullsFirst(Comparator.naturalOrder())));
+    }
+
+    private record Change(int roomId, Consumer<Timeline> change) {
+    }
+
+    private class Overlay implements TransactionSynchronization {
+        private final Map<Integer, Timeline> timelines = new HashMap<>();
+        private final List<Change> changes = new ArrayList<>();
+
+        @Override
+        public void afterCommit() {
+            for (Change change : changes){
+                Timeline shared = RoomOccupancyIndex.this.timelines.get(change.roomId());
+                if (shared != null){
+                    change.change().accept(shared);
+                }
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(RoomOccupancyIndex.this);
+        }
+    }
+
+    private static class Timeline {
+        private final LocalDate date;
+        private final int version;
+        private final TreeMap<Integer, Integer> endByStart = new TreeMap<>();
+        private final Map<Integer, Integer> startBySessionId = new HashMap<>();
+
+        private Timeline(LocalDate date, int version) {
+            this.date = date;
+            this.version = version;
+        }
+
+        static Timeline of(Room room){
+            Timeline timeline = new Timeline(room.getDate(), room.getVersion());
+            for (YogaSession session : room.getSessionList()){
+                timeline.add(session);
+            }
+            return timeline;
+        }
+
+        boolean isCurrentFor(Room room){
+            return version >= room.getVersion();
+        }
+
+        synchronized Timeline copy(){
+            Timeline copy = new Timeline(date, version);
+            copy.endByStart.putAll(endByStart);
+            copy.startBySessionId.putAll(startBySessionId);
+            return copy;
+        }
+
+        synchronized void add(YogaSession session){
+            if (session.getStartOfSession() == null || session.getEndOfSession() == null){
+                return;
+            }
+            int start = session.getStartOfSession().toSecondOfDay();
+            endByStart.put(start, session.getEndOfSession().toSecondOfDay());
+            startBySessionId.put(session.getId(), start);
+        }
+
+        synchronized void remove(int sessionId){
+            Integer start = startBySessionId.remove(sessionId);
+            if (start != null){
+                endByStart.remove(start);
+            }
+        }
+
+        synchronized void replaceWith(List<YogaSession> sessions){
+            endByStart.clear();
+            startBySessionId.clear();
+            sessions.forEach(this::add);
+        }
+
+        synchronized boolean overlaps(int start, int end){
+            Map.Entry<Integer, Integer> before = endByStart.floorEntry(start);
+            if (before != null && (before.getKey() == start || before.getValue() > start)){
+                return true;
+            }
+            Map.Entry<Integer, Integer> after = endByStart.higherEntry(start);
+            return after != null && after.getKey() < end;
+        }
+    }
+}
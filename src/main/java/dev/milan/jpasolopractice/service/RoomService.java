@@ -11,10 +11,15 @@ import dev.milan.jpasolopractice.customException.differentExceptions.ConflictApi
 import dev.milan.jpasolopractice.customException.differentExceptions.NotFoundApiRequestException;
 import dev.milan.jpasolopractice.data.RoomRepository;
 import dev.milan.jpasolopractice.data.YogaSessionRepository;
+import dev.milan.jpasolopractice.dto.FreeSlot;
+import dev.milan.jpasolopractice.dto.KeysetPage;
+import dev.milan.jpasolopractice.dto.PageCursor;
+import dev.milan.jpasolopractice.dto.RoomSummary;
 import dev.milan.jpasolopractice.model.Room;
 import dev.milan.jpasolopractice.model.RoomType;
 import dev.milan.jpasolopractice.model.YogaSession;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 import javax.transaction.Transactional;
@@ -30,56 +35,104 @@ public class RoomService {
     private final YogaSessionRepository yogaSessionRepository;
     private final FormatCheckService formatCheckService;
     private final ObjectMapper mapper;
+    private final DayScheduleCache dayScheduleCache;
+    private final IdempotencyKeyService idempotencyKeyService;
+    private final RoomTemplates roomTemplates;
 
     @Autowired
     public RoomService(RoomRepository roomRepository, RoomServiceUtil roomServiceUtil, YogaSessionRepository yogaSessionRepository
-                        , FormatCheckService formatCheckService, ObjectMapper mapper) {
+                        , FormatCheckService formatCheckService, ObjectMapper mapper, DayScheduleCache dayScheduleCache
+                        , IdempotencyKeyService idempotencyKeyService, RoomTemplates roomTemplates) {
         this.yogaSessionRepository = yogaSessionRepository;
         this.roomRepository = roomRepository;
         this.roomServiceUtil = roomServiceUtil;
         this.formatCheckService = formatCheckService;
         this.mapper = mapper;
+        this.dayScheduleCache = dayScheduleCache;
+        this.idempotencyKeyService = idempotencyKeyService;
+        this.roomTemplates = roomTemplates;
     }
 
-    @Transactional
     public Room createARoom(String dateToSave, String openingHoursToSave, String closingHoursToSave, String typeToSave) throws ApiRequestException{
+        return createARoom(dateToSave, openingHoursToSave, closingHoursToSave, typeToSave, Optional.empty());
+    }
+
+    public Room createARoom(String dateToSave, String openingHoursToSave, String closingHoursToSave, String typeToSave
+                            , Optional<String> idempotencyKey) throws ApiRequestException{
         LocalDate date = formatCheckService.checkDateFormat(dateToSave);
         LocalTime openingHours = formatCheckService.checkTimeFormat(openingHoursToSave);
         LocalTime closingHours = formatCheckService.checkTimeFormat(closingHoursToSave);
         RoomType type = formatCheckService.checkRoomTypeFormat(typeToSave);
 
-        Room found = roomRepository.findRoomByDateAndRoomType(date,type);
-        if (found == null){
-            Room room = roomServiceUtil.createARoom(date,openingHours,closingHours,type);
-            roomRepository.save(room);
-           return room;
-        }else{
-            ConflictApiRequestException.throwConflictApiRequestException("Room id:" + found.getId() + " already exists.");
+        String request = "POST /rooms " + date + " " + openingHours + " " + closingHours + " " + type;
+        Optional<Integer> original = idempotencyKeyService.findOriginal(idempotencyKey, request);
+        if (original.isPresent()){
+            return findRoomById(original.get());
         }
-        return null;
+        Room room = roomServiceUtil.createARoom(date,openingHours,closingHours,type);
+        int id = 0;
+        try{
+            id = idempotencyKeyService.createOnce(idempotencyKey, request, () -> {
+                roomRepository.saveAndFlush(room);
+                return room.getId();
+            });
+        }catch (DataIntegrityViolationException e){
+            ConflictApiRequestException.throwConflictApiRequestException("Room with date:" + date + " and room type:" + type.name() + " already exists.");
+        }
+        dayScheduleCache.invalidate(date);
+        return id == room.getId() ? room : findRoomById(id);
     }
 
     public Room findRoomById(int id) {
         return  roomRepository.findById(id).orElseThrow(()-> NotFoundApiRequestException.throwNotFoundException("Room id:" + id + " not found."));
     }
 
+    public String findRoomVersionTag(int id) {
+        return Optional.ofNullable(roomRepository.findVersionTagById(id))
+                .orElseThrow(()-> NotFoundApiRequestException.throwNotFoundException("Room id:" + id + " not found."));
+    }
+
+    public String findRoomsVersionTag(Optional<String> date) throws ApiRequestException{
+        if (date.isPresent()){
+            return roomRepository.findVersionTagByDate(formatCheckService.checkDateFormat(date.get()));
+        }
+        return roomRepository.findVersionTag();
+    }
 
 
+
+    @RetryOnConcurrentUpdate
     @Transactional
     public YogaSession addSessionToRoom(int roomId, int sessionId) throws ApiRequestException{
         Room foundRoom = roomRepository.findById(roomId).orElseThrow(() -> NotFoundApiRequestException.throwNotFoundException("Room id:" + roomId + " not found."));
         YogaSession foundSession = yogaSessionRepository.findById(sessionId).orElseThrow(() -> NotFoundApiRequestException.throwNotFoundException("Yoga session id:" + sessionId + " not found."));
+        return placeSessionInRoom(foundRoom, foundSession);
+    }
 
+    @RetryOnConcurrentUpdate
+    @Transactional
+    public YogaSession addSessionToDayRoom(int sessionId) throws ApiRequestException{
+        YogaSession foundSession = yogaSessionRepository.findById(sessionId).orElseThrow(() -> NotFoundApiRequestException.throwNotFoundException("Yoga session id:" + sessionId + " not found."));
+        Room foundRoom = roomTemplates.findOrCreateRoom(foundSession.getDate(), foundSession.getRoomType())
+                .orElseThrow(() -> NotFoundApiRequestException.throwNotFoundException("Room with date:" + foundSession.getDate() + " and room type:"
+                        + foundSession.getRoomType().name() + " not found and no template to create it from."));
+        return placeSessionInRoom(foundRoom, foundSession);
+    }
+
+    private YogaSession placeSessionInRoom(Room foundRoom, YogaSession foundSession) throws ApiRequestException{
             if(roomServiceUtil.canAddSessionToRoom(foundRoom,foundSession)){
                 foundSession.setRoom(foundRoom);
                 foundRoom.addSession(foundSession);
+                roomServiceUtil.registerSessionTime(foundRoom, foundSession);
                 roomRepository.save(foundRoom);
                 yogaSessionRepository.save(foundSession);
+                dayScheduleCache.invalidate(foundRoom.getDate());
                 return foundSession;
             }
         return null;
     }
 
+    @RetryOnConcurrentUpdate
     @Transactional
     public Room removeSessionFromRoom(int roomId, int yogaSessionId) throws ApiRequestException{
         Optional<YogaSession> foundSession = yogaSessionRepository.findById(yogaSessionId);
@@ -91,6 +144,7 @@ public class RoomService {
         if (roomServiceUtil.removeSessionFromRoom(room, session)){
             roomRepository.save(room);
             yogaSessionRepository.save(session);
+            dayScheduleCache.invalidate(room.getDate());
             return room;
         }
         NotFoundApiRequestException.throwNotFoundException("Room id:" + room.getId() + " doesn't contain yoga session id:" + session.getId());
@@ -98,6 +152,16 @@ public class RoomService {
     }
 
 
+    @Transactional
+    public List<FreeSlot> findFreeSlots(int roomId, String durationString) throws ApiRequestException{
+        int duration = formatCheckService.checkNumberFormat(durationString);
+        if (duration < 1){
+            BadRequestApiRequestException.throwBadRequestException("Duration must be at least 1 minute.");
+        }
+        Room room = findRoomById(roomId);
+        return roomServiceUtil.findFreeSlots(room, duration);
+    }
+
     public List<Room> findRoomsByTypeAndDate(String datePassed, String roomTypePassed) throws BadRequestApiRequestException {
         LocalDate date = formatCheckService.checkDateFormat(datePassed);
         RoomType type = formatCheckService.checkRoomTypeFormat(roomTypePassed);
@@ -109,10 +173,6 @@ public class RoomService {
         return rooms;
     }
 
-    public List<Room> findAllRooms() {
-        List<Room> roomList = (List<Room>) roomRepository.findAll();
-        return Collections.unmodifiableList(roomList);
-    }
     @Transactional
     public void removeRoom(int roomId) throws NotFoundApiRequestException {
         Room roomToDelete = findRoomById(roomId);
@@ -121,49 +181,82 @@ public class RoomService {
             yogaSessionRepository.save(session);
         }
         roomRepository.delete(roomToDelete);
+        roomServiceUtil.evictRoomOccupancy(roomId);
+        dayScheduleCache.invalidate(roomToDelete.getDate());
     }
 
-    public List<Room> findAllRoomsBasedOnParams(Optional<String> date, Optional<String> type) {
+    public List<RoomSummary> findAllRoomsBasedOnParams(Optional<String> date, Optional<String> type) {
         if (date.isEmpty() && type.isEmpty()){
-            return findAllRooms();
+            return roomRepository.findAllSummaries();
         }else if (date.isPresent() && type.isPresent()){
-            return findRoomsByTypeAndDate(date.get(),type.get());
+            return roomRepository.findSummariesByDateAndRoomType(formatCheckService.checkDateFormat(date.get())
+                    , formatCheckService.checkRoomTypeFormat(type.get()));
         }else if(date.isPresent()){
-            return findAllRoomsBasedOnDate(date.get());
+            return roomRepository.findSummariesByDate(formatCheckService.checkDateFormat(date.get()));
         }else{
-            return findAllRoomsBasedOnRoomType(type.get());
+            return roomRepository.findSummariesByRoomType(formatCheckService.checkRoomTypeFormat(type.get()));
         }
     }
 
-    private List<Room> findAllRoomsBasedOnRoomType(String s) throws BadRequestApiRequestException {
-        RoomType type = formatCheckService.checkRoomTypeFormat(s);
-        return roomRepository.findRoomsByRoomType(type);
+    public KeysetPage<RoomSummary> findRoomsPageBasedOnParams(Optional<String> date, Optional<String> type
+            , Optional<String> cursor, Optional<String> size) throws ApiRequestException{
+        int pageSize = KeysetPaging.pageSize(size);
+        PageCursor after = KeysetPaging.cursor(cursor);
+        if (date.isPresent()){
+            return KeysetPaging.pageOf(findAllRoomsBasedOnParams(date, type), after, pageSize, RoomService::cursorOf);
+        }
+        List<RoomSummary> rows;
+        if (type.isPresent()){
+            RoomType roomType = formatCheckService.checkRoomTypeFormat(type.get());
+            rows = roomRepository.findPageByRoomTypeAfter(roomType, after.id(), KeysetPaging.limitOneAfter(pageSize));
+        }else{
+            rows = roomRepository.findPageAfter(after.id(), KeysetPaging.limitOneAfter(pageSize));
+        }
+        return KeysetPaging.toPage(rows, pageSize, RoomService::cursorOf);
     }
 
-    private List<Room> findAllRoomsBasedOnDate(String s) throws BadRequestApiRequestException{
-        LocalDate date = formatCheckService.checkDateFormat(s);
-        return roomRepository.findAllRoomsByDate(date);
+    private static PageCursor cursorOf(RoomSummary room){
+        return PageCursor.ofId(room.id());
     }
+    @RetryOnConcurrentUpdate
     @Transactional
     public Room patchRoom(String roomId, JsonPatch patch) throws ApiRequestException {
         Room foundRoom = findRoomById(formatCheckService.checkNumberFormat(roomId));
+        LocalDate originalDate = foundRoom.getDate();
         Room patchedRoom = applyPatchToRoom(patch,foundRoom);
 
         List<YogaSession> sessions = patchedRoom.getSessionList();
         int id = patchedRoom.getId();
+        int version = patchedRoom.getVersion();
         patchedRoom = roomServiceUtil.createARoom(formatCheckService.checkDateFormat(patchedRoom.getDate().toString())
                 ,formatCheckService.checkTimeFormat(patchedRoom.getOpeningHours().toString())
                 ,formatCheckService.checkTimeFormat(patchedRoom.getClosingHours().toString())
                 ,formatCheckService.checkRoomTypeFormat(patchedRoom.getRoomType().name()));
         patchedRoom.setSessionList(sessions);
         patchedRoom.setId(id);
-        return updateRoom(foundRoom,patchedRoom);
+        patchedRoom.setVersion(version);
+        Room updated = updateRoom(foundRoom,patchedRoom);
+        dayScheduleCache.invalidate(originalDate);
+        dayScheduleCache.invalidate(patchedRoom.getDate());
+        return updated;
+    }
+
+    private boolean sameSessions(List<YogaSession> found, List<YogaSession> patched){
+        if (found.size() != patched.size()){
+            return false;
+        }
+        for (int i = 0; i < found.size(); i++){
+            if (!found.get(i).hasSameDetails(patched.get(i))){
+                return false;
+            }
+        }
+        return true;
     }
 
     private Room updateRoom(Room foundRoom, Room patchedRoom) {
         if (foundRoom.getId() != patchedRoom.getId()){
             BadRequestApiRequestException.throwBadRequestException("Patch request cannot change room id.");
-        }else if(!Arrays.equals(foundRoom.getSessionList().toArray(), patchedRoom.getSessionList().toArray())){
+        }else if(!sameSessions(foundRoom.getSessionList(), patchedRoom.getSessionList())){
             BadRequestApiRequestException.throwBadRequestException("Patch request cannot change sessions in the room.");
         }else if(!Objects.equals(foundRoom.getRoomType(),patchedRoom.getRoomType())){
             BadRequestApiRequestException.throwBadRequestException("Patch request cannot change room type.");
@@ -195,6 +288,7 @@ public class RoomService {
             }
         }
         patchedRoom.setSessionList(modifiedSessionList);
+        roomServiceUtil.refreshRoomOccupancy(patchedRoom);
         return roomRepository.save(patchedRoom);
     }
 
@@ -219,6 +313,7 @@ public class RoomService {
 
             }
             patchedRoom.setSessionList(modifiedList);
+            roomServiceUtil.refreshRoomOccupancy(patchedRoom);
             return roomRepository.save(patchedRoom);
         }else{
             ConflictApiRequestException.throwConflictApiRequestException("Room with date:" + patchedRoom.getDate() + " and room type:"
@@ -1,18 +1,25 @@
 package dev.milan.jpasolopractice.service;
 
 import dev.milan.jpasolopractice.customException.differentExceptions.BadRequestApiRequestException;
+import dev.milan.jpasolopractice.dto.FreeSlot;
 import dev.milan.jpasolopractice.model.Room;
+import dev.milan.jpasolopractice.model.RoomTemplate;
 import dev.milan.jpasolopractice.model.RoomType;
 import dev.milan.jpasolopractice.model.YogaSession;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
 
 @Service
 public class RoomServiceUtil {
     private final LocalTime MIN_OPENING_HOURS = LocalTime.of(6,0,0);
     private final LocalTime MAX_CLOSING_HOURS = LocalTime.of(23,0,0);
+    private final RoomOccupancyIndex occupancyIndex = new RoomOccupancyIndex();
+    private final int MINUTES_IN_DAY = 24 * 60;
 
     public boolean canAddSessionToRoom(Room room, YogaSession session) throws BadRequestApiRequestException{
         return addSessionToRoomIfPossible(room,session);
@@ -45,33 +52,7 @@ public class RoomServiceUtil {
         }else if (session.getEndOfSession().isAfter(room.getClosingHours())){
             BadRequestApiRequestException.throwBadRequestException("Yoga session cannot end after room closing hours. Room closes at:" + room.getClosingHours());
         }
-        if (room.getSessionList().isEmpty()){
-            return true;
-        }
-
-        for (YogaSession ses: room.getSessionList()){
-            if(ses.getStartOfSession().equals(session.getStartOfSession()) ||  //3&4
-                    ses.getEndOfSession().equals(session.getEndOfSession())) {
-                return false;
-            }
-
-            if(ses.getStartOfSession().isBefore(session.getEndOfSession()) &&  //1
-                    ses.getEndOfSession().isAfter(session.getStartOfSession())) {
-                return false;
-            }
-
-            if(ses.getStartOfSession().isBefore(session.getEndOfSession()) && //2
-                    ses.getEndOfSession().isAfter(session.getEndOfSession())) {
-                return false;
-            }
-
-            if(ses.getStartOfSession().isAfter(session.getStartOfSession()) && //3
-                    ses.getEndOfSession().isBefore(session.getEndOfSession())) {
-                return false;
-            }
-
-        }
-        return true;
+        return !occupancyIndex.overlaps(room, session.getStartOfSession(), session.getEndOfSession());
     }
 
     public Room createARoom(LocalDate date, LocalTime openingHours, LocalTime closingHours, RoomType type){
@@ -83,6 +64,20 @@ public class RoomServiceUtil {
         room.setTotalCapacity(type.getMaxCapacity());
         return room;
     }
+    public Room createARoom(LocalDate date, RoomTemplate template){
+        return createARoom(date, template.getOpeningHours(), template.getClosingHours(), template.getRoomType());
+    }
+
+    public RoomTemplate createATemplate(RoomType type, LocalTime openingHours, LocalTime closingHours){
+        Room checked = createARoom(LocalDate.now(), openingHours, closingHours, type);
+        RoomTemplate template = new RoomTemplate();
+        template.setRoomType(type);
+        template.setOpeningHours(checked.getOpeningHours());
+        template.setClosingHours(checked.getClosingHours());
+        template.setTotalCapacity(checked.getTotalCapacity());
+        return template;
+    }
+
     private void setDate(Room room, LocalDate newDate) throws BadRequestApiRequestException{
         if (LocalDate.now().isBefore(newDate) || LocalDate.now().isEqual(newDate)){
             room.setDate(newDate);
@@ -120,12 +115,60 @@ public class RoomServiceUtil {
     public boolean removeSessionFromRoom(Room room, YogaSession session) {
         if (room.getSessionList().contains(session)){
             room.getSessionList().remove(session);
+            occupancyIndex.release(room, session);
             session.setRoom(null);
             return true;
         }
             return false;
     }
 
+    public void registerSessionTime(Room room, YogaSession session){
+        occupancyIndex.register(room, session);
+    }
+
+    public void releaseSessionTime(Room room, YogaSession session){
+        occupancyIndex.release(room, session);
+    }
+
+    public void refreshRoomOccupancy(Room room){
+        occupancyIndex.rebuild(room);
+    }
+
+    public void evictRoomOccupancy(int roomId){
+        occupancyIndex.evict(roomId);
+    }
+
+    public List<FreeSlot> findFreeSlots(Room room, int duration){
+        BitSet occupiedMinutes = new BitSet(MINUTES_IN_DAY);
+        for (YogaSession session : room.getSessionList()){
+            if (session.getStartOfSession() != null && session.getEndOfSession() != null){
+                occupiedMinutes.set(minuteOfDayRoundedDown(session.getStartOfSession()), minuteOfDayRoundedUp(session.getEndOfSession()));
+            }
+        }
+        int opening = minuteOfDayRoundedUp(room.getOpeningHours());
+        int closing = minuteOfDayRoundedDown(room.getClosingHours());
+
+        List<FreeSlot> freeSlots = new ArrayList<>();
+        int gapStart = occupiedMinutes.nextClearBit(opening);
+        while (gapStart < closing){
+            int nextOccupied = occupiedMinutes.nextSetBit(gapStart);
+            int gapEnd = (nextOccupied == -1 || nextOccupied > closing) ? closing : nextOccupied;
+            if (gapEnd - gapStart >= duration){
+                freeSlots.add(new FreeSlot(LocalTime.ofSecondOfDay(gapStart * 60L), LocalTime.ofSecondOfDay(gapEnd * 60L)));
+            }
+            gapStart = occupiedMinutes.nextClearBit(gapEnd);
+        }
+        return freeSlots;
+    }
+
+    private int minuteOfDayRoundedDown(LocalTime time){
+        return time.toSecondOfDay() / 60;
+    }
+
+    private int minuteOfDayRoundedUp(LocalTime time){
+        return (time.toSecondOfDay() + 59) / 60;
+    }
+
     public LocalTime getMIN_OPENING_HOURS() {
         return MIN_OPENING_HOURS;
     }
@@ -0,0 +1,110 @@
+package dev.milan.jpasolopractice.service;
+
+import dev.milan.jpasolopractice.customException.ApiRequestException;
+import dev.milan.jpasolopractice.customException.differentExceptions.ConflictApiRequestException;
+import dev.milan.jpasolopractice.customException.differentExceptions.NotFoundApiRequestException;
+import dev.milan.jpasolopractice.data.RoomRepository;
+import dev.milan.jpasolopractice.data.RoomTemplateRepository;
+import dev.milan.jpasolopractice.model.Room;
+import dev.milan.jpasolopractice.model.RoomTemplate;
+import dev.milan.jpasolopractice.model.RoomType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.transaction.Transactional;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Default opening hours per room type. The room of a type on a date is created from its template the first time a
+ * session is placed on that day, instead of every studio day being set up ahead.
+ * Creation commits in its own transaction and leans on the unique date and room type constraint, so concurrent first
+ * uses all end up with the same room. A day's schedule shows the rooms its templates would create without creating
+ * them. Templates and room lookups go through the second-level and query caches.
+ */
+@Service
+public class RoomTemplates {
+    private final RoomTemplateRepository roomTemplateRepository;
+    private final RoomRepository roomRepository;
+    private final RoomServiceUtil roomServiceUtil;
+    private final FormatCheckService formatCheckService;
+    private final TransactionTemplate newTransaction;
+
+    @Autowired
+    public RoomTemplates(RoomTemplateRepository roomTemplateRepository, RoomRepository roomRepository, RoomServiceUtil roomServiceUtil
+            , FormatCheckService formatCheckService, PlatformTransactionManager transactionManager) {
+        this.roomTemplateRepository = roomTemplateRepository;
+        this.roomRepository = roomRepository;
+        this.roomServiceUtil = roomServiceUtil;
+        this.formatCheckService = formatCheckService;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Transactional
+    public RoomTemplate putTemplate(String typeString, String openingHoursString, String closingHoursString) throws ApiRequestException{
+        RoomType type = formatCheckService.checkRoomTypeFormat(typeString);
+        LocalTime openingHours = formatCheckService.checkTimeFormat(openingHoursString);
+        LocalTime closingHours = formatCheckService.checkTimeFormat(closingHoursString);
+        RoomTemplate checked = roomServiceUtil.createATemplate(type, openingHours, closingHours);
+
+        RoomTemplate template = roomTemplateRepository.findByRoomType(type).orElse(checked);
+        template.setOpeningHours(checked.getOpeningHours());
+        template.setClosingHours(checked.getClosingHours());
+        template.setTotalCapacity(checked.getTotalCapacity());
+        try{
+            return roomTemplateRepository.saveAndFlush(template);
+        }catch (DataIntegrityViolationException e){
+            throw ConflictApiRequestException.throwConflictApiRequestException("Room template for room type:" + type.name() + " was created concurrently.");
+        }
+    }
+
+    public List<RoomTemplate> findTemplates(){
+        return roomTemplateRepository.findAllInTypeOrder();
+    }
+
+    @Transactional
+    public void removeTemplate(String typeString) throws ApiRequestException{
+        RoomType type = formatCheckService.checkRoomTypeFormat(typeString);
+        RoomTemplate template = roomTemplateRepository.findByRoomType(type)
+                .orElseThrow(() -> NotFoundApiRequestException.throwNotFoundException("Room template for room type:" + type.name() + " not found."));
+        roomTemplateRepository.delete(template);
+    }
+
+    /**
+     * The room of that type on the date, created from the type's template if it doesn't exist yet. Empty when there is
+     * no template or the date has passed.
+     */
+    public Optional<Room> findOrCreateRoom(LocalDate date, RoomType type){
+        Room room = roomRepository.findRoomByDateAndRoomType(date, type);
+        if (room != null || date.isBefore(LocalDate.now())){
+            return Optional.ofNullable(room);
+        }
+        Optional<RoomTemplate> template = roomTemplateRepository.findByRoomType(type);
+        if (template.isEmpty()){
+            return Optional.empty();
+        }
+        try{
+            newTransaction.executeWithoutResult(status -> roomRepository.saveAndFlush(roomServiceUtil.createARoom(date, template.get())));
+        }catch (DataIntegrityViolationException e){
+            // created by a concurrent first use, read below
+        }
+        return Optional.ofNullable(roomRepository.findRoomByDateAndRoomType(date, type));
+    }
+
+    /**
+     * The templates a room could still be created from on the date, none once the date has passed. Nothing is created.
+     */
+    public List<RoomTemplate> findTemplatesFor(LocalDate date){
+        if (date.isBefore(LocalDate.now())){
+            return List.of();
+        }
+        return findTemplates();
+    }
+}
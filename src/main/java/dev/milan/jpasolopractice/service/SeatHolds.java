@@ -0,0 +1,204 @@
+package dev.milan.jpasolopractice.service;
+
+import dev.milan.jpasolopractice.customException.ApiRequestException;
+import dev.milan.jpasolopractice.customException.differentExceptions.ConflictApiRequestException;
+import dev.milan.jpasolopractice.customException.differentExceptions.ForbiddenApiRequestException;
+import dev.milan.jpasolopractice.customException.differentExceptions.NotFoundApiRequestException;
+import dev.milan.jpasolopractice.data.SeatHoldRepository;
+import dev.milan.jpasolopractice.data.YogaSessionRepository;
+import dev.milan.jpasolopractice.model.SeatHold;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Seats held for a person ahead of booking. A held seat counts against the session's free space until it is booked,
+ * released or expires; whichever of those deletes the hold row first wins, so a hold is only ever settled once.
+ * Expiry runs off an in-memory delay queue ordered by expiry time: a tick with nothing due only peeks at its head and
+ * each expired hold costs one heap removal, so outstanding holds are never scanned. The queue is refilled from the
+ * table on startup.
+ */
+@Service
+public class SeatHolds {
+    private static final Logger log = LoggerFactory.getLogger(SeatHolds.class);
+    private final DelayQueue<PendingExpiry> expiries = new DelayQueue<>();
+    private final SeatHoldRepository seatHoldRepository;
+    private final YogaSessionRepository yogaSessionRepository;
+    private final SessionCacheEviction sessionCacheEviction;
+    private final DayScheduleCache dayScheduleCache;
+    private final SessionAvailabilityStreams availabilityStreams;
+    private final SessionWaitlist sessionWaitlist;
+    private final TransactionTemplate transaction;
+    private final Duration holdTtl;
+    private final Duration retryBackoff;
+
+    @Autowired
+    public SeatHolds(SeatHoldRepository seatHoldRepository, YogaSessionRepository yogaSessionRepository
+            , SessionCacheEviction sessionCacheEviction, DayScheduleCache dayScheduleCache
+            , SessionAvailabilityStreams availabilityStreams, SessionWaitlist sessionWaitlist
+            , PlatformTransactionManager transactionManager, @Value("${sessions.holds.ttl-ms:300000}") long holdTtlMillis
+            , @Value("${sessions.holds.retry-backoff-ms:1000}") long retryBackoffMillis) {
+        this.seatHoldRepository = seatHoldRepository;
+        this.yogaSessionRepository = yogaSessionRepository;
+        this.sessionCacheEviction = sessionCacheEviction;
+        this.dayScheduleCache = dayScheduleCache;
+        this.availabilityStreams = availabilityStreams;
+        this.sessionWaitlist = sessionWaitlist;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.holdTtl = Duration.ofMillis(holdTtlMillis);
+        this.retryBackoff = Duration.ofMillis(retryBackoffMillis);
+    }
+
+    @PostConstruct
+    void scheduleOutstandingHolds(){
+        seatHoldRepository.findAll().forEach(hold -> expiries.add(PendingExpiry.of(hold)));
+    }
+
+    public SeatHold hold(int sessionId, int personId, LocalDate date) throws ApiRequestException{
+        if (seatHoldRepository.existsBySessionIdAndPersonId(sessionId, personId)){
+            ConflictApiRequestException.throwConflictApiRequestException("User id:" + personId + " already holds a seat in session id:" + sessionId);
+        }
+        if (yogaSessionRepository.holdOneSpaceIfAvailable(sessionId) == 0){
+            ForbiddenApiRequestException.throwForbiddenApiRequestException("Session id:" + sessionId + " member limit reached.");
+        }
+        SeatHold hold = new SeatHold(sessionId, personId, LocalDateTime.now().plus(holdTtl));
+        try{
+            seatHoldRepository.saveAndFlush(hold);
+        }catch (DataIntegrityViolationException e){
+            ConflictApiRequestException.throwConflictApiRequestException("User id:" + personId + " already holds a seat in session id:" + sessionId);
+        }
+        sessionChanged(sessionId, date);
+        expireAfterCommit(PendingExpiry.of(hold));
+        return hold;
+    }
+
+    public void confirm(int sessionId, int personId) throws ApiRequestException{
+        if (yogaSessionRepository.countMember(sessionId, personId) > 0){
+            ConflictApiRequestException.throwConflictApiRequestException("User id:" + personId + " already present in session id:" + sessionId);
+        }
+        claim(sessionId, personId);
+        if (yogaSessionRepository.bookOneHeldSpace(sessionId) == 0 && yogaSessionRepository.bookOneSpaceIfAvailable(sessionId) == 0){
+            ForbiddenApiRequestException.throwForbiddenApiRequestException("Session id:" + sessionId + " member limit reached.");
+        }
+        try{
+            yogaSessionRepository.insertMember(sessionId, personId);
+        }catch (DataIntegrityViolationException e){
+            ConflictApiRequestException.throwConflictApiRequestException("User id:" + personId + " already present in session id:" + sessionId);
+        }
+        sessionChanged(sessionId, yogaSessionRepository.findDateById(sessionId));
+    }
+
+    public void release(int sessionId, int personId) throws NotFoundApiRequestException{
+        claim(sessionId, personId);
+        releaseHeldSpace(sessionId);
+    }
+
+    public void releaseHoldsOf(int personId){
+        for (SeatHold hold : seatHoldRepository.findByPersonId(personId)){
+            if (seatHoldRepository.deleteHoldById(hold.getId()) == 1){
+                releaseHeldSpace(hold.getSessionId());
+            }
+        }
+    }
+
+    /**
+     * Expires every due hold. A hold whose expiry fails is logged and queued again after a backoff that doubles with
+     * each failure, so it can't hold up the other due holds or fail on every tick.
+     */
+    @Scheduled(fixedDelayString = "${sessions.holds.expiry-tick-ms:1000}")
+    public void expireDue(){
+        List<PendingExpiry> failed = new ArrayList<>();
+        PendingExpiry due;
+        while ((due = expiries.poll()) != null){
+            PendingExpiry expiry = due;
+            try{
+                transaction.executeWithoutResult(status -> {
+                    if (seatHoldRepository.deleteHoldById(expiry.holdId()) == 1){
+                        releaseHeldSpace(expiry.sessionId());
+                    }
+                });
+            }catch (RuntimeException e){
+                PendingExpiry retry = expiry.retryAfter(retryBackoff);
+                log.warn("Expiring seat hold id:{} failed, attempt {}. Retrying at {}.", expiry.holdId(), retry.attempts(), retry.dueAt(), e);
+                failed.add(retry);
+            }
+        }
+        expiries.addAll(failed);
+    }
+
+    private void claim(int sessionId, int personId) throws NotFoundApiRequestException{
+        SeatHold hold = seatHoldRepository.findBySessionIdAndPersonId(sessionId, personId)
+                .filter(found -> found.getExpiresAt().isAfter(LocalDateTime.now()))
+                .orElseThrow(() -> NotFoundApiRequestException.throwNotFoundException("Seat hold of person id:" + personId
+                        + " not found in session id:" + sessionId));
+        if (seatHoldRepository.deleteHoldById(hold.getId()) == 0){
+            NotFoundApiRequestException.throwNotFoundException("Seat hold of person id:" + personId + " not found in session id:" + sessionId);
+        }
+    }
+
+    private void releaseHeldSpace(int sessionId){
+        yogaSessionRepository.releaseOneHeldSpace(sessionId);
+        sessionChanged(sessionId, yogaSessionRepository.findDateById(sessionId));
+        sessionWaitlist.promoteAfterCommit(sessionId);
+    }
+
+    private void sessionChanged(int sessionId, LocalDate date){
+        sessionCacheEviction.evictSession(sessionId);
+        dayScheduleCache.invalidate(date);
+        availabilityStreams.sessionChanged(sessionId, date);
+    }
+
+    private void expireAfterCommit(PendingExpiry expiry){
+        if (TransactionSynchronizationManager.isSynchronizationActive()){
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    expiries.add(expiry);
+                }
+            });
+        }else{
+            expiries.add(expiry);
+        }
+    }
+
+    private record PendingExpiry(int holdId, int sessionId, LocalDateTime dueAt, int attempts) implements Delayed {
+        private static final int MAX_BACKOFF_DOUBLINGS = 10;
+
+        private static PendingExpiry of(SeatHold hold){
+            return new PendingExpiry(hold.getId(), hold.getSessionId(), hold.getExpiresAt(), 0);
+        }
+
+        private PendingExpiry retryAfter(Duration backoff){
+            Duration delay = backoff.multipliedBy(1L << Math.min(attempts, MAX_BACKOFF_DOUBLINGS));
+            return new PendingExpiry(holdId, sessionId, LocalDateTime.now().plus(delay), attempts + 1);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(Duration.between(LocalDateTime.now(), dueAt));
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package dev.milan.jpasolopractice.service;
+
+import dev.milan.jpasolopractice.customException.differentExceptions.NotFoundApiRequestException;
+import dev.milan.jpasolopractice.data.YogaSessionRepository;
+import dev.milan.jpasolopractice.dto.SessionAvailability;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Server-sent availability streams for single sessions and whole days. A change is only marked once its transaction
+ * commits; the scheduled flush reads every marked session in one query and queues one event per session, so a burst of
+ * bookings costs subscribers one event per flush window and never holds up the booking request. Each subscriber has a
+ * bounded queue drained on a small sender pool, so the flush never writes to a socket itself and a slow client only
+ * holds up its own stream; a client whose queue overflows is disconnected and can resubscribe for a fresh snapshot.
+ */
+@Service
+public class SessionAvailabilityStreams {
+    public static final String AVAILABILITY_EVENT = "availability";
+    public static final String REMOVED_EVENT = "removed";
+    private final Map<Integer, Set<Subscriber>> sessionSubscribers = new ConcurrentHashMap<>();
+    private final Map<LocalDate, Set<Subscriber>> daySubscribers = new ConcurrentHashMap<>();
+    private final Map<Integer, Set<LocalDate>> changedSessions = new ConcurrentHashMap<>();
+    private final YogaSessionRepository yogaSessionRepository;
+    private final FormatCheckService formatCheckService;
+    private final long streamTimeoutMillis;
+    private final int queueSize;
+    private final ExecutorService sender;
+
+    @Autowired
+    public SessionAvailabilityStreams(YogaSessionRepository yogaSessionRepository, FormatCheckService formatCheckService
+            , @Value("${sessions.availability.stream-timeout-ms:1800000}") long streamTimeoutMillis
+            , @Value("${sessions.availability.queue-size:64}") int queueSize
+            , @Value("${sessions.availability.sender-threads:4}") int senderThreads
+            , @Value("${sessions.availability.sender-backlog:1024}") int senderBacklog) {
+        this(yogaSessionRepository, formatCheckService, streamTimeoutMillis, queueSize, new ThreadPoolExecutor(senderThreads, senderThreads
+                , 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(senderBacklog), new CustomizableThreadFactory("availability-sender-")));
+    }
+
+    public SessionAvailabilityStreams(YogaSessionRepository yogaSessionRepository, FormatCheckService formatCheckService
+            , long streamTimeoutMillis, int queueSize, ExecutorService sender) {
+        this.yogaSessionRepository = yogaSessionRepository;
+        this.formatCheckService = formatCheckService;
+        this.streamTimeoutMillis = streamTimeoutMillis;
+        this.queueSize = queueSize;
+        this.sender = sender;
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        sender.shutdownNow();
+    }
+
+    public SseEmitter subscribeToSession(int sessionId) throws NotFoundApiRequestException{
+        Subscriber subscriber = register(sessionSubscribers, sessionId);
+        List<SessionAvailability> current = yogaSessionRepository.findAvailabilityByIdIn(List.of(sessionId));
+        if (current.isEmpty()){
+            unregister(sessionSubscribers, sessionId, subscriber);
+            NotFoundApiRequestException.throwNotFoundException("Yoga session id:" + sessionId +  " not found.");
+        }
+        subscriber.enqueue(AVAILABILITY_EVENT, current.get(0));
+        return subscriber.emitter;
+    }
+
+    public SseEmitter subscribeToDay(String dateString) throws NotFoundApiRequestException{
+        LocalDate date = formatCheckService.checkDateFormat(dateString);
+        Subscriber subscriber = register(daySubscribers, date);
+        for (SessionAvailability availability : yogaSessionRepository.findAvailabilityByDate(date)){
+            subscriber.enqueue(AVAILABILITY_EVENT, availability);
+        }
+        return subscriber.emitter;
+    }
+
+    /**
+     * Marks the session for the next flush once the current transaction commits. The dates are the days whose
+     * streams should hear about the change besides the session's current day, such as the day it was moved from.
+     */
+    public void sessionChanged(int sessionId, LocalDate... dates){
+        if (TransactionSynchronizationManager.isSynchronizationActive()){
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    markChanged(sessionId, dates);
+                }
+            });
+        }else{
+            markChanged(sessionId, dates);
+        }
+    }
+
+    private void markChanged(int sessionId, LocalDate[] dates){
+        Set<LocalDate> days = changedSessions.computeIfAbsent(sessionId, id -> ConcurrentHashMap.newKeySet());
+        Arrays.stream(dates).filter(Objects::nonNull).forEach(days::add);
+    }
+
+    @Scheduled(fixedDelayString = "${sessions.availability.flush-ms:500}")
+    public void flush(){
+        Map<Integer, Set<LocalDate>> batch = new HashMap<>();
+        for (Integer sessionId : changedSessions.keySet()){
+            Set<LocalDate> days = changedSessions.remove(sessionId);
+            if (days != null){
+                batch.put(sessionId, new HashSet<>(days));
+            }
+        }
+        if (batch.isEmpty() || (sessionSubscribers.isEmpty() && daySubscribers.isEmpty())){
+            return;
+        }
+        Map<Integer, SessionAvailability> current = yogaSessionRepository.findAvailabilityByIdIn(batch.keySet()).stream()
+                .collect(Collectors.toMap(SessionAvailability::id, Function.identity()));
+        batch.forEach((sessionId, days) -> {
+            SessionAvailability availability = current.get(sessionId);
+            if (availability == null){
+                Map<String, Integer> removed = Map.of("id", sessionId);
+                Set<Subscriber> subscribers = sessionSubscribers.remove(sessionId);
+                if (subscribers != null){
+                    subscribers.forEach(subscriber -> {
+                        subscriber.enqueue(REMOVED_EVENT, removed);
+                        subscriber.completeAfterPending();
+                    });
+                }
+                days.forEach(day -> publish(daySubscribers.get(day), REMOVED_EVENT, removed));
+            }else{
+                days.add(availability.date());
+                publish(sessionSubscribers.get(sessionId), AVAILABILITY_EVENT, availability);
+                days.forEach(day -> publish(daySubscribers.get(day), AVAILABILITY_EVENT, availability));
+            }
+        });
+    }
+
+    private void publish(Set<Subscriber> subscribers, String event, Object data){
+        if (subscribers != null){
+            subscribers.forEach(subscriber -> subscriber.enqueue(event, data));
+        }
+    }
+
+    private <K> Subscriber register(Map<K, Set<Subscriber>> subscribers, K key){
+        SseEmitter emitter = new SseEmitter(streamTimeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter);
+        subscriber.unregister = () -> unregister(subscribers, key, subscriber);
+        subscribers.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+        return subscriber;
+    }
+
+    private <K> void unregister(Map<K, Set<Subscriber>> subscribers, K key, Subscriber subscriber){
+        subscribers.computeIfPresent(key, (k, registered) -> {
+            registered.remove(subscriber);
+            return registered.isEmpty() ? null : registered;
+        });
+    }
+
+    /**
+     * One stream's pending events. At most one drain task per subscriber is queued or running on the sender pool, so
+     * events reach the client in the order they were queued.
+     */
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> pending = new ArrayBlockingQueue<>(queueSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean completeWhenDrained;
+        private volatile boolean closed;
+        private Runnable unregister = () -> {};
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void enqueue(String event, Object data){
+            if (closed){
+                return;
+            }
+            if (!pending.offer(SseEmitter.event().name(event).data(data, MediaType.APPLICATION_JSON))){
+                close();
+                emitter.complete();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        void completeAfterPending(){
+            completeWhenDrained = true;
+            scheduleDrain();
+        }
+
+        private void scheduleDrain(){
+            if (draining.compareAndSet(false, true)){
+                try{
+                    sender.execute(this::drain);
+                }catch (RejectedExecutionException e){
+                    close();
+                    emitter.complete();
+                }
+            }
+        }
+
+        private void drain(){
+            do{
+                SseEmitter.SseEventBuilder next;
+                while (!closed && (next = pending.poll()) != null){
+                    try{
+                        emitter.send(next);
+                    }catch (IOException | IllegalStateException e){
+                        close();
+                        emitter.completeWithError(e);
+                    }
+                }
+                if (completeWhenDrained && !closed){
+                    close();
+                    emitter.complete();
+                }
+                draining.set(false);
+            }while (!closed && !pending.isEmpty() && draining.compareAndSet(false, true));
+        }
+
+        private void close(){
+            closed = true;
+            pending.clear();
+            unregister.run();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package dev.milan.jpasolopractice.service;
+
+import dev.milan.jpasolopractice.model.YogaSession;
+import org.hibernate.Cache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Drops the second-level cache entries of one session, its entity data and its members collection, after a native
+ * membership write, which Hibernate doesn't see.
+ */
+@Service
+public class SessionCacheEviction {
+    private static final String MEMBERS_REGION = YogaSession.class.getName() + ".membersAttending";
+    private final Cache cache;
+
+    @Autowired
+    public SessionCacheEviction(EntityManagerFactory entityManagerFactory) {
+        this.cache = entityManagerFactory.getCache().unwrap(Cache.class);
+    }
+
+    public void evictSession(int sessionId){
+        AfterCompletion.runNowAndAfterCompletion(() -> evict(sessionId));
+    }
+
+    private void evict(int sessionId){
+        cache.evictEntityData(YogaSession.class, sessionId);
+        cache.evictCollectionData(MEMBERS_REGION, sessionId);
+    }
+}
@@ -0,0 +1,127 @@
+package dev.milan.jpasolopractice.service;
+
+import dev.milan.jpasolopractice.customException.ApiRequestException;
+import dev.milan.jpasolopractice.customException.differentExceptions.BadRequestApiRequestException;
+import dev.milan.jpasolopractice.data.RoomRepository;
+import dev.milan.jpasolopractice.data.YogaSessionRepository;
+import dev.milan.jpasolopractice.dto.PlacementReport;
+import dev.milan.jpasolopractice.dto.PlacementReport.SessionIssue;
+import dev.milan.jpasolopractice.model.Room;
+import dev.milan.jpasolopractice.model.RoomType;
+import dev.milan.jpasolopractice.model.YogaSession;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Puts sessions that have no room into their day's room of the same type, creating the room from its template when it
+ * doesn't exist yet. Sessions of a room are tried in order of their end time, the greedy pick that fits the most of
+ * them around what the room already holds, and every pick is checked and registered against the room's occupancy
+ * timeline so the opening hour and overlap rules are the ones a single placement goes through. The whole range is
+ * placed in one transaction whose updates go out as JDBC batches. Runs on request and nightly for the coming days.
+ */
+@Service
+public class SessionPlacements {
+    private static final int MAX_DAYS = 31;
+    private final YogaSessionRepository yogaSessionRepository;
+    private final RoomRepository roomRepository;
+    private final RoomServiceUtil roomServiceUtil;
+    private final FormatCheckService formatCheckService;
+    private final DayScheduleCache dayScheduleCache;
+    private final RoomTemplates roomTemplates;
+    private final TransactionTemplate transaction;
+    private final int daysAhead;
+
+    @Autowired
+    public SessionPlacements(YogaSessionRepository yogaSessionRepository, RoomRepository roomRepository, RoomServiceUtil roomServiceUtil
+            , FormatCheckService formatCheckService, DayScheduleCache dayScheduleCache, RoomTemplates roomTemplates
+            , PlatformTransactionManager transactionManager, @Value("${sessions.auto-placement.days-ahead:7}") int daysAhead) {
+        this.yogaSessionRepository = yogaSessionRepository;
+        this.roomRepository = roomRepository;
+        this.roomServiceUtil = roomServiceUtil;
+        this.formatCheckService = formatCheckService;
+        this.dayScheduleCache = dayScheduleCache;
+        this.roomTemplates = roomTemplates;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.daysAhead = daysAhead;
+    }
+
+    public PlacementReport placeUnassigned(String fromString, String toString) throws ApiRequestException{
+        if (fromString == null || toString == null){
+            BadRequestApiRequestException.throwBadRequestException("Bad request data. Placement needs from and to dates.");
+        }
+        LocalDate from = formatCheckService.checkDateFormat(fromString);
+        LocalDate to = formatCheckService.checkDateFormat(toString);
+        if (from.isBefore(LocalDate.now())){
+            BadRequestApiRequestException.throwBadRequestException("Placement cannot start before current date.");
+        }else if (from.isAfter(to)){
+            BadRequestApiRequestException.throwBadRequestException("Placement start date must not be after its end date.");
+        }else if (ChronoUnit.DAYS.between(from, to) >= MAX_DAYS){
+            BadRequestApiRequestException.throwBadRequestException("Placement can span at most " + MAX_DAYS + " days.");
+        }
+        return place(from, to);
+    }
+
+    @Scheduled(cron = "${sessions.auto-placement.cron:0 0 3 * * *}")
+    public void placeUpcoming(){
+        LocalDate today = LocalDate.now();
+        place(today, today.plusDays(daysAhead));
+    }
+
+    private PlacementReport place(LocalDate from, LocalDate to){
+        try{
+            return transaction.execute(status -> placeAll(from, to));
+        }catch (OptimisticLockingFailureException | DataIntegrityViolationException e){
+            return transaction.execute(status -> placeAll(from, to));
+        }
+    }
+
+    private PlacementReport placeAll(LocalDate from, LocalDate to){
+        List<YogaSession> sessions = yogaSessionRepository.findWithoutRoomByDateBetweenInEndOrder(from, to);
+        Map<RoomKey, Room> rooms = roomRepository.findWithSessionsByDateBetween(from, to).stream()
+                .collect(Collectors.toMap(room -> new RoomKey(room.getDate(), room.getRoomType()), Function.identity()));
+        List<SessionIssue> unplaced = new ArrayList<>();
+        Set<LocalDate> changedDays = new HashSet<>();
+        int placed = 0;
+        for (YogaSession session : sessions){
+            RoomKey key = new RoomKey(session.getDate(), session.getRoomType());
+            if (!rooms.containsKey(key)){
+                rooms.put(key, roomTemplates.findOrCreateRoom(key.date(), key.type()).orElse(null));
+            }
+            Room room = rooms.get(key);
+            if (room == null){
+                unplaced.add(new SessionIssue(session.getId(), session.getDate()
+                        , "No " + session.getRoomType().name() + " room on this date and no template to create it from."));
+                continue;
+            }
+            try{
+                roomServiceUtil.canAddSessionToRoom(room, session);
+            }catch (ApiRequestException e){
+                unplaced.add(new SessionIssue(session.getId(), session.getDate(), e.getMessage()));
+                continue;
+            }
+            session.setRoom(room);
+            room.addSession(session);
+            roomServiceUtil.registerSessionTime(room, session);
+            changedDays.add(room.getDate());
+            placed++;
+        }
+        changedDays.forEach(dayScheduleCache::invalidate);
+        unplaced.sort(Comparator.comparing(SessionIssue::date).thenComparing(SessionIssue::sessionId));
+        return new PlacementReport(sessions.size(), placed, unplaced);
+    }
+
+    private record RoomKey(LocalDate date, RoomType type) {
+    }
+}
@@ -0,0 +1,85 @@
+package dev.milan.jpasolopractice.service;
+
+import dev.milan.jpasolopractice.dto.SessionSummary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight layer for session searches. Concurrent searches with the same key share one database call and its
+ * result, and a failure is handed to every waiting caller. With a positive result TTL a finished result is also
+ * reused until it expires, so searches can return rows up to that old.
+ */
+@Service
+public class SessionQueryCoalescer {
+    private final Map<String, CompletableFuture<List<SessionSummary>>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, RecentResult> recent = new ConcurrentHashMap<>();
+    private final long resultTtlNanos;
+
+    @Autowired
+    public SessionQueryCoalescer(@Value("${sessions.query.result-ttl-ms:0}") long resultTtlMillis) {
+        this.resultTtlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, resultTtlMillis));
+    }
+
+    /** Whether finished results are reused, in which case keys must tell apart data versions. */
+    public boolean keepsResults(){
+        return resultTtlNanos > 0;
+    }
+
+    public List<SessionSummary> load(String key, Supplier<List<SessionSummary>> query){
+        RecentResult cached = recent.get(key);
+        if (cached != null && !cached.isExpired(System.nanoTime())){
+            return cached.rows();
+        }
+        CompletableFuture<List<SessionSummary>> call = new CompletableFuture<>();
+        CompletableFuture<List<SessionSummary>> shared = inFlight.putIfAbsent(key, call);
+        if (shared != null){
+            return await(shared);
+        }
+        try{
+            List<SessionSummary> rows = List.copyOf(query.get());
+            remember(key, rows);
+            call.complete(rows);
+            return rows;
+        }catch (RuntimeException e){
+            call.completeExceptionally(e);
+            throw e;
+        }finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    private void remember(String key, List<SessionSummary> rows){
+        if (resultTtlNanos == 0){
+            return;
+        }
+        long now = System.nanoTime();
+        recent.values().removeIf(result -> result.isExpired(now));
+        recent.put(key, new RecentResult(rows, now + resultTtlNanos));
+    }
+
+    private static List<SessionSummary> await(CompletableFuture<List<SessionSummary>> shared){
+        try{
+            return shared.join();
+        }catch (CompletionException e){
+            if (e.getCause() instanceof RuntimeException){
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private record RecentResult(List<SessionSummary> rows, long expiresAt) {
+        private boolean isExpired(long now){
+            return now - expiresAt >= 0;
+        }
+    }
+}
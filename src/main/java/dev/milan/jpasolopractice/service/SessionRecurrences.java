@@ -0,0 +1,162 @@
+package dev.milan.jpasolopractice.service;
+
+import dev.milan.jpasolopractice.customException.ApiRequestException;
+import dev.milan.jpasolopractice.customException.differentExceptions.BadRequestApiRequestException;
+import dev.milan.jpasolopractice.data.RoomRepository;
+import dev.milan.jpasolopractice.data.YogaSessionRepository;
+import dev.milan.jpasolopractice.dto.RecurrenceReport;
+import dev.milan.jpasolopractice.dto.RecurrenceReport.DateIssue;
+import dev.milan.jpasolopractice.dto.SessionRecurrence;
+import dev.milan.jpasolopractice.model.Room;
+import dev.milan.jpasolopractice.model.RoomType;
+import dev.milan.jpasolopractice.model.YogaSession;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Expands a weekly recurrence into sessions and puts each one in that day's room of its type when the room's opening
+ * hours and sessions allow it, creating the room from its type's template if it doesn't exist yet. Dates go through in
+ * chunks, each in its own transaction: one query loads the chunk's rooms with their sessions and one finds the dates
+ * that already have a session at that start time, everything else is checked in memory and the new sessions go out as
+ * batched inserts.
+ */
+@Service
+public class SessionRecurrences {
+    private static final int MAX_DAYS = 366;
+    private static final int CHUNK_SIZE = 50;
+    private final YogaSessionServiceUtil sessionServiceUtil;
+    private final YogaSessionRepository yogaSessionRepository;
+    private final RoomRepository roomRepository;
+    private final RoomServiceUtil roomServiceUtil;
+    private final FormatCheckService formatCheckService;
+    private final DayScheduleCache dayScheduleCache;
+    private final RoomTemplates roomTemplates;
+    private final TransactionTemplate transaction;
+
+    @Autowired
+    public SessionRecurrences(YogaSessionServiceUtil sessionServiceUtil, YogaSessionRepository yogaSessionRepository, RoomRepository roomRepository
+            , RoomServiceUtil roomServiceUtil, FormatCheckService formatCheckService, DayScheduleCache dayScheduleCache
+            , RoomTemplates roomTemplates, PlatformTransactionManager transactionManager) {
+        this.sessionServiceUtil = sessionServiceUtil;
+        this.yogaSessionRepository = yogaSessionRepository;
+        this.roomRepository = roomRepository;
+        this.roomServiceUtil = roomServiceUtil;
+        this.formatCheckService = formatCheckService;
+        this.dayScheduleCache = dayScheduleCache;
+        this.roomTemplates = roomTemplates;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    public RecurrenceReport expand(SessionRecurrence recurrence) throws ApiRequestException{
+        if (recurrence == null || recurrence.type() == null || recurrence.startTime() == null || recurrence.duration() == null
+                || recurrence.from() == null || recurrence.to() == null || recurrence.days() == null || recurrence.days().isEmpty()){
+            BadRequestApiRequestException.throwBadRequestException("Bad request data. Properties for a recurrence are: type, startTime, duration, from, to, days.");
+        }
+        RoomType type = formatCheckService.checkRoomTypeFormat(recurrence.type());
+        LocalTime startTime = formatCheckService.checkTimeFormat(recurrence.startTime());
+        int duration = formatCheckService.checkNumberFormat(recurrence.duration());
+        LocalDate from = formatCheckService.checkDateFormat(recurrence.from());
+        LocalDate to = formatCheckService.checkDateFormat(recurrence.to());
+        if (from.isBefore(LocalDate.now())){
+            BadRequestApiRequestException.throwBadRequestException("Recurrence cannot start before current date.");
+        }else if (from.isAfter(to)){
+            BadRequestApiRequestException.throwBadRequestException("Recurrence start date must not be after its end date.");
+        }else if (ChronoUnit.DAYS.between(from, to) >= MAX_DAYS){
+            BadRequestApiRequestException.throwBadRequestException("Recurrence can span at most " + MAX_DAYS + " days.");
+        }
+        Set<DayOfWeek> days = checkDays(recurrence.days());
+        List<LocalDate> dates = from.datesUntil(to.plusDays(1)).filter(date -> days.contains(date.getDayOfWeek())).collect(Collectors.toList());
+
+        int created = 0;
+        int placed = 0;
+        List<DateIssue> issues = new ArrayList<>();
+        for (int i = 0; i < dates.size(); i += CHUNK_SIZE){
+            List<LocalDate> chunk = dates.subList(i, Math.min(i + CHUNK_SIZE, dates.size()));
+            RecurrenceReport expanded;
+            try{
+                expanded = expandChunk(chunk, type, startTime, duration);
+            }catch (DataIntegrityViolationException e){
+                expanded = expandChunk(chunk, type, startTime, duration);
+            }
+            created += expanded.created();
+            placed += expanded.placed();
+            issues.addAll(expanded.issues());
+        }
+        return new RecurrenceReport(created, placed, issues);
+    }
+
+    private RecurrenceReport expandChunk(List<LocalDate> dates, RoomType type, LocalTime startTime, int duration){
+        LocalDate first = dates.get(0);
+        LocalDate last = dates.get(dates.size() - 1);
+        return transaction.execute(status -> {
+            Map<LocalDate, Room> rooms = roomRepository.findWithSessionsByRoomTypeAndDateBetween(type, first, last).stream()
+                    .collect(Collectors.toMap(Room::getDate, Function.identity()));
+            Set<LocalDate> taken = new HashSet<>(yogaSessionRepository.findDatesByRoomTypeAndStartBetween(type, startTime, first, last));
+            List<YogaSession> sessions = new ArrayList<>(dates.size());
+            List<DateIssue> issues = new ArrayList<>();
+            Map<YogaSession, String> unplaced = new IdentityHashMap<>();
+            for (LocalDate date : dates){
+                if (taken.contains(date)){
+                    issues.add(new DateIssue(date, null, "Yoga session with same date,start time and room type already exists."));
+                    continue;
+                }
+                YogaSession session;
+                try{
+                    session = sessionServiceUtil.createAYogaSession(date, type, startTime, duration);
+                }catch (ApiRequestException e){
+                    issues.add(new DateIssue(date, null, e.getMessage()));
+                    continue;
+                }
+                Room room = rooms.containsKey(date) ? rooms.get(date) : roomTemplates.findOrCreateRoom(date, type).orElse(null);
+                if (room == null){
+                    unplaced.put(session, "No " + type.name() + " room on this date. Session created without a room.");
+                }else{
+                    try{
+                        roomServiceUtil.canAddSessionToRoom(room, session);
+                        session.setRoom(room);
+                        room.addSession(session);
+                    }catch (ApiRequestException e){
+                        unplaced.put(session, e.getMessage());
+                    }
+                }
+                sessions.add(session);
+            }
+            yogaSessionRepository.saveAll(sessions);
+            int placed = 0;
+            for (YogaSession session : sessions){
+                if (session.getRoom() != null){
+                    roomServiceUtil.registerSessionTime(session.getRoom(), session);
+                    dayScheduleCache.invalidate(session.getDate());
+                    placed++;
+                }else{
+                    issues.add(new DateIssue(session.getDate(), session.getId(), unplaced.get(session)));
+                }
+            }
+            issues.sort(Comparator.comparing(DateIssue::date));
+            return new RecurrenceReport(sessions.size(), placed, issues);
+        });
+    }
+
+    private Set<DayOfWeek> checkDays(List<String> days) throws BadRequestApiRequestException{
+        Set<DayOfWeek> checked = EnumSet.noneOf(DayOfWeek.class);
+        for (String day : days){
+            try{
+                checked.add(DayOfWeek.valueOf(day.trim().toUpperCase()));
+            }catch (Exception e){
+                BadRequestApiRequestException.throwBadRequestException("Incorrect day:" + day + ". Days are: MONDAY, TUESDAY, WEDNESDAY, THURSDAY, FRIDAY, SATURDAY, SUNDAY.");
+            }
+        }
+        return checked;
+    }
+}
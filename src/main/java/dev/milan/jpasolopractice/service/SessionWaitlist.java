@@ -0,0 +1,151 @@
+package dev.milan.jpasolopractice.service;
+
+import dev.milan.jpasolopractice.customException.differentExceptions.ConflictApiRequestException;
+import dev.milan.jpasolopractice.customException.differentExceptions.NotFoundApiRequestException;
+import dev.milan.jpasolopractice.data.WaitlistEntryRepository;
+import dev.milan.jpasolopractice.data.YogaSessionRepository;
+import dev.milan.jpasolopractice.model.WaitlistEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * First-come waitlist of a session. Freed space is handed out by the scheduled promotion, not by the request that
+ * freed it: each marked session is promoted in its own transaction using the same conditional update as a direct
+ * booking, and a waiter's entry is removed in the transaction that books them. The marks live in memory, so on startup
+ * every session with waiters and free space is marked again.
+ */
+@Service
+public class SessionWaitlist {
+    private static final Logger log = LoggerFactory.getLogger(SessionWaitlist.class);
+    private final Set<Integer> pendingSessions = ConcurrentHashMap.newKeySet();
+    private final Map<Integer, Integer> failedAttempts = new ConcurrentHashMap<>();
+    private final WaitlistEntryRepository waitlistEntryRepository;
+    private final YogaSessionRepository yogaSessionRepository;
+    private final SessionCacheEviction sessionCacheEviction;
+    private final DayScheduleCache dayScheduleCache;
+    private final SessionAvailabilityStreams availabilityStreams;
+    private final TransactionTemplate transaction;
+    private final int maxAttempts;
+
+    @Autowired
+    public SessionWaitlist(WaitlistEntryRepository waitlistEntryRepository, YogaSessionRepository yogaSessionRepository
+            , SessionCacheEviction sessionCacheEviction, DayScheduleCache dayScheduleCache
+            , SessionAvailabilityStreams availabilityStreams, PlatformTransactionManager transactionManager
+            , @Value("${sessions.waitlist.max-attempts:5}") int maxAttempts) {
+        this.waitlistEntryRepository = waitlistEntryRepository;
+        this.yogaSessionRepository = yogaSessionRepository;
+        this.sessionCacheEviction = sessionCacheEviction;
+        this.dayScheduleCache = dayScheduleCache;
+        this.availabilityStreams = availabilityStreams;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.maxAttempts = maxAttempts;
+    }
+
+    @PostConstruct
+    public void markSessionsWithFreeSpace(){
+        pendingSessions.addAll(waitlistEntryRepository.findSessionIdsWithFreeSpace());
+    }
+
+    public WaitlistEntry join(int sessionId, int personId) throws ConflictApiRequestException{
+        if (waitlistEntryRepository.existsBySessionIdAndPersonId(sessionId, personId)){
+            ConflictApiRequestException.throwConflictApiRequestException("User id:" + personId + " already on waitlist of session id:" + sessionId);
+        }
+        WaitlistEntry entry = null;
+        try{
+            entry = waitlistEntryRepository.saveAndFlush(new WaitlistEntry(sessionId, personId, LocalDateTime.now()));
+        }catch (DataIntegrityViolationException e){
+            ConflictApiRequestException.throwConflictApiRequestException("User id:" + personId + " already on waitlist of session id:" + sessionId);
+        }
+        promoteAfterCommit(sessionId);
+        return entry;
+    }
+
+    public void leave(int sessionId, int personId) throws NotFoundApiRequestException{
+        if (waitlistEntryRepository.deleteBySessionIdAndPersonId(sessionId, personId) == 0){
+            NotFoundApiRequestException.throwNotFoundException("Person id:" + personId + " not found on waitlist of session id:" + sessionId);
+        }
+    }
+
+    /**
+     * Marks the session for the next promotion once the current transaction commits, or right away outside one.
+     */
+    public void promoteAfterCommit(int sessionId){
+        if (TransactionSynchronizationManager.isSynchronizationActive()){
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pendingSessions.add(sessionId);
+                }
+            });
+        }else{
+            pendingSessions.add(sessionId);
+        }
+    }
+
+    /**
+     * Promotes every marked session. A session whose promotion fails is logged and tried again on the next runs, up to
+     * the attempt limit, without holding up the sessions after it.
+     */
+    @Scheduled(fixedDelayString = "${sessions.waitlist.promote-ms:250}")
+    public void promotePending(){
+        for (Integer sessionId : List.copyOf(pendingSessions)){
+            pendingSessions.remove(sessionId);
+            try{
+                transaction.executeWithoutResult(status -> promote(sessionId));
+                failedAttempts.remove(sessionId);
+            }catch (RuntimeException e){
+                int attempts = failedAttempts.merge(sessionId, 1, Integer::sum);
+                if (attempts < maxAttempts){
+                    log.warn("Promoting waitlist of session id:{} failed, attempt {} of {}.", sessionId, attempts, maxAttempts, e);
+                    pendingSessions.add(sessionId);
+                }else{
+                    failedAttempts.remove(sessionId);
+                    log.error("Gave up promoting waitlist of session id:{} after {} attempts.", sessionId, attempts, e);
+                }
+            }
+        }
+    }
+
+    private void promote(int sessionId){
+        LocalDate date = yogaSessionRepository.findDateById(sessionId);
+        if (date == null){
+            return;
+        }
+        boolean promoted = false;
+        Optional<WaitlistEntry> next;
+        while ((next = waitlistEntryRepository.findFirstBySessionIdOrderByJoinedAtAscIdAsc(sessionId)).isPresent()){
+            WaitlistEntry entry = next.get();
+            if (yogaSessionRepository.countMember(sessionId, entry.getPersonId()) == 0){
+                if (yogaSessionRepository.bookOneSpaceIfAvailable(sessionId) == 0){
+                    break;
+                }
+                yogaSessionRepository.insertMember(sessionId, entry.getPersonId());
+                promoted = true;
+            }
+            waitlistEntryRepository.delete(entry);
+        }
+        if (promoted){
+            sessionCacheEviction.evictSession(sessionId);
+            dayScheduleCache.invalidate(date);
+            availabilityStreams.sessionChanged(sessionId, date);
+        }
+    }
+}
@@ -13,21 +13,31 @@ import dev.milan.jpasolopractice.customException.differentExceptions.NotFoundApi
 import dev.milan.jpasolopractice.data.PersonRepository;
 import dev.milan.jpasolopractice.data.RoomRepository;
 import dev.milan.jpasolopractice.data.YogaSessionRepository;
+import dev.milan.jpasolopractice.dto.DaySchedule;
+import dev.milan.jpasolopractice.dto.KeysetPage;
+import dev.milan.jpasolopractice.dto.MembershipOutcome;
+import dev.milan.jpasolopractice.dto.PageCursor;
+import dev.milan.jpasolopractice.dto.SessionSummary;
 import dev.milan.jpasolopractice.model.Person;
 import dev.milan.jpasolopractice.model.Room;
 import dev.milan.jpasolopractice.model.RoomType;
+import dev.milan.jpasolopractice.model.SeatHold;
 import dev.milan.jpasolopractice.model.YogaSession;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import javax.transaction.Transactional;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.*;
+import java.util.function.Supplier;
 
 
 @Service
 public class YogaSessionService {
+    private static final int MAX_GROUP_SIZE = 200;
 
     private final YogaSessionServiceUtil sessionServiceImpl;
     private final YogaSessionRepository yogaSessionRepository;
@@ -37,9 +47,21 @@ public class YogaSessionService {
     private final ObjectMapper mapper;
     private final RoomServiceUtil roomServiceUtil;
     private final RoomService roomService;
+    private final DayScheduleCache dayScheduleCache;
+    private final IdempotencyKeyService idempotencyKeyService;
+    private final SessionCacheEviction sessionCacheEviction;
+    private final SessionQueryCoalescer sessionQueryCoalescer;
+    private final SessionAvailabilityStreams availabilityStreams;
+    private final SessionWaitlist sessionWaitlist;
+    private final SeatHolds seatHolds;
+    private final RoomTemplates roomTemplates;
         @Autowired
         public YogaSessionService(YogaSessionServiceUtil sessionServiceImpl, YogaSessionRepository yogaSessionRepository, PersonRepository personRepository
-                                    , FormatCheckService formatCheckService, RoomRepository roomRepository, ObjectMapper mapper, RoomServiceUtil roomServiceUtil, RoomService roomService) {
+                                    , FormatCheckService formatCheckService, RoomRepository roomRepository, ObjectMapper mapper, RoomServiceUtil roomServiceUtil, RoomService roomService
+                                    , DayScheduleCache dayScheduleCache, IdempotencyKeyService idempotencyKeyService
+                                    , SessionCacheEviction sessionCacheEviction, SessionQueryCoalescer sessionQueryCoalescer
+                                    , SessionAvailabilityStreams availabilityStreams, SessionWaitlist sessionWaitlist
+                                    , SeatHolds seatHolds, RoomTemplates roomTemplates) {
         this.sessionServiceImpl = sessionServiceImpl;
         this.yogaSessionRepository = yogaSessionRepository;
         this.personRepository = personRepository;
@@ -48,11 +70,23 @@ public class YogaSessionService {
         this.mapper = mapper;
         this.roomServiceUtil = roomServiceUtil;
         this.roomService = roomService;
+        this.dayScheduleCache = dayScheduleCache;
+        this.idempotencyKeyService = idempotencyKeyService;
+        this.sessionCacheEviction = sessionCacheEviction;
+        this.sessionQueryCoalescer = sessionQueryCoalescer;
+        this.availabilityStreams = availabilityStreams;
+        this.sessionWaitlist = sessionWaitlist;
+        this.seatHolds = seatHolds;
+        this.roomTemplates = roomTemplates;
     }
 
 
-    @Transactional
     public YogaSession createAYogaSession(String dateString, String roomTypeString, String startTimeString, String durationString) throws ApiRequestException {
+        return createAYogaSession(dateString, roomTypeString, startTimeString, durationString, Optional.empty());
+    }
+
+    public YogaSession createAYogaSession(String dateString, String roomTypeString, String startTimeString, String durationString
+                                            , Optional<String> idempotencyKey) throws ApiRequestException {
         if (dateString == null || roomTypeString == null || startTimeString == null || durationString == null){
             BadRequestApiRequestException.throwBadRequestException("Date, room type, start time and duration must have values assigned.");
             }
@@ -61,28 +95,137 @@ public class YogaSessionService {
         LocalTime startTime = formatCheckService.checkTimeFormat(startTimeString);
         int duration = formatCheckService.checkNumberFormat(durationString);
 
-        YogaSession found = yogaSessionRepository.findYogaSessionByDateAndStartOfSessionAndRoomType(date,startTime,roomType);
-        if (found == null){
-            found = sessionServiceImpl.createAYogaSession(date,roomType,startTime,duration);
-            yogaSessionRepository.save(found);
-        }else{
+        String request = "POST /sessions " + date + " " + roomType + " " + startTime + " " + duration;
+        Optional<Integer> original = idempotencyKeyService.findOriginal(idempotencyKey, request);
+        if (original.isPresent()){
+            return findYogaSessionById(original.get());
+        }
+        YogaSession session = sessionServiceImpl.createAYogaSession(date,roomType,startTime,duration);
+        int id = 0;
+        try{
+            id = idempotencyKeyService.createOnce(idempotencyKey, request, () -> {
+                yogaSessionRepository.saveAndFlush(session);
+                return session.getId();
+            });
+        }catch (DataIntegrityViolationException e){
             ConflictApiRequestException.throwConflictApiRequestException("Yoga session with same date,start time and room type already exists.");
         }
-        return found;
+        return id == session.getId() ? session : findYogaSessionById(id);
     }
 
     @Transactional
     public boolean addMemberToYogaSession(int sessionId, int userId) throws  ApiRequestException{
-            YogaSession foundSession = findYogaSessionById(sessionId);
-            Person foundPerson = findUserById(userId);
+            LocalDate date = yogaSessionRepository.findDateById(sessionId);
+            if (date == null){
+                NotFoundApiRequestException.throwNotFoundException("Yoga session id:" + sessionId +  " not found.");
+            }
+            if (!personRepository.existsById(userId)){
+                NotFoundApiRequestException.throwNotFoundException("Person id:" + userId + " couldn't be found.");
+            }
+            if (yogaSessionRepository.countMember(sessionId, userId) > 0){
+                ConflictApiRequestException.throwConflictApiRequestException("User id:" + userId + " already present in session id:" + sessionId);
+            }
+            if (yogaSessionRepository.bookOneSpaceIfAvailable(sessionId) == 0){
+                ForbiddenApiRequestException.throwForbiddenApiRequestException("Session id:" + sessionId + " member limit reached.");
+            }
+            try{
+                yogaSessionRepository.insertMember(sessionId, userId);
+            }catch (DataIntegrityViolationException e){
+                ConflictApiRequestException.throwConflictApiRequestException("User id:" + userId + " already present in session id:" + sessionId);
+            }
+            sessionCacheEviction.evictSession(sessionId);
+            dayScheduleCache.invalidate(date);
+            availabilityStreams.sessionChanged(sessionId, date);
+            return true;
+    }
 
-            if(sessionServiceImpl.addMember(foundPerson,foundSession)){
-                personRepository.save(foundPerson);
-                yogaSessionRepository.save(foundSession);
-                return true;
+    /**
+     * Adds a group of people with a fixed number of statements however large the group is. The group only books if
+     * every person who exists and isn't attending yet fits; the others are reported back and not booked. If someone is
+     * deleted or booked by another request between the lookup and the insert, the whole group is rolled back rather than
+     * booking seats nobody holds.
+     */
+    @Transactional
+    public List<MembershipOutcome> addMembersToYogaSession(int sessionId, List<Integer> personIds) throws ApiRequestException{
+        if (personIds == null || personIds.isEmpty() || personIds.stream().anyMatch(Objects::isNull)){
+            BadRequestApiRequestException.throwBadRequestException("Pass a list of person ids to add to the session.");
+        }else if (personIds.size() > MAX_GROUP_SIZE){
+            BadRequestApiRequestException.throwBadRequestException("At most " + MAX_GROUP_SIZE + " people can be added to a session at once.");
+        }
+        LocalDate date = yogaSessionRepository.findDateById(sessionId);
+        if (date == null){
+            NotFoundApiRequestException.throwNotFoundException("Yoga session id:" + sessionId +  " not found.");
+        }
+        Set<Integer> requested = new LinkedHashSet<>(personIds);
+        Set<Integer> existing = new HashSet<>(personRepository.findIdsByIdIn(requested));
+        Set<Integer> attending = new HashSet<>(yogaSessionRepository.findMemberIdsIn(sessionId, requested));
+        List<Integer> joining = requested.stream().filter(existing::contains).filter(id -> !attending.contains(id)).toList();
+        if (!joining.isEmpty()){
+            if (yogaSessionRepository.bookSpacesIfAvailable(sessionId, joining.size()) == 0){
+                ForbiddenApiRequestException.throwForbiddenApiRequestException("Session id:" + sessionId + " member limit reached.");
+            }
+            int inserted = 0;
+            try{
+                inserted = yogaSessionRepository.insertMembers(sessionId, joining);
+            }catch (DataIntegrityViolationException e){
+                ConflictApiRequestException.throwConflictApiRequestException("People were removed while being added to session id:" + sessionId + ". Try again.");
             }
-            return false;
+            if (inserted != joining.size()){
+                ConflictApiRequestException.throwConflictApiRequestException("People were removed while being added to session id:" + sessionId + ". Try again.");
+            }
+            sessionCacheEviction.evictSession(sessionId);
+            dayScheduleCache.invalidate(date);
+            availabilityStreams.sessionChanged(sessionId, date);
+        }
+        return requested.stream().map(id -> new MembershipOutcome(id, !existing.contains(id) ? MembershipOutcome.Result.NOT_FOUND
+                : attending.contains(id) ? MembershipOutcome.Result.ALREADY_PRESENT : MembershipOutcome.Result.ADDED)).toList();
     }
+
+    @Transactional
+    public boolean addMemberToWaitlist(int sessionId, int userId) throws ApiRequestException{
+        if (yogaSessionRepository.findDateById(sessionId) == null){
+            NotFoundApiRequestException.throwNotFoundException("Yoga session id:" + sessionId +  " not found.");
+        }
+        if (!personRepository.existsById(userId)){
+            NotFoundApiRequestException.throwNotFoundException("Person id:" + userId + " couldn't be found.");
+        }
+        if (yogaSessionRepository.countMember(sessionId, userId) > 0){
+            ConflictApiRequestException.throwConflictApiRequestException("User id:" + userId + " already present in session id:" + sessionId);
+        }
+        sessionWaitlist.join(sessionId, userId);
+        return true;
+    }
+
+    @Transactional
+    public void removeMemberFromWaitlist(int sessionId, int userId) throws NotFoundApiRequestException{
+        sessionWaitlist.leave(sessionId, userId);
+    }
+
+    @Transactional
+    public SeatHold holdSeat(int sessionId, int userId) throws ApiRequestException{
+        LocalDate date = yogaSessionRepository.findDateById(sessionId);
+        if (date == null){
+            NotFoundApiRequestException.throwNotFoundException("Yoga session id:" + sessionId +  " not found.");
+        }
+        if (!personRepository.existsById(userId)){
+            NotFoundApiRequestException.throwNotFoundException("Person id:" + userId + " couldn't be found.");
+        }
+        if (yogaSessionRepository.countMember(sessionId, userId) > 0){
+            ConflictApiRequestException.throwConflictApiRequestException("User id:" + userId + " already present in session id:" + sessionId);
+        }
+        return seatHolds.hold(sessionId, userId, date);
+    }
+
+    @Transactional
+    public void confirmSeatHold(int sessionId, int userId) throws ApiRequestException{
+        seatHolds.confirm(sessionId, userId);
+    }
+
+    @Transactional
+    public void releaseSeatHold(int sessionId, int userId) throws NotFoundApiRequestException{
+        seatHolds.release(sessionId, userId);
+    }
+    @RetryOnConcurrentUpdate
     @Transactional
     public boolean removeMemberFromYogaSession(int sessionId, int personId){
         YogaSession foundSession = findYogaSessionById(sessionId);
@@ -91,6 +234,9 @@ public class YogaSessionService {
                 if(sessionServiceImpl.removeMember(foundPerson,foundSession)){
                 yogaSessionRepository.save(foundSession);
                 personRepository.save(foundPerson);
+                dayScheduleCache.invalidate(foundSession.getDate());
+                availabilityStreams.sessionChanged(sessionId, foundSession.getDate());
+                sessionWaitlist.promoteAfterCommit(sessionId);
                 return true;
                 }
                 return false;
@@ -112,8 +258,21 @@ public class YogaSessionService {
         return yogaSessionRepository.findById(yogaSessionId).orElseThrow(()-> NotFoundApiRequestException.throwNotFoundException("Yoga session id:" + yogaSessionId +  " not found."));
         }
 
+    public String findSessionVersionTag(int yogaSessionId) {
+        return Optional.ofNullable(yogaSessionRepository.findVersionTagById(yogaSessionId))
+                .orElseThrow(()-> NotFoundApiRequestException.throwNotFoundException("Yoga session id:" + yogaSessionId +  " not found."));
+    }
+
+    public String findSessionsVersionTag(Optional<String> dateString) throws ApiRequestException{
+        return sessionsVersionTag(dateString.map(formatCheckService::checkDateFormat).orElse(null));
+    }
+
+    private String sessionsVersionTag(LocalDate date){
+        return date == null ? yogaSessionRepository.findVersionTag() : yogaSessionRepository.findVersionTagByDate(date);
+    }
+
     public List<YogaSession> findAllSessions() {
-            return (List<YogaSession>) yogaSessionRepository.findAll();
+            return yogaSessionRepository.findAll();
     }
 
     public List<YogaSession> getAllRoomsSessionsInADay(String dateString) throws ApiRequestException{
@@ -127,6 +286,12 @@ public class YogaSessionService {
         return null;
     }
 
+    public DaySchedule getDaySchedule(String dateString) throws ApiRequestException{
+        LocalDate date = formatCheckService.checkDateFormat(dateString);
+        return dayScheduleCache.get(date, day -> sessionServiceImpl.createDaySchedule(day, roomRepository.findDayScheduleRows(day)
+                , roomTemplates.findTemplatesFor(day)));
+    }
+
     public List<YogaSession> getSingleRoomSessionsInADay(int id) throws NotFoundApiRequestException{
         Room room = roomRepository.findById(id).orElseThrow(()-> NotFoundApiRequestException.throwNotFoundException("Room id:" + id + " not found"));
         if (room != null){
@@ -136,73 +301,104 @@ public class YogaSessionService {
     }
 
 
-    public List<YogaSession> findSessionsByParams(Optional<String> dateString, Optional<String> typeString)throws ApiRequestException{
+    public List<SessionSummary> findSessionsByParams(Optional<String> dateString, Optional<String> typeString)throws ApiRequestException{
 
             if (typeString.isPresent()){
                 if (typeString.get().equalsIgnoreCase("all")){
                     if (dateString.isPresent()){
-                        return findSessionsInAllRoomsWithDate(formatCheckService.checkDateFormat(dateString.get()));
+                        LocalDate date = formatCheckService.checkDateFormat(dateString.get());
+                        return coalesce("all", date, () -> yogaSessionRepository.findSummariesByDateWithRoom(date));
                     }else{
-                        return findSessionsInAllRooms();
+                        return coalesce("all", null, yogaSessionRepository::findSummariesWithRoom);
                     }
                 }else if(typeString.get().equalsIgnoreCase("none")){
                     if (dateString.isPresent()){
-                        return findSessionsWithoutRoomsWithDate(formatCheckService.checkDateFormat(dateString.get()));
+                        LocalDate date = formatCheckService.checkDateFormat(dateString.get());
+                        return coalesce("none", date, () -> yogaSessionRepository.findSummariesByDateWithoutRoom(date));
                     }else{
-                        return findSessionsWithNoRoom();
+                        return coalesce("none", null, yogaSessionRepository::findSummariesWithoutRoom);
                     }
                 }else{
                    RoomType roomType =  formatCheckService.checkRoomTypeFormat(typeString.get());
                    if (dateString.isPresent()){
-                       return findSessionsInRoomsWithTypeAndDate(roomType, formatCheckService.checkDateFormat(dateString.get()));
+                       LocalDate date = formatCheckService.checkDateFormat(dateString.get());
+                       return coalesce(roomType.name(), date, () -> yogaSessionRepository.findSummariesByRoomTypeAndDateWithRoom(roomType, date));
                    }else{
-                       return findSessionsInAllRoomsWithType(roomType);
+                       return coalesce(roomType.name(), null, () -> yogaSessionRepository.findSummariesByRoomTypeWithRoom(roomType));
                    }
                 }
             }else{
                 if (dateString.isPresent()){
                     LocalDate date = formatCheckService.checkDateFormat(dateString.get());
-                    return findSessionsInAllRoomsWithDate(date);
+                    return coalesce("all", date, () -> yogaSessionRepository.findSummariesByDateWithRoom(date));
                 }else{
-                    return findAllSessions();
+                    return coalesce("any", null, yogaSessionRepository::findAllSummaries);
                 }
             }
     }
 
-    private List<YogaSession> findSessionsWithNoRoom() {
-            return yogaSessionRepository.findYogaSessionByRoomIsNull();
-    }
-
-    private List<YogaSession> findSessionsWithoutRoomsWithDate(LocalDate date) {
-            return yogaSessionRepository.findYogaSessionByDateAndRoomIsNull(date);
-    }
-
-    private List<YogaSession> findSessionsInAllRoomsWithDate(LocalDate date) {
-            return yogaSessionRepository.findYogaSessionByDateAndRoomIsNotNull(date);
+    /**
+     * Searches with the same filter share one call. The version tag only goes into the key when results outlive the
+     * call; a shared in-flight call needs no tag and skips the extra fingerprint scan.
+     */
+    private List<SessionSummary> coalesce(String filter, LocalDate date, Supplier<List<SessionSummary>> query){
+        String key = filter + " " + date;
+        if (sessionQueryCoalescer.keepsResults()){
+            key += " " + sessionsVersionTag(date);
+        }
+        return sessionQueryCoalescer.load(key, query);
     }
 
-
-    private List<YogaSession> findSessionsInRoomsWithTypeAndDate(RoomType roomType, LocalDate date) {
-        return yogaSessionRepository.findYogaSessionByRoomTypeAndDateAndRoomIsNotNull(roomType,date);
+    public KeysetPage<SessionSummary> findSessionsPageByParams(Optional<String> dateString, Optional<String> typeString
+            , Optional<String> cursor, Optional<String> size) throws ApiRequestException{
+        int pageSize = KeysetPaging.pageSize(size);
+        PageCursor after = KeysetPaging.cursor(cursor);
+        if (dateString.isPresent()){
+            return KeysetPaging.pageOf(findSessionsByParams(dateString, typeString), after, pageSize, YogaSessionService::cursorOf);
+        }
+        Pageable limit = KeysetPaging.limitOneAfter(pageSize);
+        List<SessionSummary> rows;
+        if (typeString.isEmpty()){
+            rows = yogaSessionRepository.findPageAfter(after.date(), after.time(), after.id(), limit);
+        }else if (typeString.get().equalsIgnoreCase("all")){
+            rows = yogaSessionRepository.findPageWithRoomAfter(after.date(), after.time(), after.id(), limit);
+        }else if (typeString.get().equalsIgnoreCase("none")){
+            rows = yogaSessionRepository.findPageWithoutRoomAfter(after.date(), after.time(), after.id(), limit);
+        }else{
+            RoomType roomType = formatCheckService.checkRoomTypeFormat(typeString.get());
+            rows = yogaSessionRepository.findPageByRoomTypeWithRoomAfter(roomType, after.date(), after.time(), after.id(), limit);
+        }
+        return KeysetPaging.toPage(rows, pageSize, YogaSessionService::cursorOf);
     }
 
-    private List<YogaSession> findSessionsInAllRooms() {
-        return yogaSessionRepository.findYogaSessionByRoomIsNotNull();
+    private static PageCursor cursorOf(SessionSummary session){
+        return new PageCursor(session.date(), session.startOfSession(), session.id());
     }
 
-    private List<YogaSession> findSessionsInAllRoomsWithType(RoomType checkRoomTypeFormat) {
-        return yogaSessionRepository.findYogaSessionByRoomTypeAndRoomIsNotNull(checkRoomTypeFormat);
-    }
+    @RetryOnConcurrentUpdate
     @Transactional
     public YogaSession patchSession(String id, JsonPatch patch) throws ApiRequestException{
             YogaSession sessionFound = findYogaSessionById(formatCheckService.checkNumberFormat(id));
+            LocalDate originalDate = sessionFound.getDate();
+            int originalFreeSpace = sessionFound.getFreeSpace();
             YogaSession patchedSession = applyPatchToSession(patch, sessionFound);
-            return updateSession(sessionFound, patchedSession);
+            YogaSession updated = updateSession(sessionFound, patchedSession);
+            dayScheduleCache.invalidate(originalDate);
+            dayScheduleCache.invalidate(patchedSession.getDate());
+            availabilityStreams.sessionChanged(sessionFound.getId(), originalDate, patchedSession.getDate());
+            if (updated != null && updated.getFreeSpace() > originalFreeSpace){
+                sessionWaitlist.promoteAfterCommit(updated.getId());
+            }
+            return updated;
     }
+    private boolean sameMembers(Set<Person> found, Set<Person> patched){
+        return found.size() == patched.size() && patched.stream().allMatch(person -> found.stream().anyMatch(person::hasSameDetails));
+    }
+
     private YogaSession updateSession(YogaSession sessionFound, YogaSession patchedSession) {
             if (sessionFound.getId() != patchedSession.getId()){
                 BadRequestApiRequestException.throwBadRequestException("Patch request cannot change session id.");
-            }else if(!Arrays.equals(sessionFound.getMembersAttending().toArray(), patchedSession.getMembersAttending().toArray())){
+            }else if(!sameMembers(sessionFound.getMembersAttending(), patchedSession.getMembersAttending())){
                 BadRequestApiRequestException.throwBadRequestException("Patch request cannot change session members.");
             }else if(!Objects.equals(sessionFound.getRoom(),patchedSession.getRoom())){
                 BadRequestApiRequestException.throwBadRequestException("Patch request cannot directly assign a room.");
@@ -212,6 +408,8 @@ public class YogaSessionService {
                 BadRequestApiRequestException.throwBadRequestException("Patch request cannot directly set booked space.");
             }else if(!(sessionFound.getFreeSpace() == patchedSession.getFreeSpace())){
                 BadRequestApiRequestException.throwBadRequestException("Patch request cannot directly set free space.");
+            }else if(!(sessionFound.getHeldSpace() == patchedSession.getHeldSpace())){
+                BadRequestApiRequestException.throwBadRequestException("Patch request cannot directly set held space.");
             }else {
                 boolean roomTypesDontMatch = !patchedSession.getRoomType().equals(sessionFound.getRoomType());
                 boolean datesDontMatch = !patchedSession.getDate().equals(sessionFound.getDate());
@@ -232,6 +430,7 @@ public class YogaSessionService {
             Room room = sessionFound.getRoom();
             if (room != null){
                 room.getSessionList().remove(sessionFound);
+                roomServiceUtil.releaseSessionTime(room, sessionFound);
                 patchedSession = setUpASessionForRoomOrDateChange(sessionFound, patchedSession);
                 patchedSession.setRoom(null);
                 if (roomServiceUtil.canAddSessionToRoom(room, patchedSession)){
@@ -246,7 +445,7 @@ public class YogaSessionService {
 
 
     private YogaSession updateSessionRoomTypeOrDateIfPossible(YogaSession sessionFound, YogaSession patchedSession) throws ApiRequestException{
-            if (patchedSession.getRoomType().getMaxCapacity() < patchedSession.getBookedSpace()){
+            if (patchedSession.getRoomType().getMaxCapacity() < patchedSession.getBookedSpace() + patchedSession.getHeldSpace()){
                 ForbiddenApiRequestException
                         .throwForbiddenApiRequestException("Cannot change room type to a type with capacity lower than number of members in yoga session.");
             }
@@ -270,29 +469,44 @@ public class YogaSessionService {
         yogaSessionRepository.save(patchedSession);
         patchedSession.setRoom(room);
         room.addSession(patchedSession);
+        roomServiceUtil.registerSessionTime(room, patchedSession);
         roomRepository.save(room);
         yogaSessionRepository.save(patchedSession);
         return patchedSession;
     }
 
     private YogaSession setUpASessionForRoomOrDateChange(YogaSession sessionFound, YogaSession patchedSession) {
+        int version = patchedSession.getVersion();
         patchedSession = sessionServiceImpl.createAYogaSession(patchedSession.getDate(),patchedSession.getRoomType()
                 ,patchedSession.getStartOfSession(),patchedSession.getDuration());
         patchedSession.setId(sessionFound.getId());
+        patchedSession.setVersion(version);
         patchedSession.setMembersAttending(sessionFound.getMembersAttending());
+        keepTakenSpace(patchedSession, sessionFound.getBookedSpace(), sessionFound.getHeldSpace());
         return patchedSession;
     }
     private YogaSession changeSessionWithoutARoom(YogaSession session) throws ApiRequestException{
         int id = session.getId();
-        List<Person> members = session.getMembersAttending();
+        int version = session.getVersion();
+        int booked = session.getBookedSpace();
+        int held = session.getHeldSpace();
+        Set<Person> members = session.getMembersAttending();
         session = sessionServiceImpl.createAYogaSession(formatCheckService.checkDateFormat(session.getDate().toString())
                 ,formatCheckService.checkRoomTypeFormat(session.getRoomType().name()),formatCheckService.checkTimeFormat(session.getStartOfSession().toString())
                 ,formatCheckService.checkNumberFormat("" + session.getDuration()));
         session.setId(id);
+        session.setVersion(version);
         session.setMembersAttending(members);
+        keepTakenSpace(session, booked, held);
         return yogaSessionRepository.save(session);
     }
 
+    private static void keepTakenSpace(YogaSession session, int booked, int held){
+        session.setBookedSpace(booked);
+        session.setHeldSpace(held);
+        session.setFreeSpace(session.getRoomType().getMaxCapacity() - booked - held);
+    }
+
 
     private YogaSession applyPatchToSession(JsonPatch patch, YogaSession targetSession) throws BadRequestApiRequestException{
             try{
@@ -324,8 +538,11 @@ public class YogaSessionService {
             Room room = session.getRoom();
             if (room != null){
                 room.getSessionList().remove(session);
+                roomServiceUtil.releaseSessionTime(room, session);
                 roomRepository.save(room);
             }
             yogaSessionRepository.delete(session);
+            dayScheduleCache.invalidate(session.getDate());
+            availabilityStreams.sessionChanged(id, session.getDate());
     }
 }
@@ -5,8 +5,11 @@ import dev.milan.jpasolopractice.customException.differentExceptions.BadRequestA
 import dev.milan.jpasolopractice.customException.differentExceptions.ConflictApiRequestException;
 import dev.milan.jpasolopractice.customException.differentExceptions.ForbiddenApiRequestException;
 import dev.milan.jpasolopractice.customException.differentExceptions.NotFoundApiRequestException;
+import dev.milan.jpasolopractice.dto.DaySchedule;
+import dev.milan.jpasolopractice.dto.DayScheduleRow;
 import dev.milan.jpasolopractice.model.Person;
 import dev.milan.jpasolopractice.model.Room;
+import dev.milan.jpasolopractice.model.RoomTemplate;
 import dev.milan.jpasolopractice.model.RoomType;
 import dev.milan.jpasolopractice.model.YogaSession;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,7 +20,11 @@ import java.time.LocalTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static java.time.temporal.ChronoUnit.MINUTES;
 
@@ -107,7 +114,7 @@ private boolean addOneBooked(YogaSession session) {
     }
 
     private int calculateFreeSpace(YogaSession session){
-        session.setFreeSpace(session.getRoomType().getMaxCapacity() - session.getBookedSpace());
+        session.setFreeSpace(session.getRoomType().getMaxCapacity() - session.getBookedSpace() - session.getHeldSpace());
         return session.getFreeSpace();
     }
 
@@ -155,4 +162,36 @@ private boolean addOneBooked(YogaSession session) {
         }
         return Collections.unmodifiableList(listOfSessions);
     }
+
+    public DaySchedule createDaySchedule(LocalDate date, List<DayScheduleRow> rows) {
+        return createDaySchedule(date, rows, List.of());
+    }
+
+    public DaySchedule createDaySchedule(LocalDate date, List<DayScheduleRow> rows, List<RoomTemplate> templates) {
+        Map<Integer, List<DayScheduleRow>> rowsByRoom = new LinkedHashMap<>();
+        for (DayScheduleRow row : rows){
+            rowsByRoom.computeIfAbsent(row.roomId(), id -> new ArrayList<>()).add(row);
+        }
+        List<DaySchedule.RoomSchedule> rooms = new ArrayList<>();
+        for (List<DayScheduleRow> roomRows : rowsByRoom.values()){
+            List<DaySchedule.SessionSlot> sessions = new ArrayList<>();
+            for (DayScheduleRow row : roomRows){
+                if (row.sessionId() != null){
+                    sessions.add(new DaySchedule.SessionSlot(row.sessionId(), row.startOfSession(), row.endOfSession()
+                            , row.bookedSpace(), row.freeSpace(), row.membersAttending()));
+                }
+            }
+            DayScheduleRow room = roomRows.get(0);
+            rooms.add(new DaySchedule.RoomSchedule(room.roomId(), room.roomType(), room.openingHours(), room.closingHours()
+                    , room.totalCapacity(), List.copyOf(sessions)));
+        }
+        Set<RoomType> existing = rooms.stream().map(DaySchedule.RoomSchedule::roomType).collect(Collectors.toSet());
+        for (RoomTemplate template : templates){
+            if (!existing.contains(template.getRoomType())){
+                rooms.add(new DaySchedule.RoomSchedule(null, template.getRoomType(), template.getOpeningHours(), template.getClosingHours()
+                        , template.getTotalCapacity(), List.of()));
+            }
+        }
+        return new DaySchedule(date, List.copyOf(rooms));
+    }
 }
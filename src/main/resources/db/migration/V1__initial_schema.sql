@@ -0,0 +1,51 @@
+create sequence person_seq start with 1 increment by 50;
+create sequence room_seq start with 1 increment by 50;
+create sequence yoga_session_seq start with 1 increment by 50;
+
+create table person_data (
+    id integer not null,
+    age integer not null,
+    email varchar(255) not null,
+    name varchar(255) not null,
+    primary key (id),
+    constraint uk_person_data_email unique (email)
+);
+create index ix_person_data_age on person_data (age);
+
+create table rooms (
+    id integer not null,
+    close time,
+    date date,
+    open time,
+    room_type varchar(255),
+    capacity integer,
+    primary key (id),
+    constraint uk_rooms_date_room_type unique (date, room_type)
+);
+create index ix_rooms_room_type_date on rooms (room_type, date);
+
+create table yoga_sessions (
+    id integer not null,
+    booked integer,
+    date date,
+    duration integer,
+    end_time time,
+    free_space integer,
+    room_type varchar(255),
+    start_time time,
+    room_id integer,
+    primary key (id),
+    constraint uk_yoga_sessions_date_start_time_room_type unique (date, start_time, room_type),
+    constraint fk_yoga_sessions_room foreign key (room_id) references rooms (id)
+);
+create index ix_yoga_sessions_room_id on yoga_sessions (room_id);
+create index ix_yoga_sessions_room_type_date on yoga_sessions (room_type, date);
+
+create table users_sessions (
+    session_id integer not null,
+    user_id integer not null,
+    primary key (session_id, user_id),
+    constraint fk_users_sessions_session foreign key (session_id) references yoga_sessions (id),
+    constraint fk_users_sessions_user foreign key (user_id) references person_data (id)
+);
+create index ix_users_sessions_user_id on users_sessions (user_id);
@@ -0,0 +1,6 @@
+create table idempotency_keys (
+    idempotency_key varchar(255) not null,
+    request varchar(255) not null,
+    resource_id integer not null,
+    primary key (idempotency_key)
+);
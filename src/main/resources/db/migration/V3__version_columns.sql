@@ -0,0 +1,2 @@
+alter table rooms add column version integer default 0 not null;
+alter table yoga_sessions add column version integer default 0 not null;
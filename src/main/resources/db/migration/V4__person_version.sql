@@ -0,0 +1 @@
+alter table person_data add column version integer default 0 not null;
@@ -0,0 +1,14 @@
+create sequence waitlist_entry_seq start with 1 increment by 50;
+
+create table session_waitlist (
+    id integer not null,
+    session_id integer not null,
+    user_id integer not null,
+    joined_at timestamp not null,
+    primary key (id),
+    constraint uk_session_waitlist_session_id_user_id unique (session_id, user_id),
+    constraint fk_session_waitlist_session foreign key (session_id) references yoga_sessions (id) on delete cascade,
+    constraint fk_session_waitlist_user foreign key (user_id) references person_data (id) on delete cascade
+);
+create index ix_session_waitlist_session_id_joined_at on session_waitlist (session_id, joined_at, id);
+create index ix_session_waitlist_user_id on session_waitlist (user_id);
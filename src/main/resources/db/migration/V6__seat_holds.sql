@@ -0,0 +1,15 @@
+alter table yoga_sessions add column held integer default 0 not null;
+
+create sequence seat_hold_seq start with 1 increment by 50;
+
+create table seat_holds (
+    id integer not null,
+    session_id integer not null,
+    user_id integer not null,
+    expires_at timestamp not null,
+    primary key (id),
+    constraint uk_seat_holds_session_id_user_id unique (session_id, user_id),
+    constraint fk_seat_holds_session foreign key (session_id) references yoga_sessions (id) on delete cascade,
+    constraint fk_seat_holds_user foreign key (user_id) references person_data (id)
+);
+create index ix_seat_holds_user_id on seat_holds (user_id);
@@ -0,0 +1,12 @@
+create sequence room_template_seq start with 1 increment by 50;
+
+create table room_templates (
+    id integer not null,
+    room_type varchar(255) not null,
+    open time not null,
+    close time not null,
+    capacity integer not null,
+    version integer default 0 not null,
+    primary key (id),
+    constraint uk_room_templates_room_type unique (room_type)
+);
@@ -0,0 +1,3 @@
+alter table idempotency_keys add column created_at timestamp default current_timestamp not null;
+
+create index ix_idempotency_keys_created_at on idempotency_keys (created_at);
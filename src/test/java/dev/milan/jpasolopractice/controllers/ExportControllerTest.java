@@ -0,0 +1,68 @@
+package dev.milan.jpasolopractice.controllers;
+
+import dev.milan.jpasolopractice.customException.differentExceptions.BadRequestApiRequestException;
+import dev.milan.jpasolopractice.customException.differentExceptions.NotFoundApiRequestException;
+import dev.milan.jpasolopractice.service.DataExport;
+import dev.milan.jpasolopractice.service.ExportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ExportControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @MockBean
+    private ExportService exportService;
+    private String baseUrl;
+
+    @BeforeEach
+    void init(){
+        baseUrl = ServletUriComponentsBuilder.fromCurrentContextPath().build().toUriString();
+    }
+
+    @Test
+    void should_writeExportAsAttachment_when_exportingEntity() throws Exception {
+        when(exportService.prepare("rooms", Optional.of("csv"), Optional.of("2030-01-01"), Optional.empty()))
+                .thenReturn(new DataExport("text/csv;charset=UTF-8", "rooms.csv", out -> out.write("id\n4\n".getBytes(StandardCharsets.UTF_8))));
+
+        mockMvc.perform(get(baseUrl.concat("/export/rooms?format=csv&from=2030-01-01")))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv;charset=UTF-8"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"rooms.csv\""))
+                .andExpect(content().string("id\n4\n"));
+    }
+
+    @Test
+    void should_throwException404NotFound_when_exportingEntity_and_entityUnknown() throws Exception {
+        when(exportService.prepare("people", Optional.empty(), Optional.empty(), Optional.empty()))
+                .thenThrow(new NotFoundApiRequestException("Export of people not found. Export sessions, rooms or bookings."));
+
+        mockMvc.perform(get(baseUrl.concat("/export/people")))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Export of people not found. Export sessions, rooms or bookings."));
+    }
+
+    @Test
+    void should_throwException400BadRequest_when_exportingEntity_and_formatUnknown() throws Exception {
+        when(exportService.prepare("sessions", Optional.of("xml"), Optional.empty(), Optional.empty()))
+                .thenThrow(new BadRequestApiRequestException("Export format must be ndjson or csv."));
+
+        mockMvc.perform(get(baseUrl.concat("/export/sessions?format=xml")))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Export format must be ndjson or csv."));
+    }
+}
@@ -6,9 +6,13 @@ import com.github.fge.jsonpatch.JsonPatch;
 import dev.milan.jpasolopractice.customException.differentExceptions.BadRequestApiRequestException;
 import dev.milan.jpasolopractice.customException.differentExceptions.ConflictApiRequestException;
 import dev.milan.jpasolopractice.customException.differentExceptions.NotFoundApiRequestException;
+import dev.milan.jpasolopractice.dto.ImportReport;
+import dev.milan.jpasolopractice.dto.KeysetPage;
+import dev.milan.jpasolopractice.dto.PersonSummary;
 import dev.milan.jpasolopractice.model.Person;
 import dev.milan.jpasolopractice.model.Room;
 import dev.milan.jpasolopractice.model.YogaSession;
+import dev.milan.jpasolopractice.service.PersonImport;
 import dev.milan.jpasolopractice.service.PersonService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -51,12 +55,15 @@ public class PersonControllerTest {
     private int personId;
     private int sessionId;
     private List<Person> personList;
+    private List<PersonSummary> summaryList;
 
     @Autowired
     ObjectMapper mapper;
 
     @MockBean
     private PersonService personService;
+    @MockBean
+    private PersonImport personImport;
 
 
 
@@ -74,6 +81,7 @@ public class PersonControllerTest {
         baseUrl = ServletUriComponentsBuilder.fromCurrentContextPath().build().toUriString();
         personList = new ArrayList<>();
         personList.add(person);
+        summaryList = List.of(new PersonSummary(person.getId(), person.getName(), person.getAge(), person.getEmail()));
 
 
     }
@@ -132,27 +140,62 @@ public class PersonControllerTest {
         }
 
         @Test
-        void should_returnPersonList_when_searchingByParams_and_noParamsPassed() throws Exception {
-            when(personService.findPeopleByParams(Optional.empty(),Optional.empty(),Optional.empty())).thenReturn(personList);
-            mockMvc.perform(get(baseUrl.concat("/users"))).andExpect(content().string(asJsonString(personList)));
+        void should_returnUserWithETag_when_searchingUserByUserId_and_userFoundById() throws Exception {
+            when(personService.findPersonVersionTag(anyInt())).thenReturn("2");
+            when(personService.findPersonById(anyInt())).thenReturn(person);
+
+            mockMvc.perform(get(baseUrl.concat("/users/1"))).andExpect(status().isOk())
+                    .andExpect(header().string("ETag", "W/\"2\""));
+        }
+
+        @Test
+        void should_return304NotModifiedWithoutLoadingSessions_when_searchingUserSessions_and_eTagMatches() throws Exception {
+            when(personService.findPersonSessionsVersionTag(personId)).thenReturn("1.3.8.0.2.1.9");
+
+            mockMvc.perform(get(baseUrl.concat("/users/" + personId + "/sessions")).header("If-None-Match", "W/\"1.3.8.0.2.1.9\""))
+                    .andExpect(status().isNotModified());
+            verify(personService, never()).getAllSessionsFromPerson(anyInt());
+        }
+
+        @Test
+        void should_returnPersonSummaries_when_searchingByParams_and_noParamsPassed() throws Exception {
+            when(personService.findPeopleByParams(Optional.empty(),Optional.empty(),Optional.empty())).thenReturn(summaryList);
+            mockMvc.perform(get(baseUrl.concat("/users"))).andExpect(content().string(asJsonString(summaryList)));
         }
         @Test
-        void should_returnPersonList_when_searchingByParams_and_sessionIdPassed() throws Exception {
-            when(personService.findPeopleByParams(Optional.of("" + sessionId),Optional.empty(),Optional.empty())).thenReturn(personList);
-            mockMvc.perform(get(baseUrl.concat("/users?sessionId=" + sessionId))).andExpect(content().string(asJsonString(personList)));
+        void should_returnPersonSummaries_when_searchingByParams_and_sessionIdPassed() throws Exception {
+            when(personService.findPeopleByParams(Optional.of("" + sessionId),Optional.empty(),Optional.empty())).thenReturn(summaryList);
+            mockMvc.perform(get(baseUrl.concat("/users?sessionId=" + sessionId))).andExpect(content().string(asJsonString(summaryList)));
         }
         @Test
-        void should_returnPersonList_when_searchingByParams_and_startAgeEndAgeSessionIdPassed() throws Exception {
-            when(personService.findPeopleByParams(Optional.of("" + sessionId),Optional.of("33"),Optional.of("34"))).thenReturn(personList);
-            mockMvc.perform(get(baseUrl.concat("/users?sessionId=" + sessionId + "&startAge="+ 33 + "&endAge="+34))).andExpect(content().string(asJsonString(personList)));
+        void should_returnPersonSummaries_when_searchingByParams_and_startAgeEndAgeSessionIdPassed() throws Exception {
+            when(personService.findPeopleByParams(Optional.of("" + sessionId),Optional.of("33"),Optional.of("34"))).thenReturn(summaryList);
+            mockMvc.perform(get(baseUrl.concat("/users?sessionId=" + sessionId + "&startAge="+ 33 + "&endAge="+34))).andExpect(content().string(asJsonString(summaryList)));
         }
         @Test
-        void should_returnPersonList_when_searchingByParams_and_startAgeEndAgePassed() throws Exception {
-            when(personService.findPeopleByParams(Optional.empty(),Optional.of("33"),Optional.of("34"))).thenReturn(personList);
-            mockMvc.perform(get(baseUrl.concat("/users?startAge="+ 33 + "&endAge="+34))).andExpect(content().string(asJsonString(personList)));
+        void should_returnPersonSummaries_when_searchingByParams_and_startAgeEndAgePassed() throws Exception {
+            when(personService.findPeopleByParams(Optional.empty(),Optional.of("33"),Optional.of("34"))).thenReturn(summaryList);
+            mockMvc.perform(get(baseUrl.concat("/users?startAge="+ 33 + "&endAge="+34))).andExpect(content().string(asJsonString(summaryList)));
         }
 
 
+        @Test
+        void should_returnPageWithNextCursorHeader_when_searchingByParams_and_sizePassed() throws Exception {
+            when(personService.findPeoplePageByParams(Optional.empty(),Optional.empty(),Optional.empty(),Optional.empty(),Optional.of("1")))
+                    .thenReturn(new KeysetPage<>(summaryList, "abc"));
+            mockMvc.perform(get(baseUrl.concat("/users?size=1"))).andExpect(status().isOk())
+                    .andExpect(header().string("X-Next-Cursor", "abc"))
+                    .andExpect(content().string(asJsonString(summaryList)));
+        }
+        @Test
+        void should_returnLastPageWithoutNextCursorHeader_when_searchingByParams_and_cursorPassed() throws Exception {
+            when(personService.findPeoplePageByParams(Optional.empty(),Optional.empty(),Optional.empty(),Optional.of("abc"),Optional.empty()))
+                    .thenReturn(new KeysetPage<>(summaryList, null));
+            mockMvc.perform(get(baseUrl.concat("/users?cursor=abc"))).andExpect(status().isOk())
+                    .andExpect(header().doesNotExist("X-Next-Cursor"))
+                    .andExpect(content().string(asJsonString(summaryList)));
+        }
+
         @Test
         void should_throwException_when_searchingPeopleByParams_and_serviceMethodThrows() throws Exception {
             when(personService.findPeopleByParams(Optional.empty(),Optional.empty(),Optional.empty())).thenThrow(new BadRequestApiRequestException("Number must be an integer value."));
@@ -162,6 +205,34 @@ public class PersonControllerTest {
 
     }
 
+    @Nested
+    class ImportingUsers{
+        @Test
+        void should_returnReport_when_importingCsv() throws Exception {
+            ImportReport report = new ImportReport(2, 1, 1, List.of(new ImportReport.RowError(3, "Person already exists.")));
+            when(personImport.importPeople(any(), any())).thenReturn(report);
+
+            mockMvc.perform(post(baseUrl + "/users/import").contentType("text/csv").content("name,age,email\n"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().json(mapper.writeValueAsString(report)));
+        }
+
+        @Test
+        void should_return415UnsupportedMediaType_when_importingUsers_and_bodyIsJsonArray() throws Exception {
+            mockMvc.perform(post(baseUrl + "/users/import").contentType(MediaType.APPLICATION_JSON).content("[]"))
+                    .andExpect(status().isUnsupportedMediaType());
+            verifyNoInteractions(personImport);
+        }
+
+        @Test
+        void should_throwException400BadRequest_when_importingCsv_and_headerMissing() throws Exception {
+            when(personImport.importPeople(any(), any())).thenThrow(new BadRequestApiRequestException("CSV import must start with a header naming the name, age and email columns."));
+
+            mockMvc.perform(post(baseUrl + "/users/import").contentType("text/csv").content("Anna,30,anna@yoga.com\n"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
     @Nested
     class PatchingUser{
 
@@ -0,0 +1,73 @@
+package dev.milan.jpasolopractice.controllers;
+
+import org.hibernate.BaseSessionEventListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs an import through the web layer, where open-in-view binds one persistence context to the whole request, and
+ * checks that imported people don't pile up in it from chunk to chunk.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session.events.auto=dev.milan.jpasolopractice.controllers.PersonImportRequestTest$FlushedEntities")
+@AutoConfigureMockMvc
+public class PersonImportRequestTest {
+    private static final String EMAIL_PREFIX = "importrequest";
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    private String baseUrl;
+
+    public static class FlushedEntities extends BaseSessionEventListener {
+        static final AtomicInteger largest = new AtomicInteger();
+
+        @Override
+        public void flushEnd(int numberOfEntities, int numberOfCollections) {
+            largest.accumulateAndGet(numberOfEntities, Math::max);
+        }
+    }
+
+    @BeforeEach
+    void init(){
+        baseUrl = ServletUriComponentsBuilder.fromCurrentContextPath().build().toUriString();
+        FlushedEntities.largest.set(0);
+    }
+
+    @AfterEach
+    void cleanUp(){
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> entityManager
+                .createQuery("delete from Person p where p.email like :prefix").setParameter("prefix", EMAIL_PREFIX + "%").executeUpdate());
+    }
+
+    @Test
+    void should_keepOneChunkInPersistenceContext_when_importingThroughRequest() throws Exception {
+        int rows = 1200;
+        StringBuilder csv = new StringBuilder("name,age,email\n");
+        for (int i = 0; i < rows; i++){
+            csv.append("Imported Person,30,").append(EMAIL_PREFIX).append(i).append("@yoga.com\n");
+        }
+
+        mockMvc.perform(post(baseUrl + "/users/import").contentType("text/csv").content(csv.toString()))
+                .andExpect(status().isOk()).andExpect(jsonPath("$.imported").value(rows));
+
+        assertTrue(FlushedEntities.largest.get() <= 500, "largest flush held " + FlushedEntities.largest.get() + " entities");
+    }
+}
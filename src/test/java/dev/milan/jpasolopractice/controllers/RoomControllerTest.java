@@ -6,10 +6,16 @@ import com.github.fge.jsonpatch.JsonPatch;
 import dev.milan.jpasolopractice.customException.differentExceptions.BadRequestApiRequestException;
 import dev.milan.jpasolopractice.customException.differentExceptions.ConflictApiRequestException;
 import dev.milan.jpasolopractice.customException.differentExceptions.NotFoundApiRequestException;
+import dev.milan.jpasolopractice.dto.FreeSlot;
+import dev.milan.jpasolopractice.dto.PlacementReport;
+import dev.milan.jpasolopractice.dto.RoomSummary;
 import dev.milan.jpasolopractice.model.Room;
+import dev.milan.jpasolopractice.model.RoomTemplate;
 import dev.milan.jpasolopractice.model.RoomType;
 import dev.milan.jpasolopractice.model.YogaSession;
 import dev.milan.jpasolopractice.service.RoomService;
+import dev.milan.jpasolopractice.service.RoomTemplates;
+import dev.milan.jpasolopractice.service.SessionPlacements;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -19,6 +25,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
@@ -47,6 +54,10 @@ public class RoomControllerTest {
     private MockMvc mockMvc;
     @MockBean
     private RoomService roomService;
+    @MockBean
+    private RoomTemplates roomTemplates;
+    @MockBean
+    private SessionPlacements sessionPlacements;
     @Autowired
     ObjectMapper mapper;
     private String baseUrl;
@@ -84,13 +95,13 @@ public class RoomControllerTest {
     class CreatingARoom{
         @Test
         void should_throwException400BadRequestWithMessage_when_creatingRoom_and_IncorrectDate() throws Exception {
-            when(roomService.createARoom(anyString(),anyString(),anyString(),anyString())).thenThrow(new BadRequestApiRequestException("Incorrect openingHours or closingHours. Acceptable values range from: 00:00:00 to 23:59:59"));
+            when(roomService.createARoom(anyString(),anyString(),anyString(),anyString(),any())).thenThrow(new BadRequestApiRequestException("Incorrect openingHours or closingHours. Acceptable values range from: 00:00:00 to 23:59:59"));
             mockMvc.perform(post(baseUrl.concat("/rooms")).contentType(MediaType.APPLICATION_JSON).content(sb.toString())).andExpect(MockMvcResultMatchers.status().isBadRequest())
                     .andExpect(jsonPath("$.message").value("Incorrect openingHours or closingHours. Acceptable values range from: 00:00:00 to 23:59:59"));
         }
         @Test
         void should_callCreateMethodWithPassedParameters_and_returnCreatedStatusWithLocation__when_creatingRoom_and_creationSuccessful() throws Exception {
-            when(roomService.createARoom(room.getDate().toString(),room.getOpeningHours().toString(),room.getClosingHours().toString(),room.getRoomType().name())).thenReturn(room);
+            when(roomService.createARoom(room.getDate().toString(),room.getOpeningHours().toString(),room.getClosingHours().toString(),room.getRoomType().name(),Optional.empty())).thenReturn(room);
 
             mockMvc.perform(post(baseUrl.concat("/rooms")).contentType(MediaType.APPLICATION_JSON)
                             .content(sb.toString()))
@@ -99,9 +110,19 @@ public class RoomControllerTest {
                     .andExpect(content().string(asJsonString(room)));
         }
 
+        @Test
+        void should_passIdempotencyKeyToService_when_creatingRoom_and_idempotencyKeyHeaderPresent() throws Exception {
+            when(roomService.createARoom(room.getDate().toString(),room.getOpeningHours().toString(),room.getClosingHours().toString(),room.getRoomType().name(),Optional.of("retry-1"))).thenReturn(room);
+
+            mockMvc.perform(post(baseUrl.concat("/rooms")).contentType(MediaType.APPLICATION_JSON).header("Idempotency-Key", "retry-1")
+                            .content(sb.toString()))
+                    .andExpect(MockMvcResultMatchers.status().isCreated())
+                    .andExpect(content().string(asJsonString(room)));
+        }
+
         @Test
         void should_throwException409ConflictWithMessage_when_creatingRoom_and_roomAlreadyExists() throws Exception {
-            when(roomService.createARoom(room.getDate().toString(),room.getOpeningHours().toString(),room.getClosingHours().toString(),room.getRoomType().name()))
+            when(roomService.createARoom(room.getDate().toString(),room.getOpeningHours().toString(),room.getClosingHours().toString(),room.getRoomType().name(),Optional.empty()))
                     .thenThrow(new ConflictApiRequestException("Room id:" + room.getId() + " already exists."));
 
             mockMvc.perform(post(baseUrl.concat("/rooms")).contentType(MediaType.APPLICATION_JSON).content(sb.toString()))
@@ -110,7 +131,7 @@ public class RoomControllerTest {
         }
         @Test
         void should_throwException400BadRequestWithMessage_when_creatingRoom_and_passedIncorrectDateFormat() throws Exception {
-            when(roomService.createARoom(anyString(),anyString(),anyString(),anyString())).thenThrow(new BadRequestApiRequestException("Incorrect date. Correct format is: yyyy-mm-dd"));
+            when(roomService.createARoom(anyString(),anyString(),anyString(),anyString(),any())).thenThrow(new BadRequestApiRequestException("Incorrect date. Correct format is: yyyy-mm-dd"));
             String badDate = sb.toString();
             badDate = badDate.replace(room.getDate().toString(),"04-2022-10");
             mockMvc.perform(post(baseUrl.concat("/rooms")).contentType(MediaType.APPLICATION_JSON)
@@ -120,7 +141,7 @@ public class RoomControllerTest {
         }
         @Test
         void should_throwException400BadRequestWithMessage_when_creatingRoom_and_passedIncorrectOpeningTime() throws Exception {
-            when(roomService.createARoom(anyString(),anyString(),anyString(),anyString())).thenThrow(new BadRequestApiRequestException("Incorrect openingHours or closingHours. Acceptable values range from: 00:00:00 to 23:59:59"));
+            when(roomService.createARoom(anyString(),anyString(),anyString(),anyString(),any())).thenThrow(new BadRequestApiRequestException("Incorrect openingHours or closingHours. Acceptable values range from: 00:00:00 to 23:59:59"));
             String badTime = sb.toString();
             badTime = badTime.replace(room.getOpeningHours().toString(),"z1-20:10");
             mockMvc.perform(post(baseUrl.concat("/rooms")).contentType(MediaType.APPLICATION_JSON).content(badTime))
@@ -129,7 +150,7 @@ public class RoomControllerTest {
         }
         @Test
         void should_throwException400BadRequestWithMessage_when_creatingRoom_and_passedIncorrectClosingTime() throws Exception {
-            when(roomService.createARoom(anyString(),anyString(),anyString(),anyString())).thenThrow(new BadRequestApiRequestException("Incorrect openingHours or closingHours. Acceptable values range from: 00:00:00 to 23:59:59"));
+            when(roomService.createARoom(anyString(),anyString(),anyString(),anyString(),any())).thenThrow(new BadRequestApiRequestException("Incorrect openingHours or closingHours. Acceptable values range from: 00:00:00 to 23:59:59"));
             String badTime = sb.toString();
             badTime = badTime.replace(room.getClosingHours().toString(),"z1-20:10");
             mockMvc.perform(post(baseUrl.concat("/rooms")).contentType(MediaType.APPLICATION_JSON).content(badTime))
@@ -138,7 +159,7 @@ public class RoomControllerTest {
         }
         @Test
         void should_throwException400BadRequestWithMessage_when_creatingRoom_and_passedInvalidParameters() throws Exception {
-            when(roomService.createARoom(anyString(),anyString(),anyString(),anyString())).thenThrow(new BadRequestApiRequestException("Incorrect type. Correct options are: AIR_ROOM, WATER_ROOM, EARTH_ROOM, FIRE_ROOM"));
+            when(roomService.createARoom(anyString(),anyString(),anyString(),anyString(),any())).thenThrow(new BadRequestApiRequestException("Incorrect type. Correct options are: AIR_ROOM, WATER_ROOM, EARTH_ROOM, FIRE_ROOM"));
             String badType = sb.toString();
             badType = badType.replace("openingHours","blabla");
             System.out.println(badType);
@@ -151,7 +172,7 @@ public class RoomControllerTest {
     String badType = sb.toString();
     badType = badType.replace(room.getRoomType().name(),"War_ROOM");
     System.out.println(badType);
-    when(roomService.createARoom(anyString(), anyString(), anyString(), anyString())).thenThrow(new BadRequestApiRequestException("Incorrect type. Correct options are: AIR_ROOM, WATER_ROOM, EARTH_ROOM, FIRE_ROOM"));
+    when(roomService.createARoom(anyString(), anyString(), anyString(), anyString(), any())).thenThrow(new BadRequestApiRequestException("Incorrect type. Correct options are: AIR_ROOM, WATER_ROOM, EARTH_ROOM, FIRE_ROOM"));
     mockMvc.perform(post(baseUrl.concat("/rooms")).contentType(MediaType.APPLICATION_JSON).content(badType))
             .andExpect(MockMvcResultMatchers.status().isBadRequest())
             .andExpect(jsonPath("$.message").value("Incorrect type. Correct options are: AIR_ROOM, WATER_ROOM, EARTH_ROOM, FIRE_ROOM"));
@@ -166,6 +187,24 @@ public class RoomControllerTest {
             mockMvc.perform(get(baseUrl.concat("/rooms/1"))).andExpect(MockMvcResultMatchers.content().string(asJsonString(room)));
         }
 
+        @Test
+        void should_return304NotModifiedWithoutLoadingRoom_when_searchingRoomById_and_eTagMatches() throws Exception {
+            when(roomService.findRoomVersionTag(1)).thenReturn("4.2.3.7.1.5.6");
+            mockMvc.perform(get(baseUrl.concat("/rooms/1")).header("If-None-Match", "W/\"4.2.3.7.1.5.6\""))
+                    .andExpect(MockMvcResultMatchers.status().isNotModified());
+            verify(roomService, never()).findRoomById(anyInt());
+        }
+
+        @Test
+        void should_returnRoom_when_searchingRoomById_and_eTagOutdated() throws Exception {
+            when(roomService.findRoomVersionTag(1)).thenReturn("5.2.3.7.1.5.6");
+            when(roomService.findRoomById(1)).thenReturn(room);
+            mockMvc.perform(get(baseUrl.concat("/rooms/1")).header("If-None-Match", "W/\"4.2.3.7.1.5.6\""))
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andExpect(header().string("ETag", "W/\"5.2.3.7.1.5.6\""))
+                    .andExpect(MockMvcResultMatchers.content().string(asJsonString(room)));
+        }
+
         @Test
         void should_throwException404NotFoundWithMessage_when_searchingRoomById_and_roomNotFound() throws Exception {
             when(roomService.findRoomById(1)).thenThrow(new NotFoundApiRequestException("Room with id:" + 1 + " doesn't exist."));
@@ -176,8 +215,7 @@ public class RoomControllerTest {
 
         @Test
         void should_returnRooms_when_searchingForRoomsWithParams_and_datePresentRoomTypePresent_and_roomIsFound() throws Exception {
-            List<Room> roomList = new ArrayList<>();
-            roomList.add(room);
+            List<RoomSummary> roomList = List.of(summaryOf(room));
             when(roomService.findAllRoomsBasedOnParams(Optional.of(room.getDate().toString()),Optional.of(room.getRoomType().name()))).thenReturn(roomList);
             mockMvc.perform(get(baseUrl.concat("/rooms?date=" + room.getDate() + "&type=" + room.getRoomType().name()))).andExpect(MockMvcResultMatchers.status().isOk())
                     .andExpect(content().contentType(MediaType.APPLICATION_JSON))
@@ -185,7 +223,7 @@ public class RoomControllerTest {
         }
         @Test
         void should_throwException409ConflictWithMessage_when_creatingRoom_and_roomAlreadyExists() throws Exception {
-            when(roomService.createARoom(anyString(),anyString(),anyString(),anyString())).thenThrow(new ConflictApiRequestException("Room id:" + room.getId() + " already exists."));
+            when(roomService.createARoom(anyString(),anyString(),anyString(),anyString(),any())).thenThrow(new ConflictApiRequestException("Room id:" + room.getId() + " already exists."));
             mockMvc.perform(post(baseUrl.concat("/rooms")).contentType(MediaType.APPLICATION_JSON).content(sb.toString())).andExpect(MockMvcResultMatchers.status().isConflict())
                     .andExpect(jsonPath("$.message").value("Room id:" + room.getId() + " already exists."));
         }
@@ -199,24 +237,21 @@ public class RoomControllerTest {
 
         @Test
         void should_returnListOfRooms_when_searchingForRoomsWithParams_and_noParamsPresent() throws Exception {
-            List<Room> roomList = new ArrayList<>();
-            roomList.add(room);
+            List<RoomSummary> roomList = List.of(summaryOf(room));
             when(roomService.findAllRoomsBasedOnParams(Optional.empty(),Optional.empty())).thenReturn(roomList);
             mockMvc.perform(get(baseUrl.concat("/rooms"))).andExpect(status().isOk())
                     .andExpect(content().string(asJsonString(roomList)));
         }
         @Test
         void should_returnListOfRooms_when_searchingForRoomsWithParams_and_typeParamPresent() throws Exception {
-            List<Room> roomList = new ArrayList<>();
-            roomList.add(room);
+            List<RoomSummary> roomList = List.of(summaryOf(room));
             when(roomService.findAllRoomsBasedOnParams(Optional.empty(),Optional.of(RoomType.values()[0].name()))).thenReturn(roomList);
             mockMvc.perform(get(baseUrl.concat("/rooms?type=" + RoomType.values()[0].name()))).andExpect(status().isOk())
                     .andExpect(content().string(asJsonString(roomList)));
         }
         @Test
         void should_returnListOfRooms_when_searchingForRoomsWithParams_and_dateParamPresent() throws Exception {
-            List<Room> roomList = new ArrayList<>();
-            roomList.add(room);
+            List<RoomSummary> roomList = List.of(summaryOf(room));
             when(roomService.findAllRoomsBasedOnParams(Optional.of(room.getDate().toString()),Optional.empty())).thenReturn(roomList);
             mockMvc.perform(get(baseUrl.concat("/rooms?date=" + room.getDate()))).andExpect(status().isOk())
                     .andExpect(content().string(asJsonString(roomList)));
@@ -243,6 +278,91 @@ public class RoomControllerTest {
 
     }
 
+    @Nested
+    class AddingSessionToDayRoom{
+        @Test
+        void should_returnCreatedStatusWithLocation_when_addingSessionToItsDayRoom_and_addingSuccessful() throws Exception {
+            session.setRoom(room);
+            when(roomService.addSessionToDayRoom(session.getId())).thenReturn(session);
+            mockMvc.perform(put(baseUrl.concat("/sessions/" + session.getId() + "/room")))
+                    .andExpect(status().isCreated()).andExpect(content().string(asJsonString(session)))
+                    .andExpect(header().string("Location",roomSessionUrl));
+        }
+        @Test
+        void should_throwException404NotFound_when_addingSessionToItsDayRoom_and_noRoomOrTemplate() throws Exception {
+            String message = "Room with date:" + session.getDate() + " and room type:AIR_ROOM not found and no template to create it from.";
+            when(roomService.addSessionToDayRoom(session.getId())).thenThrow(new NotFoundApiRequestException(message));
+            mockMvc.perform(put(baseUrl.concat("/sessions/" + session.getId() + "/room")))
+                    .andExpect(status().isNotFound()).andExpect(jsonPath("$.message").value(message));
+        }
+    }
+
+    @Nested
+    class PlacingSessionsWithoutRoom{
+        @Test
+        void should_returnOkStatusWithReport_when_placingSessions() throws Exception {
+            PlacementReport report = new PlacementReport(2, 1, List.of(new PlacementReport.SessionIssue(session.getId(), session.getDate()
+                    , "Yoga session time period is already occupied.")));
+            when(sessionPlacements.placeUnassigned(today.toString(), today.plusDays(6).toString())).thenReturn(report);
+            mockMvc.perform(post(baseUrl.concat("/sessions/room-placements?from=" + today + "&to=" + today.plusDays(6))))
+                    .andExpect(status().isOk()).andExpect(content().string(asJsonString(report)));
+        }
+        @Test
+        void should_throwException400BadRequest_when_placingSessions_and_serviceMethodThrows() throws Exception {
+            when(sessionPlacements.placeUnassigned(null, null)).thenThrow(new BadRequestApiRequestException("Bad request data. Placement needs from and to dates."));
+            mockMvc.perform(post(baseUrl.concat("/sessions/room-placements"))).andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.message").value("Bad request data. Placement needs from and to dates."));
+        }
+    }
+
+    @Nested
+    class ManagingRoomTemplates{
+        private RoomTemplate template;
+
+        @BeforeEach
+        void initTemplate(){
+            template = new RoomTemplate();
+            template.setId(1);
+            template.setRoomType(RoomType.AIR_ROOM);
+            template.setOpeningHours(LocalTime.of(7,0,0));
+            template.setClosingHours(LocalTime.of(21,0,0));
+            template.setTotalCapacity(RoomType.AIR_ROOM.getMaxCapacity());
+        }
+
+        @Test
+        void should_returnOkStatusWithTemplate_when_puttingTemplate_and_hoursCorrect() throws Exception {
+            when(roomTemplates.putTemplate("AIR_ROOM","07:00:00","21:00:00")).thenReturn(template);
+            mockMvc.perform(put(baseUrl.concat("/room-templates/AIR_ROOM")).contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"openingHours\":\"07:00:00\",\"closingHours\":\"21:00:00\"}"))
+                    .andExpect(status().isOk()).andExpect(content().string(asJsonString(template)));
+        }
+        @Test
+        void should_throwException400BadRequest_when_puttingTemplate_and_propertyMissing() throws Exception {
+            mockMvc.perform(put(baseUrl.concat("/room-templates/AIR_ROOM")).contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"openingHours\":\"07:00:00\"}"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.message").value("Bad request data. Properties for a room template are: openingHours, closingHours."));
+            verify(roomTemplates,never()).putTemplate(anyString(),anyString(),anyString());
+        }
+        @Test
+        void should_returnTemplates_when_findingTemplates() throws Exception {
+            when(roomTemplates.findTemplates()).thenReturn(List.of(template));
+            mockMvc.perform(get(baseUrl.concat("/room-templates")))
+                    .andExpect(status().isOk()).andExpect(content().string(asJsonString(List.of(template))));
+        }
+        @Test
+        void should_returnNoContentStatus_when_removingTemplate_and_templateExists() throws Exception {
+            mockMvc.perform(delete(baseUrl.concat("/room-templates/AIR_ROOM"))).andExpect(status().isNoContent());
+            verify(roomTemplates,times(1)).removeTemplate("AIR_ROOM");
+        }
+        @Test
+        void should_throwException404NotFound_when_removingTemplate_and_templateMissing() throws Exception {
+            doThrow(new NotFoundApiRequestException("Room template for room type:AIR_ROOM not found.")).when(roomTemplates).removeTemplate("AIR_ROOM");
+            mockMvc.perform(delete(baseUrl.concat("/room-templates/AIR_ROOM"))).andExpect(status().isNotFound())
+                    .andExpect(jsonPath("$.message").value("Room template for room type:AIR_ROOM not found."));
+        }
+    }
+
     @Nested
     class RemovingSessionFromRoom{
 
@@ -282,6 +402,31 @@ void should_returnOkStatusWithResultingRoom_when_updatingRoom_and_successfullyUp
             mockMvc.perform(patch(baseUrl.concat("/rooms/" + room.getId())).contentType(MediaType.APPLICATION_JSON)
                     .content(updatePatchInfo)).andExpect(status().is(304));
         }
+        @Test
+        void should_throwException409ConflictWithMessage_when_updatingRoom_and_roomKeptChangingConcurrently() throws Exception {
+            String updatePatchInfo = "[{\"op\":\"replace\",\"path\":\"/date\", \"value\":\"2022-05-23\"}]";
+            when(roomService.patchRoom(eq("" + room.getId()), any())).thenThrow(new ObjectOptimisticLockingFailureException(Room.class, room.getId()));
+            mockMvc.perform(patch(baseUrl.concat("/rooms/" + room.getId())).contentType(MediaType.APPLICATION_JSON)
+                    .content(updatePatchInfo)).andExpect(status().isConflict())
+                    .andExpect(jsonPath("$.message").value("Resource was changed by another request. Reload it and try again."));
+        }
+    }
+
+    @Nested
+    class FindingFreeSlots{
+        @Test
+        void should_returnFreeSlots_when_searchingFreeSlots_and_roomExists() throws Exception {
+            List<FreeSlot> freeSlots = List.of(new FreeSlot(LocalTime.of(8,30,0), LocalTime.of(12,0,0)));
+            when(roomService.findFreeSlots(room.getId(), "60")).thenReturn(freeSlots);
+            mockMvc.perform(get(baseUrl.concat("/rooms/" + room.getId() + "/free-slots?duration=60"))).andExpect(status().isOk())
+                    .andExpect(content().string(asJsonString(freeSlots)));
+        }
+        @Test
+        void should_throwException404NotFound_when_searchingFreeSlots_and_roomNotFound() throws Exception {
+            when(roomService.findFreeSlots(room.getId(), "60")).thenThrow(new NotFoundApiRequestException("Room id:" + room.getId() + " not found."));
+            mockMvc.perform(get(baseUrl.concat("/rooms/" + room.getId() + "/free-slots?duration=60"))).andExpect(status().isNotFound())
+                    .andExpect(jsonPath("$.message").value("Room id:" + room.getId() + " not found."));
+        }
     }
 
     @Nested
@@ -303,6 +448,10 @@ void should_returnOkStatusWithResultingRoom_when_updatingRoom_and_successfullyUp
 
 
 
+    private RoomSummary summaryOf(Room room){
+        return new RoomSummary(room.getId(), room.getDate(), room.getOpeningHours(), room.getClosingHours(), room.getRoomType(), room.getTotalCapacity());
+    }
+
     public static String asJsonString(final Object obj){
         try{
             ObjectMapper objectMapper = new ObjectMapper();
@@ -0,0 +1,61 @@
+package dev.milan.jpasolopractice.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.milan.jpasolopractice.customException.differentExceptions.BadRequestApiRequestException;
+import dev.milan.jpasolopractice.dto.DaySchedule;
+import dev.milan.jpasolopractice.model.RoomType;
+import dev.milan.jpasolopractice.service.YogaSessionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ScheduleControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper mapper;
+    @MockBean
+    private YogaSessionService yogaSessionService;
+    private String baseUrl;
+    private DaySchedule schedule;
+
+    @BeforeEach
+    void init(){
+        baseUrl = ServletUriComponentsBuilder.fromCurrentContextPath().build().toUriString();
+        LocalDate date = LocalDate.now().plusDays(1);
+        DaySchedule.SessionSlot slot = new DaySchedule.SessionSlot(3, LocalTime.of(10,0,0), LocalTime.of(11,0,0), 2, 28, 2);
+        DaySchedule.RoomSchedule room = new DaySchedule.RoomSchedule(1, RoomType.AIR_ROOM, LocalTime.of(8,0,0), LocalTime.of(22,0,0)
+                , RoomType.AIR_ROOM.getMaxCapacity(), List.of(slot));
+        schedule = new DaySchedule(date, List.of(room));
+    }
+
+    @Test
+    void should_returnDaySchedule_when_searchingScheduleByDate_and_dateCorrect() throws Exception {
+        when(yogaSessionService.getDaySchedule(schedule.date().toString())).thenReturn(schedule);
+        mockMvc.perform(get(baseUrl.concat("/schedule/" + schedule.date()))).andExpect(status().isOk())
+                .andExpect(content().json(mapper.writeValueAsString(schedule)))
+                .andExpect(jsonPath("$.date").value(schedule.date().toString()));
+    }
+
+    @Test
+    void should_throwException400BadRequest_when_searchingScheduleByDate_and_dateIncorrect() throws Exception {
+        when(yogaSessionService.getDaySchedule("2022-13-01")).thenThrow(new BadRequestApiRequestException("Incorrect date. Correct format is: yyyy-mm-dd"));
+        mockMvc.perform(get(baseUrl.concat("/schedule/2022-13-01"))).andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Incorrect date. Correct format is: yyyy-mm-dd"));
+    }
+}
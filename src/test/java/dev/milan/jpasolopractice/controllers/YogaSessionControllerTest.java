@@ -4,11 +4,19 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.github.fge.jsonpatch.JsonPatch;
 import dev.milan.jpasolopractice.customException.differentExceptions.BadRequestApiRequestException;
+import dev.milan.jpasolopractice.customException.differentExceptions.ConflictApiRequestException;
+import dev.milan.jpasolopractice.customException.differentExceptions.ForbiddenApiRequestException;
 import dev.milan.jpasolopractice.customException.differentExceptions.NotFoundApiRequestException;
+import dev.milan.jpasolopractice.dto.MembershipOutcome;
+import dev.milan.jpasolopractice.dto.RecurrenceReport;
+import dev.milan.jpasolopractice.dto.SessionRecurrence;
+import dev.milan.jpasolopractice.dto.SessionSummary;
 import dev.milan.jpasolopractice.model.Person;
 import dev.milan.jpasolopractice.model.Room;
 import dev.milan.jpasolopractice.model.RoomType;
+import dev.milan.jpasolopractice.model.SeatHold;
 import dev.milan.jpasolopractice.model.YogaSession;
+import dev.milan.jpasolopractice.service.SessionRecurrences;
 import dev.milan.jpasolopractice.service.YogaSessionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -29,6 +37,7 @@ import java.nio.charset.StandardCharsets;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.List;
 import java.util.Optional;
@@ -48,6 +57,8 @@ public class YogaSessionControllerTest {
     ObjectMapper mapper;
     @MockBean
     private YogaSessionService yogaSessionService;
+    @MockBean
+    private SessionRecurrences sessionRecurrences;
     private YogaSession session;
     private String dateString;
     private String roomTypeString;
@@ -105,7 +116,7 @@ public class YogaSessionControllerTest {
             StringBuilder sb = new StringBuilder();
             sb.append("{\"date\":\"").append(dateString).append("\",\"type\":\"").append(roomTypeString).append("\",\"startTime\":\"").append(startTimeString)
                     .append("\",\"duration\":\"").append(durationString).append("\"}");
-            when(yogaSessionService.createAYogaSession(dateString, roomTypeString, startTimeString, durationString)).thenReturn(session);
+            when(yogaSessionService.createAYogaSession(dateString, roomTypeString, startTimeString, durationString, Optional.empty())).thenReturn(session);
             mockMvc.perform(post(baseUrl.concat("/sessions")).contentType(MediaType.APPLICATION_JSON).content(sb.toString()))
                     .andExpect(status().isCreated()).andExpect(header().string("Location", baseUrl.concat("/sessions/" + session.getId())));
         }
@@ -115,7 +126,7 @@ public class YogaSessionControllerTest {
             StringBuilder sb = new StringBuilder();
             sb.append("{\"date\":\"").append(dateString).append("\",\"type\":\"").append(roomTypeString).append("\",\"startTime\":\"").append(startTimeString)
                     .append("\",\"duration\":\"").append(durationString).append("\"}");
-            when(yogaSessionService.createAYogaSession(anyString(), anyString(), anyString(), anyString())).thenThrow(new BadRequestApiRequestException("Date, room type, start time and duration must have values assigned."));
+            when(yogaSessionService.createAYogaSession(anyString(), anyString(), anyString(), anyString(), any())).thenThrow(new BadRequestApiRequestException("Date, room type, start time and duration must have values assigned."));
             mockMvc.perform(post(baseUrl.concat("/sessions")).contentType(MediaType.APPLICATION_JSON).content(sb.toString()))
                     .andExpect(status().isBadRequest()).andExpect(jsonPath("$.message").value("Date, room type, start time and duration must have values assigned."));
         }
@@ -140,6 +151,24 @@ public class YogaSessionControllerTest {
             mockMvc.perform(get(baseUrl.concat("/sessions/" + session.getId()))).andExpect(content().string(asJsonString(session)));
         }
 
+        @Test
+        void should_returnSessionWithETag_when_searchingSessionsById_and_noIfNoneMatchSent() throws Exception {
+            when(yogaSessionService.findSessionVersionTag(session.getId())).thenReturn("2.-1.0.0.0");
+            when(yogaSessionService.findYogaSessionById(session.getId())).thenReturn(session);
+            mockMvc.perform(get(baseUrl.concat("/sessions/" + session.getId()))).andExpect(status().isOk())
+                    .andExpect(header().string("ETag", "W/\"2.-1.0.0.0\""))
+                    .andExpect(content().string(asJsonString(session)));
+        }
+
+        @Test
+        void should_return304NotModifiedWithoutLoadingSession_when_searchingSessionsById_and_eTagMatches() throws Exception {
+            when(yogaSessionService.findSessionVersionTag(session.getId())).thenReturn("2.-1.0.0.0");
+            mockMvc.perform(get(baseUrl.concat("/sessions/" + session.getId())).header("If-None-Match", "W/\"2.-1.0.0.0\""))
+                    .andExpect(status().isNotModified())
+                    .andExpect(content().string(""));
+            verify(yogaSessionService, never()).findYogaSessionById(anyInt());
+        }
+
         @Test
         void should_throwException404NotFound_when_searchingSessionsById_and_sessionDoesntExist() throws Exception {
             when(yogaSessionService.findYogaSessionById(session.getId())).thenThrow(new NotFoundApiRequestException("Yoga session with that id couldn't be found."));
@@ -163,9 +192,18 @@ public class YogaSessionControllerTest {
 
         @Test
         void should_returnListOfRooms_when_searchingSessionsByParams_and_passedCorrectInfo() throws Exception {
-            when(yogaSessionService.findSessionsByParams(Optional.empty(),Optional.empty())).thenReturn(List.of(session));
+            List<SessionSummary> summaries = List.of(new SessionSummary(session.getId(), session.getDate(), session.getStartOfSession()
+                    , session.getEndOfSession(), session.getDuration(), session.getBookedSpace(), session.getFreeSpace(), session.getRoomType(), null));
+            when(yogaSessionService.findSessionsByParams(Optional.empty(),Optional.empty())).thenReturn(summaries);
             mockMvc.perform(get(baseUrl.concat("/sessions"))).andExpect(status().isOk())
-                    .andExpect(content().string(asJsonString(List.of(session))));
+                    .andExpect(content().string(asJsonString(summaries)));
+        }
+        @Test
+        void should_return304NotModifiedWithoutSearching_when_searchingSessionsByParams_and_eTagMatches() throws Exception {
+            when(yogaSessionService.findSessionsVersionTag(Optional.of(dateString))).thenReturn("3.4.5");
+            mockMvc.perform(get(baseUrl.concat("/sessions?date=" + dateString)).header("If-None-Match", "W/\"3.4.5\""))
+                    .andExpect(status().isNotModified());
+            verify(yogaSessionService, never()).findSessionsByParams(any(), any());
         }
         @Test
         void should_throwException400BadFormat_when_searchingSessionsByParams_and_badFormat() throws Exception {
@@ -213,6 +251,126 @@ public class YogaSessionControllerTest {
         }
     }
 
+    @Nested
+    class AddingPeopleToSession{
+        @Test
+        void should_returnOutcomePerPerson_when_addingPeopleToSession() throws Exception {
+            when(yogaSessionService.addMembersToYogaSession(session.getId(), List.of(3, 4)))
+                    .thenReturn(List.of(new MembershipOutcome(3, MembershipOutcome.Result.ADDED), new MembershipOutcome(4, MembershipOutcome.Result.NOT_FOUND)));
+
+            mockMvc.perform(put(baseUrl.concat("/sessions/" + session.getId() + "/users")).contentType(MediaType.APPLICATION_JSON).content("[3,4]"))
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andExpect(jsonPath("$[0].personId").value(3))
+                    .andExpect(jsonPath("$[0].result").value("ADDED"))
+                    .andExpect(jsonPath("$[1].result").value("NOT_FOUND"));
+        }
+        @Test
+        void should_throwException403Forbidden_when_addingPeopleToSession_and_groupDoesntFit() throws Exception {
+            when(yogaSessionService.addMembersToYogaSession(session.getId(), List.of(3, 4)))
+                    .thenThrow(new ForbiddenApiRequestException("Session id:" + session.getId() + " member limit reached."));
+
+            mockMvc.perform(put(baseUrl.concat("/sessions/" + session.getId() + "/users")).contentType(MediaType.APPLICATION_JSON).content("[3,4]"))
+                    .andExpect(MockMvcResultMatchers.status().isForbidden())
+                    .andExpect(jsonPath("$.message").value("Session id:" + session.getId() + " member limit reached."));
+        }
+    }
+
+    @Nested
+    class CreatingRecurringSessions{
+        private final String body = "{\"type\":\"AIR_ROOM\",\"startTime\":\"10:00:00\",\"duration\":\"60\""
+                + ",\"from\":\"2030-01-01\",\"to\":\"2030-06-30\",\"days\":[\"MONDAY\",\"THURSDAY\"]}";
+        private final SessionRecurrence recurrence = new SessionRecurrence("AIR_ROOM", "10:00:00", "60", "2030-01-01", "2030-06-30"
+                , List.of("MONDAY", "THURSDAY"));
+
+        @Test
+        void should_returnReport_when_creatingRecurringSessions() throws Exception {
+            when(sessionRecurrences.expand(recurrence)).thenReturn(new RecurrenceReport(52, 51
+                    , List.of(new RecurrenceReport.DateIssue(LocalDate.of(2030, 1, 3), 40, "No AIR_ROOM room on this date. Session created without a room."))));
+
+            mockMvc.perform(post(baseUrl.concat("/sessions/recurrences")).contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andExpect(jsonPath("$.created").value(52))
+                    .andExpect(jsonPath("$.placed").value(51))
+                    .andExpect(jsonPath("$.issues[0].date").value("2030-01-03"))
+                    .andExpect(jsonPath("$.issues[0].sessionId").value(40));
+        }
+        @Test
+        void should_throwException400BadRequest_when_creatingRecurringSessions_and_rangeTooLong() throws Exception {
+            when(sessionRecurrences.expand(recurrence)).thenThrow(new BadRequestApiRequestException("Recurrence can span at most 366 days."));
+
+            mockMvc.perform(post(baseUrl.concat("/sessions/recurrences")).contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                    .andExpect(jsonPath("$.message").value("Recurrence can span at most 366 days."));
+        }
+    }
+
+    @Nested
+    class Waitlist{
+        @Test
+        void should_return201Created_when_addingPersonToWaitlist_and_personAddedSuccessfully() throws Exception {
+            when(yogaSessionService.addMemberToWaitlist(session.getId(),person.getId())).thenReturn(true);
+
+            mockMvc.perform(put(baseUrl.concat("/sessions/" + session.getId() +  "/waitlist/" + person.getId())))
+                    .andExpect(MockMvcResultMatchers.status().isCreated())
+                    .andExpect(header().string("Location",baseUrl.concat("/sessions/" + session.getId() +  "/waitlist/" + person.getId())));
+        }
+        @Test
+        void should_throwException409Conflict_when_addingPersonToWaitlist_and_personAlreadyWaiting() throws Exception {
+            when(yogaSessionService.addMemberToWaitlist(session.getId(),person.getId()))
+                    .thenThrow(new ConflictApiRequestException("User id:" + person.getId() + " already on waitlist of session id:" + session.getId()));
+
+            mockMvc.perform(put(baseUrl.concat("/sessions/" + session.getId() +  "/waitlist/" + person.getId())))
+                    .andExpect(MockMvcResultMatchers.status().isConflict())
+                    .andExpect(jsonPath("$.message").value("User id:" + person.getId() + " already on waitlist of session id:" + session.getId()));
+        }
+        @Test
+        void should_return204NoContentStatus_when_removingPersonFromWaitlist_and_personRemovedSuccessfully() throws Exception {
+            mockMvc.perform(delete(baseUrl.concat("/sessions/" + session.getId() +  "/waitlist/" + person.getId())))
+                    .andExpect(MockMvcResultMatchers.status().isNoContent());
+            verify(yogaSessionService,times(1)).removeMemberFromWaitlist(session.getId(),person.getId());
+        }
+    }
+
+    @Nested
+    class HoldingSeats{
+        @Test
+        void should_return201CreatedWithHold_when_holdingSeat_and_seatHeldSuccessfully() throws Exception {
+            SeatHold hold = new SeatHold(session.getId(), person.getId(), LocalDateTime.of(2030,1,1,10,5,0));
+            when(yogaSessionService.holdSeat(session.getId(),person.getId())).thenReturn(hold);
+
+            mockMvc.perform(put(baseUrl.concat("/sessions/" + session.getId() +  "/holds/" + person.getId())))
+                    .andExpect(MockMvcResultMatchers.status().isCreated())
+                    .andExpect(header().string("Location",baseUrl.concat("/sessions/" + session.getId() +  "/holds/" + person.getId())))
+                    .andExpect(jsonPath("$.personId").value(person.getId()))
+                    .andExpect(jsonPath("$.expiresAt").value("2030-01-01T10:05:00"));
+        }
+        @Test
+        void should_throwException403Forbidden_when_holdingSeat_and_noFreeSpaceLeft() throws Exception {
+            when(yogaSessionService.holdSeat(session.getId(),person.getId()))
+                    .thenThrow(new ForbiddenApiRequestException("Session id:" + session.getId() + " member limit reached."));
+
+            mockMvc.perform(put(baseUrl.concat("/sessions/" + session.getId() +  "/holds/" + person.getId())))
+                    .andExpect(MockMvcResultMatchers.status().isForbidden())
+                    .andExpect(jsonPath("$.message").value("Session id:" + session.getId() + " member limit reached."));
+        }
+        @Test
+        void should_return201CreatedWithMembership_when_confirmingSeatHold_and_holdConfirmed() throws Exception {
+            mockMvc.perform(post(baseUrl.concat("/sessions/" + session.getId() +  "/holds/" + person.getId() + "/confirmation")))
+                    .andExpect(MockMvcResultMatchers.status().isCreated())
+                    .andExpect(header().string("Location",baseUrl.concat("/sessions/" + session.getId() +  "/users/" + person.getId())));
+            verify(yogaSessionService,times(1)).confirmSeatHold(session.getId(),person.getId());
+        }
+        @Test
+        void should_throwException404NotFound_when_releasingSeatHold_and_holdExpired() throws Exception {
+            doThrow(new NotFoundApiRequestException("Seat hold of person id:" + person.getId() + " not found in session id:" + session.getId()))
+                    .when(yogaSessionService).releaseSeatHold(session.getId(),person.getId());
+
+            mockMvc.perform(delete(baseUrl.concat("/sessions/" + session.getId() +  "/holds/" + person.getId())))
+                    .andExpect(MockMvcResultMatchers.status().isNotFound())
+                    .andExpect(jsonPath("$.message").value("Seat hold of person id:" + person.getId() + " not found in session id:" + session.getId()));
+        }
+    }
+
     @Nested
     class PatchingAYogaSession{
         @Test
@@ -0,0 +1,85 @@
+package dev.milan.jpasolopractice.data;
+
+import dev.milan.jpasolopractice.model.RoomType;
+import dev.milan.jpasolopractice.model.YogaSession;
+import dev.milan.jpasolopractice.service.PersonService;
+import dev.milan.jpasolopractice.service.RoomService;
+import dev.milan.jpasolopractice.service.YogaSessionService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Seeds 100k sessions through the repository. Batched inserts reuse one prepared statement per flush and pooled ids
+ * take one sequence call per block, so the prepared statement count stays far below one per row. Run with -Dbenchmark=true.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DataJpaTest(properties = {"spring.jpa.properties.hibernate.generate_statistics=true", "spring.jpa.show-sql=false"})
+public class BulkInsertBenchmarkTest {
+    private static final int SESSIONS = 100_000;
+    private static final int CHUNK = 1_000;
+    private static final int ID_BLOCK = 50;
+    private static final Logger log = LoggerFactory.getLogger(BulkInsertBenchmarkTest.class);
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private YogaSessionRepository yogaSessionRepository;
+    @MockBean
+    private RoomService roomService;
+    @MockBean
+    private PersonService personService;
+    @MockBean
+    private YogaSessionService yogaSessionService;
+
+    @Test
+    void should_insertSessionsInBatches_when_seedingSessions(){
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        LocalDate firstDay = LocalDate.now().plusDays(1);
+        long start = System.nanoTime();
+
+        for (int from = 0; from < SESSIONS; from += CHUNK){
+            List<YogaSession> chunk = new ArrayList<>(CHUNK);
+            for (int i = from; i < from + CHUNK; i++){
+                YogaSession session = new YogaSession();
+                session.setDate(firstDay.plusDays(i / 600));
+                session.setStartOfSession(LocalTime.of(8, 0).plusMinutes(i % 600));
+                session.setDuration(30);
+                session.setEndOfSession(session.getStartOfSession().plusMinutes(30));
+                session.setRoomType(RoomType.values()[i % RoomType.values().length]);
+                chunk.add(session);
+            }
+            yogaSessionRepository.saveAll(chunk);
+            entityManager.flush();
+            entityManager.clear();
+        }
+
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        long statements = statistics.getPrepareStatementCount();
+        log.info("Seeded {} sessions in {} ms with {} prepared statements", SESSIONS, millis, statements);
+        assertEquals(SESSIONS, yogaSessionRepository.count());
+        assertEquals(SESSIONS, statistics.getEntityInsertCount());
+        long flushes = SESSIONS / CHUNK;
+        long sequenceCalls = SESSIONS / ID_BLOCK + 1;
+        assertTrue(statements <= flushes + sequenceCalls
+                , "expected " + flushes + " batched insert statements and " + sequenceCalls + " sequence calls, got " + statements + " statements");
+    }
+}
@@ -0,0 +1,116 @@
+package dev.milan.jpasolopractice.data;
+
+import dev.milan.jpasolopractice.model.Person;
+import dev.milan.jpasolopractice.model.Room;
+import dev.milan.jpasolopractice.model.RoomType;
+import dev.milan.jpasolopractice.model.YogaSession;
+import dev.milan.jpasolopractice.service.PersonService;
+import dev.milan.jpasolopractice.service.RoomService;
+import dev.milan.jpasolopractice.service.YogaSessionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Data tests that run without a surrounding test transaction, so every change commits the way it does for a request.
+ * Rows are saved through the helpers below and all tables and the second level cache are emptied after each test.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public abstract class CommittedDataFixture {
+    @Autowired
+    protected YogaSessionRepository yogaSessionRepository;
+    @Autowired
+    protected PersonRepository personRepository;
+    @Autowired
+    protected RoomRepository roomRepository;
+    @Autowired
+    protected RoomTemplateRepository roomTemplateRepository;
+    @Autowired
+    protected WaitlistEntryRepository waitlistEntryRepository;
+    @Autowired
+    protected SeatHoldRepository seatHoldRepository;
+    @Autowired
+    protected EntityManagerFactory entityManagerFactory;
+    @Autowired
+    protected PlatformTransactionManager transactionManager;
+    @MockBean
+    protected RoomService roomService;
+    @MockBean
+    protected PersonService personService;
+    @MockBean
+    protected YogaSessionService yogaSessionService;
+    protected TransactionTemplate transaction;
+
+    @BeforeEach
+    void initTransaction(){
+        transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void deleteAllRows(){
+        transaction.executeWithoutResult(status -> {
+            waitlistEntryRepository.deleteAll();
+            seatHoldRepository.deleteAll();
+            yogaSessionRepository.deleteAll();
+            roomRepository.deleteAll();
+            roomTemplateRepository.deleteAll();
+            personRepository.deleteAll();
+        });
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    protected Room persistRoom(LocalDate date, RoomType type, LocalTime opening){
+        Room room = new Room();
+        room.setDate(date);
+        room.setOpeningHours(opening);
+        room.setClosingHours(LocalTime.of(22, 0, 0));
+        room.setRoomType(type);
+        room.setTotalCapacity(type.getMaxCapacity());
+        return transaction.execute(status -> roomRepository.save(room));
+    }
+
+    protected YogaSession persistSession(LocalDate date, RoomType type, LocalTime start, int duration, Room room){
+        YogaSession session = newSession(date, type, start, duration);
+        session.setFreeSpace(type.getMaxCapacity());
+        return transaction.execute(status -> {
+            session.setRoom(room == null ? null : roomRepository.getById(room.getId()));
+            return yogaSessionRepository.save(session);
+        });
+    }
+
+    protected YogaSession persistSessionWithFreeSpace(LocalDate date, int freeSpace){
+        YogaSession session = newSession(date, RoomType.FIRE_ROOM, LocalTime.of(10, 0, 0), 60);
+        session.setBookedSpace(RoomType.FIRE_ROOM.getMaxCapacity() - freeSpace);
+        session.setFreeSpace(freeSpace);
+        return transaction.execute(status -> yogaSessionRepository.save(session));
+    }
+
+    protected Person persistPerson(String email){
+        Person person = new Person();
+        person.setName("Yoga Member");
+        person.setAge(30);
+        person.setEmail(email);
+        return transaction.execute(status -> personRepository.save(person));
+    }
+
+    private YogaSession newSession(LocalDate date, RoomType type, LocalTime start, int duration){
+        YogaSession session = new YogaSession();
+        session.setDate(date);
+        session.setStartOfSession(start);
+        session.setDuration(duration);
+        session.setEndOfSession(start.plusMinutes(duration));
+        session.setRoomType(type);
+        return session;
+    }
+}
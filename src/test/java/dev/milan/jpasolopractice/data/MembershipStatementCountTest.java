@@ -0,0 +1,207 @@
+package dev.milan.jpasolopractice.data;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.milan.jpasolopractice.model.Person;
+import dev.milan.jpasolopractice.model.RoomType;
+import dev.milan.jpasolopractice.model.YogaSession;
+import dev.milan.jpasolopractice.service.*;
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+@DataJpaTest(properties = {"spring.jpa.properties.hibernate.generate_statistics=true"
+        , "spring.jpa.properties.hibernate.session_factory.statement_inspector=dev.milan.jpasolopractice.data.MembershipStatementCountTest$JoinRowWrites"})
+public class MembershipStatementCountTest {
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private YogaSessionRepository yogaSessionRepository;
+    @Autowired
+    private PersonRepository personRepository;
+    @Autowired
+    private RoomRepository roomRepository;
+    @MockBean
+    private RoomService roomService;
+    @MockBean
+    private PersonService personService;
+    @MockBean
+    private YogaSessionService yogaSessionService;
+    private YogaSessionService sessionService;
+    private PersonService peopleService;
+    private Statistics statistics;
+    private int sessionId;
+    private List<Integer> memberIds;
+
+    public static class JoinRowWrites implements StatementInspector {
+        static final List<String> statements = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public String inspect(String sql) {
+            String lowerCase = sql.toLowerCase();
+            if (lowerCase.contains("users_sessions") && !lowerCase.startsWith("select")){
+                statements.add(sql);
+            }
+            return sql;
+        }
+    }
+
+    @BeforeEach
+    void init(){
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        DayScheduleCache dayScheduleCache = mock(DayScheduleCache.class);
+        SessionAvailabilityStreams availabilityStreams = mock(SessionAvailabilityStreams.class);
+        SessionWaitlist sessionWaitlist = mock(SessionWaitlist.class);
+        SeatHolds seatHolds = mock(SeatHolds.class);
+        peopleService = new PersonService(personRepository, new PersonServiceUtil(), yogaSessionRepository, new FormatCheckService()
+                , new ObjectMapper(), availabilityStreams, sessionWaitlist, seatHolds, dayScheduleCache);
+        sessionService = new YogaSessionService(new YogaSessionServiceUtil(peopleService), yogaSessionRepository, personRepository
+                , new FormatCheckService(), roomRepository, new ObjectMapper(), new RoomServiceUtil(), roomService, dayScheduleCache
+                , mock(IdempotencyKeyService.class), new SessionCacheEviction(entityManagerFactory), mock(SessionQueryCoalescer.class)
+                , availabilityStreams, sessionWaitlist, seatHolds, mock(RoomTemplates.class));
+
+        YogaSession session = new YogaSession();
+        session.setDate(LocalDate.now().plusDays(1));
+        session.setStartOfSession(LocalTime.of(10,0,0));
+        session.setEndOfSession(LocalTime.of(11,0,0));
+        session.setDuration(60);
+        session.setRoomType(RoomType.EARTH_ROOM);
+        memberIds = new ArrayList<>();
+        for (int i = 0; i < RoomType.EARTH_ROOM.getMaxCapacity() - 1; i++){
+            Person person = persistPerson("member" + i + "@yoga.com");
+            session.addMember(person);
+            person.addSession(session);
+            memberIds.add(person.getId());
+        }
+        session.setBookedSpace(memberIds.size());
+        session.setFreeSpace(RoomType.EARTH_ROOM.getMaxCapacity() - memberIds.size());
+        entityManager.persist(session);
+        sessionId = session.getId();
+        entityManager.flush();
+        entityManager.clear();
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    private Person persistPerson(String email){
+        Person person = new Person();
+        person.setName("Member");
+        person.setAge(30);
+        person.setEmail(email);
+        entityManager.persist(person);
+        return person;
+    }
+
+    private long statementsDuring(Runnable change){
+        statistics.clear();
+        JoinRowWrites.statements.clear();
+        change.run();
+        entityManager.flush();
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    void should_writeOneJoinRowWithFixedStatements_when_addingMemberThroughService(){
+        int newcomerId = persistPerson("newcomer@yoga.com").getId();
+        entityManager.flush();
+        entityManager.clear();
+
+        long statements = statementsDuring(() -> sessionService.addMemberToYogaSession(sessionId, newcomerId));
+
+        assertEquals(5, statements);
+        assertEquals(1, JoinRowWrites.statements.size());
+        assertEquals(memberIds.size() + 1, countJoinRows());
+    }
+
+    @Test
+    void should_deleteOnlyOneJoinRow_when_removingMemberThroughService(){
+        statementsDuring(() -> sessionService.removeMemberFromYogaSession(sessionId, memberIds.get(0)));
+
+        assertEquals(1, JoinRowWrites.statements.size());
+        assertEquals(memberIds.size() - 1, countJoinRows());
+    }
+
+    @Test
+    void should_removeJoinRowsWithOneStatement_when_deletingSessionThroughService(){
+        statementsDuring(() -> sessionService.deleteASession(sessionId));
+
+        assertEquals(1, JoinRowWrites.statements.size());
+        assertEquals(0, countJoinRows());
+    }
+
+    @Test
+    void should_deleteOneJoinRowPerSession_when_deletingPersonThroughService(){
+        statementsDuring(() -> peopleService.deletePerson(memberIds.get(0)));
+
+        assertEquals(1, JoinRowWrites.statements.size());
+        assertEquals(memberIds.size() - 1, countJoinRows());
+        assertEquals(memberIds.size() - 1, entityManager.find(YogaSession.class, sessionId).getBookedSpace());
+    }
+
+    @Test
+    void should_findMemberInSet_when_memberPatchedAfterLoading(){
+        YogaSession session = entityManager.find(YogaSession.class, sessionId);
+        Person person = entityManager.find(Person.class, memberIds.get(0));
+        session.getMembersAttending().size();
+        person.setEmail("patched@yoga.com");
+        person.setAge(31);
+
+        statementsDuring(() -> session.removeMember(person));
+
+        assertEquals(1, JoinRowWrites.statements.size());
+        assertEquals(memberIds.size() - 1, countJoinRows());
+    }
+
+    @Test
+    void should_insertOnlyOneJoinRow_when_bookingThroughRepository(){
+        int newcomerId = persistPerson("newcomer@yoga.com").getId();
+        entityManager.flush();
+
+        statistics.clear();
+        yogaSessionRepository.insertMember(sessionId, newcomerId);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void should_insertGroupWithOneStatement_when_bookingGroupThroughRepository(){
+        YogaSession session = new YogaSession();
+        session.setDate(LocalDate.now().plusDays(2));
+        session.setStartOfSession(LocalTime.of(10,0,0));
+        session.setEndOfSession(LocalTime.of(11,0,0));
+        session.setDuration(60);
+        session.setRoomType(RoomType.EARTH_ROOM);
+        session.setFreeSpace(RoomType.EARTH_ROOM.getMaxCapacity());
+        entityManager.persistAndFlush(session);
+        List<Integer> group = memberIds.subList(0, 20);
+
+        statistics.clear();
+        yogaSessionRepository.findMemberIdsIn(session.getId(), group);
+        yogaSessionRepository.bookSpacesIfAvailable(session.getId(), group.size());
+        yogaSessionRepository.insertMembers(session.getId(), group);
+
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertEquals(memberIds.size() + group.size(), countJoinRows());
+    }
+
+    private int countJoinRows(){
+        return ((Number) entityManager.getEntityManager()
+                .createNativeQuery("select count(*) from USERS_SESSIONS").getSingleResult()).intValue();
+    }
+}
@@ -0,0 +1,124 @@
+package dev.milan.jpasolopractice.data;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.milan.jpasolopractice.customException.differentExceptions.BadRequestApiRequestException;
+import dev.milan.jpasolopractice.dto.ImportReport;
+import dev.milan.jpasolopractice.dto.ImportReport.RowError;
+import dev.milan.jpasolopractice.service.PersonImport;
+import dev.milan.jpasolopractice.service.PersonServiceUtil;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.http.MediaType;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class PersonImportTest extends CommittedDataFixture {
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv");
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    @Autowired
+    private EntityManager entityManager;
+    private PersonImport personImport;
+
+    @BeforeEach
+    void init(){
+        personImport = new PersonImport(personRepository, new PersonServiceUtil(), new ObjectMapper(), entityManager, transactionManager);
+        persistPerson("existing@yoga.com");
+    }
+
+    private ImportReport importBody(String body, MediaType contentType) throws IOException {
+        return personImport.importPeople(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), contentType);
+    }
+
+    @Test
+    void should_importValidRowsAndReportInvalidOnes_when_importingCsv() throws IOException {
+        ImportReport report = importBody("""
+                email,name,age
+                anna@yoga.com,anna smith,30
+                bad email,Bob,30
+                carl@yoga.com,Carl,5
+
+                dora@yoga.com,"Dora",twenty
+                """, CSV);
+
+        assertEquals(4, report.rowsRead());
+        assertEquals(1, report.imported());
+        assertEquals(3, report.errorCount());
+        assertEquals(List.of(3, 4, 6), report.errors().stream().map(RowError::line).toList());
+        assertEquals("Age must be an integer value.", report.errors().get(2).message());
+        assertEquals("Anna Smith", personRepository.findPersonByEmail("anna@yoga.com").getName());
+        assertEquals(2, personRepository.count());
+    }
+
+    @Test
+    void should_reportExistingAndRepeatedEmails_when_importingNdjson() throws IOException {
+        ImportReport report = importBody("""
+                {"name":"Existing","age":22,"email":"existing@yoga.com"}
+                {"name":"Eve","age":22,"email":"eve@yoga.com"}
+                {"name":"Eve Again","age":23,"email":"eve@yoga.com"}
+                {"name":"Frank","age":22
+                ["Gina",22,"gina@yoga.com"]
+                {"name":"Hank","email":"hank@yoga.com"}
+                """, NDJSON);
+
+        assertEquals(1, report.imported());
+        assertEquals(List.of(
+                new RowError(1, "Person already exists."),
+                new RowError(3, "Email eve@yoga.com already appears on line 2."),
+                new RowError(4, "Row is not valid JSON."),
+                new RowError(5, "Row must be a JSON object."),
+                new RowError(6, "Row must have a name, age and email.")), report.errors());
+        assertEquals(22, personRepository.findPersonByEmail("eve@yoga.com").getAge());
+    }
+
+    @Test
+    void should_insertInBatchesWithOneEmailCheckPerChunk_when_importingManyRows() throws IOException {
+        int rows = 1_010;
+        StringBuilder body = new StringBuilder("name,age,email\n");
+        for (int i = 0; i < rows; i++){
+            body.append("Member,30,member").append(i).append("@yoga.com\n");
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        ImportReport report = importBody(body.toString(), CSV);
+
+        assertEquals(rows, report.imported());
+        assertTrue(report.errors().isEmpty());
+        assertEquals(rows + 1, personRepository.count());
+        assertTrue(statistics.getPrepareStatementCount() < rows / 10, "expected batched inserts, got " + statistics.getPrepareStatementCount() + " statements");
+    }
+
+    @Test
+    void should_countEveryFailedRowButListOnlyTheFirstThousand_when_importingManyBadRows() throws IOException {
+        int rows = 1_200;
+        StringBuilder body = new StringBuilder("name,age,email\n");
+        for (int i = 0; i < rows; i++){
+            body.append("Member,x,member").append(i).append("@yoga.com\n");
+        }
+
+        ImportReport report = importBody(body.toString(), CSV);
+
+        assertEquals(0, report.imported());
+        assertEquals(rows, report.errorCount());
+        assertEquals(1_000, report.errors().size());
+        assertEquals(1_001, report.errors().get(999).line());
+    }
+
+    @Test
+    void should_throwException400BadRequest_when_importingCsv_and_headerMissingColumn(){
+        Exception exception = assertThrows(BadRequestApiRequestException.class, () -> importBody("name,email\nAnna,anna@yoga.com\n", CSV));
+        assertEquals("CSV import must start with a header naming the name, age and email columns.", exception.getMessage());
+        assertEquals(1, personRepository.count());
+    }
+}
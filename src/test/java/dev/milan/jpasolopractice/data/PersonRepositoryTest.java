@@ -0,0 +1,129 @@
+package dev.milan.jpasolopractice.data;
+
+import dev.milan.jpasolopractice.dto.PersonSummary;
+import dev.milan.jpasolopractice.model.Person;
+import dev.milan.jpasolopractice.model.RoomType;
+import dev.milan.jpasolopractice.model.YogaSession;
+import dev.milan.jpasolopractice.service.PersonService;
+import dev.milan.jpasolopractice.service.RoomService;
+import dev.milan.jpasolopractice.service.YogaSessionService;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+public class PersonRepositoryTest {
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private PersonRepository personRepository;
+    @MockBean
+    private RoomService roomService;
+    @MockBean
+    private PersonService personService;
+    @MockBean
+    private YogaSessionService yogaSessionService;
+    private int personId;
+    private int sessionId;
+
+    @BeforeEach
+    void init(){
+        Person person = new Person();
+        person.setName("Member");
+        person.setAge(30);
+        person.setEmail("member@yoga.com");
+        entityManager.persist(person);
+
+        YogaSession session = new YogaSession();
+        session.setDate(LocalDate.now().plusDays(1));
+        session.setStartOfSession(LocalTime.of(10,0,0));
+        session.setEndOfSession(LocalTime.of(11,0,0));
+        session.setRoomType(RoomType.AIR_ROOM);
+        session.addMember(person);
+        entityManager.persist(session);
+        personId = person.getId();
+        sessionId = session.getId();
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void should_notLoadSessions_when_findingPersonById(){
+        Person person = personRepository.findById(personId).orElseThrow();
+        assertFalse(Hibernate.isInitialized(person.getYogaSessions()));
+    }
+
+    @Test
+    void should_loadSessionsWithSameQuery_when_findingPersonWithSessionsById(){
+        Person person = personRepository.findWithSessionsById(personId).orElseThrow();
+        assertTrue(Hibernate.isInitialized(person.getYogaSessions()));
+        assertEquals(1, person.getYogaSessions().size());
+    }
+
+    @Test
+    void should_returnMemberSummaries_when_searchingSummariesBySessionIdAndAge(){
+        assertEquals(List.of(new PersonSummary(personId, "Member", 30, "member@yoga.com")), personRepository.findSummariesBySessionId(sessionId));
+        assertEquals(1, personRepository.findSummariesBySessionIdAndAgeBetween(sessionId, 25, 35).size());
+        assertTrue(personRepository.findSummariesBySessionIdAndAgeBetween(sessionId, 31, 35).isEmpty());
+    }
+
+    @Test
+    void should_changeVersionTags_when_personJoinsAnotherSession(){
+        String sessionsTag = personRepository.findSessionsVersionTagById(personId);
+        String membersTag = personRepository.findVersionTagBySessionId(sessionId);
+        YogaSession session = new YogaSession();
+        session.setDate(LocalDate.now().plusDays(1));
+        session.setStartOfSession(LocalTime.of(12,0,0));
+        session.setEndOfSession(LocalTime.of(13,0,0));
+        session.setRoomType(RoomType.AIR_ROOM);
+        session.addMember(entityManager.find(Person.class, personId));
+        entityManager.persist(session);
+        entityManager.flush();
+
+        assertNotEquals(sessionsTag, personRepository.findSessionsVersionTagById(personId));
+        assertEquals(membersTag, personRepository.findVersionTagBySessionId(sessionId));
+        assertEquals("0.1.0." + personId, personRepository.findVersionTagBySessionId(session.getId()));
+    }
+
+    @Test
+    void should_changeMembersTag_when_membersSwappedForPeopleWithSameIdSum(){
+        List<Person> people = List.of(persistPerson("first@yoga.com"), persistPerson("second@yoga.com")
+                , persistPerson("third@yoga.com"), persistPerson("fourth@yoga.com"));
+        assertEquals(people.get(0).getId() + people.get(3).getId(), people.get(1).getId() + people.get(2).getId());
+        YogaSession session = entityManager.find(YogaSession.class, sessionId);
+        session.addMember(people.get(0));
+        session.addMember(people.get(3));
+        session.setBookedSpace(session.getBookedSpace() + 2);
+        entityManager.flush();
+        String membersTag = personRepository.findVersionTagBySessionId(sessionId);
+
+        session.removeMember(people.get(0));
+        session.removeMember(people.get(3));
+        session.setBookedSpace(session.getBookedSpace() - 2);
+        entityManager.flush();
+        session.addMember(people.get(1));
+        session.addMember(people.get(2));
+        session.setBookedSpace(session.getBookedSpace() + 2);
+        entityManager.flush();
+
+        assertNotEquals(membersTag, personRepository.findVersionTagBySessionId(sessionId));
+    }
+
+    private Person persistPerson(String email){
+        Person person = new Person();
+        person.setName("Member");
+        person.setAge(30);
+        person.setEmail(email);
+        return entityManager.persist(person);
+    }
+}
@@ -0,0 +1,131 @@
+package dev.milan.jpasolopractice.data;
+
+import dev.milan.jpasolopractice.dto.DayScheduleRow;
+import dev.milan.jpasolopractice.model.Person;
+import dev.milan.jpasolopractice.model.Room;
+import dev.milan.jpasolopractice.model.RoomType;
+import dev.milan.jpasolopractice.model.YogaSession;
+import dev.milan.jpasolopractice.service.PersonService;
+import dev.milan.jpasolopractice.service.RoomService;
+import dev.milan.jpasolopractice.service.YogaSessionService;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class RoomRepositoryTest {
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private RoomRepository roomRepository;
+    @MockBean
+    private RoomService roomService;
+    @MockBean
+    private PersonService personService;
+    @MockBean
+    private YogaSessionService yogaSessionService;
+    private Statistics statistics;
+    private final LocalDate date = LocalDate.now().plusDays(2);
+
+    @BeforeEach
+    void init(){
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Room airRoom = persistRoom(RoomType.AIR_ROOM);
+        persistRoom(RoomType.FIRE_ROOM);
+
+        YogaSession morning = persistSession(airRoom, LocalTime.of(9,0,0));
+        persistSession(airRoom, LocalTime.of(12,0,0));
+        for (int i = 0; i < 3; i++){
+            Person person = new Person();
+            person.setName("Member");
+            person.setAge(30);
+            person.setEmail("schedule" + i + "@yoga.com");
+            entityManager.persist(person);
+            morning.addMember(person);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+    }
+
+    private Room persistRoom(RoomType type){
+        Room room = new Room();
+        room.setDate(date);
+        room.setRoomType(type);
+        room.setTotalCapacity(type.getMaxCapacity());
+        entityManager.persist(room);
+        return room;
+    }
+
+    private YogaSession persistSession(Room room, LocalTime start){
+        YogaSession session = new YogaSession();
+        session.setDate(date);
+        session.setStartOfSession(start);
+        session.setEndOfSession(start.plusHours(1));
+        session.setRoomType(room.getRoomType());
+        session.setRoom(room);
+        entityManager.persist(session);
+        return session;
+    }
+
+    @Test
+    void should_returnRoomsSessionsAndMemberCountsInOneStatement_when_findingDayScheduleRows(){
+        List<DayScheduleRow> rows = roomRepository.findDayScheduleRows(date);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(3, rows.size());
+        assertEquals(3, rows.get(0).membersAttending());
+        assertEquals(LocalTime.of(12,0,0), rows.get(1).startOfSession());
+        assertNull(rows.get(2).sessionId());
+    }
+
+    @Test
+    void should_fetchSessionListsWithRooms_when_findingAllRoomsByDate(){
+        List<Room> rooms = roomRepository.findAllRoomsByDate(date);
+
+        assertEquals(2, rooms.size());
+        assertTrue(rooms.stream().allMatch(room -> Hibernate.isInitialized(room.getSessionList())));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void should_rejectRoom_when_roomWithSameDateAndTypeExists(){
+        persistRoom(RoomType.AIR_ROOM);
+
+        assertThrows(PersistenceException.class, () -> entityManager.flush());
+    }
+
+    @Test
+    void should_changeOnlyThatRoomsVersionTag_when_memberOfRoomSessionChanges(){
+        Room airRoom = roomRepository.findRoomByDateAndRoomType(date, RoomType.AIR_ROOM);
+        Room fireRoom = roomRepository.findRoomByDateAndRoomType(date, RoomType.FIRE_ROOM);
+        String airRoomTag = roomRepository.findVersionTagById(airRoom.getId());
+        String fireRoomTag = roomRepository.findVersionTagById(fireRoom.getId());
+        String roomsTag = roomRepository.findVersionTagByDate(date);
+
+        Person member = airRoom.getSessionList().stream().flatMap(session -> session.getMembersAttending().stream()).findFirst().orElseThrow();
+        member.setAge(31);
+        entityManager.flush();
+
+        assertNotEquals(airRoomTag, roomRepository.findVersionTagById(airRoom.getId()));
+        assertEquals(fireRoomTag, roomRepository.findVersionTagById(fireRoom.getId()));
+        assertEquals(roomsTag, roomRepository.findVersionTagByDate(date));
+        assertNull(roomRepository.findVersionTagById(-1));
+    }
+}
@@ -0,0 +1,109 @@
+package dev.milan.jpasolopractice.data;
+
+import dev.milan.jpasolopractice.customException.differentExceptions.BadRequestApiRequestException;
+import dev.milan.jpasolopractice.customException.differentExceptions.NotFoundApiRequestException;
+import dev.milan.jpasolopractice.model.Room;
+import dev.milan.jpasolopractice.model.RoomTemplate;
+import dev.milan.jpasolopractice.model.RoomType;
+import dev.milan.jpasolopractice.service.FormatCheckService;
+import dev.milan.jpasolopractice.service.RoomServiceUtil;
+import dev.milan.jpasolopractice.service.RoomTemplates;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RoomTemplatesTest extends CommittedDataFixture {
+    private RoomTemplates roomTemplates;
+    private final LocalDate date = LocalDate.now().plusDays(1);
+
+    @BeforeEach
+    void init(){
+        roomTemplates = new RoomTemplates(roomTemplateRepository, roomRepository, new RoomServiceUtil(), new FormatCheckService(), transactionManager);
+        roomTemplates.putTemplate("air_room", "07:00:00", "21:00:00");
+    }
+
+    @Test
+    void should_createRoomFromTemplate_when_firstUsedOnDate(){
+        Room room = roomTemplates.findOrCreateRoom(date, RoomType.AIR_ROOM).orElseThrow();
+
+        assertEquals(date, room.getDate());
+        assertEquals(LocalTime.of(7, 0, 0), room.getOpeningHours());
+        assertEquals(LocalTime.of(21, 0, 0), room.getClosingHours());
+        assertEquals(RoomType.AIR_ROOM.getMaxCapacity(), room.getTotalCapacity());
+        assertEquals(room.getId(), roomTemplates.findOrCreateRoom(date, RoomType.AIR_ROOM).orElseThrow().getId());
+        assertEquals(1, roomRepository.count());
+    }
+
+    @Test
+    void should_notCreateRoom_when_typeHasNoTemplate_or_dateHasPassed(){
+        assertTrue(roomTemplates.findOrCreateRoom(date, RoomType.FIRE_ROOM).isEmpty());
+        assertTrue(roomTemplates.findOrCreateRoom(LocalDate.now().minusDays(1), RoomType.AIR_ROOM).isEmpty());
+        assertEquals(0, roomRepository.count());
+    }
+
+    @Test
+    void should_createOneRoom_when_firstUsesRace() throws Exception {
+        int racers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(racers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Optional<Room>>> results = new ArrayList<>();
+        for (int i = 0; i < racers; i++){
+            results.add(executor.submit(() -> {
+                start.await();
+                return roomTemplates.findOrCreateRoom(date, RoomType.AIR_ROOM);
+            }));
+        }
+        start.countDown();
+        List<Integer> ids = new ArrayList<>();
+        for (Future<Optional<Room>> result : results){
+            ids.add(result.get(30, TimeUnit.SECONDS).orElseThrow().getId());
+        }
+        executor.shutdown();
+
+        assertEquals(1, roomRepository.count());
+        assertTrue(ids.stream().allMatch(id -> id.equals(ids.get(0))));
+    }
+
+    @Test
+    void should_returnTemplatesWithoutCreatingRooms_when_findingTemplatesForUpcomingDate(){
+        roomTemplates.putTemplate("FIRE_ROOM", "08:00:00", "22:00:00");
+
+        assertEquals(List.of(RoomType.AIR_ROOM, RoomType.FIRE_ROOM)
+                , roomTemplates.findTemplatesFor(LocalDate.of(9999, 12, 31)).stream().map(RoomTemplate::getRoomType).toList());
+        assertEquals(0, roomRepository.count());
+    }
+
+    @Test
+    void should_returnNoTemplates_when_findingTemplatesForPastDate(){
+        assertTrue(roomTemplates.findTemplatesFor(LocalDate.now().minusDays(1)).isEmpty());
+    }
+
+    @Test
+    void should_replaceHours_when_puttingExistingTemplate(){
+        RoomTemplate template = roomTemplates.putTemplate("AIR_ROOM", "09:00:00", "20:00:00");
+
+        assertEquals(1, roomTemplateRepository.count());
+        assertEquals(LocalTime.of(9, 0, 0), template.getOpeningHours());
+        assertEquals(List.of(RoomType.AIR_ROOM), roomTemplates.findTemplates().stream().map(RoomTemplate::getRoomType).toList());
+    }
+
+    @Test
+    void should_throwException400BadRequest_when_puttingTemplate_and_hoursOutsideLimits(){
+        Exception exception = assertThrows(BadRequestApiRequestException.class, () -> roomTemplates.putTemplate("EARTH_ROOM", "05:00:00", "20:00:00"));
+        assertEquals("Cannot set opening hours before 06:00", exception.getMessage());
+    }
+
+    @Test
+    void should_throwException404NotFound_when_removingTemplate_and_typeHasNoTemplate(){
+        Exception exception = assertThrows(NotFoundApiRequestException.class, () -> roomTemplates.removeTemplate("WATER_ROOM"));
+        assertEquals("Room template for room type:WATER_ROOM not found.", exception.getMessage());
+    }
+}
@@ -0,0 +1,147 @@
+package dev.milan.jpasolopractice.data;
+
+import dev.milan.jpasolopractice.customException.differentExceptions.ConflictApiRequestException;
+import dev.milan.jpasolopractice.customException.differentExceptions.ForbiddenApiRequestException;
+import dev.milan.jpasolopractice.customException.differentExceptions.NotFoundApiRequestException;
+import dev.milan.jpasolopractice.model.YogaSession;
+import dev.milan.jpasolopractice.service.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.Mockito.*;
+
+public class SeatHoldsTest extends CommittedDataFixture {
+    private SessionWaitlist sessionWaitlist;
+    private int sessionId;
+    private int firstId;
+    private int secondId;
+    private final LocalDate date = LocalDate.now().plusDays(1);
+
+    @BeforeEach
+    void init(){
+        sessionWaitlist = mock(SessionWaitlist.class);
+        sessionId = persistSessionWithFreeSpace(date, 1).getId();
+        firstId = persistPerson("first@example.com").getId();
+        secondId = persistPerson("second@example.com").getId();
+    }
+
+    private SeatHolds seatHoldsWithTtl(long ttlMillis){
+        return seatHoldsWithTtl(ttlMillis, yogaSessionRepository);
+    }
+
+    private SeatHolds seatHoldsWithTtl(long ttlMillis, YogaSessionRepository yogaSessionRepository){
+        return new SeatHolds(seatHoldRepository, yogaSessionRepository, new SessionCacheEviction(entityManagerFactory)
+                , mock(DayScheduleCache.class), mock(SessionAvailabilityStreams.class), sessionWaitlist, transactionManager, ttlMillis, 0);
+    }
+
+    private YogaSession loadSession(){
+        return transaction.execute(status -> yogaSessionRepository.findById(sessionId).orElseThrow());
+    }
+
+    @Test
+    void should_countHoldAgainstFreeSpace_when_holdingSeat(){
+        SeatHolds seatHolds = seatHoldsWithTtl(60_000);
+
+        transaction.executeWithoutResult(status -> seatHolds.hold(sessionId, firstId, date));
+
+        assertThrows(ForbiddenApiRequestException.class, () -> transaction.executeWithoutResult(status -> seatHolds.hold(sessionId, secondId, date)));
+        YogaSession session = loadSession();
+        assertEquals(0, session.getFreeSpace());
+        assertEquals(1, session.getHeldSpace());
+        assertEquals(1, seatHoldRepository.count());
+    }
+
+    @Test
+    void should_bookHeldSeat_when_confirmingHold(){
+        SeatHolds seatHolds = seatHoldsWithTtl(60_000);
+        int booked = loadSession().getBookedSpace();
+
+        transaction.executeWithoutResult(status -> seatHolds.hold(sessionId, firstId, date));
+        transaction.executeWithoutResult(status -> seatHolds.confirm(sessionId, firstId));
+
+        YogaSession session = loadSession();
+        assertEquals(booked + 1, session.getBookedSpace());
+        assertEquals(0, session.getHeldSpace());
+        assertEquals(0, session.getFreeSpace());
+        assertEquals(1, (int) transaction.execute(status -> yogaSessionRepository.countMember(sessionId, firstId)));
+        assertEquals(0, seatHoldRepository.count());
+    }
+
+    @Test
+    void should_releaseSeatAndPromoteWaitlist_when_holdExpires(){
+        SeatHolds seatHolds = seatHoldsWithTtl(0);
+
+        transaction.executeWithoutResult(status -> seatHolds.hold(sessionId, firstId, date));
+        seatHolds.expireDue();
+
+        YogaSession session = loadSession();
+        assertEquals(1, session.getFreeSpace());
+        assertEquals(0, session.getHeldSpace());
+        assertEquals(0, seatHoldRepository.count());
+        verify(sessionWaitlist, times(1)).promoteAfterCommit(sessionId);
+    }
+
+    @Test
+    void should_throwException404NotFound_when_confirmingHold_and_holdExpired(){
+        SeatHolds seatHolds = seatHoldsWithTtl(0);
+        transaction.executeWithoutResult(status -> seatHolds.hold(sessionId, firstId, date));
+
+        Exception exception = assertThrows(NotFoundApiRequestException.class
+                , () -> transaction.executeWithoutResult(status -> seatHolds.confirm(sessionId, firstId)));
+        assertEquals("Seat hold of person id:" + firstId + " not found in session id:" + sessionId, exception.getMessage());
+        assertEquals(0, (int) transaction.execute(status -> yogaSessionRepository.countMember(sessionId, firstId)));
+    }
+
+    @Test
+    void should_throwException409ConflictAndKeepHold_when_confirmingHold_and_personBookedConcurrently(){
+        YogaSessionRepository missesConcurrentBooking = mock(YogaSessionRepository.class, delegatesTo(yogaSessionRepository));
+        doReturn(0).when(missesConcurrentBooking).countMember(sessionId, firstId);
+        SeatHolds seatHolds = seatHoldsWithTtl(60_000, missesConcurrentBooking);
+        transaction.executeWithoutResult(status -> seatHolds.hold(sessionId, firstId, date));
+        transaction.executeWithoutResult(status -> yogaSessionRepository.insertMember(sessionId, firstId));
+
+        Exception exception = assertThrows(ConflictApiRequestException.class
+                , () -> transaction.executeWithoutResult(status -> seatHolds.confirm(sessionId, firstId)));
+        assertEquals("User id:" + firstId + " already present in session id:" + sessionId, exception.getMessage());
+        assertEquals(1, seatHoldRepository.count());
+        assertEquals(1, loadSession().getHeldSpace());
+    }
+
+    @Test
+    void should_releaseSeatOnce_when_holdReleasedBeforeExpiry(){
+        SeatHolds seatHolds = seatHoldsWithTtl(0);
+        transaction.executeWithoutResult(status -> seatHolds.hold(sessionId, firstId, date));
+
+        transaction.executeWithoutResult(status -> seatHolds.releaseHoldsOf(firstId));
+        seatHolds.expireDue();
+
+        YogaSession session = loadSession();
+        assertEquals(1, session.getFreeSpace());
+        assertEquals(0, session.getHeldSpace());
+        verify(sessionWaitlist, times(1)).promoteAfterCommit(sessionId);
+    }
+
+    @Test
+    void should_expireOtherHoldsAndRetryLater_when_oneExpiryFails(){
+        SeatHolds seatHolds = seatHoldsWithTtl(0);
+        int otherSessionId = persistSessionWithFreeSpace(date.plusDays(1), 1).getId();
+        transaction.executeWithoutResult(status -> seatHolds.hold(sessionId, firstId, date));
+        transaction.executeWithoutResult(status -> seatHolds.hold(otherSessionId, secondId, date.plusDays(1)));
+        doThrow(new IllegalStateException("waitlist unavailable")).doNothing().when(sessionWaitlist).promoteAfterCommit(sessionId);
+
+        seatHolds.expireDue();
+
+        assertEquals(0, loadSession().getFreeSpace());
+        assertEquals(1, transaction.execute(status -> yogaSessionRepository.findById(otherSessionId).orElseThrow()).getFreeSpace());
+        assertEquals(1, seatHoldRepository.count());
+
+        seatHolds.expireDue();
+
+        assertEquals(1, loadSession().getFreeSpace());
+        assertEquals(0, seatHoldRepository.count());
+    }
+}
@@ -0,0 +1,106 @@
+package dev.milan.jpasolopractice.data;
+
+import dev.milan.jpasolopractice.customException.differentExceptions.BadRequestApiRequestException;
+import dev.milan.jpasolopractice.dto.PlacementReport;
+import dev.milan.jpasolopractice.model.Room;
+import dev.milan.jpasolopractice.model.RoomType;
+import dev.milan.jpasolopractice.model.YogaSession;
+import dev.milan.jpasolopractice.service.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class SessionPlacementsTest extends CommittedDataFixture {
+    private DayScheduleCache dayScheduleCache;
+    private RoomTemplates roomTemplates;
+    private SessionPlacements sessionPlacements;
+    private final LocalDate date = LocalDate.now().plusDays(2);
+
+    @BeforeEach
+    void init(){
+        dayScheduleCache = mock(DayScheduleCache.class);
+        RoomServiceUtil roomServiceUtil = new RoomServiceUtil();
+        roomTemplates = new RoomTemplates(roomTemplateRepository, roomRepository, roomServiceUtil, new FormatCheckService(), transactionManager);
+        sessionPlacements = new SessionPlacements(yogaSessionRepository, roomRepository, roomServiceUtil, new FormatCheckService()
+                , dayScheduleCache, roomTemplates, transactionManager, 7);
+    }
+
+    private Room persistRoom(LocalDate date){
+        return persistRoom(date, RoomType.AIR_ROOM, LocalTime.of(8, 0, 0));
+    }
+
+    private List<Integer> sessionIdsInRoom(LocalDate date, RoomType type){
+        return transaction.execute(status -> roomRepository.findRoomByDateAndRoomType(date, type).getSessionList().stream()
+                .map(YogaSession::getId).sorted().toList());
+    }
+
+    @Test
+    void should_placeSessionsEndingFirst_when_roomCannotFitAll(){
+        Room room = persistRoom(date);
+        int existing = persistSession(date, RoomType.AIR_ROOM, LocalTime.of(12, 0, 0), 60, room).getId();
+        int beforeOpening = persistSession(date, RoomType.AIR_ROOM, LocalTime.of(7, 0, 0), 60, null).getId();
+        int longer = persistSession(date, RoomType.AIR_ROOM, LocalTime.of(9, 0, 0), 150, null).getId();
+        int shorter = persistSession(date, RoomType.AIR_ROOM, LocalTime.of(10, 0, 0), 60, null).getId();
+        int beforeExisting = persistSession(date, RoomType.AIR_ROOM, LocalTime.of(11, 0, 0), 60, null).getId();
+        int overExisting = persistSession(date, RoomType.AIR_ROOM, LocalTime.of(12, 30, 0), 60, null).getId();
+
+        PlacementReport report = sessionPlacements.placeUnassigned(date.toString(), date.toString());
+
+        assertEquals(5, report.unassigned());
+        assertEquals(2, report.placed());
+        assertEquals(List.of(existing, shorter, beforeExisting), sessionIdsInRoom(date, RoomType.AIR_ROOM));
+        assertEquals(List.of(beforeOpening, longer, overExisting), report.unplaced().stream().map(PlacementReport.SessionIssue::sessionId).toList());
+        assertEquals("Yoga session cannot start before room opening hours. Room opens at:08:00", report.unplaced().get(0).message());
+        assertEquals("Yoga session time period is already occupied.", report.unplaced().get(1).message());
+        verify(dayScheduleCache, times(1)).invalidate(date);
+    }
+
+    @Test
+    void should_createRoomFromTemplate_when_placingSessionsOnDayWithoutRoom(){
+        roomTemplates.putTemplate("AIR_ROOM", "07:00:00", "21:00:00");
+        int first = persistSession(date, RoomType.AIR_ROOM, LocalTime.of(7, 0, 0), 60, null).getId();
+        int second = persistSession(date.plusDays(1), RoomType.AIR_ROOM, LocalTime.of(9, 0, 0), 60, null).getId();
+        int noTemplate = persistSession(date, RoomType.FIRE_ROOM, LocalTime.of(9, 0, 0), 60, null).getId();
+
+        PlacementReport report = sessionPlacements.placeUnassigned(date.toString(), date.plusDays(1).toString());
+
+        assertEquals(2, report.placed());
+        assertEquals(List.of(first), sessionIdsInRoom(date, RoomType.AIR_ROOM));
+        assertEquals(List.of(second), sessionIdsInRoom(date.plusDays(1), RoomType.AIR_ROOM));
+        assertEquals(1, report.unplaced().size());
+        assertEquals(noTemplate, report.unplaced().get(0).sessionId());
+        assertEquals("No FIRE_ROOM room on this date and no template to create it from.", report.unplaced().get(0).message());
+    }
+
+    @Test
+    void should_leaveSessionsOutsideRange_when_placingSessions(){
+        persistRoom(date);
+        persistRoom(date.plusDays(1));
+        persistSession(date.plusDays(1), RoomType.AIR_ROOM, LocalTime.of(9, 0, 0), 60, null);
+
+        PlacementReport report = sessionPlacements.placeUnassigned(date.toString(), date.toString());
+
+        assertEquals(0, report.unassigned());
+        assertTrue(sessionIdsInRoom(date.plusDays(1), RoomType.AIR_ROOM).isEmpty());
+    }
+
+    @Test
+    void should_throwException400BadRequest_when_placingSessions_and_rangeLongerThanAMonth(){
+        Exception exception = assertThrows(BadRequestApiRequestException.class
+                , () -> sessionPlacements.placeUnassigned(date.toString(), date.plusDays(31).toString()));
+        assertEquals("Placement can span at most 31 days.", exception.getMessage());
+    }
+
+    @Test
+    void should_throwException400BadRequest_when_placingSessions_and_rangeStartsInThePast(){
+        Exception exception = assertThrows(BadRequestApiRequestException.class
+                , () -> sessionPlacements.placeUnassigned(LocalDate.now().minusDays(1).toString(), date.toString()));
+        assertEquals("Placement cannot start before current date.", exception.getMessage());
+    }
+}
@@ -0,0 +1,125 @@
+package dev.milan.jpasolopractice.data;
+
+import dev.milan.jpasolopractice.customException.differentExceptions.BadRequestApiRequestException;
+import dev.milan.jpasolopractice.dto.RecurrenceReport;
+import dev.milan.jpasolopractice.dto.SessionRecurrence;
+import dev.milan.jpasolopractice.model.Room;
+import dev.milan.jpasolopractice.model.RoomType;
+import dev.milan.jpasolopractice.service.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class SessionRecurrencesTest extends CommittedDataFixture {
+    private DayScheduleCache dayScheduleCache;
+    private RoomTemplates roomTemplates;
+    private SessionRecurrences sessionRecurrences;
+    private final LocalDate firstMonday = LocalDate.now().plusDays(1).with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+
+    @BeforeEach
+    void init(){
+        dayScheduleCache = mock(DayScheduleCache.class);
+        roomTemplates = new RoomTemplates(roomTemplateRepository, roomRepository, new RoomServiceUtil(), new FormatCheckService(), transactionManager);
+        sessionRecurrences = new SessionRecurrences(new YogaSessionServiceUtil(personService), yogaSessionRepository, roomRepository
+                , new RoomServiceUtil(), new FormatCheckService(), dayScheduleCache, roomTemplates, transactionManager);
+    }
+
+    private Room persistRoom(LocalDate date, LocalTime opening){
+        return persistRoom(date, RoomType.AIR_ROOM, opening);
+    }
+
+    private SessionRecurrence weekly(LocalDate from, LocalDate to, String... days){
+        return new SessionRecurrence("air_room", "10:00:00", "60", from.toString(), to.toString(), List.of(days));
+    }
+
+    @Test
+    void should_createAndPlaceSessionOnEveryMatchingDay_when_roomsFree(){
+        for (int week = 0; week < 4; week++){
+            persistRoom(firstMonday.plusWeeks(week), LocalTime.of(8, 0, 0));
+            persistRoom(firstMonday.plusWeeks(week).plusDays(3), LocalTime.of(8, 0, 0));
+        }
+
+        RecurrenceReport report = sessionRecurrences.expand(weekly(firstMonday, firstMonday.plusWeeks(4).minusDays(1), "monday", "THURSDAY"));
+
+        assertEquals(8, report.created());
+        assertEquals(8, report.placed());
+        assertTrue(report.issues().isEmpty());
+        Room room = transaction.execute(status -> {
+            Room found = roomRepository.findRoomByDateAndRoomType(firstMonday.plusDays(3), RoomType.AIR_ROOM);
+            found.getSessionList().size();
+            return found;
+        });
+        assertEquals(LocalTime.of(11, 0, 0), room.getSessionList().get(0).getEndOfSession());
+        verify(dayScheduleCache, times(1)).invalidate(firstMonday.plusDays(3));
+    }
+
+    @Test
+    void should_reportEachDateThatCouldntBePlacedOrCreated_when_expandingRecurrence(){
+        LocalDate noRoom = firstMonday.plusWeeks(1);
+        LocalDate occupied = firstMonday.plusWeeks(2);
+        LocalDate closed = firstMonday.plusWeeks(3);
+        LocalDate duplicate = firstMonday.plusWeeks(4);
+        persistRoom(firstMonday, LocalTime.of(8, 0, 0));
+        persistSession(occupied, RoomType.AIR_ROOM, LocalTime.of(9, 30, 0), 60, persistRoom(occupied, LocalTime.of(8, 0, 0)));
+        persistRoom(closed, LocalTime.of(12, 0, 0));
+        persistSession(duplicate, RoomType.AIR_ROOM, LocalTime.of(10, 0, 0), 60, null);
+
+        RecurrenceReport report = sessionRecurrences.expand(weekly(firstMonday, duplicate, "MONDAY"));
+
+        assertEquals(4, report.created());
+        assertEquals(1, report.placed());
+        assertEquals(List.of(noRoom, occupied, closed, duplicate), report.issues().stream().map(RecurrenceReport.DateIssue::date).toList());
+        assertEquals("No AIR_ROOM room on this date. Session created without a room.", report.issues().get(0).message());
+        assertEquals("Yoga session time period is already occupied.", report.issues().get(1).message());
+        assertEquals("Yoga session cannot start before room opening hours. Room opens at:12:00", report.issues().get(2).message());
+        assertNull(report.issues().get(3).sessionId());
+        assertNull(transaction.execute(status -> yogaSessionRepository.findById(report.issues().get(0).sessionId()).orElseThrow().getRoom()));
+        assertEquals(6, yogaSessionRepository.count());
+    }
+
+    @Test
+    void should_createMissingRoomsFromTemplate_when_expandingRecurrence(){
+        persistRoom(firstMonday, LocalTime.of(8, 0, 0));
+        roomTemplates.putTemplate("AIR_ROOM", "07:00:00", "21:00:00");
+
+        RecurrenceReport report = sessionRecurrences.expand(weekly(firstMonday, firstMonday.plusWeeks(2), "MONDAY"));
+
+        assertEquals(3, report.created());
+        assertEquals(3, report.placed());
+        assertEquals(3, roomRepository.count());
+        assertEquals(LocalTime.of(7, 0, 0), roomRepository.findRoomByDateAndRoomType(firstMonday.plusWeeks(2), RoomType.AIR_ROOM).getOpeningHours());
+    }
+
+    @Test
+    void should_expandInSeveralChunks_when_recurrenceCoversManyDays(){
+        RecurrenceReport report = sessionRecurrences.expand(weekly(firstMonday, firstMonday.plusDays(364)
+                , "MONDAY", "TUESDAY", "WEDNESDAY", "THURSDAY", "FRIDAY", "SATURDAY", "SUNDAY"));
+
+        assertEquals(365, report.created());
+        assertEquals(0, report.placed());
+        assertEquals(365, yogaSessionRepository.count());
+    }
+
+    @Test
+    void should_throwException400BadRequest_when_expandingRecurrence_and_dayIncorrect(){
+        Exception exception = assertThrows(BadRequestApiRequestException.class
+                , () -> sessionRecurrences.expand(weekly(firstMonday, firstMonday.plusDays(6), "MONDAY", "FUNDAY")));
+        assertEquals("Incorrect day:FUNDAY. Days are: MONDAY, TUESDAY, WEDNESDAY, THURSDAY, FRIDAY, SATURDAY, SUNDAY.", exception.getMessage());
+        assertEquals(0, yogaSessionRepository.count());
+    }
+
+    @Test
+    void should_throwException400BadRequest_when_expandingRecurrence_and_rangeLongerThanAYear(){
+        Exception exception = assertThrows(BadRequestApiRequestException.class
+                , () -> sessionRecurrences.expand(weekly(firstMonday, firstMonday.plusDays(366), "MONDAY")));
+        assertEquals("Recurrence can span at most 366 days.", exception.getMessage());
+    }
+}
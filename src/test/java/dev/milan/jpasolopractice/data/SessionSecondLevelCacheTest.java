@@ -0,0 +1,53 @@
+package dev.milan.jpasolopractice.data;
+
+import dev.milan.jpasolopractice.model.RoomType;
+import dev.milan.jpasolopractice.model.YogaSession;
+import dev.milan.jpasolopractice.service.SessionCacheEviction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.persistence.Cache;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SessionSecondLevelCacheTest extends CommittedDataFixture {
+    private Cache cache;
+    private int bookedId;
+    private int otherId;
+
+    @BeforeEach
+    void init(){
+        cache = entityManagerFactory.getCache();
+        bookedId = persistSession(LocalTime.of(10,0,0)).getId();
+        otherId = persistSession(LocalTime.of(12,0,0)).getId();
+        cache.evictAll();
+        transaction.executeWithoutResult(status -> yogaSessionRepository.findAll());
+    }
+
+    private YogaSession persistSession(LocalTime start){
+        return persistSession(LocalDate.now().plusDays(1), RoomType.EARTH_ROOM, start, 60, null);
+    }
+
+    @Test
+    void should_cacheSessions_when_sessionsLoaded(){
+        assertTrue(cache.contains(YogaSession.class, bookedId));
+        assertTrue(cache.contains(YogaSession.class, otherId));
+    }
+
+    @Test
+    void should_evictOnlyBookedSession_when_bookingSpaceWithNativeUpdate(){
+        SessionCacheEviction sessionCacheEviction = new SessionCacheEviction(entityManagerFactory);
+
+        transaction.executeWithoutResult(status -> {
+            yogaSessionRepository.bookOneSpaceIfAvailable(bookedId);
+            sessionCacheEviction.evictSession(bookedId);
+        });
+
+        assertFalse(cache.contains(YogaSession.class, bookedId));
+        assertTrue(cache.contains(YogaSession.class, otherId));
+        int bookedSpace = transaction.execute(status -> yogaSessionRepository.findById(bookedId).orElseThrow().getBookedSpace());
+        assertEquals(1, bookedSpace);
+    }
+}
@@ -0,0 +1,119 @@
+package dev.milan.jpasolopractice.data;
+
+import dev.milan.jpasolopractice.model.WaitlistEntry;
+import dev.milan.jpasolopractice.service.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class SessionWaitlistPromotionTest extends CommittedDataFixture {
+    private DayScheduleCache dayScheduleCache;
+    private SessionAvailabilityStreams availabilityStreams;
+    private SessionWaitlist sessionWaitlist;
+    private int sessionId;
+    private int firstId;
+    private int secondId;
+    private final LocalDate date = LocalDate.now().plusDays(1);
+
+    @BeforeEach
+    void init(){
+        dayScheduleCache = mock(DayScheduleCache.class);
+        availabilityStreams = mock(SessionAvailabilityStreams.class);
+        sessionWaitlist = new SessionWaitlist(waitlistEntryRepository, yogaSessionRepository, new SessionCacheEviction(entityManagerFactory)
+                , dayScheduleCache, availabilityStreams, transactionManager, 3);
+        sessionId = persistSessionWithFreeSpace(date, 1).getId();
+        firstId = persistPerson("first@example.com").getId();
+        secondId = persistPerson("second@example.com").getId();
+        LocalDateTime joinedAt = LocalDateTime.now();
+        transaction.executeWithoutResult(status -> {
+            waitlistEntryRepository.save(new WaitlistEntry(sessionId, secondId, joinedAt.plusSeconds(1)));
+            waitlistEntryRepository.save(new WaitlistEntry(sessionId, firstId, joinedAt));
+        });
+    }
+
+    private int countMember(int personId){
+        return transaction.execute(status -> yogaSessionRepository.countMember(sessionId, personId));
+    }
+
+    @Test
+    void should_bookFirstWaiter_when_promotingSession_and_oneSpaceFree(){
+        sessionWaitlist.promoteAfterCommit(sessionId);
+        sessionWaitlist.promotePending();
+
+        assertEquals(1, countMember(firstId));
+        assertEquals(0, countMember(secondId));
+        assertFalse(waitlistEntryRepository.existsBySessionIdAndPersonId(sessionId, firstId));
+        assertTrue(waitlistEntryRepository.existsBySessionIdAndPersonId(sessionId, secondId));
+        assertEquals(0, yogaSessionRepository.findById(sessionId).orElseThrow().getFreeSpace());
+        verify(dayScheduleCache, times(1)).invalidate(date);
+        verify(availabilityStreams, times(1)).sessionChanged(sessionId, date);
+    }
+
+    @Test
+    void should_skipWaiterAlreadyAttending_when_promotingSession(){
+        transaction.executeWithoutResult(status -> yogaSessionRepository.insertMember(sessionId, firstId));
+
+        sessionWaitlist.promoteAfterCommit(sessionId);
+        sessionWaitlist.promotePending();
+
+        assertEquals(1, countMember(secondId));
+        assertEquals(0, waitlistEntryRepository.count());
+    }
+
+    @Test
+    void should_keepWaiters_when_promotingSession_and_sessionFull(){
+        transaction.executeWithoutResult(status -> yogaSessionRepository.bookOneSpaceIfAvailable(sessionId));
+
+        sessionWaitlist.promoteAfterCommit(sessionId);
+        sessionWaitlist.promotePending();
+
+        assertEquals(0, countMember(firstId));
+        assertEquals(2, waitlistEntryRepository.count());
+        verifyNoInteractions(availabilityStreams);
+    }
+
+    @Test
+    void should_notPromote_when_sessionNotMarked(){
+        sessionWaitlist.promotePending();
+
+        assertEquals(2, waitlistEntryRepository.count());
+    }
+
+    @Test
+    void should_keepPromotingOtherSessions_when_oneSessionKeepsFailing(){
+        LocalDate failingDate = date.plusDays(1);
+        int failingId = persistSessionWithFreeSpace(failingDate, 1).getId();
+        transaction.executeWithoutResult(status -> waitlistEntryRepository.save(new WaitlistEntry(failingId, firstId, LocalDateTime.now())));
+        doThrow(new IllegalStateException("cache unavailable")).when(dayScheduleCache).invalidate(failingDate);
+
+        sessionWaitlist.promoteAfterCommit(failingId);
+        sessionWaitlist.promoteAfterCommit(sessionId);
+        for (int tick = 0; tick < 5; tick++){
+            sessionWaitlist.promotePending();
+        }
+
+        assertEquals(1, countMember(firstId));
+        assertEquals(0, (int) transaction.execute(status -> yogaSessionRepository.countMember(failingId, firstId)));
+        verify(dayScheduleCache, times(3)).invalidate(failingDate);
+        verify(dayScheduleCache, times(1)).invalidate(date);
+    }
+
+    @Test
+    void should_markSessionsWithWaitersAndFreeSpace_when_starting(){
+        int fullId = persistSessionWithFreeSpace(date.plusDays(1), 0).getId();
+        transaction.executeWithoutResult(status -> waitlistEntryRepository.save(new WaitlistEntry(fullId, firstId, LocalDateTime.now())));
+
+        sessionWaitlist.markSessionsWithFreeSpace();
+        sessionWaitlist.promotePending();
+
+        assertEquals(1, countMember(firstId));
+        assertEquals(0, (int) transaction.execute(status -> yogaSessionRepository.countMember(fullId, firstId)));
+        verify(availabilityStreams, times(1)).sessionChanged(sessionId, date);
+        verify(availabilityStreams, never()).sessionChanged(eq(fullId), any());
+    }
+}
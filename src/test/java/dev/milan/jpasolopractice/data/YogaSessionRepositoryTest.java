@@ -0,0 +1,144 @@
+package dev.milan.jpasolopractice.data;
+
+import dev.milan.jpasolopractice.dto.PageCursor;
+import dev.milan.jpasolopractice.dto.SessionSummary;
+import dev.milan.jpasolopractice.model.Room;
+import dev.milan.jpasolopractice.model.RoomType;
+import dev.milan.jpasolopractice.model.YogaSession;
+import dev.milan.jpasolopractice.service.PersonService;
+import dev.milan.jpasolopractice.service.RoomService;
+import dev.milan.jpasolopractice.service.YogaSessionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+public class YogaSessionRepositoryTest {
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private YogaSessionRepository yogaSessionRepository;
+    @MockBean
+    private RoomService roomService;
+    @MockBean
+    private PersonService personService;
+    @MockBean
+    private YogaSessionService yogaSessionService;
+    private final LocalDate date = LocalDate.now().plusDays(1);
+
+    @BeforeEach
+    void init(){
+        persistSession(date.plusDays(1), LocalTime.of(9,0,0));
+        persistSession(date, LocalTime.of(14,0,0));
+        persistSession(date, LocalTime.of(10,0,0));
+        persistSession(date, LocalTime.of(12,0,0));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private void persistSession(LocalDate sessionDate, LocalTime start){
+        YogaSession session = new YogaSession();
+        session.setDate(sessionDate);
+        session.setStartOfSession(start);
+        session.setEndOfSession(start.plusHours(1));
+        session.setRoomType(RoomType.AIR_ROOM);
+        entityManager.persist(session);
+    }
+
+    @Test
+    void should_streamSessionsInDateAndStartOrder_when_streamingSessionsBetweenDates(){
+        try (Stream<SessionSummary> rows = yogaSessionRepository.streamSummariesByDateBetween(date, date)){
+            assertEquals(List.of(LocalTime.of(10,0,0), LocalTime.of(12,0,0), LocalTime.of(14,0,0))
+                    , rows.map(SessionSummary::startOfSession).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void should_walkSessionsInDateAndStartOrder_when_pagingWithCursorFromPreviousPage(){
+        List<LocalTime> starts = new ArrayList<>();
+        PageCursor after = PageCursor.START;
+        List<SessionSummary> page;
+        do{
+            page = yogaSessionRepository.findPageWithoutRoomAfter(after.date(), after.time(), after.id(), PageRequest.of(0, 2));
+            starts.addAll(page.stream().map(SessionSummary::startOfSession).collect(Collectors.toList()));
+            if (!page.isEmpty()){
+                SessionSummary last = page.get(page.size() - 1);
+                after = new PageCursor(last.date(), last.startOfSession(), last.id());
+            }
+        }while (page.size() == 2);
+
+        assertEquals(List.of(LocalTime.of(10,0,0), LocalTime.of(12,0,0), LocalTime.of(14,0,0), LocalTime.of(9,0,0)), starts);
+    }
+
+    @Test
+    void should_returnNoRows_when_pagingSessionsWithRoom_and_allSessionsWithoutRoom(){
+        assertTrue(yogaSessionRepository.findPageWithRoomAfter(PageCursor.START.date(), PageCursor.START.time(), 0, PageRequest.of(0, 2)).isEmpty());
+    }
+
+    @Test
+    void should_returnRoomIdInSummary_when_searchingSessionsWithRoomByDate(){
+        Room room = new Room();
+        room.setDate(date);
+        room.setRoomType(RoomType.AIR_ROOM);
+        entityManager.persist(room);
+        YogaSession session = new YogaSession();
+        session.setDate(date);
+        session.setStartOfSession(LocalTime.of(16,0,0));
+        session.setEndOfSession(LocalTime.of(17,0,0));
+        session.setRoomType(RoomType.AIR_ROOM);
+        session.setRoom(room);
+        entityManager.persist(session);
+        entityManager.flush();
+
+        List<SessionSummary> summaries = yogaSessionRepository.findSummariesByDateWithRoom(date);
+
+        assertEquals(1, summaries.size());
+        assertEquals(room.getId(), summaries.get(0).roomId());
+        assertEquals(LocalTime.of(16,0,0), summaries.get(0).startOfSession());
+        assertEquals(3, yogaSessionRepository.findSummariesByDateWithoutRoom(date).size());
+    }
+
+    @Test
+    void should_rejectStaleSessionUpdate_when_spaceBookedAfterSessionWasRead(){
+        YogaSession stale = yogaSessionRepository.findAll().get(0);
+        stale.setFreeSpace(5);
+        yogaSessionRepository.saveAndFlush(stale);
+        entityManager.detach(stale);
+        yogaSessionRepository.bookOneSpaceIfAvailable(stale.getId());
+
+        stale.setDuration(90);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> yogaSessionRepository.saveAndFlush(stale));
+    }
+
+    @Test
+    void should_changeOnlyTagsOfSessionsDate_when_sessionUpdated(){
+        YogaSession session = yogaSessionRepository.findYogaSessionByDateAndStartOfSession(date, LocalTime.of(10,0,0));
+        String sessionTag = yogaSessionRepository.findVersionTagById(session.getId());
+        String dateTag = yogaSessionRepository.findVersionTagByDate(date);
+        String nextDateTag = yogaSessionRepository.findVersionTagByDate(date.plusDays(1));
+        String allTag = yogaSessionRepository.findVersionTag();
+
+        session.setDuration(90);
+        yogaSessionRepository.saveAndFlush(session);
+
+        assertNotEquals(sessionTag, yogaSessionRepository.findVersionTagById(session.getId()));
+        assertNotEquals(dateTag, yogaSessionRepository.findVersionTagByDate(date));
+        assertNotEquals(allTag, yogaSessionRepository.findVersionTag());
+        assertEquals(nextDateTag, yogaSessionRepository.findVersionTagByDate(date.plusDays(1)));
+    }
+}
@@ -0,0 +1,93 @@
+package dev.milan.jpasolopractice.services;
+
+import dev.milan.jpasolopractice.dto.DaySchedule;
+import dev.milan.jpasolopractice.service.DayScheduleCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DayScheduleCacheTest {
+    private DayScheduleCache dayScheduleCache;
+    private AtomicInteger loads;
+    private Function<LocalDate, DaySchedule> loader;
+    private final LocalDate date = LocalDate.now().plusDays(1);
+
+    @BeforeEach
+    void init(){
+        dayScheduleCache = new DayScheduleCache(3, 60_000);
+        loads = new AtomicInteger();
+        loader = day -> {
+            loads.incrementAndGet();
+            return new DaySchedule(day, List.of());
+        };
+    }
+
+    @Test
+    void should_returnSameSnapshot_when_readingSameDateTwice(){
+        DaySchedule first = dayScheduleCache.get(date, loader);
+        DaySchedule second = dayScheduleCache.get(date, loader);
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void should_rebuildSnapshot_when_dateInvalidated(){
+        DaySchedule first = dayScheduleCache.get(date, loader);
+
+        dayScheduleCache.invalidate(date);
+
+        assertNotSame(first, dayScheduleCache.get(date, loader));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void should_keepOtherDates_when_dateInvalidated(){
+        dayScheduleCache.get(date, loader);
+        dayScheduleCache.get(date.plusDays(1), loader);
+
+        dayScheduleCache.invalidate(date.plusDays(1));
+        dayScheduleCache.get(date, loader);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void should_notKeepSnapshot_when_dateInvalidatedWhileLoading(){
+        DaySchedule stale = dayScheduleCache.get(date, day -> {
+            dayScheduleCache.invalidate(day);
+            return loader.apply(day);
+        });
+
+        assertNotSame(stale, dayScheduleCache.get(date, loader));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void should_dropOldestSnapshot_when_moreDatesThanLimit(){
+        for (int day = 0; day < 4; day++){
+            dayScheduleCache.get(date.plusDays(day), loader);
+        }
+
+        dayScheduleCache.get(date.plusDays(3), loader);
+        dayScheduleCache.get(date.plusDays(1), loader);
+        assertEquals(4, loads.get());
+        dayScheduleCache.get(date, loader);
+        assertEquals(5, loads.get());
+    }
+
+    @Test
+    void should_reloadSnapshot_when_snapshotExpired(){
+        DayScheduleCache expiring = new DayScheduleCache(3, 0);
+        expiring.get(date, loader);
+        expiring.get(date, loader);
+
+        assertEquals(2, loads.get());
+    }
+}
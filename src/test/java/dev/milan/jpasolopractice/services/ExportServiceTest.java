@@ -0,0 +1,109 @@
+package dev.milan.jpasolopractice.services;
+
+import dev.milan.jpasolopractice.customException.differentExceptions.BadRequestApiRequestException;
+import dev.milan.jpasolopractice.customException.differentExceptions.NotFoundApiRequestException;
+import dev.milan.jpasolopractice.data.RoomRepository;
+import dev.milan.jpasolopractice.data.YogaSessionRepository;
+import dev.milan.jpasolopractice.dto.BookingRow;
+import dev.milan.jpasolopractice.dto.RoomSummary;
+import dev.milan.jpasolopractice.dto.SessionSummary;
+import dev.milan.jpasolopractice.model.RoomType;
+import dev.milan.jpasolopractice.service.DataExport;
+import dev.milan.jpasolopractice.service.ExportService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+public class ExportServiceTest {
+    @Autowired
+    private ExportService exportService;
+    @MockBean
+    private YogaSessionRepository yogaSessionRepository;
+    @MockBean
+    private RoomRepository roomRepository;
+    private final LocalDate date = LocalDate.of(2030, 1, 1);
+
+    private static String write(DataExport export) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        export.body().writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void should_writeOneJsonObjectPerLine_when_exportingSessionsAsNdjson() throws IOException {
+        when(yogaSessionRepository.streamSummariesByDateBetween(LocalDate.of(1, 1, 1), LocalDate.of(9999, 12, 31))).thenReturn(Stream.of(
+                new SessionSummary(4, date, LocalTime.of(10,0,0), LocalTime.of(11,0,0), 60, 2, 8, RoomType.AIR_ROOM, 7),
+                new SessionSummary(5, date, LocalTime.of(12,0,0), LocalTime.of(13,0,0), 60, 0, 10, RoomType.AIR_ROOM, null)));
+
+        DataExport export = exportService.prepare("sessions", Optional.empty(), Optional.empty(), Optional.empty());
+        String[] lines = write(export).split("\n");
+
+        assertEquals("application/x-ndjson", export.contentType());
+        assertEquals("sessions.ndjson", export.fileName());
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":4,\"date\":\"2030-01-01\""));
+        assertTrue(lines[1].contains("\"roomId\":null"));
+    }
+
+    @Test
+    void should_writeHeaderAndRows_when_exportingRoomsAsCsv() throws IOException {
+        when(roomRepository.streamSummariesByDateBetween(date, date.plusDays(6))).thenReturn(Stream.of(
+                new RoomSummary(7, date, LocalTime.of(6,0,0), LocalTime.of(22,0,0), RoomType.AIR_ROOM, 30)));
+
+        DataExport export = exportService.prepare("rooms", Optional.of("csv"), Optional.of("2030-01-01"), Optional.of("2030-01-07"));
+
+        assertEquals("id,date,openingHours,closingHours,roomType,totalCapacity\n7,2030-01-01,06:00,22:00,AIR_ROOM,30\n", write(export));
+        assertEquals("rooms.csv", export.fileName());
+    }
+
+    @Test
+    void should_closeRowStream_when_exportWritten() throws IOException {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(yogaSessionRepository.streamBookingsByDateBetween(any(), any()))
+                .thenReturn(Stream.of(new BookingRow(4, 3, date)).onClose(() -> closed.set(true)));
+
+        assertEquals("sessionId,personId,date\n4,3,2030-01-01\n", write(exportService.prepare("bookings", Optional.of("CSV"), Optional.empty(), Optional.empty())));
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void should_notReadRows_when_exportPreparedButNotWritten(){
+        exportService.prepare("bookings", Optional.empty(), Optional.empty(), Optional.empty());
+
+        verify(yogaSessionRepository, never()).streamBookingsByDateBetween(any(), any());
+    }
+
+    @Test
+    void should_throwException404NotFound_when_exportingUnknownEntity(){
+        Exception exception = assertThrows(NotFoundApiRequestException.class, () -> exportService.prepare("people", Optional.empty(), Optional.empty(), Optional.empty()));
+        assertEquals("Export of people not found. Export sessions, rooms or bookings.", exception.getMessage());
+    }
+
+    @Test
+    void should_throwException400BadRequest_when_exportingWithUnknownFormat(){
+        Exception exception = assertThrows(BadRequestApiRequestException.class, () -> exportService.prepare("sessions", Optional.of("xml"), Optional.empty(), Optional.empty()));
+        assertEquals("Export format must be ndjson or csv.", exception.getMessage());
+    }
+
+    @Test
+    void should_throwException400BadRequest_when_exportingWithStartAfterEnd(){
+        Exception exception = assertThrows(BadRequestApiRequestException.class
+                , () -> exportService.prepare("sessions", Optional.empty(), Optional.of("2030-01-07"), Optional.of("2030-01-01")));
+        assertEquals("Export start date must not be after its end date.", exception.getMessage());
+    }
+}
@@ -0,0 +1,100 @@
+package dev.milan.jpasolopractice.services;
+
+import dev.milan.jpasolopractice.customException.differentExceptions.BadRequestApiRequestException;
+import dev.milan.jpasolopractice.customException.differentExceptions.ConflictApiRequestException;
+import dev.milan.jpasolopractice.data.IdempotencyKeyRepository;
+import dev.milan.jpasolopractice.model.IdempotencyKey;
+import dev.milan.jpasolopractice.service.IdempotencyKeyService;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+public class IdempotencyKeyServiceTest {
+    @Autowired
+    private IdempotencyKeyService idempotencyKeyService;
+    @MockBean
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+    private final String request = "POST /rooms 2030-05-22 10:00 20:00 AIR_ROOM";
+
+    @Test
+    void should_returnEmptyWithoutLookup_when_findingOriginal_and_noKeySent(){
+        assertTrue(idempotencyKeyService.findOriginal(Optional.empty(), request).isEmpty());
+        verify(idempotencyKeyRepository, never()).findById(any());
+    }
+
+    @Test
+    void should_returnOriginalResourceId_when_findingOriginal_and_keyUsedForSameRequest(){
+        when(idempotencyKeyRepository.findById("retry-1")).thenReturn(Optional.of(new IdempotencyKey("retry-1", request, 7)));
+
+        assertEquals(Optional.of(7), idempotencyKeyService.findOriginal(Optional.of("retry-1"), request));
+    }
+
+    @Test
+    void should_throwException409Conflict_when_findingOriginal_and_keyUsedForDifferentRequest(){
+        when(idempotencyKeyRepository.findById("retry-1")).thenReturn(Optional.of(new IdempotencyKey("retry-1", "POST /sessions", 7)));
+
+        Exception exception = assertThrows(ConflictApiRequestException.class, () -> idempotencyKeyService.findOriginal(Optional.of("retry-1"), request));
+        assertEquals("Idempotency-Key:retry-1 was already used for a different request.", exception.getMessage());
+    }
+
+    @Test
+    void should_throwException400BadRequest_when_findingOriginal_and_keyBlank(){
+        assertThrows(BadRequestApiRequestException.class, () -> idempotencyKeyService.findOriginal(Optional.of(" "), request));
+    }
+
+    @Test
+    void should_saveKeyWithRequestAndResourceId_when_remembering(){
+        ArgumentCaptor<IdempotencyKey> captor = ArgumentCaptor.forClass(IdempotencyKey.class);
+
+        idempotencyKeyService.remember(Optional.of("retry-1"), request, 7);
+
+        verify(idempotencyKeyRepository, times(1)).saveAndFlush(captor.capture());
+        assertEquals(request, captor.getValue().getRequest());
+        assertEquals(7, captor.getValue().getResourceId());
+        assertNotNull(captor.getValue().getCreatedAt());
+    }
+
+    @Test
+    void should_deleteKeysOlderThanRetention_when_purgingExpiredKeys(){
+        ArgumentCaptor<LocalDateTime> captor = ArgumentCaptor.forClass(LocalDateTime.class);
+        LocalDateTime before = LocalDateTime.now().minusDays(1);
+
+        idempotencyKeyService.purgeExpired();
+
+        verify(idempotencyKeyRepository, atLeastOnce()).deleteCreatedBefore(captor.capture());
+        assertFalse(captor.getValue().isBefore(before));
+        assertFalse(captor.getValue().isAfter(LocalDateTime.now().minusDays(1)));
+    }
+
+    @Test
+    void should_returnInsertedIdAndRememberKey_when_creatingOnce(){
+        assertEquals(7, idempotencyKeyService.createOnce(Optional.of("retry-1"), request, () -> 7));
+        verify(idempotencyKeyRepository, times(1)).saveAndFlush(any());
+    }
+
+    @Test
+    void should_returnStoredResourceId_when_creatingOnce_and_concurrentRetryStoredKeyFirst(){
+        when(idempotencyKeyRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("PRIMARY KEY ON IDEMPOTENCY_KEYS"));
+        when(idempotencyKeyRepository.findById("retry-1")).thenReturn(Optional.of(new IdempotencyKey("retry-1", request, 5)));
+
+        assertEquals(5, idempotencyKeyService.createOnce(Optional.of("retry-1"), request, () -> 7));
+    }
+
+    @Test
+    void should_rethrowCollision_when_creatingOnce_and_noKeyStored(){
+        assertThrows(DataIntegrityViolationException.class, () -> idempotencyKeyService.createOnce(Optional.empty(), request, () -> {
+            throw new DataIntegrityViolationException("UK_ROOMS_DATE_ROOM_TYPE");
+        }));
+    }
+}
@@ -8,12 +8,18 @@ import dev.milan.jpasolopractice.customException.differentExceptions.ConflictApi
 import dev.milan.jpasolopractice.customException.differentExceptions.NotFoundApiRequestException;
 import dev.milan.jpasolopractice.data.PersonRepository;
 import dev.milan.jpasolopractice.data.YogaSessionRepository;
+import dev.milan.jpasolopractice.dto.KeysetPage;
+import dev.milan.jpasolopractice.dto.PageCursor;
+import dev.milan.jpasolopractice.dto.PersonSummary;
 import dev.milan.jpasolopractice.model.Person;
 import dev.milan.jpasolopractice.model.Room;
 import dev.milan.jpasolopractice.model.YogaSession;
+import dev.milan.jpasolopractice.service.DayScheduleCache;
 import dev.milan.jpasolopractice.service.FormatCheckService;
 import dev.milan.jpasolopractice.service.PersonService;
 import dev.milan.jpasolopractice.service.PersonServiceUtil;
+import dev.milan.jpasolopractice.service.SeatHolds;
+import dev.milan.jpasolopractice.service.SessionWaitlist;
 import dev.milan.jpasolopractice.service.YogaSessionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -23,6 +29,7 @@ import org.mockito.Captor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
@@ -32,6 +39,7 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 
@@ -54,6 +62,12 @@ public class PersonServiceTest {
     private YogaSessionRepository yogaSessionRepository;
     @MockBean
     private FormatCheckService formatCheckService;
+    @MockBean
+    private SessionWaitlist sessionWaitlist;
+    @MockBean
+    private SeatHolds seatHolds;
+    @MockBean
+    private DayScheduleCache dayScheduleCache;
     @Autowired
     ObjectMapper mapper;
 
@@ -155,43 +169,47 @@ public class PersonServiceTest {
 
         @Test
         void should_returnListOfAllPeople_when_searchingPeopleWithParams_and_noParamsPassed(){
-            when(personRepository.findAll()).thenReturn(personList);
-            assertEquals(personList, personService.findPeopleByParams(Optional.empty(),Optional.empty(),Optional.empty()));
+            List<PersonSummary> summaries = List.of(summaryOf(personOne));
+            when(personRepository.findAllSummaries()).thenReturn(summaries);
+            assertEquals(summaries, personService.findPeopleByParams(Optional.empty(),Optional.empty(),Optional.empty()));
         }
         @Test
         void should_returnListOfPeopleByAge_when_searchingPeopleWithParams_and_startAgeEndAgePassed(){
             when(formatCheckService.checkNumberFormat("42")).thenReturn(42);
             when(formatCheckService.checkNumberFormat("43")).thenReturn(43);
-            when(personRepository.findPeopleByAgeBetween(anyInt(),anyInt())).thenReturn(personList);
-            assertEquals(personList, personService.findPeopleByParams(Optional.empty(),Optional.of("42"),Optional.of("43")));
+            List<PersonSummary> summaries = List.of(summaryOf(personOne));
+            when(personRepository.findSummariesByAgeBetween(42,43)).thenReturn(summaries);
+            assertEquals(summaries, personService.findPeopleByParams(Optional.empty(),Optional.of("42"),Optional.of("43")));
         }
         @Test
         void should_returnListOfPeopleBySessionId_when_searchingPeopleWithParams_and_sessionIdPassed(){
-            session.addMember(personOne);
             session.setId(3);
+            List<PersonSummary> summaries = List.of(summaryOf(personOne));
             when(formatCheckService.checkNumberFormat("" + session.getId())).thenReturn(session.getId());
-            when(yogaSessionRepository.findById(session.getId())).thenReturn(Optional.of(session));
-            assertEquals(session.getMembersAttending(), personService.findPeopleByParams(Optional.of("" + session.getId()),Optional.empty(),Optional.empty()));
+            when(yogaSessionRepository.existsById(session.getId())).thenReturn(true);
+            when(personRepository.findSummariesBySessionId(session.getId())).thenReturn(summaries);
+            assertEquals(summaries, personService.findPeopleByParams(Optional.of("" + session.getId()),Optional.empty(),Optional.empty()));
         }
         @Test
         void should_returnListOfPeopleBySessionIdAndAge_when_searchingPeopleWithParams_and_sessionIdStartAgeEndAgePassed(){
-            Person tooYoung = new Person();
-            tooYoung.setAge(12);
-            Person tooOld = new Person();
-            tooOld.setAge(99);
-            Person searchedAge = new Person();
-            searchedAge.setAge(42);
             session.setId(3);
-            session.addMember(tooYoung);
-            session.addMember(tooOld);
-            session.addMember(searchedAge);
+            List<PersonSummary> summaries = List.of(summaryOf(personOne));
 
             when(formatCheckService.checkNumberFormat("42")).thenReturn(42);
             when(formatCheckService.checkNumberFormat("43")).thenReturn(43);
             when(formatCheckService.checkNumberFormat("" + session.getId())).thenReturn(session.getId());
-            when(yogaSessionRepository.findById(session.getId())).thenReturn(Optional.of(session));
+            when(yogaSessionRepository.existsById(session.getId())).thenReturn(true);
+            when(personRepository.findSummariesBySessionIdAndAgeBetween(session.getId(), 42, 43)).thenReturn(summaries);
 
-            assertEquals(List.of(searchedAge), personService.findPeopleByParams(Optional.of("" + session.getId()), Optional.of("42"),Optional.of("43")));
+            assertEquals(summaries, personService.findPeopleByParams(Optional.of("" + session.getId()), Optional.of("42"),Optional.of("43")));
+        }
+        @Test
+        void should_throwException404NotFound_when_searchingPeopleWithParams_and_sessionNotFound(){
+            when(formatCheckService.checkNumberFormat("3")).thenReturn(3);
+            when(yogaSessionRepository.existsById(3)).thenReturn(false);
+            Exception exception = assertThrows(NotFoundApiRequestException.class,()-> personService.findPeopleByParams(Optional.of("3"), Optional.empty(), Optional.empty()));
+            assertEquals("Yoga session id:3 not found.", exception.getMessage());
+            verify(personRepository, never()).findSummariesBySessionId(anyInt());
         }
         @Test
         void should_throwException404NotFound_when_searchingPeopleWithParams_and_sessionIdIncorrectFormatPassed(){
@@ -214,6 +232,58 @@ public class PersonServiceTest {
 
 
     }
+    @Nested
+    class PagingPeople{
+        @Test
+        void should_returnPageWithNextCursor_when_pagingPeople_and_moreRowsThanPageSize(){
+            PersonSummary first = summaryOf(personOne);
+            PersonSummary second = new PersonSummary(7, NAME, AGE, EMAIL);
+            PersonSummary third = new PersonSummary(9, NAME, AGE, "third@yahoo.com");
+            when(personRepository.findPageAfter(0, PageRequest.of(0, 3))).thenReturn(List.of(first, second, third));
+
+            KeysetPage<PersonSummary> page = personService.findPeoplePageByParams(Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), Optional.of("2"));
+
+            assertEquals(List.of(first, second), page.content());
+            assertEquals(PageCursor.ofId(7).encode(), page.nextCursor());
+        }
+        @Test
+        void should_continueAfterCursorId_when_pagingPeopleByAge_and_cursorPassed(){
+            when(formatCheckService.checkNumberFormat("20")).thenReturn(20);
+            when(formatCheckService.checkNumberFormat("40")).thenReturn(40);
+            List<PersonSummary> summaries = List.of(new PersonSummary(5, NAME, AGE, EMAIL));
+            when(personRepository.findPageByAgeBetweenAfter(20, 40, 4, PageRequest.of(0, 51))).thenReturn(summaries);
+
+            KeysetPage<PersonSummary> page = personService.findPeoplePageByParams(Optional.empty(), Optional.of("20"), Optional.of("40")
+                    , Optional.of(PageCursor.ofId(4).encode()), Optional.empty());
+
+            assertEquals(summaries, page.content());
+            assertNull(page.nextCursor());
+        }
+        @Test
+        void should_pageSessionMembersById_when_pagingPeople_and_sessionIdPassed(){
+            PersonSummary second = new PersonSummary(2, NAME, AGE, EMAIL);
+            session.setId(3);
+            when(formatCheckService.checkNumberFormat("" + session.getId())).thenReturn(session.getId());
+            when(yogaSessionRepository.existsById(session.getId())).thenReturn(true);
+            when(personRepository.findSummariesBySessionId(session.getId())).thenReturn(List.of(summaryOf(personOne), second));
+
+            KeysetPage<PersonSummary> page = personService.findPeoplePageByParams(Optional.of("" + session.getId()), Optional.empty(), Optional.empty()
+                    , Optional.empty(), Optional.of("1"));
+
+            assertEquals(List.of(second), page.content());
+            assertEquals(PageCursor.ofId(2).encode(), page.nextCursor());
+        }
+        @Test
+        void should_throwException400BadRequest_when_pagingPeople_and_cursorMalformed(){
+            Exception exception = assertThrows(BadRequestApiRequestException.class, ()-> personService.findPeoplePageByParams(Optional.empty()
+                    , Optional.empty(), Optional.empty(), Optional.of("not-a-cursor"), Optional.empty()));
+            assertEquals("Incorrect cursor. Use the cursor returned with the previous page.", exception.getMessage());
+        }
+    }
+    private PersonSummary summaryOf(Person person){
+        return new PersonSummary(person.getId(), person.getName(), person.getAge(), person.getEmail());
+    }
+
     @Nested
     class RemovingSessionFromPerson{
         @Test
@@ -223,7 +293,7 @@ public class PersonServiceTest {
         }
         @Test
         void should_throwException404NotFound_when_removingSessionFromPerson_and_personDoesntContainYogaSession(){
-            personOne.setYogaSessions(new ArrayList<>());
+            personOne.setYogaSessions(new HashSet<>());
             Exception exception = assertThrows(NotFoundApiRequestException.class,()-> personService.removeSessionFromPerson(personOne,session));
             assertEquals("Yoga session id:" + session.getId() + " not found in user id:" + personOne.getId() + " sessions.", exception.getMessage());
 
@@ -235,7 +305,7 @@ public class PersonServiceTest {
 
         @Test
         void should_returnTrue_when_addingSessionToPerson_and_sessionNotPresent(){
-            personOne.setYogaSessions(new ArrayList<>());
+            personOne.setYogaSessions(new HashSet<>());
             assertTrue(personService.addSessionToPerson(session,personOne));
         }
         @Test
@@ -249,12 +319,12 @@ public class PersonServiceTest {
 
     @Test
     void should_returnAllSessionsFromPerson_when_searchingAllSessionsFromPerson_and_personIsFoundInRepo(){
-        when(personRepository.findById(any())).thenReturn(Optional.of(personOne));
+        when(personRepository.findWithSessionsById(anyInt())).thenReturn(Optional.of(personOne));
         assertEquals(1,personService.getAllSessionsFromPerson(personOne.getId()).size());
     }
     @Test
     void should_returnNull_when_searchingAllSessionsFromPerson_and_personNotFoundInRepo(){
-        when(personRepository.findById(any())).thenReturn(Optional.empty());
+        when(personRepository.findWithSessionsById(anyInt())).thenReturn(Optional.empty());
 
         Exception exception = assertThrows(ApiRequestException.class, ()-> personService.getAllSessionsFromPerson(personOne.getId()));
         assertEquals("Person id:" + personOne.getId() + " couldn't be found.",exception.getMessage());
@@ -264,7 +334,7 @@ public class PersonServiceTest {
     class PatchingPerson{
         @Test
         void should_returnUpdatedPerson_when_patchingPerson_and_passedCorrectDate() throws IOException {
-            personOne.setYogaSessions(new ArrayList<>());
+            personOne.setYogaSessions(new HashSet<>());
 
             testPerson.setEmail("zzomn@hotmail.com");
             String patchInfo = "[{ \"op\": \"replace\", \"path\": \"/email\", \"value\": \"zzomn@hotmail.com\" }]";
@@ -301,7 +371,7 @@ public class PersonServiceTest {
             when(personServiceUtil.createPerson(testPerson.getName(),testPerson.getAge(),testPerson.getEmail())).thenReturn(testPerson);
 
             Exception exception = assertThrows(BadRequestApiRequestException.class, ()-> personService.patchPerson("" + personOne.getId(),patch));
-            assertEquals("Patch request cannot change user sessions.",exception.getMessage());
+            assertEquals("Incorrect patch request data.",exception.getMessage());
             verify(personRepository,never()).save(any());
         }
     }
@@ -313,11 +383,12 @@ public class PersonServiceTest {
             when(personRepository.findById(personOne.getId())).thenReturn(Optional.ofNullable(personOne));
             personService.deletePerson(personOne.getId());
             verify(personRepository,times(1)).delete(personOne);
+            verify(seatHolds,times(1)).releaseHoldsOf(personOne.getId());
         }
         @Test
         void should_removePersonFromAllItsSessions_when_deletingAPerson_and_personIsFound(){
             ArgumentCaptor<YogaSession> argumentCaptor = ArgumentCaptor.forClass(YogaSession.class);
-            personOne.setYogaSessions(new ArrayList<>());
+            personOne.setYogaSessions(new HashSet<>());
             session.setId(321);
             personOne.addSession(session);
             session.addMember(personOne);
@@ -329,6 +400,22 @@ public class PersonServiceTest {
             verify(yogaSessionRepository,times(1)).save(argumentCaptor.getValue());
         }
         @Test
+        void should_freeSpaceAndPromoteWaitlist_when_deletingAPerson_and_personAttendsSession(){
+            personOne.setYogaSessions(new HashSet<>());
+            session.setId(321);
+            session.bookOneSpace();
+            int freeSpace = session.getFreeSpace();
+            personOne.addSession(session);
+            session.addMember(personOne);
+            when(personRepository.findById(personOne.getId())).thenReturn(Optional.ofNullable(personOne));
+
+            personService.deletePerson(personOne.getId());
+
+            assertEquals(freeSpace + 1, session.getFreeSpace());
+            verify(sessionWaitlist,times(1)).promoteAfterCommit(session.getId());
+            verify(dayScheduleCache,times(1)).invalidate(session.getDate());
+        }
+        @Test
         void should_throwException404NotFound_when_deletingAPerson_and_personNotFound(){
             when(personRepository.findById(personOne.getId())).thenReturn(Optional.empty());
             Exception exception = assertThrows(NotFoundApiRequestException.class,()-> personService.deletePerson(personOne.getId()));
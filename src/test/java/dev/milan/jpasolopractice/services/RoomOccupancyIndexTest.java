@@ -0,0 +1,163 @@
+package dev.milan.jpasolopractice.services;
+
+import dev.milan.jpasolopractice.model.Room;
+import dev.milan.jpasolopractice.model.RoomType;
+import dev.milan.jpasolopractice.model.YogaSession;
+import dev.milan.jpasolopractice.service.RoomOccupancyIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RoomOccupancyIndexTest {
+    private RoomOccupancyIndex occupancyIndex;
+    private Room room;
+    private YogaSession session;
+
+    @BeforeEach
+    void init(){
+        occupancyIndex = new RoomOccupancyIndex();
+        room = new Room();
+        room.setId(4);
+        room.setRoomType(RoomType.AIR_ROOM);
+        room.setDate(LocalDate.now().plusDays(3));
+
+        session = createSession(11, LocalTime.of(10,0,0), LocalTime.of(11,0,0));
+        room.addSession(session);
+    }
+
+    private YogaSession createSession(int id, LocalTime start, LocalTime end){
+        YogaSession yogaSession = new YogaSession();
+        yogaSession.setId(id);
+        yogaSession.setStartOfSession(start);
+        yogaSession.setEndOfSession(end);
+        return yogaSession;
+    }
+
+    @Test
+    void should_returnTrue_when_checkingOverlap_and_periodIntersectsExistingSession(){
+        assertTrue(occupancyIndex.overlaps(room, LocalTime.of(9,30,0), LocalTime.of(10,30,0)));
+        assertTrue(occupancyIndex.overlaps(room, LocalTime.of(10,30,0), LocalTime.of(11,30,0)));
+        assertTrue(occupancyIndex.overlaps(room, LocalTime.of(10,0,0), LocalTime.of(10,30,0)));
+        assertTrue(occupancyIndex.overlaps(room, LocalTime.of(9,0,0), LocalTime.of(12,0,0)));
+    }
+
+    @Test
+    void should_returnFalse_when_checkingOverlap_and_periodTouchesExistingSession(){
+        assertFalse(occupancyIndex.overlaps(room, LocalTime.of(9,0,0), LocalTime.of(10,0,0)));
+        assertFalse(occupancyIndex.overlaps(room, LocalTime.of(11,0,0), LocalTime.of(12,0,0)));
+    }
+
+    @Test
+    void should_keepUsingIndex_when_sessionRegisteredWithoutReloadingRoom(){
+        occupancyIndex.overlaps(room, LocalTime.of(8,0,0), LocalTime.of(9,0,0));
+        YogaSession newSession = createSession(12, LocalTime.of(14,0,0), LocalTime.of(15,0,0));
+
+        occupancyIndex.register(room, newSession);
+
+        assertTrue(occupancyIndex.overlaps(room, LocalTime.of(14,30,0), LocalTime.of(15,30,0)));
+    }
+
+    @Test
+    void should_freePeriod_when_sessionReleased(){
+        occupancyIndex.overlaps(room, LocalTime.of(8,0,0), LocalTime.of(9,0,0));
+
+        occupancyIndex.release(room, session);
+
+        assertFalse(occupancyIndex.overlaps(room, LocalTime.of(10,0,0), LocalTime.of(11,0,0)));
+    }
+
+    @Test
+    void should_reloadFromSessionList_when_roomEvicted(){
+        occupancyIndex.overlaps(room, LocalTime.of(8,0,0), LocalTime.of(9,0,0));
+        room.addSession(createSession(13, LocalTime.of(16,0,0), LocalTime.of(17,0,0)));
+        assertFalse(occupancyIndex.overlaps(room, LocalTime.of(16,0,0), LocalTime.of(17,0,0)));
+
+        occupancyIndex.evict(room.getId());
+
+        assertTrue(occupancyIndex.overlaps(room, LocalTime.of(16,0,0), LocalTime.of(17,0,0)));
+    }
+
+    @Test
+    void should_showRegistrationOnlyToItsTransaction_until_transactionCommits() throws Exception{
+        occupancyIndex.overlaps(room, LocalTime.of(8,0,0), LocalTime.of(9,0,0));
+        YogaSession newSession = createSession(12, LocalTime.of(14,0,0), LocalTime.of(15,0,0));
+        TransactionSynchronizationManager.initSynchronization();
+        try{
+            occupancyIndex.register(room, newSession);
+
+            assertTrue(occupancyIndex.overlaps(room, LocalTime.of(14,0,0), LocalTime.of(15,0,0)));
+            assertFalse(CompletableFuture.supplyAsync(() -> occupancyIndex.overlaps(room, LocalTime.of(14,0,0), LocalTime.of(15,0,0))).get());
+            completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+        }finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertTrue(occupancyIndex.overlaps(room, LocalTime.of(14,0,0), LocalTime.of(15,0,0)));
+    }
+
+    @Test
+    void should_dropRegistration_when_transactionRollsBack(){
+        occupancyIndex.overlaps(room, LocalTime.of(8,0,0), LocalTime.of(9,0,0));
+        TransactionSynchronizationManager.initSynchronization();
+        try{
+            occupancyIndex.register(room, createSession(12, LocalTime.of(14,0,0), LocalTime.of(15,0,0)));
+            completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertFalse(occupancyIndex.overlaps(room, LocalTime.of(14,0,0), LocalTime.of(15,0,0)));
+    }
+
+    @Test
+    void should_rebuildFromNewerRoom_when_timelineBuiltFromListLoadedBeforeCommit(){
+        YogaSession placed = createSession(12, LocalTime.of(14,0,0), LocalTime.of(15,0,0));
+        TransactionSynchronizationManager.initSynchronization();
+        try{
+            occupancyIndex.register(room, placed);
+            completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+        }finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertFalse(occupancyIndex.overlaps(room, LocalTime.of(14,0,0), LocalTime.of(15,0,0)));
+        Room reloaded = new Room();
+        reloaded.setId(room.getId());
+        reloaded.setDate(room.getDate());
+        reloaded.setVersion(room.getVersion() + 1);
+        reloaded.addSession(session);
+        reloaded.addSession(placed);
+
+        assertTrue(occupancyIndex.overlaps(reloaded, LocalTime.of(14,30,0), LocalTime.of(15,30,0)));
+        assertTrue(occupancyIndex.overlaps(room, LocalTime.of(14,30,0), LocalTime.of(15,30,0)));
+    }
+
+    @Test
+    void should_dropOldestRoom_when_indexHoldsMaximumRooms(){
+        occupancyIndex = new RoomOccupancyIndex(1);
+        occupancyIndex.overlaps(room, LocalTime.of(8,0,0), LocalTime.of(9,0,0));
+        room.addSession(createSession(13, LocalTime.of(16,0,0), LocalTime.of(17,0,0)));
+        Room laterRoom = new Room();
+        laterRoom.setId(5);
+        laterRoom.setDate(room.getDate().plusDays(1));
+
+        occupancyIndex.overlaps(laterRoom, LocalTime.of(8,0,0), LocalTime.of(9,0,0));
+
+        assertTrue(occupancyIndex.overlaps(room, LocalTime.of(16,0,0), LocalTime.of(17,0,0)));
+    }
+
+    private void completeTransaction(int status){
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        if (status == TransactionSynchronization.STATUS_COMMITTED){
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+}
@@ -10,16 +10,24 @@ import dev.milan.jpasolopractice.customException.differentExceptions.ConflictApi
 import dev.milan.jpasolopractice.customException.differentExceptions.NotFoundApiRequestException;
 import dev.milan.jpasolopractice.data.RoomRepository;
 import dev.milan.jpasolopractice.data.YogaSessionRepository;
+import dev.milan.jpasolopractice.dto.FreeSlot;
+import dev.milan.jpasolopractice.dto.RoomSummary;
 import dev.milan.jpasolopractice.model.Room;
 import dev.milan.jpasolopractice.model.RoomType;
 import dev.milan.jpasolopractice.model.YogaSession;
+import dev.milan.jpasolopractice.service.DayScheduleCache;
 import dev.milan.jpasolopractice.service.FormatCheckService;
+import dev.milan.jpasolopractice.service.IdempotencyKeyService;
 import dev.milan.jpasolopractice.service.RoomService;
 import dev.milan.jpasolopractice.service.RoomServiceUtil;
+import dev.milan.jpasolopractice.service.RoomTemplates;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
@@ -30,9 +38,12 @@ import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @SpringBootTest
@@ -53,11 +64,18 @@ public class RoomServiceTest {
     private YogaSessionRepository yogaSessionRepository;
     @MockBean
     private FormatCheckService formatCheckService;
+    @MockBean
+    private DayScheduleCache dayScheduleCache;
+    @MockBean
+    private IdempotencyKeyService idempotencyKeyService;
+    @MockBean
+    private RoomTemplates roomTemplates;
     private LocalDate date;
     private RoomType roomType;
     private String dateString;
     private String roomtTypeString;
     private List<Room> roomList;
+    private List<RoomSummary> summaryList;
     private JsonPatch jsonPatch;
     private String updatePatchInfo;
     private final LocalTime MIN_HOURS = LocalTime.of(8,0,0);
@@ -67,6 +85,7 @@ public class RoomServiceTest {
 
     @BeforeEach
      void init(){
+        when(idempotencyKeyService.createOnce(any(), anyString(), any())).thenAnswer(invocation -> invocation.<Supplier<Integer>>getArgument(2).get());
         roomOne = new Room();
         roomOne.setDate(LocalDate.now());
         roomOne.setOpeningHours(MIN_HOURS.plusHours(2));
@@ -92,6 +111,8 @@ public class RoomServiceTest {
 
         roomList = new ArrayList<>();
         roomList.add(roomOne);
+        summaryList = List.of(new RoomSummary(roomOne.getId(), roomOne.getDate(), roomOne.getOpeningHours(), roomOne.getClosingHours()
+                , roomOne.getRoomType(), roomOne.getTotalCapacity()));
 
         updatePatchInfo = "[\n" +
                 "   {\"op\":\"replace\",\"path\":\"/date\", \"value\":\"2025-05-22\"},\n" +
@@ -109,12 +130,20 @@ public class RoomServiceTest {
             when(formatCheckService.checkTimeFormat(roomOne.getClosingHours().toString())).thenReturn(roomOne.getClosingHours());
             when(formatCheckService.checkRoomTypeFormat(roomOne.getRoomType().name())).thenReturn(roomOne.getRoomType());
 
-            when(roomRepository.findRoomByDateAndRoomType(any(),any())).thenReturn(null);
             when(roomServiceUtil.createARoom(any(),any(),any(),any())).thenReturn(roomOne);
-            when(roomRepository.save(any())).thenReturn(null);
 
             assertEquals(roomOne, roomService.createARoom(LocalDate.now().toString(), LocalTime.of(5,0,0).toString(),LocalTime.of(20,0,0).toString(), RoomType.AIR_ROOM.name()));
         }
+        @Test
+        void should_dropDaySchedule_when_creatingARoom_and_roomDoesntExist(){
+            when(formatCheckService.checkDateFormat(any())).thenReturn(roomOne.getDate());
+            when(formatCheckService.checkRoomTypeFormat(any())).thenReturn(roomOne.getRoomType());
+            when(roomServiceUtil.createARoom(any(),any(),any(),any())).thenReturn(roomOne);
+
+            roomService.createARoom(roomOne.getDate().toString(), "10:00:00", "20:00:00", roomOne.getRoomType().name());
+
+            verify(dayScheduleCache, times(1)).invalidate(roomOne.getDate());
+        }
 
         @Test
         void should_throwException409ConflictWithMessage_when_creatingARoom_and_roomAlreadyExists(){
@@ -123,30 +152,62 @@ public class RoomServiceTest {
             when(formatCheckService.checkTimeFormat(roomOne.getClosingHours().toString())).thenReturn(roomOne.getClosingHours());
             when(formatCheckService.checkRoomTypeFormat(roomOne.getRoomType().name())).thenReturn(roomOne.getRoomType());
 
-            when(roomRepository.findRoomByDateAndRoomType(roomOne.getDate(),roomOne.getRoomType())).thenReturn(roomOne);
+            when(roomServiceUtil.createARoom(any(),any(),any(),any())).thenReturn(roomOne);
+            when(roomRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("UK_ROOMS_DATE_ROOM_TYPE"));
 
             Exception exception =  assertThrows(ConflictApiRequestException.class, () -> roomService.createARoom(roomOne.getDate().toString(), roomOne.getOpeningHours().toString(), roomOne.getClosingHours().toString(), roomOne.getRoomType().name()));
-           assertEquals("Room id:" + roomOne.getId() + " already exists.", exception.getMessage());
-           verify(roomRepository,times(1)).findRoomByDateAndRoomType(roomOne.getDate(),roomOne.getRoomType());
+           assertEquals("Room with date:" + roomOne.getDate() + " and room type:" + roomOne.getRoomType().name() + " already exists.", exception.getMessage());
+           verify(roomRepository,never()).findRoomByDateAndRoomType(any(),any());
+           verify(dayScheduleCache,never()).invalidate(any());
+        }
+        @Test
+        void should_returnOriginalRoomWithoutSaving_when_creatingARoom_and_idempotencyKeyAlreadyUsed(){
+            when(formatCheckService.checkRoomTypeFormat(any())).thenReturn(roomOne.getRoomType());
+            when(idempotencyKeyService.findOriginal(eq(Optional.of("retry-1")), anyString())).thenReturn(Optional.of(roomOne.getId()));
+            when(roomRepository.findById(roomOne.getId())).thenReturn(Optional.of(roomOne));
+
+            assertEquals(roomOne, roomService.createARoom(roomOne.getDate().toString(), "10:00:00", "20:00:00", roomOne.getRoomType().name(), Optional.of("retry-1")));
+            verify(roomRepository, never()).saveAndFlush(any());
+        }
+        @Test
+        void should_rememberIdempotencyKey_when_creatingARoom_and_idempotencyKeyNew(){
+            when(formatCheckService.checkRoomTypeFormat(any())).thenReturn(roomOne.getRoomType());
+            when(roomServiceUtil.createARoom(any(),any(),any(),any())).thenReturn(roomOne);
+
+            roomService.createARoom(roomOne.getDate().toString(), "10:00:00", "20:00:00", roomOne.getRoomType().name(), Optional.of("retry-1"));
+
+            verify(idempotencyKeyService, times(1)).createOnce(eq(Optional.of("retry-1")), anyString(), any());
+            verify(roomRepository, times(1)).saveAndFlush(roomOne);
+        }
+        @Test
+        void should_returnStoredResource_when_creatingARoom_and_concurrentRetryStoredIdempotencyKeyFirst(){
+            Room stored = new Room();
+            stored.setId(99);
+            doReturn(99).when(idempotencyKeyService).createOnce(eq(Optional.of("retry-1")), anyString(), any());
+            when(formatCheckService.checkRoomTypeFormat(any())).thenReturn(roomOne.getRoomType());
+            when(roomServiceUtil.createARoom(any(),any(),any(),any())).thenReturn(roomOne);
+            when(roomRepository.findById(99)).thenReturn(Optional.of(stored));
+
+            assertEquals(stored, roomService.createARoom(roomOne.getDate().toString(), "10:00:00", "20:00:00", roomOne.getRoomType().name(), Optional.of("retry-1")));
         }
         @Test
         void should_saveRoom_when_creatingARoom_and_roomDoesntExist(){
-            when(roomRepository.findRoomByDateAndRoomType(any(),any())).thenReturn(null);
             when(formatCheckService.checkRoomTypeFormat(roomOne.getRoomType().name())).thenReturn(roomOne.getRoomType());
             when(formatCheckService.checkDateFormat(roomOne.getDate().toString())).thenReturn(roomOne.getDate());
             when(formatCheckService.checkTimeFormat(roomOne.getOpeningHours().toString())).thenReturn(roomOne.getOpeningHours());
             when(formatCheckService.checkTimeFormat(roomOne.getClosingHours().toString())).thenReturn(roomOne.getClosingHours());
+            when(roomServiceUtil.createARoom(any(),any(),any(),any())).thenReturn(roomOne);
 
             roomService.createARoom(roomOne.getDate().toString(), roomOne.getOpeningHours().toString(), roomOne.getClosingHours().toString(), roomOne.getRoomType().name());
-            verify(roomRepository,times(1)).save(any());
+            verify(roomRepository,times(1)).saveAndFlush(any());
         }
         @Test
         void should_testFormattingOfIncomingData_when_creatingARoom(){
-            when(roomRepository.findRoomByDateAndRoomType(any(),any())).thenReturn(null);
             when(formatCheckService.checkRoomTypeFormat(roomOne.getRoomType().name())).thenReturn(roomOne.getRoomType());
             when(formatCheckService.checkDateFormat(roomOne.getDate().toString())).thenReturn(roomOne.getDate());
             when(formatCheckService.checkTimeFormat(roomOne.getOpeningHours().toString())).thenReturn(roomOne.getOpeningHours());
             when(formatCheckService.checkTimeFormat(roomOne.getClosingHours().toString())).thenReturn(roomOne.getClosingHours());
+            when(roomServiceUtil.createARoom(any(),any(),any(),any())).thenReturn(roomOne);
 
             roomService.createARoom(roomOne.getDate().toString(), roomOne.getOpeningHours().toString(), roomOne.getClosingHours().toString(), roomOne.getRoomType().name());
             verify(formatCheckService,times(1)).checkDateFormat(any());
@@ -176,6 +237,27 @@ public class RoomServiceTest {
             verify(yogaSessionRepository,times(1)).save(session);
         }
 
+        @Test
+        void should_retryInNewAttempt_when_addingSessionToRoom_and_concurrentUpdateDetected(){
+            when(yogaSessionRepository.findById(session.getId())).thenReturn(Optional.of(session));
+            when(roomRepository.findById(anyInt())).thenReturn(Optional.of(roomOne));
+            when(roomServiceUtil.canAddSessionToRoom(roomOne,session)).thenReturn(true);
+            when(roomRepository.save(roomOne)).thenThrow(new ObjectOptimisticLockingFailureException(Room.class, roomOne.getId())).thenReturn(roomOne);
+
+            assertEquals(session, roomService.addSessionToRoom(roomOne.getId(),session.getId()));
+            verify(roomRepository,times(2)).findById(roomOne.getId());
+        }
+        @Test
+        void should_throwOptimisticLockingFailure_when_addingSessionToRoom_and_everyAttemptConflicts(){
+            when(yogaSessionRepository.findById(session.getId())).thenReturn(Optional.of(session));
+            when(roomRepository.findById(anyInt())).thenReturn(Optional.of(roomOne));
+            when(roomServiceUtil.canAddSessionToRoom(roomOne,session)).thenReturn(true);
+            when(roomRepository.save(roomOne)).thenThrow(new ObjectOptimisticLockingFailureException(Room.class, roomOne.getId()));
+
+            assertThrows(OptimisticLockingFailureException.class, ()-> roomService.addSessionToRoom(roomOne.getId(),session.getId()));
+            verify(roomRepository,times(4)).findById(roomOne.getId());
+        }
+
         @Test
         void should_throwException404NotFoundWithMessage_when_addingSessionToRoom_and_roomNotFoundInRepo(){
             when(roomRepository.findById(anyInt())).thenThrow(new NotFoundApiRequestException("Room id:" + roomOne.getId() + " not found."));
@@ -190,6 +272,29 @@ public class RoomServiceTest {
             assertEquals("Yoga session id:" + session.getId() + " not found.",exception.getMessage());
         }
 
+        @Test
+        void should_placeSessionInRoomFromTemplate_when_addingSessionToDayRoom(){
+            session.setRoomType(RoomType.AIR_ROOM);
+            when(yogaSessionRepository.findById(session.getId())).thenReturn(Optional.of(session));
+            when(roomTemplates.findOrCreateRoom(session.getDate(), RoomType.AIR_ROOM)).thenReturn(Optional.of(roomOne));
+            when(roomServiceUtil.canAddSessionToRoom(roomOne,session)).thenReturn(true);
+
+            assertEquals(session, roomService.addSessionToDayRoom(session.getId()));
+            assertEquals(roomOne, session.getRoom());
+            verify(yogaSessionRepository,times(1)).save(session);
+            verify(dayScheduleCache,times(1)).invalidate(roomOne.getDate());
+        }
+        @Test
+        void should_throwException404NotFoundWithMessage_when_addingSessionToDayRoom_and_noRoomOrTemplate(){
+            session.setRoomType(RoomType.AIR_ROOM);
+            when(yogaSessionRepository.findById(session.getId())).thenReturn(Optional.of(session));
+            when(roomTemplates.findOrCreateRoom(session.getDate(), RoomType.AIR_ROOM)).thenReturn(Optional.empty());
+
+            Exception exception = assertThrows(NotFoundApiRequestException.class, ()-> roomService.addSessionToDayRoom(session.getId()));
+            assertEquals("Room with date:" + session.getDate() + " and room type:AIR_ROOM not found and no template to create it from.",exception.getMessage());
+            verify(yogaSessionRepository,never()).save(any());
+        }
+
     }
 
     @Nested
@@ -212,26 +317,26 @@ public class RoomServiceTest {
         void should_returnList_when_searchingRoomsBasedOnDateAndType_and_roomAndDatePresent(){
             when(formatCheckService.checkDateFormat(any())).thenReturn(date);
             when(formatCheckService.checkRoomTypeFormat(any())).thenReturn(roomType);
-            when(roomRepository.findRoomByDateAndRoomType(date,roomType)).thenReturn(roomOne);
-            assertEquals(roomList,roomService.findAllRoomsBasedOnParams(Optional.of(dateString),Optional.of(roomtTypeString)));
-            verify(roomRepository,times(1)).findRoomByDateAndRoomType(date,roomType);
+            when(roomRepository.findSummariesByDateAndRoomType(date,roomType)).thenReturn(summaryList);
+            assertEquals(summaryList,roomService.findAllRoomsBasedOnParams(Optional.of(dateString),Optional.of(roomtTypeString)));
+            verify(roomRepository,times(1)).findSummariesByDateAndRoomType(date,roomType);
         }
         @Test
         void should_returnAListOfAllRooms_when_searchingRooms_and_noOptionalsPassed(){
-            when(roomRepository.findAll()).thenReturn(roomList);
-            assertEquals(roomList, roomService.findAllRoomsBasedOnParams(Optional.empty(),Optional.empty()));
+            when(roomRepository.findAllSummaries()).thenReturn(summaryList);
+            assertEquals(summaryList, roomService.findAllRoomsBasedOnParams(Optional.empty(),Optional.empty()));
         }
         @Test
         void should_returnAListOfRooms_when_searchingRoomsByDate_and_datePresent(){
             when(formatCheckService.checkDateFormat(dateString)).thenReturn(date);
-            when(roomRepository.findAllRoomsByDate(date)).thenReturn(roomList);
-            assertEquals(roomList, roomService.findAllRoomsBasedOnParams(Optional.of(dateString),Optional.empty()));
+            when(roomRepository.findSummariesByDate(date)).thenReturn(summaryList);
+            assertEquals(summaryList, roomService.findAllRoomsBasedOnParams(Optional.of(dateString),Optional.empty()));
         }
         @Test
         void should_returnAListOf_when_searchingRoomsByRoomType_and_roomTypePresent(){
             when(formatCheckService.checkRoomTypeFormat(roomtTypeString)).thenReturn(roomType);
-            when(roomRepository.findRoomsByRoomType(roomType)).thenReturn(roomList);
-            assertEquals(roomList, roomService.findAllRoomsBasedOnParams(Optional.empty(),Optional.of(roomtTypeString)));
+            when(roomRepository.findSummariesByRoomType(roomType)).thenReturn(summaryList);
+            assertEquals(summaryList, roomService.findAllRoomsBasedOnParams(Optional.empty(),Optional.of(roomtTypeString)));
         }
 
     }
@@ -290,6 +395,26 @@ public class RoomServiceTest {
         }
     }
 
+    @Nested
+    class FindingFreeSlots{
+        @Test
+        void should_returnSlotsFromUtil_when_searchingFreeSlots_and_roomExists(){
+            List<FreeSlot> freeSlots = List.of(new FreeSlot(roomOne.getOpeningHours(), roomOne.getClosingHours()));
+            when(formatCheckService.checkNumberFormat("60")).thenReturn(60);
+            when(roomRepository.findById(roomOne.getId())).thenReturn(Optional.of(roomOne));
+            when(roomServiceUtil.findFreeSlots(roomOne, 60)).thenReturn(freeSlots);
+
+            assertEquals(freeSlots, roomService.findFreeSlots(roomOne.getId(), "60"));
+        }
+        @Test
+        void should_throwException400BadRequest_when_searchingFreeSlots_and_durationNotPositive(){
+            when(formatCheckService.checkNumberFormat("0")).thenReturn(0);
+            Exception exception = assertThrows(BadRequestApiRequestException.class, ()-> roomService.findFreeSlots(roomOne.getId(), "0"));
+            assertEquals("Duration must be at least 1 minute.", exception.getMessage());
+            verify(roomRepository,never()).findById(anyInt());
+        }
+    }
+
     @Nested
     class RemovingARoom{
         @Test
@@ -323,6 +448,7 @@ public class RoomServiceTest {
         @Test
         void should_updateRoomDate_when_updatingARoomWithADifferentDate_and_roomOfSameRoomTypeAndDateDoesntExist() throws IOException, JsonPatchException {
             roomOne.setId(5);
+            session.setId(21);
             roomOne.addSession(session);
             session.setRoom(roomOne);
             session.setDate(roomOne.getDate());
@@ -400,12 +526,15 @@ public class RoomServiceTest {
             roomOne.setId(5);
             session.setRoom(roomOne);
             YogaSession sessionOne = (YogaSession) session.clone();
+            sessionOne.setId(21);
             sessionOne.setStartOfSession(LocalTime.of(15,0,0));
             sessionOne.setEndOfSession(LocalTime.of(16,0,0));
             YogaSession sessionTwo = (YogaSession) session.clone();
+            sessionTwo.setId(22);
             sessionTwo.setStartOfSession(LocalTime.of(11,0,0));
             sessionTwo.setEndOfSession(LocalTime.of(12,0,0));
             YogaSession sessionThree = (YogaSession) session.clone();
+            sessionThree.setId(23);
             sessionThree.setStartOfSession(LocalTime.of(23,0,0));
             sessionThree.setEndOfSession(LocalTime.of(23,45,0));
             roomOne.addSession(sessionOne); sessionOne.setRoom(roomOne);
@@ -450,12 +579,15 @@ public class RoomServiceTest {
             roomOne.setId(5);
             session.setRoom(roomOne);
             YogaSession sessionOne = (YogaSession) session.clone();
+            sessionOne.setId(21);
             sessionOne.setStartOfSession(LocalTime.of(15,0,0));
             sessionOne.setEndOfSession(LocalTime.of(16,0,0));
             YogaSession sessionTwo = (YogaSession) session.clone();
+            sessionTwo.setId(22);
             sessionTwo.setStartOfSession(LocalTime.of(11,0,0));
             sessionTwo.setEndOfSession(LocalTime.of(12,0,0));
             YogaSession sessionThree = (YogaSession) session.clone();
+            sessionThree.setId(23);
             sessionThree.setStartOfSession(LocalTime.of(23,0,0));
             sessionThree.setEndOfSession(LocalTime.of(23,45,0));
             roomOne.addSession(sessionOne); sessionOne.setRoom(roomOne);
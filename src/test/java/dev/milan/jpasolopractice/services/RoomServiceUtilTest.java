@@ -2,6 +2,7 @@ package dev.milan.jpasolopractice.services;
 
 
 import dev.milan.jpasolopractice.customException.differentExceptions.BadRequestApiRequestException;
+import dev.milan.jpasolopractice.dto.FreeSlot;
 import dev.milan.jpasolopractice.model.Room;
 import dev.milan.jpasolopractice.model.RoomType;
 import dev.milan.jpasolopractice.model.YogaSession;
@@ -13,6 +14,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -283,4 +285,29 @@ public class RoomServiceUtilTest {
     }
 
 
+    @Nested
+    class FindingFreeSlots{
+        @Test
+        void should_returnWholeOpeningPeriod_when_searchingFreeSlots_and_roomHasNoSessions(){
+            List<FreeSlot> freeSlots = roomServiceImplementation.findFreeSlots(roomOne, 60);
+            assertEquals(List.of(new FreeSlot(roomOne.getOpeningHours(), roomOne.getClosingHours())), freeSlots);
+        }
+
+        @Test
+        void should_returnOnlyGapsLongEnough_when_searchingFreeSlots_and_roomHasSessions(){
+            sessionTwo.setStartOfSession(LocalTime.of(9,0,0));
+            sessionTwo.setEndOfSession(LocalTime.of(12,0,0));
+            YogaSession sessionThree = new YogaSession();
+            sessionThree.setStartOfSession(LocalTime.of(12,30,0));
+            sessionThree.setEndOfSession(LocalTime.of(21,0,0));
+            roomOne.addSession(sessionTwo);
+            roomOne.addSession(sessionThree);
+
+            List<FreeSlot> freeSlots = roomServiceImplementation.findFreeSlots(roomOne, 60);
+
+            assertEquals(List.of(new FreeSlot(LocalTime.of(8,0,0), LocalTime.of(9,0,0))
+                    , new FreeSlot(LocalTime.of(21,0,0), LocalTime.of(22,0,0))), freeSlots);
+        }
+    }
+
 }
@@ -0,0 +1,149 @@
+package dev.milan.jpasolopractice.services;
+
+import dev.milan.jpasolopractice.data.YogaSessionRepository;
+import dev.milan.jpasolopractice.dto.SessionAvailability;
+import dev.milan.jpasolopractice.service.FormatCheckService;
+import dev.milan.jpasolopractice.service.SessionAvailabilityStreams;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "sessions.availability.flush-ms=3600000")
+@AutoConfigureMockMvc
+public class SessionAvailabilityStreamsTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private SessionAvailabilityStreams availabilityStreams;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @MockBean
+    private YogaSessionRepository yogaSessionRepository;
+    private String baseUrl;
+    private final LocalDate date = LocalDate.now().plusDays(1);
+    private final int sessionId = 4;
+
+    @BeforeEach
+    void init(){
+        baseUrl = ServletUriComponentsBuilder.fromCurrentContextPath().build().toUriString();
+        when(yogaSessionRepository.findAvailabilityByIdIn(anyCollection())).thenReturn(List.of(new SessionAvailability(sessionId, date, 2, 8)));
+        when(yogaSessionRepository.findAvailabilityByDate(any())).thenReturn(List.of(new SessionAvailability(sessionId, date, 2, 8)));
+    }
+
+    private MvcResult subscribe(String path) throws Exception {
+        return mockMvc.perform(get(baseUrl.concat(path)).accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted()).andReturn();
+    }
+
+    private static int countEvents(MvcResult result, String event) throws Exception {
+        return result.getResponse().getContentAsString().split("event:" + event, -1).length - 1;
+    }
+
+    private static void awaitEvents(MvcResult result, String event, int count) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (countEvents(result, event) < count && System.currentTimeMillis() < deadline){
+            Thread.sleep(10);
+        }
+        assertEquals(count, countEvents(result, event));
+    }
+
+    @Test
+    void should_sendCurrentAvailability_when_subscribingToSession() throws Exception {
+        MvcResult result = subscribe("/sessions/" + sessionId + "/availability/stream");
+
+        awaitEvents(result, SessionAvailabilityStreams.AVAILABILITY_EVENT, 1);
+        assertTrue(result.getResponse().getContentAsString().contains("\"freeSpace\":8"));
+    }
+
+    @Test
+    void should_sendOneEventPerFlush_when_sessionChangedRepeatedly() throws Exception {
+        MvcResult result = subscribe("/sessions/" + sessionId + "/availability/stream");
+        MvcResult dayResult = subscribe("/schedule/" + date + "/stream");
+        when(yogaSessionRepository.findAvailabilityByIdIn(anyCollection())).thenReturn(List.of(new SessionAvailability(sessionId, date, 4, 6)));
+
+        availabilityStreams.sessionChanged(sessionId, date);
+        availabilityStreams.sessionChanged(sessionId, date);
+        availabilityStreams.flush();
+
+        awaitEvents(result, SessionAvailabilityStreams.AVAILABILITY_EVENT, 2);
+        assertTrue(result.getResponse().getContentAsString().contains("\"freeSpace\":6"));
+        awaitEvents(dayResult, SessionAvailabilityStreams.AVAILABILITY_EVENT, 2);
+        verify(yogaSessionRepository, times(2)).findAvailabilityByIdIn(anyCollection());
+    }
+
+    @Test
+    void should_notSendEvent_when_changingTransactionRolledBack() throws Exception {
+        MvcResult result = subscribe("/sessions/" + sessionId + "/availability/stream");
+        awaitEvents(result, SessionAvailabilityStreams.AVAILABILITY_EVENT, 1);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            availabilityStreams.sessionChanged(sessionId, date);
+            status.setRollbackOnly();
+        });
+        availabilityStreams.flush();
+
+        assertEquals(1, countEvents(result, SessionAvailabilityStreams.AVAILABILITY_EVENT));
+        verify(yogaSessionRepository, times(1)).findAvailabilityByIdIn(anyCollection());
+    }
+
+    @Test
+    void should_sendRemovedEvent_when_sessionDeleted() throws Exception {
+        MvcResult result = subscribe("/sessions/" + sessionId + "/availability/stream");
+        MvcResult dayResult = subscribe("/schedule/" + date + "/stream");
+        when(yogaSessionRepository.findAvailabilityByIdIn(anyCollection())).thenReturn(List.of());
+
+        availabilityStreams.sessionChanged(sessionId, date);
+        availabilityStreams.flush();
+
+        awaitEvents(result, SessionAvailabilityStreams.REMOVED_EVENT, 1);
+        awaitEvents(dayResult, SessionAvailabilityStreams.REMOVED_EVENT, 1);
+    }
+
+    @Test
+    void should_disconnectOnlySlowSubscriber_when_itsQueueOverflows() throws Exception {
+        ExecutorService stalledSender = mock(ExecutorService.class);
+        SessionAvailabilityStreams streams = new SessionAvailabilityStreams(yogaSessionRepository, new FormatCheckService(), 60000, 2, stalledSender);
+        SseEmitter emitter = streams.subscribeToSession(sessionId);
+
+        streams.sessionChanged(sessionId, date);
+        streams.flush();
+        streams.sessionChanged(sessionId, date);
+        streams.flush();
+
+        verify(stalledSender, times(1)).execute(any());
+        assertThrows(IllegalStateException.class, () -> emitter.send("late"));
+        streams.sessionChanged(sessionId, date);
+        streams.flush();
+        verify(yogaSessionRepository, times(3)).findAvailabilityByIdIn(anyCollection());
+        verify(stalledSender, times(1)).execute(any());
+    }
+
+    @Test
+    void should_throwException404NotFound_when_subscribingToSession_and_sessionDoesntExist() throws Exception {
+        when(yogaSessionRepository.findAvailabilityByIdIn(anyCollection())).thenReturn(List.of());
+        mockMvc.perform(get(baseUrl.concat("/sessions/" + sessionId + "/availability/stream")).accept(MediaType.TEXT_EVENT_STREAM, MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Yoga session id:" + sessionId + " not found."));
+    }
+}
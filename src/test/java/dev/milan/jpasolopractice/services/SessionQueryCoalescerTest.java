@@ -0,0 +1,125 @@
+package dev.milan.jpasolopractice.services;
+
+import dev.milan.jpasolopractice.dto.SessionSummary;
+import dev.milan.jpasolopractice.model.RoomType;
+import dev.milan.jpasolopractice.service.SessionQueryCoalescer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SessionQueryCoalescerTest {
+    private AtomicInteger calls;
+    private List<SessionSummary> rows;
+    private Supplier<List<SessionSummary>> query;
+
+    @BeforeEach
+    void init(){
+        calls = new AtomicInteger();
+        rows = List.of(new SessionSummary(4, LocalDate.now().plusDays(1), LocalTime.of(10,0,0), LocalTime.of(11,0,0)
+                , 60, 0, 10, RoomType.AIR_ROOM, null));
+        query = () -> {
+            calls.incrementAndGet();
+            return rows;
+        };
+    }
+
+    @Test
+    void should_shareOneQuery_when_identicalSearchesRunConcurrently() throws Exception {
+        SessionQueryCoalescer coalescer = new SessionQueryCoalescer(0);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<List<SessionSummary>> slowQuery = () -> {
+            started.countDown();
+            await(release);
+            return query.get();
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try{
+            Future<List<SessionSummary>> first = executor.submit(() -> coalescer.load("all", slowQuery));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            CompletableFuture<Thread> joiner = new CompletableFuture<>();
+            Future<List<SessionSummary>> second = executor.submit(() -> {
+                joiner.complete(Thread.currentThread());
+                return coalescer.load("all", query);
+            });
+            waitUntilParked(joiner.get(5, TimeUnit.SECONDS));
+            release.countDown();
+
+            assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+            assertEquals(1, calls.get());
+        }finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void should_queryAgain_when_previousSearchFinished_and_noResultTtl(){
+        SessionQueryCoalescer coalescer = new SessionQueryCoalescer(0);
+
+        coalescer.load("all", query);
+        coalescer.load("all", query);
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void should_reuseResult_when_previousSearchFinished_and_resultTtlNotExpired(){
+        SessionQueryCoalescer coalescer = new SessionQueryCoalescer(60_000);
+
+        List<SessionSummary> first = coalescer.load("all", query);
+
+        assertSame(first, coalescer.load("all", query));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void should_queryEachKey_when_searchesDiffer(){
+        SessionQueryCoalescer coalescer = new SessionQueryCoalescer(60_000);
+
+        coalescer.load("all", query);
+        coalescer.load("none", query);
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void should_queryAgain_when_previousSearchFailed(){
+        SessionQueryCoalescer coalescer = new SessionQueryCoalescer(60_000);
+
+        assertThrows(IllegalStateException.class, () -> coalescer.load("all", () -> {
+            throw new IllegalStateException("database unavailable");
+        }));
+
+        assertEquals(rows, coalescer.load("all", query));
+        assertEquals(1, calls.get());
+    }
+
+    private static void await(CountDownLatch latch){
+        try{
+            latch.await(5, TimeUnit.SECONDS);
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntilParked(Thread thread) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (thread.getState() != Thread.State.WAITING && System.nanoTime() < deadline){
+            Thread.sleep(1);
+        }
+        assertEquals(Thread.State.WAITING, thread.getState());
+    }
+}
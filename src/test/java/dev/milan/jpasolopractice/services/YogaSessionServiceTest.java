@@ -7,13 +7,21 @@ import com.github.fge.jsonpatch.JsonPatchException;
 import dev.milan.jpasolopractice.customException.ApiRequestException;
 import dev.milan.jpasolopractice.customException.differentExceptions.BadRequestApiRequestException;
 import dev.milan.jpasolopractice.customException.differentExceptions.ConflictApiRequestException;
+import dev.milan.jpasolopractice.customException.differentExceptions.ForbiddenApiRequestException;
 import dev.milan.jpasolopractice.customException.differentExceptions.NotFoundApiRequestException;
 import dev.milan.jpasolopractice.data.PersonRepository;
 import dev.milan.jpasolopractice.data.RoomRepository;
 import dev.milan.jpasolopractice.data.YogaSessionRepository;
+import dev.milan.jpasolopractice.dto.DaySchedule;
+import dev.milan.jpasolopractice.dto.DayScheduleRow;
+import dev.milan.jpasolopractice.dto.KeysetPage;
+import dev.milan.jpasolopractice.dto.MembershipOutcome;
+import dev.milan.jpasolopractice.dto.PageCursor;
+import dev.milan.jpasolopractice.dto.SessionSummary;
 import dev.milan.jpasolopractice.model.Person;
 import dev.milan.jpasolopractice.model.Room;
 import dev.milan.jpasolopractice.model.RoomType;
+import dev.milan.jpasolopractice.model.SeatHold;
 import dev.milan.jpasolopractice.model.YogaSession;
 import dev.milan.jpasolopractice.service.*;
 import org.junit.jupiter.api.*;
@@ -22,6 +30,8 @@ import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
@@ -33,10 +43,15 @@ import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @SpringBootTest
@@ -55,6 +70,20 @@ public class YogaSessionServiceTest {
     private FormatCheckService formatCheckService;
     @MockBean
     private RoomServiceUtil roomServiceUtil;
+    @MockBean
+    private DayScheduleCache dayScheduleCache;
+    @MockBean
+    private IdempotencyKeyService idempotencyKeyService;
+    @MockBean
+    private SessionCacheEviction sessionCacheEviction;
+    @MockBean
+    private SessionAvailabilityStreams availabilityStreams;
+    @MockBean
+    private SessionWaitlist sessionWaitlist;
+    @MockBean
+    private SeatHolds seatHolds;
+    @MockBean
+    private RoomTemplates roomTemplates;
     @Autowired
     ObjectMapper mapper;
     @MockBean
@@ -74,11 +103,13 @@ public class YogaSessionServiceTest {
     private Room roomOne;
     private Room roomTwo;
     private List<YogaSession> sessionList;
+    private List<SessionSummary> summaryList;
     private JsonPatch jsonPatch;
     private String updatePatchInfo;
 
     @BeforeEach
     void init()  {
+        when(idempotencyKeyService.createOnce(any(), anyString(), any())).thenAnswer(invocation -> invocation.<Supplier<Integer>>getArgument(2).get());
         date = today.plus(1, ChronoUnit.DAYS);
 
         roomOne = new Room();
@@ -120,6 +151,8 @@ public class YogaSessionServiceTest {
 
         sessionList = new ArrayList<>();
         sessionList.add(session);
+        summaryList = List.of(new SessionSummary(session.getId(), session.getDate(), session.getStartOfSession(), session.getEndOfSession()
+                , session.getDuration(), session.getBookedSpace(), session.getFreeSpace(), session.getRoomType(), null));
 
 
         updatePatchInfo = "[\n" +
@@ -160,7 +193,7 @@ public class YogaSessionServiceTest {
 
             sessionService.createAYogaSession(dateString, roomTypeString,startTimeString,durationString);
 
-            verify(yogaSessionRepository,times(1)).save(sessionCaptor.capture());
+            verify(yogaSessionRepository,times(1)).saveAndFlush(sessionCaptor.capture());
             assertEquals(session, sessionCaptor.getValue());
         }
 
@@ -173,13 +206,12 @@ public class YogaSessionServiceTest {
             }catch (ApiRequestException e){
 
             }finally {
-                verify(yogaSessionRepository,never()).save(any());
+                verify(yogaSessionRepository,never()).saveAndFlush(any());
             }
         }
 
         @Test
         void should_throwException400BadRequest_when_creatingYogaSession_and_sessionInfoIncorrect() throws BadRequestApiRequestException {
-            when(yogaSessionRepository.findYogaSessionByDateAndStartOfSessionAndRoomType(any(),any(),any())).thenReturn(null);
             when(sessionServiceImpl.createAYogaSession(any(),any(),any(),anyInt())).thenThrow(new BadRequestApiRequestException(""));
             Executable executable = () -> sessionService.createAYogaSession(dateString,roomTypeString,startTimeString,durationString);
             assertThrows(BadRequestApiRequestException.class, executable);
@@ -201,41 +233,265 @@ public class YogaSessionServiceTest {
         }
         @Test
         void should_throwException409ConflictWithMessage_when_creatingYogaSession_and_sessionAlreadyExists() throws ConflictApiRequestException {
-            when(yogaSessionRepository.findYogaSessionByDateAndStartOfSessionAndRoomType(any(),any(),any())).thenReturn(session);
+            when(sessionServiceImpl.createAYogaSession(any(),any(),any(),anyInt())).thenReturn(session);
+            when(yogaSessionRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("UK_YOGA_SESSIONS_DATE_START_TIME_ROOM_TYPE"));
             Exception exception = assertThrows(ConflictApiRequestException.class,()-> sessionService.createAYogaSession(dateString,roomTypeString,startTimeString,durationString));
             assertEquals("Yoga session with same date,start time and room type already exists.",exception.getMessage());
+            verify(yogaSessionRepository, never()).findYogaSessionByDateAndStartOfSessionAndRoomType(any(),any(),any());
+        }
+        @Test
+        void should_returnOriginalSessionWithoutSaving_when_creatingYogaSession_and_idempotencyKeyAlreadyUsed(){
+            when(idempotencyKeyService.findOriginal(eq(Optional.of("retry-1")), anyString())).thenReturn(Optional.of(session.getId()));
+            when(yogaSessionRepository.findById(session.getId())).thenReturn(Optional.of(session));
+
+            assertEquals(session, sessionService.createAYogaSession(dateString,roomTypeString,startTimeString,durationString, Optional.of("retry-1")));
+            verify(yogaSessionRepository, never()).saveAndFlush(any());
+        }
+        @Test
+        void should_rememberIdempotencyKey_when_creatingYogaSession_and_idempotencyKeyNew(){
+            when(sessionServiceImpl.createAYogaSession(any(),any(),any(),anyInt())).thenReturn(session);
+
+            sessionService.createAYogaSession(dateString,roomTypeString,startTimeString,durationString, Optional.of("retry-1"));
+
+            verify(idempotencyKeyService, times(1)).createOnce(eq(Optional.of("retry-1")), anyString(), any());
+            verify(yogaSessionRepository, times(1)).saveAndFlush(session);
+        }
+        @Test
+        void should_returnStoredResource_when_creatingYogaSession_and_concurrentRetryStoredIdempotencyKeyFirst(){
+            YogaSession stored = new YogaSession();
+            stored.setId(99);
+            doReturn(99).when(idempotencyKeyService).createOnce(eq(Optional.of("retry-1")), anyString(), any());
+            when(sessionServiceImpl.createAYogaSession(any(),any(),any(),anyInt())).thenReturn(session);
+            when(yogaSessionRepository.findById(99)).thenReturn(Optional.of(stored));
+
+            assertEquals(stored, sessionService.createAYogaSession(dateString,roomTypeString,startTimeString,durationString, Optional.of("retry-1")));
         }
     }
     @Nested
     class AddMemberToYogaSession {
         @Test
-        void should_addYogaSessionToPerson_when_addingPersonToSession_and_sessionDoesntContainPerson(){
-            when(yogaSessionRepository.findById(session.getId())).thenReturn(Optional.ofNullable(session));
-            when(personRepository.findById(personOne.getId())).thenReturn(Optional.ofNullable(personOne));
-            when(sessionServiceImpl.addMember(personOne,session)).thenReturn(true);
+        void should_bookSpaceAndInsertMember_when_addingPersonToSession_and_sessionDoesntContainPerson(){
+            when(yogaSessionRepository.findDateById(session.getId())).thenReturn(session.getDate());
+            when(personRepository.existsById(personOne.getId())).thenReturn(true);
+            when(yogaSessionRepository.countMember(session.getId(),personOne.getId())).thenReturn(0);
+            when(yogaSessionRepository.bookOneSpaceIfAvailable(session.getId())).thenReturn(1);
 
-            sessionService.addMemberToYogaSession(session.getId(),personOne.getId());
+            assertTrue(sessionService.addMemberToYogaSession(session.getId(),personOne.getId()));
 
-            verify(personRepository,times(1)).save(personOne);
-            verify(yogaSessionRepository,times(1)).save(session);
+            verify(yogaSessionRepository,times(1)).insertMember(session.getId(),personOne.getId());
+            verify(yogaSessionRepository,never()).save(any());
+            verify(personRepository,never()).save(any());
+            verify(dayScheduleCache,times(1)).invalidate(session.getDate());
+            verify(sessionCacheEviction,times(1)).evictSession(session.getId());
+            verify(availabilityStreams,times(1)).sessionChanged(session.getId(), session.getDate());
         }
         @Test
         void should_throwException404NotFound_when_addingPersonToSession_and_personDoesntExist(){
-            when(yogaSessionRepository.findById(session.getId())).thenReturn(Optional.ofNullable(session));
-            when(personRepository.findById(personOne.getId())).thenReturn(Optional.empty());
+            when(yogaSessionRepository.findDateById(session.getId())).thenReturn(session.getDate());
+            when(personRepository.existsById(personOne.getId())).thenReturn(false);
             Exception exception = assertThrows(NotFoundApiRequestException.class, () ->sessionService.addMemberToYogaSession(session.getId(),personOne.getId()));
             assertEquals("Person id:" + personOne.getId() + " couldn't be found.",exception.getMessage());
         }
 
         @Test
         void should_throwException404NotFound_when_addingPersonToSession_and_sessionDoesntExist(){
-            when(yogaSessionRepository.findById(session.getId())).thenReturn(Optional.empty());
-            when(personRepository.findById(personOne.getId())).thenReturn(Optional.ofNullable(personOne));
+            when(yogaSessionRepository.findDateById(session.getId())).thenReturn(null);
+            when(personRepository.existsById(personOne.getId())).thenReturn(true);
             Exception exception = assertThrows(NotFoundApiRequestException.class, () ->sessionService.addMemberToYogaSession(session.getId(),personOne.getId()));
             assertEquals("Yoga session id:" + session.getId() +  " not found.",exception.getMessage());
         }
 
+        @Test
+        void should_throwException409Conflict_when_addingPersonToSession_and_sessionAlreadyContainsPerson(){
+            when(yogaSessionRepository.findDateById(session.getId())).thenReturn(session.getDate());
+            when(personRepository.existsById(personOne.getId())).thenReturn(true);
+            when(yogaSessionRepository.countMember(session.getId(),personOne.getId())).thenReturn(1);
+
+            Exception exception = assertThrows(ConflictApiRequestException.class, () ->sessionService.addMemberToYogaSession(session.getId(),personOne.getId()));
+            assertEquals("User id:" + personOne.getId() + " already present in session id:" + session.getId(),exception.getMessage());
+            verify(yogaSessionRepository,never()).bookOneSpaceIfAvailable(anyInt());
+        }
+
+        @Test
+        void should_throwException409Conflict_when_addingPersonToSession_and_concurrentBookingInsertedPersonFirst(){
+            when(yogaSessionRepository.findDateById(session.getId())).thenReturn(session.getDate());
+            when(personRepository.existsById(personOne.getId())).thenReturn(true);
+            when(yogaSessionRepository.countMember(session.getId(),personOne.getId())).thenReturn(0);
+            when(yogaSessionRepository.bookOneSpaceIfAvailable(session.getId())).thenReturn(1);
+            when(yogaSessionRepository.insertMember(session.getId(),personOne.getId())).thenThrow(new DataIntegrityViolationException("PRIMARY KEY ON USERS_SESSIONS"));
+
+            Exception exception = assertThrows(ConflictApiRequestException.class, () ->sessionService.addMemberToYogaSession(session.getId(),personOne.getId()));
+            assertEquals("User id:" + personOne.getId() + " already present in session id:" + session.getId(),exception.getMessage());
+            verify(sessionCacheEviction,never()).evictSession(anyInt());
+            verify(availabilityStreams,never()).sessionChanged(anyInt(), any());
+        }
+
+        @Test
+        void should_throwException403Forbidden_when_addingPersonToSession_and_noFreeSpaceLeft(){
+            when(yogaSessionRepository.findDateById(session.getId())).thenReturn(session.getDate());
+            when(personRepository.existsById(personOne.getId())).thenReturn(true);
+            when(yogaSessionRepository.bookOneSpaceIfAvailable(session.getId())).thenReturn(0);
+
+            Exception exception = assertThrows(ForbiddenApiRequestException.class, () ->sessionService.addMemberToYogaSession(session.getId(),personOne.getId()));
+            assertEquals("Session id:" + session.getId() + " member limit reached.",exception.getMessage());
+            verify(yogaSessionRepository,never()).insertMember(anyInt(),anyInt());
+            verify(sessionCacheEviction,never()).evictSession(anyInt());
+            verify(availabilityStreams,never()).sessionChanged(anyInt(), any());
+        }
+
 
+    }
+    @Nested
+    class AddMembersToYogaSession{
+        @Test
+        void should_bookAllJoiningPeopleAtOnce_when_addingPeopleToSession(){
+            List<Integer> ids = List.of(3, 4, 5, 3);
+            when(yogaSessionRepository.findDateById(session.getId())).thenReturn(session.getDate());
+            when(personRepository.findIdsByIdIn(any())).thenReturn(List.of(3, 4));
+            when(yogaSessionRepository.findMemberIdsIn(eq(session.getId()), any())).thenReturn(List.of(4));
+            when(yogaSessionRepository.bookSpacesIfAvailable(session.getId(), 1)).thenReturn(1);
+            when(yogaSessionRepository.insertMembers(session.getId(), List.of(3))).thenReturn(1);
+
+            List<MembershipOutcome> outcomes = sessionService.addMembersToYogaSession(session.getId(), ids);
+
+            assertEquals(List.of(new MembershipOutcome(3, MembershipOutcome.Result.ADDED)
+                    , new MembershipOutcome(4, MembershipOutcome.Result.ALREADY_PRESENT)
+                    , new MembershipOutcome(5, MembershipOutcome.Result.NOT_FOUND)), outcomes);
+            verify(yogaSessionRepository,times(1)).insertMembers(session.getId(), List.of(3));
+            verify(yogaSessionRepository,never()).insertMember(anyInt(),anyInt());
+            verify(availabilityStreams,times(1)).sessionChanged(session.getId(), session.getDate());
+        }
+
+        @Test
+        void should_throwException403Forbidden_when_addingPeopleToSession_and_groupDoesntFit(){
+            when(yogaSessionRepository.findDateById(session.getId())).thenReturn(session.getDate());
+            when(personRepository.findIdsByIdIn(any())).thenReturn(List.of(3, 4));
+            when(yogaSessionRepository.findMemberIdsIn(eq(session.getId()), any())).thenReturn(List.of());
+            when(yogaSessionRepository.bookSpacesIfAvailable(session.getId(), 2)).thenReturn(0);
+
+            Exception exception = assertThrows(ForbiddenApiRequestException.class, () -> sessionService.addMembersToYogaSession(session.getId(), List.of(3, 4)));
+            assertEquals("Session id:" + session.getId() + " member limit reached.",exception.getMessage());
+            verify(yogaSessionRepository,never()).insertMembers(anyInt(),any());
+        }
+
+        @Test
+        void should_throwException409Conflict_when_addingPeopleToSession_and_personDeletedBeforeInsert(){
+            when(yogaSessionRepository.findDateById(session.getId())).thenReturn(session.getDate());
+            when(personRepository.findIdsByIdIn(any())).thenReturn(List.of(3, 4));
+            when(yogaSessionRepository.findMemberIdsIn(eq(session.getId()), any())).thenReturn(List.of());
+            when(yogaSessionRepository.bookSpacesIfAvailable(session.getId(), 2)).thenReturn(1);
+            when(yogaSessionRepository.insertMembers(session.getId(), List.of(3, 4))).thenReturn(1);
+
+            Exception exception = assertThrows(ConflictApiRequestException.class, () -> sessionService.addMembersToYogaSession(session.getId(), List.of(3, 4)));
+            assertEquals("People were removed while being added to session id:" + session.getId() + ". Try again.",exception.getMessage());
+            verify(availabilityStreams,never()).sessionChanged(anyInt(), any());
+        }
+
+        @Test
+        void should_throwException409Conflict_when_addingPeopleToSession_and_concurrentBookingInsertedSamePerson(){
+            when(yogaSessionRepository.findDateById(session.getId())).thenReturn(session.getDate());
+            when(personRepository.findIdsByIdIn(any())).thenReturn(List.of(3, 4));
+            when(yogaSessionRepository.findMemberIdsIn(eq(session.getId()), any())).thenReturn(List.of());
+            when(yogaSessionRepository.bookSpacesIfAvailable(session.getId(), 2)).thenReturn(1);
+            when(yogaSessionRepository.insertMembers(session.getId(), List.of(3, 4))).thenThrow(new DataIntegrityViolationException("PRIMARY KEY ON USERS_SESSIONS"));
+
+            Exception exception = assertThrows(ConflictApiRequestException.class, () -> sessionService.addMembersToYogaSession(session.getId(), List.of(3, 4)));
+            assertEquals("People were removed while being added to session id:" + session.getId() + ". Try again.",exception.getMessage());
+            verify(sessionCacheEviction,never()).evictSession(anyInt());
+            verify(availabilityStreams,never()).sessionChanged(anyInt(), any());
+        }
+
+        @Test
+        void should_throwException400BadRequest_when_addingPeopleToSession_and_tooManyIdsPassed(){
+            List<Integer> ids = IntStream.rangeClosed(1, 201).boxed().toList();
+
+            Exception exception = assertThrows(BadRequestApiRequestException.class, () -> sessionService.addMembersToYogaSession(session.getId(), ids));
+            assertEquals("At most 200 people can be added to a session at once.",exception.getMessage());
+            verify(personRepository,never()).findIdsByIdIn(any());
+        }
+
+        @Test
+        void should_notBook_when_addingPeopleToSession_and_noneCanJoin(){
+            when(yogaSessionRepository.findDateById(session.getId())).thenReturn(session.getDate());
+            when(personRepository.findIdsByIdIn(any())).thenReturn(List.of());
+            when(yogaSessionRepository.findMemberIdsIn(eq(session.getId()), any())).thenReturn(List.of());
+
+            sessionService.addMembersToYogaSession(session.getId(), List.of(3));
+
+            verify(yogaSessionRepository,never()).bookSpacesIfAvailable(anyInt(),anyInt());
+            verify(dayScheduleCache,never()).invalidate(any());
+        }
+
+        @Test
+        void should_throwException400BadRequest_when_addingPeopleToSession_and_noIdsPassed(){
+            Exception exception = assertThrows(BadRequestApiRequestException.class, () -> sessionService.addMembersToYogaSession(session.getId(), List.of()));
+            assertEquals("Pass a list of person ids to add to the session.",exception.getMessage());
+        }
+    }
+    @Nested
+    class AddMemberToWaitlist{
+        @Test
+        void should_joinWaitlist_when_addingPersonToWaitlist_and_sessionDoesntContainPerson(){
+            when(yogaSessionRepository.findDateById(session.getId())).thenReturn(session.getDate());
+            when(personRepository.existsById(personOne.getId())).thenReturn(true);
+            when(yogaSessionRepository.countMember(session.getId(),personOne.getId())).thenReturn(0);
+
+            assertTrue(sessionService.addMemberToWaitlist(session.getId(),personOne.getId()));
+
+            verify(sessionWaitlist,times(1)).join(session.getId(),personOne.getId());
+            verify(yogaSessionRepository,never()).bookOneSpaceIfAvailable(anyInt());
+        }
+
+        @Test
+        void should_throwException404NotFound_when_addingPersonToWaitlist_and_sessionDoesntExist(){
+            when(yogaSessionRepository.findDateById(session.getId())).thenReturn(null);
+            Exception exception = assertThrows(NotFoundApiRequestException.class, () ->sessionService.addMemberToWaitlist(session.getId(),personOne.getId()));
+            assertEquals("Yoga session id:" + session.getId() +  " not found.",exception.getMessage());
+            verify(sessionWaitlist,never()).join(anyInt(),anyInt());
+        }
+
+        @Test
+        void should_throwException409Conflict_when_addingPersonToWaitlist_and_sessionAlreadyContainsPerson(){
+            when(yogaSessionRepository.findDateById(session.getId())).thenReturn(session.getDate());
+            when(personRepository.existsById(personOne.getId())).thenReturn(true);
+            when(yogaSessionRepository.countMember(session.getId(),personOne.getId())).thenReturn(1);
+
+            Exception exception = assertThrows(ConflictApiRequestException.class, () ->sessionService.addMemberToWaitlist(session.getId(),personOne.getId()));
+            assertEquals("User id:" + personOne.getId() + " already present in session id:" + session.getId(),exception.getMessage());
+            verify(sessionWaitlist,never()).join(anyInt(),anyInt());
+        }
+    }
+    @Nested
+    class HoldSeat{
+        @Test
+        void should_holdSeat_when_holdingSeat_and_sessionDoesntContainPerson(){
+            SeatHold hold = new SeatHold(session.getId(), personOne.getId(), null);
+            when(yogaSessionRepository.findDateById(session.getId())).thenReturn(session.getDate());
+            when(personRepository.existsById(personOne.getId())).thenReturn(true);
+            when(seatHolds.hold(session.getId(), personOne.getId(), session.getDate())).thenReturn(hold);
+
+            assertSame(hold, sessionService.holdSeat(session.getId(),personOne.getId()));
+        }
+
+        @Test
+        void should_throwException404NotFound_when_holdingSeat_and_personDoesntExist(){
+            when(yogaSessionRepository.findDateById(session.getId())).thenReturn(session.getDate());
+            when(personRepository.existsById(personOne.getId())).thenReturn(false);
+            Exception exception = assertThrows(NotFoundApiRequestException.class, () ->sessionService.holdSeat(session.getId(),personOne.getId()));
+            assertEquals("Person id:" + personOne.getId() + " couldn't be found.",exception.getMessage());
+            verify(seatHolds,never()).hold(anyInt(),anyInt(),any());
+        }
+
+        @Test
+        void should_throwException409Conflict_when_holdingSeat_and_sessionAlreadyContainsPerson(){
+            when(yogaSessionRepository.findDateById(session.getId())).thenReturn(session.getDate());
+            when(personRepository.existsById(personOne.getId())).thenReturn(true);
+            when(yogaSessionRepository.countMember(session.getId(),personOne.getId())).thenReturn(1);
+
+            Exception exception = assertThrows(ConflictApiRequestException.class, () ->sessionService.holdSeat(session.getId(),personOne.getId()));
+            assertEquals("User id:" + personOne.getId() + " already present in session id:" + session.getId(),exception.getMessage());
+            verify(seatHolds,never()).hold(anyInt(),anyInt(),any());
+        }
     }
     @Nested
     class RemoveMemberFromSession{
@@ -249,6 +505,7 @@ public class YogaSessionServiceTest {
             assertTrue(sessionService.removeMemberFromYogaSession(personOne.getId(),session.getId()));
             verify(yogaSessionRepository,times(1)).save(session);
             verify(personRepository,times(1)).save(personOne);
+            verify(sessionWaitlist,times(1)).promoteAfterCommit(personOne.getId());
         }
 
         @Test
@@ -285,6 +542,21 @@ public class YogaSessionServiceTest {
     @Nested
     class SearchingForSessions{
 
+        @Test
+        void should_throwException404NotFound_when_searchingSessionVersionTag_and_sessionDoesntExist(){
+            when(yogaSessionRepository.findVersionTagById(session.getId())).thenReturn(null);
+            Exception exception = assertThrows(NotFoundApiRequestException.class, () -> sessionService.findSessionVersionTag(session.getId()));
+            assertEquals("Yoga session id:" + session.getId() +  " not found.", exception.getMessage());
+        }
+
+        @Test
+        void should_useDateVersionTag_when_searchingSessionsVersionTag_and_datePassed(){
+            when(formatCheckService.checkDateFormat(dateString)).thenReturn(date);
+            when(yogaSessionRepository.findVersionTagByDate(date)).thenReturn("2.3.4");
+            assertEquals("2.3.4", sessionService.findSessionsVersionTag(Optional.of(dateString)));
+            verify(yogaSessionRepository, never()).findVersionTag();
+        }
+
         @Test
         void should_returnSessionList_when_searchingAllSessions(){
             List<YogaSession> sessionList = new ArrayList<>();
@@ -335,6 +607,23 @@ public class YogaSessionServiceTest {
             verify(formatCheckService, times(1)).checkDateFormat(any());
         }
 
+        @Test
+        void should_buildScheduleFromSingleQuery_when_searchingDaySchedule_and_dateCorrect(){
+            LocalDate today = LocalDate.now();
+            List<DayScheduleRow> rows = List.of(new DayScheduleRow(roomOne.getId(), roomOne.getRoomType(), roomOne.getOpeningHours()
+                    , roomOne.getClosingHours(), roomOne.getTotalCapacity(), null, null, null, null, null, 0));
+            DaySchedule schedule = new DaySchedule(today, List.of());
+            when(formatCheckService.checkDateFormat(today.toString())).thenReturn(today);
+            when(roomRepository.findDayScheduleRows(today)).thenReturn(rows);
+            when(roomTemplates.findTemplatesFor(today)).thenReturn(List.of());
+            when(sessionServiceImpl.createDaySchedule(today, rows, List.of())).thenReturn(schedule);
+            when(dayScheduleCache.get(eq(today), any())).thenAnswer(invocation -> invocation.<Function<LocalDate, DaySchedule>>getArgument(1).apply(today));
+
+            assertEquals(schedule, sessionService.getDaySchedule(today.toString()));
+            verify(roomRepository, never()).findAllRoomsByDate(any());
+            verify(roomTemplates, never()).findOrCreateRoom(any(), any());
+        }
+
         @Test
         void should_throwException400BadRequest_when_searchingAllSessionsFromAllRoomsByDate_and_dateFormatIncorrect(){
             when(formatCheckService.checkDateFormat(any())).thenThrow(new BadRequestApiRequestException("Incorrect date. Correct format is: yyyy-mm-dd"));
@@ -380,49 +669,81 @@ public class YogaSessionServiceTest {
         @Test
         void should_returnRoomUsingCorrectMethod_when_searchingSessionsByParams_and_roomTypeAllDatePresent(){
             when(formatCheckService.checkDateFormat(dateString)).thenReturn(date);
-            when(yogaSessionRepository.findYogaSessionByDateAndRoomIsNotNull(date)).thenReturn(sessionList);
-            assertEquals(sessionList,sessionService.findSessionsByParams(Optional.of(dateString),Optional.of("all")));
+            when(yogaSessionRepository.findSummariesByDateWithRoom(date)).thenReturn(summaryList);
+            assertEquals(summaryList,sessionService.findSessionsByParams(Optional.of(dateString),Optional.of("all")));
         }
         @Test
         void should_returnRoomUsingCorrectMethod_when_searchingSessionsByParams_and_roomTypeAllDateNotPresent(){
-            when(yogaSessionRepository.findYogaSessionByRoomIsNotNull()).thenReturn(sessionList);
-            assertEquals(sessionList,sessionService.findSessionsByParams(Optional.empty(),Optional.of("all")));
+            when(yogaSessionRepository.findSummariesWithRoom()).thenReturn(summaryList);
+            assertEquals(summaryList,sessionService.findSessionsByParams(Optional.empty(),Optional.of("all")));
         }
         @Test
         void should_returnRoomUsingCorrectMethod_when_searchingSessionsByParams_and_roomTypeNoneDatePresent(){
             when(formatCheckService.checkDateFormat(dateString)).thenReturn(date);
-            when(yogaSessionRepository.findYogaSessionByDateAndRoomIsNull(date)).thenReturn(sessionList);
-            assertEquals(sessionList,sessionService.findSessionsByParams(Optional.of(dateString),Optional.of("none")));
+            when(yogaSessionRepository.findSummariesByDateWithoutRoom(date)).thenReturn(summaryList);
+            assertEquals(summaryList,sessionService.findSessionsByParams(Optional.of(dateString),Optional.of("none")));
         }
 
         @Test
         void should_returnRoomUsingCorrectMethod_when_searchingSessionsByParams_and_roomTypeNoneDateNotPresent(){
-            when(yogaSessionRepository.findYogaSessionByRoomIsNull()).thenReturn(sessionList);
-            assertEquals(sessionList,sessionService.findSessionsByParams(Optional.empty(),Optional.of("none")));
+            when(yogaSessionRepository.findSummariesWithoutRoom()).thenReturn(summaryList);
+            assertEquals(summaryList,sessionService.findSessionsByParams(Optional.empty(),Optional.of("none")));
         }
         @Test
         void should_returnRoomUsingCorrectMethod_when_searchingSessionsByParams_and_roomTypePresentDatePresent(){
             when(formatCheckService.checkDateFormat(dateString)).thenReturn(date);
             when(formatCheckService.checkRoomTypeFormat(roomTypeString)).thenReturn(yogaRoomType);
-            when(yogaSessionRepository.findYogaSessionByRoomTypeAndDateAndRoomIsNotNull(yogaRoomType,date)).thenReturn(sessionList);
-            assertEquals(sessionList,sessionService.findSessionsByParams(Optional.of(dateString),Optional.of(roomTypeString)));
+            when(yogaSessionRepository.findSummariesByRoomTypeAndDateWithRoom(yogaRoomType,date)).thenReturn(summaryList);
+            assertEquals(summaryList,sessionService.findSessionsByParams(Optional.of(dateString),Optional.of(roomTypeString)));
         }
         @Test
         void should_returnRoomUsingCorrectMethod_when_searchingSessionsByParams_and_roomTypePresentDateNotPresent(){
             when(formatCheckService.checkRoomTypeFormat(roomTypeString)).thenReturn(yogaRoomType);
-            when(yogaSessionRepository.findYogaSessionByRoomTypeAndRoomIsNotNull(yogaRoomType)).thenReturn(sessionList);
-            assertEquals(sessionList,sessionService.findSessionsByParams(Optional.empty(),Optional.of(roomTypeString)));
+            when(yogaSessionRepository.findSummariesByRoomTypeWithRoom(yogaRoomType)).thenReturn(summaryList);
+            assertEquals(summaryList,sessionService.findSessionsByParams(Optional.empty(),Optional.of(roomTypeString)));
         }
         @Test
         void should_returnRoomUsingCorrectMethod_when_searchingSessionsByParams_and_roomTypeNotPresentDatePresent(){
             when(formatCheckService.checkDateFormat(dateString)).thenReturn(date);
-            when( yogaSessionRepository.findYogaSessionByDateAndRoomIsNotNull(date)).thenReturn(sessionList);
-            assertEquals(sessionList,sessionService.findSessionsByParams(Optional.of(dateString),Optional.empty()));
+            when( yogaSessionRepository.findSummariesByDateWithRoom(date)).thenReturn(summaryList);
+            assertEquals(summaryList,sessionService.findSessionsByParams(Optional.of(dateString),Optional.empty()));
         }
         @Test
         void should_returnRoomUsingCorrectMethod_when_searchingSessionsByParams_and_roomTypeNotPresentDateNotPresent(){
-            when(yogaSessionRepository.findAll()).thenReturn(sessionList);
-            assertEquals(sessionList,sessionService.findSessionsByParams(Optional.empty(),Optional.empty()));
+            when(yogaSessionRepository.findAllSummaries()).thenReturn(summaryList);
+            assertEquals(summaryList,sessionService.findSessionsByParams(Optional.empty(),Optional.empty()));
+            verify(yogaSessionRepository, never()).findVersionTag();
+        }
+        @Test
+        void should_continueAfterCursor_when_pagingSessionsByParams_and_roomTypeNoneCursorPassed(){
+            PageCursor after = new PageCursor(date, LocalTime.of(10,0,0), 5);
+            SessionSummary first = createPagedSession(6, LocalTime.of(11,0,0));
+            SessionSummary second = createPagedSession(7, LocalTime.of(12,0,0));
+            when(yogaSessionRepository.findPageWithoutRoomAfter(date, LocalTime.of(10,0,0), 5, PageRequest.of(0, 2)))
+                    .thenReturn(List.of(first, second));
+
+            KeysetPage<SessionSummary> page = sessionService.findSessionsPageByParams(Optional.empty(), Optional.of("none")
+                    , Optional.of(after.encode()), Optional.of("1"));
+
+            assertEquals(List.of(first), page.content());
+            assertEquals(new PageCursor(date, LocalTime.of(11,0,0), 6), PageCursor.decode(page.nextCursor()));
+        }
+        @Test
+        void should_pageByStartTime_when_pagingSessionsByParams_and_datePresent(){
+            SessionSummary late = createPagedSession(2, LocalTime.of(15,0,0));
+            SessionSummary early = createPagedSession(9, LocalTime.of(9,0,0));
+            when(formatCheckService.checkDateFormat(dateString)).thenReturn(date);
+            when(yogaSessionRepository.findSummariesByDateWithRoom(date)).thenReturn(List.of(late, early));
+
+            KeysetPage<SessionSummary> page = sessionService.findSessionsPageByParams(Optional.of(dateString), Optional.empty()
+                    , Optional.empty(), Optional.empty());
+
+            assertEquals(List.of(early, late), page.content());
+            assertNull(page.nextCursor());
+        }
+
+        private SessionSummary createPagedSession(int id, LocalTime start){
+            return new SessionSummary(id, date, start, start.plusHours(1), 60, 0, 0, yogaRoomType, null);
         }
     }
 
@@ -617,6 +938,7 @@ public class YogaSessionServiceTest {
             when(yogaSessionRepository.findById(session.getId())).thenReturn(Optional.ofNullable(session));
             sessionService.deleteASession(session.getId());
             verify(yogaSessionRepository,times(1)).delete(session);
+            verify(dayScheduleCache,times(1)).invalidate(session.getDate());
         }
         @Test
         void should_throwException404NotFound_when_deletingASession_and_sessionDoesntExists(){
@@ -5,8 +5,11 @@ import dev.milan.jpasolopractice.customException.differentExceptions.BadRequestA
 import dev.milan.jpasolopractice.customException.differentExceptions.ConflictApiRequestException;
 import dev.milan.jpasolopractice.customException.differentExceptions.ForbiddenApiRequestException;
 import dev.milan.jpasolopractice.customException.differentExceptions.NotFoundApiRequestException;
+import dev.milan.jpasolopractice.dto.DaySchedule;
+import dev.milan.jpasolopractice.dto.DayScheduleRow;
 import dev.milan.jpasolopractice.model.Person;
 import dev.milan.jpasolopractice.model.Room;
+import dev.milan.jpasolopractice.model.RoomTemplate;
 import dev.milan.jpasolopractice.model.RoomType;
 import dev.milan.jpasolopractice.model.YogaSession;
 import dev.milan.jpasolopractice.service.PersonService;
@@ -20,6 +23,7 @@ import org.mockito.Mock;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.mock;
@@ -69,7 +73,7 @@ public class YogaSessionServiceUtilTest {
      @Test
      void should_createSessionWithCorrectValues_when_creatingYogaSession_and_correctValuesPassed() throws NotFoundApiRequestException {
          YogaSession temp = sessionServiceImpl.createAYogaSession(date,roomType,startTime,duration);
-         assertEquals(session, temp);
+         assertTrue(session.hasSameDetails(temp));
      }
      @Test
      void should_setCurrentDate_when_creatingYogaSession_and_passedDateInThePast()  {
@@ -161,6 +165,18 @@ public class YogaSessionServiceUtilTest {
             Exception exception = assertThrows(ForbiddenApiRequestException.class,()->sessionServiceImpl.addMember(personOne,session));
             assertEquals("Session id:" + session.getId() + " member limit reached.",exception.getMessage());
         }
+        @Test
+        void should_throwException403Forbidden_when_addingPersonToSession_and_remainingSpaceHeld(){
+            for (int i = 0; i< roomType.getMaxCapacity() - 1; i++){
+                session.bookOneSpace();
+            }
+            session.setHeldSpace(1);
+            when(personService.addSessionToPerson(session,personOne)).thenReturn(true);
+
+            Exception exception = assertThrows(ForbiddenApiRequestException.class,()->sessionServiceImpl.addMember(personOne,session));
+            assertEquals("Session id:" + session.getId() + " member limit reached.",exception.getMessage());
+            assertEquals(0, session.getFreeSpace());
+        }
 
         @Test
         void should_throwException400NotFound_when_removingPersonFromSession_and_personNotFound(){
@@ -176,4 +192,54 @@ public class YogaSessionServiceUtilTest {
             assertTrue(session.getMembersAttending().isEmpty());
         }
     }
+    @Nested
+    class CreatingDaySchedule{
+        @Test
+        void should_groupSessionsUnderTheirRoom_when_creatingDaySchedule_and_rowsPassed(){
+            List<DayScheduleRow> rows = List.of(
+                    new DayScheduleRow(1, RoomType.AIR_ROOM, LocalTime.of(8,0,0), LocalTime.of(22,0,0), 10
+                            , 4, LocalTime.of(9,0,0), LocalTime.of(10,0,0), 2, 8, 2),
+                    new DayScheduleRow(1, RoomType.AIR_ROOM, LocalTime.of(8,0,0), LocalTime.of(22,0,0), 10
+                            , 5, LocalTime.of(12,0,0), LocalTime.of(13,0,0), 0, 10, 0),
+                    new DayScheduleRow(2, RoomType.EARTH_ROOM, LocalTime.of(8,0,0), LocalTime.of(22,0,0), 20
+                            , 6, LocalTime.of(9,0,0), LocalTime.of(10,0,0), 1, 19, 1));
+
+            DaySchedule schedule = sessionServiceImpl.createDaySchedule(date, rows);
+
+            assertEquals(date, schedule.date());
+            assertEquals(2, schedule.rooms().size());
+            assertEquals(List.of(4, 5), schedule.rooms().get(0).sessions().stream().map(DaySchedule.SessionSlot::id).toList());
+            assertEquals(1, schedule.rooms().get(1).sessions().get(0).membersAttending());
+        }
+        @Test
+        void should_keepRoomWithEmptySessions_when_creatingDaySchedule_and_roomHasNoSessions(){
+            List<DayScheduleRow> rows = List.of(new DayScheduleRow(3, RoomType.FIRE_ROOM, LocalTime.of(8,0,0), LocalTime.of(22,0,0), 15
+                    , null, null, null, null, null, 0));
+
+            DaySchedule schedule = sessionServiceImpl.createDaySchedule(date, rows);
+
+            assertEquals(1, schedule.rooms().size());
+            assertTrue(schedule.rooms().get(0).sessions().isEmpty());
+        }
+        @Test
+        void should_addUncreatedTemplateRooms_when_creatingDaySchedule_and_templatesPassed(){
+            List<DayScheduleRow> rows = List.of(new DayScheduleRow(3, RoomType.FIRE_ROOM, LocalTime.of(8,0,0), LocalTime.of(22,0,0), 15
+                    , null, null, null, null, null, 0));
+            RoomTemplate fire = new RoomTemplate();
+            fire.setRoomType(RoomType.FIRE_ROOM);
+            RoomTemplate air = new RoomTemplate();
+            air.setRoomType(RoomType.AIR_ROOM);
+            air.setOpeningHours(LocalTime.of(7,0,0));
+            air.setClosingHours(LocalTime.of(21,0,0));
+            air.setTotalCapacity(10);
+
+            DaySchedule schedule = sessionServiceImpl.createDaySchedule(date, rows, List.of(air, fire));
+
+            assertEquals(List.of(RoomType.FIRE_ROOM, RoomType.AIR_ROOM), schedule.rooms().stream().map(DaySchedule.RoomSchedule::roomType).toList());
+            assertEquals(Integer.valueOf(3), schedule.rooms().get(0).id());
+            assertNull(schedule.rooms().get(1).id());
+            assertEquals(LocalTime.of(7,0,0), schedule.rooms().get(1).openingHours());
+            assertTrue(schedule.rooms().get(1).sessions().isEmpty());
+        }
+    }
 }